@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import dalvik.system.BaseDexClassLoader;
+import dalvik.system.PathClassLoader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Measures the time to create a class loader against the number of entries in its path. The
+ * entries are resource-only jars, so this covers opening each file and probing it for dex
+ * code.
+ */
+public class ClassLoaderCreationBenchmark {
+
+    @Param({"1", "10", "50"}) int numElements;
+    @Param({"1", "2", "4"}) int parallelism;
+
+    private File[] files;
+    private String dexPath;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        System.setProperty("java.io.tmpdir", "/data/local/tmp");
+        files = new File[numElements];
+        String[] paths = new String[numElements];
+        for (int i = 0; i < numElements; ++i) {
+            files[i] = File.createTempFile(getClass().getName(), ".jar");
+            files[i].deleteOnExit();
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(files[i]))) {
+                for (int j = 0; j < 64; ++j) {
+                    out.putNextEntry(new ZipEntry("res" + i + "/entry" + j + ".txt"));
+                    out.write(new byte[] { (byte) j });
+                    out.closeEntry();
+                }
+            }
+            paths[i] = files[i].getPath();
+        }
+        dexPath = String.join(File.pathSeparator, paths);
+        BaseDexClassLoader.setDexLoadingParallelism(parallelism);
+    }
+
+    @AfterExperiment
+    protected void tearDown() {
+        BaseDexClassLoader.setDexLoadingParallelism(1);
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    public void timeCreatePathClassLoader(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            new PathClassLoader(dexPath, null);
+        }
+    }
+}
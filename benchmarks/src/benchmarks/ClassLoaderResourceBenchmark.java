@@ -16,13 +16,67 @@
 
 package benchmarks;
 
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import dalvik.system.PathClassLoader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import junit.framework.Assert;
+import libcore.io.ClassPathURLStreamHandler;
+import libcore.io.Streams;
 
 public class ClassLoaderResourceBenchmark {
 
   private static final String EXISTENT_RESOURCE = "java/util/logging/logging.properties";
   private static final String MISSING_RESOURCE = "missing_entry";
 
+  @Param({"1", "10", "50"}) int numElements;
+  @Param({"false", "true"}) boolean lookupIndex;
+  @Param({"false", "true"}) boolean resourceCache;
+
+  private final List<File> files = new ArrayList<>();
+  private PathClassLoader pathClassLoader;
+  private String lastElementResource;
+
+  @BeforeExperiment
+  protected void setUp() throws Exception {
+    System.setProperty("java.io.tmpdir", "/data/local/tmp");
+    String[] paths = new String[numElements];
+    for (int i = 0; i < numElements; ++i) {
+      File file = File.createTempFile(getClass().getName(), ".jar");
+      file.deleteOnExit();
+      files.add(file);
+      try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+        for (int j = 0; j < 32; ++j) {
+          out.putNextEntry(new ZipEntry("res" + i + "/entry" + j + ".txt"));
+          out.write(new byte[] { (byte) j });
+          out.closeEntry();
+        }
+      }
+      paths[i] = file.getPath();
+    }
+    lastElementResource = "res" + (numElements - 1) + "/entry31.txt";
+    pathClassLoader = new PathClassLoader(String.join(File.pathSeparator, paths), null);
+    pathClassLoader.setLookupIndexEnabled(lookupIndex);
+    if (resourceCache) {
+      ClassPathURLStreamHandler.setResourceCacheLimits(16 * 1024, 1024 * 1024);
+    }
+  }
+
+  @AfterExperiment
+  protected void tearDown() {
+    ClassPathURLStreamHandler.setResourceCacheLimits(0, 0);
+    for (File file : files) {
+      file.delete();
+    }
+  }
+
   public void timeGetBootResource_hit(int reps) {
     ClassLoader currentClassLoader = getClass().getClassLoader();
     Assert.assertNotNull(currentClassLoader.getResource(EXISTENT_RESOURCE));
@@ -41,4 +95,38 @@ public class ClassLoaderResourceBenchmark {
     }
   }
 
+  public void timeGetPathResource_lastElementHit(int reps) {
+    Assert.assertNotNull(pathClassLoader.getResource(lastElementResource));
+
+    for (int rep = 0; rep < reps; ++rep) {
+      pathClassLoader.getResource(lastElementResource);
+    }
+  }
+
+  public void timeGetPathResource_miss(int reps) {
+    Assert.assertNull(pathClassLoader.getResource(MISSING_RESOURCE));
+
+    for (int rep = 0; rep < reps; ++rep) {
+      pathClassLoader.getResource(MISSING_RESOURCE);
+    }
+  }
+
+  public void timeReadPathResource(int reps) throws Exception {
+    for (int rep = 0; rep < reps; ++rep) {
+      try (InputStream in = pathClassLoader.getResourceAsStream(lastElementResource)) {
+        Streams.readFullyNoClose(in);
+      }
+    }
+  }
+
+  public void timeLoadPathClass_miss(int reps) {
+    for (int rep = 0; rep < reps; ++rep) {
+      try {
+        pathClassLoader.loadClass("missing.Missing");
+        Assert.fail();
+      } catch (ClassNotFoundException expected) {
+      }
+    }
+  }
+
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import libcore.util.StripedBlockingQueue;
+
+/**
+ * How many trivial tasks per second can a fixed-size ThreadPoolExecutor run when
+ * several threads submit to it, depending on its work queue?
+ */
+public class ExecutorThroughputBenchmark {
+    enum QueueType {
+        LINKED {
+            @Override BlockingQueue<Runnable> newQueue() {
+                return new LinkedBlockingQueue<Runnable>();
+            }
+        },
+        STRIPED {
+            @Override BlockingQueue<Runnable> newQueue() {
+                return new StripedBlockingQueue<Runnable>();
+            }
+        };
+
+        abstract BlockingQueue<Runnable> newQueue();
+    }
+
+    @Param private QueueType queue;
+    @Param({"1", "4", "8"}) private int submitters;
+    @Param({"4", "16"}) private int workers;
+
+    private ThreadPoolExecutor executor;
+
+    @BeforeExperiment
+    protected void setUp() {
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                queue.newQueue());
+        executor.prestartAllCoreThreads();
+    }
+
+    @AfterExperiment
+    protected void tearDown() throws Exception {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public void timeExecute(int reps) throws Exception {
+        final int tasksPerSubmitter = Math.max(1, reps / submitters);
+        final CountDownLatch done = new CountDownLatch(tasksPerSubmitter * submitters);
+        final Runnable task = new Runnable() {
+            @Override public void run() {
+                done.countDown();
+            }
+        };
+        Thread[] threads = new Thread[submitters];
+        for (int s = 0; s < submitters; ++s) {
+            threads[s] = new Thread() {
+                @Override public void run() {
+                    for (int i = 0; i < tasksPerSubmitter; ++i) {
+                        executor.execute(task);
+                    }
+                }
+            };
+            threads[s].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        done.await();
+    }
+}
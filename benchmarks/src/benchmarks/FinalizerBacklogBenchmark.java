@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.Assert;
+
+/**
+ * Measures how long the finalizer threads take to drain a burst of finalizable objects, such
+ * as many streams or sockets becoming unreachable at once.
+ */
+public class FinalizerBacklogBenchmark {
+
+    @Param({"1", "2", "4"}) int finalizerThreads;
+    @Param({"1000", "10000"}) int backlog;
+    // Simulated work per finalizer, e.g. closing a file descriptor.
+    @Param({"0", "20"}) int finalizerMicros;
+
+    private final AtomicInteger finalized = new AtomicInteger();
+
+    @BeforeExperiment
+    protected void setUp() {
+        Daemons.setFinalizerThreadCount(finalizerThreads);
+    }
+
+    @AfterExperiment
+    protected void tearDown() {
+        Daemons.setFinalizerThreadCount(1);
+    }
+
+    public void timeDrainBacklog(int reps) {
+        for (int rep = 0; rep < reps; ++rep) {
+            finalized.set(0);
+            createBacklog();
+            System.gc();
+            System.runFinalization();
+            Assert.assertEquals(backlog, finalized.get());
+        }
+    }
+
+    // Kept out of line so that no register keeps the last object reachable.
+    private void createBacklog() {
+        for (int i = 0; i < backlog; ++i) {
+            new Finalizable(finalized, finalizerMicros);
+        }
+    }
+
+    static final class Finalizable {
+        private final AtomicInteger finalized;
+        private final int micros;
+
+        Finalizable(AtomicInteger finalized, int micros) {
+            this.finalized = finalized;
+            this.micros = micros;
+        }
+
+        @Override protected void finalize() {
+            if (micros > 0) {
+                long end = System.nanoTime() + micros * 1000L;
+                while (System.nanoTime() < end) {
+                    // Busy wait, like a finalizer doing real work.
+                }
+            }
+            finalized.incrementAndGet();
+        }
+    }
+}
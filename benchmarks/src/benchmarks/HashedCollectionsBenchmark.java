@@ -17,9 +17,13 @@
 package benchmarks;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.LinkedHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import libcore.util.IntIntMap;
+import libcore.util.IntObjectMap;
+import libcore.util.LongHashSet;
 
 /**
  * How do the various hash maps compare?
@@ -64,4 +68,74 @@ public class HashedCollectionsBenchmark {
             map.get("hello");
         }
     }
+    public void timeHashMapIntegerGet(int reps) {
+        HashMap<Integer, String> map = new HashMap<Integer, String>();
+        for (int fd = 0; fd < 64; ++fd) {
+            map.put(fd, "hello");
+        }
+        for (int i = 0; i < reps; ++i) {
+            map.get(i & 63);
+        }
+    }
+    public void timeIntObjectMapGet(int reps) {
+        IntObjectMap<String> map = new IntObjectMap<String>();
+        for (int fd = 0; fd < 64; ++fd) {
+            map.put(fd, "hello");
+        }
+        for (int i = 0; i < reps; ++i) {
+            map.get(i & 63);
+        }
+    }
+    public void timeHashMapIntegerPutRemove(int reps) {
+        HashMap<Integer, String> map = new HashMap<Integer, String>();
+        for (int i = 0; i < reps; ++i) {
+            map.put(i & 1023, "hello");
+            map.remove((i - 512) & 1023);
+        }
+    }
+    public void timeIntObjectMapPutRemove(int reps) {
+        IntObjectMap<String> map = new IntObjectMap<String>();
+        for (int i = 0; i < reps; ++i) {
+            map.put(i & 1023, "hello");
+            map.remove((i - 512) & 1023);
+        }
+    }
+    public void timeHashMapIntegerCounters(int reps) {
+        HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
+        for (int i = 0; i < reps; ++i) {
+            int uid = 10000 + (i & 255);
+            Integer count = map.get(uid);
+            map.put(uid, count == null ? 1 : count + 1);
+        }
+    }
+    public void timeIntIntMapCounters(int reps) {
+        IntIntMap map = new IntIntMap();
+        for (int i = 0; i < reps; ++i) {
+            map.add(10000 + (i & 255), 1);
+        }
+    }
+    public void timeIntIntMapCounters_OffHeap(int reps) {
+        IntIntMap map = IntIntMap.createOffHeap(256);
+        for (int i = 0; i < reps; ++i) {
+            map.add(10000 + (i & 255), 1);
+        }
+    }
+    public void timeHashSetLongContains(int reps) {
+        HashSet<Long> set = new HashSet<Long>();
+        for (long id = 0; id < 64; ++id) {
+            set.add(id << 32);
+        }
+        for (int i = 0; i < reps; ++i) {
+            set.contains((long) (i & 127) << 32);
+        }
+    }
+    public void timeLongHashSetContains(int reps) {
+        LongHashSet set = new LongHashSet();
+        for (long id = 0; id < 64; ++id) {
+            set.add(id << 32);
+        }
+        for (int i = 0; i < reps; ++i) {
+            set.contains((long) (i & 127) << 32);
+        }
+    }
 }
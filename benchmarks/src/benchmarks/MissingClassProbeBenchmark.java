@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks;
+
+import com.google.caliper.BeforeExperiment;
+import dalvik.system.PathClassLoader;
+import junit.framework.Assert;
+
+/**
+ * Measures repeatedly probing a class loader for a class that doesn't exist, as libraries do
+ * when checking for optional dependencies. Like an app's own loader, the loader probed is a
+ * PathClassLoader over the benchmark's class path whose parent is the boot class loader.
+ */
+public class MissingClassProbeBenchmark {
+
+    private static final String MISSING_CLASS = "benchmarks.MissingClassProbeBenchmark$Missing";
+
+    private PathClassLoader classLoader;
+
+    @BeforeExperiment
+    protected void setUp() {
+        classLoader = new PathClassLoader(System.getProperty("java.class.path"),
+                Object.class.getClassLoader());
+    }
+
+    public void timeClassForName_miss(int reps) {
+        for (int rep = 0; rep < reps; ++rep) {
+            try {
+                Class.forName(MISSING_CLASS, false, classLoader);
+                Assert.fail();
+            } catch (ClassNotFoundException expected) {
+            }
+        }
+    }
+
+    public void timeLoadClass_miss(int reps) {
+        for (int rep = 0; rep < reps; ++rep) {
+            try {
+                classLoader.loadClass(MISSING_CLASS);
+                Assert.fail();
+            } catch (ClassNotFoundException expected) {
+            }
+        }
+    }
+
+    public void timeTryLoadClass_miss(int reps) {
+        for (int rep = 0; rep < reps; ++rep) {
+            if (classLoader.tryLoadClass(MISSING_CLASS) != null) {
+                Assert.fail();
+            }
+        }
+    }
+
+    public void timeTryLoadClass_hit(int reps) {
+        for (int rep = 0; rep < reps; ++rep) {
+            if (classLoader.tryLoadClass("benchmarks.MissingClassProbeBenchmark") == null) {
+                Assert.fail();
+            }
+        }
+    }
+}
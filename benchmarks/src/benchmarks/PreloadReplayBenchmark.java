@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import dalvik.system.PathClassLoader;
+import dalvik.system.ZygoteHooks;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Measures the startup time of a workload that looks up one resource in each of many jars
+ * with a fresh class loader, with and without first replaying a preload profile recorded from
+ * the same workload.
+ */
+public class PreloadReplayBenchmark {
+
+    @Param({"10", "50"}) int numElements;
+    @Param({"1", "4"}) int threads;
+
+    private File[] files;
+    private File profile;
+    private String dexPath;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        System.setProperty("java.io.tmpdir", "/data/local/tmp");
+        files = new File[numElements];
+        String[] paths = new String[numElements];
+        for (int i = 0; i < numElements; ++i) {
+            files[i] = File.createTempFile(getClass().getName(), ".jar");
+            files[i].deleteOnExit();
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(files[i]))) {
+                for (int j = 0; j < 64; ++j) {
+                    out.putNextEntry(new ZipEntry("res" + i + "/entry" + j + ".txt"));
+                    out.write(new byte[] { (byte) j });
+                    out.closeEntry();
+                }
+            }
+            paths[i] = files[i].getPath();
+        }
+        dexPath = String.join(File.pathSeparator, paths);
+
+        profile = File.createTempFile(getClass().getName(), ".txt");
+        ZygoteHooks.startPreloadRecording();
+        runWorkload(new PathClassLoader(dexPath, null));
+        ZygoteHooks.stopPreloadRecording(profile);
+    }
+
+    @AfterExperiment
+    protected void tearDown() {
+        for (File file : files) {
+            file.delete();
+        }
+        profile.delete();
+    }
+
+    private void runWorkload(ClassLoader loader) {
+        for (int i = 0; i < numElements; ++i) {
+            if (loader.getResource("res" + i + "/entry0.txt") == null) {
+                throw new AssertionError();
+            }
+        }
+    }
+
+    public void timeStartupCold(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            runWorkload(new PathClassLoader(dexPath, null));
+        }
+    }
+
+    public void timeStartupWithReplay(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            PathClassLoader loader = new PathClassLoader(dexPath, null);
+            ZygoteHooks.preloadFromProfile(profile, loader, false, threads);
+            runWorkload(loader);
+        }
+    }
+}
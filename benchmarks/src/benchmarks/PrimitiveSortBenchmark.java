@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.util.Arrays;
+import java.util.Random;
+import libcore.util.PrimitiveArrays;
+
+/**
+ * Compares Arrays.sort and Arrays.parallelSort with the radix sorts of
+ * PrimitiveArrays, and repeated Arrays.binarySearch with a batched search. Each
+ * rep sorts a fresh copy of the same random data; the copy is part of the time for
+ * every algorithm. The largest length needs over a gigabyte of heap for doubles.
+ */
+public class PrimitiveSortBenchmark {
+    enum Algorithm {
+        ARRAYS_SORT {
+            @Override void sort(int[] a) { Arrays.sort(a); }
+            @Override void sort(long[] a) { Arrays.sort(a); }
+            @Override void sort(double[] a) { Arrays.sort(a); }
+        },
+        ARRAYS_PARALLEL_SORT {
+            @Override void sort(int[] a) { Arrays.parallelSort(a); }
+            @Override void sort(long[] a) { Arrays.parallelSort(a); }
+            @Override void sort(double[] a) { Arrays.parallelSort(a); }
+        },
+        RADIX_SORT {
+            @Override void sort(int[] a) { PrimitiveArrays.sort(a); }
+            @Override void sort(long[] a) { PrimitiveArrays.sort(a); }
+            @Override void sort(double[] a) { PrimitiveArrays.sort(a); }
+        },
+        PARALLEL_RADIX_SORT {
+            @Override void sort(int[] a) { PrimitiveArrays.parallelSort(a); }
+            @Override void sort(long[] a) { PrimitiveArrays.parallelSort(a); }
+            @Override void sort(double[] a) { PrimitiveArrays.parallelSort(a); }
+        };
+
+        abstract void sort(int[] a);
+        abstract void sort(long[] a);
+        abstract void sort(double[] a);
+    }
+
+    @Param private Algorithm algorithm;
+    @Param({"1000", "100000", "10000000", "100000000"}) private int arrayLength;
+
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private int[] sortedInts;
+    private int[] searchKeys;
+
+    @BeforeExperiment
+    protected void setUp() {
+        Random random = new Random(42);
+        ints = new int[arrayLength];
+        longs = new long[arrayLength];
+        doubles = new double[arrayLength];
+        for (int i = 0; i < arrayLength; ++i) {
+            ints[i] = random.nextInt();
+            longs[i] = random.nextLong();
+            doubles[i] = random.nextGaussian();
+        }
+        sortedInts = ints.clone();
+        Arrays.sort(sortedInts);
+        searchKeys = new int[Math.min(arrayLength, 100000)];
+        for (int i = 0; i < searchKeys.length; ++i) {
+            searchKeys[i] = random.nextInt();
+        }
+        Arrays.sort(searchKeys);
+    }
+
+    public void timeSortInts(int reps) {
+        int[] a = new int[arrayLength];
+        for (int rep = 0; rep < reps; ++rep) {
+            System.arraycopy(ints, 0, a, 0, arrayLength);
+            algorithm.sort(a);
+        }
+    }
+
+    public void timeSortLongs(int reps) {
+        long[] a = new long[arrayLength];
+        for (int rep = 0; rep < reps; ++rep) {
+            System.arraycopy(longs, 0, a, 0, arrayLength);
+            algorithm.sort(a);
+        }
+    }
+
+    public void timeSortDoubles(int reps) {
+        double[] a = new double[arrayLength];
+        for (int rep = 0; rep < reps; ++rep) {
+            System.arraycopy(doubles, 0, a, 0, arrayLength);
+            algorithm.sort(a);
+        }
+    }
+
+    public int timeSortIndices(int reps) {
+        int result = 0;
+        for (int rep = 0; rep < reps; ++rep) {
+            result += (algorithm == Algorithm.PARALLEL_RADIX_SORT)
+                    ? PrimitiveArrays.parallelSortIndices(ints)[0]
+                    : PrimitiveArrays.sortIndices(ints)[0];
+        }
+        return result;
+    }
+
+    public int timeBinarySearchEach(int reps) {
+        int result = 0;
+        for (int rep = 0; rep < reps; ++rep) {
+            for (int key : searchKeys) {
+                result += Arrays.binarySearch(sortedInts, key);
+            }
+        }
+        return result;
+    }
+
+    public int timeBinarySearchBatch(int reps) {
+        int result = 0;
+        for (int rep = 0; rep < reps; ++rep) {
+            result += (algorithm == Algorithm.PARALLEL_RADIX_SORT)
+                    ? PrimitiveArrays.parallelBinarySearch(sortedInts, searchKeys)[0]
+                    : PrimitiveArrays.binarySearch(sortedInts, searchKeys)[0];
+        }
+        return result;
+    }
+}
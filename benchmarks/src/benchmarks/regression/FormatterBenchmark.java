@@ -54,6 +54,26 @@ public class FormatterBenchmark {
         }
     }
 
+    public void timePrecompiled_OneInt(int reps) {
+        Formatter.Precompiled format = Formatter.Precompiled.compile(
+                "this is a reasonably short string that has an int %d in it");
+        Integer value = Integer.valueOf(1024); // We're not trying to benchmark boxing here.
+        for (int i = 0; i < reps; i++) {
+            format.format(Locale.US, value);
+        }
+    }
+
+    public void timePrecompiled_OneIntReusedBuilder(int reps) {
+        Formatter.Precompiled format = Formatter.Precompiled.compile(
+                "this is a reasonably short string that has an int %d in it");
+        Integer value = Integer.valueOf(1024); // We're not trying to benchmark boxing here.
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < reps; i++) {
+            sb.setLength(0);
+            format.formatTo(sb, Locale.US, value);
+        }
+    }
+
     public void timeStringBuilder_OneInt(int reps) {
         for (int i = 0; i < reps; i++) {
             StringBuilder sb = new StringBuilder();
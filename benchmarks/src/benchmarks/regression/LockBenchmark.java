@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Measures the throughput of short critical sections guarded by a lock or a binary
+ * semaphore that several threads contend for, with and without adaptive spinning.
+ */
+public class LockBenchmark {
+    @Param({"2", "4", "8", "16", "32"}) private int threads;
+    @Param({"false", "true"}) private boolean spinning;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Semaphore semaphore = new Semaphore(1);
+    private long counter;
+
+    @BeforeExperiment
+    protected void setUp() {
+        AbstractQueuedSynchronizer.setAdaptiveSpinningEnabled(spinning);
+    }
+
+    @AfterExperiment
+    protected void tearDown() {
+        AbstractQueuedSynchronizer.setAdaptiveSpinningEnabled(false);
+    }
+
+    public void timeReentrantLock(int reps) throws Exception {
+        run(reps, new Runnable() {
+            @Override public void run() {
+                lock.lock();
+                try {
+                    counter++;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
+    public void timeSemaphore(int reps) throws Exception {
+        run(reps, new Runnable() {
+            @Override public void run() {
+                semaphore.acquireUninterruptibly();
+                try {
+                    counter++;
+                } finally {
+                    semaphore.release();
+                }
+            }
+        });
+    }
+
+    // Runs the critical section reps times in total, shared among the threads.
+    private void run(int reps, final Runnable criticalSection) throws Exception {
+        final int repsPerThread = Math.max(1, reps / threads);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; ++t) {
+            workers[t] = new Thread() {
+                @Override public void run() {
+                    for (int i = 0; i < repsPerThread; ++i) {
+                        criticalSection.run();
+                    }
+                }
+            };
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+}
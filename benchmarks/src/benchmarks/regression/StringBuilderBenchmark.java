@@ -137,4 +137,34 @@ public class StringBuilderBenchmark {
             }
         }
     }
+
+    public void timeAppendNonLatin1String(int reps) {
+        String s = "\u03c7\u03b1\u03c1\u03c2";
+        for (int i = 0; i < reps; ++i) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < length; ++j) {
+                sb.append(s);
+            }
+        }
+    }
+
+    public void timeToString(int reps) {
+        StringBuilder sb = new StringBuilder();
+        for (int j = 0; j < length; ++j) {
+            sb.append("chars");
+        }
+        for (int i = 0; i < reps; ++i) {
+            sb.toString();
+        }
+    }
+
+    public void timeToStringNonLatin1(int reps) {
+        StringBuilder sb = new StringBuilder();
+        for (int j = 0; j < length; ++j) {
+            sb.append("\u03c7\u03b1\u03c1\u03c2");
+        }
+        for (int i = 0; i < reps; ++i) {
+            sb.toString();
+        }
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import libcore.util.TimingWheelScheduledExecutor;
+
+/**
+ * Measures scheduling and cancelling a timeout that never fires, as a connection does,
+ * while many other timeouts are pending.
+ */
+public class TimerBenchmark {
+    @Param({"1000", "100000"}) private int pending;
+
+    private static final Runnable NOTHING = new Runnable() {
+        @Override public void run() {
+        }
+    };
+
+    private Timer timer;
+    private ScheduledThreadPoolExecutor threadPoolExecutor;
+    private TimingWheelScheduledExecutor timingWheelExecutor;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        timer = new Timer();
+        threadPoolExecutor = new ScheduledThreadPoolExecutor(1);
+        threadPoolExecutor.setRemoveOnCancelPolicy(true);
+        timingWheelExecutor = new TimingWheelScheduledExecutor();
+        for (int i = 0; i < pending; ++i) {
+            long delay = 60000 + i;
+            timer.schedule(newTimerTask(), delay);
+            threadPoolExecutor.schedule(NOTHING, delay, TimeUnit.MILLISECONDS);
+            timingWheelExecutor.schedule(NOTHING, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @AfterExperiment
+    protected void tearDown() throws Exception {
+        timer.cancel();
+        threadPoolExecutor.shutdownNow();
+        timingWheelExecutor.shutdownNow();
+    }
+
+    private static TimerTask newTimerTask() {
+        return new TimerTask() {
+            @Override public void run() {
+            }
+        };
+    }
+
+    public void timeTimer(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            TimerTask task = newTimerTask();
+            timer.schedule(task, 30000);
+            task.cancel();
+            // Cancelled tasks stay queued until they would have run.
+            if ((i & 1023) == 1023) {
+                timer.purge();
+            }
+        }
+    }
+
+    public void timeScheduledThreadPoolExecutor(int reps) {
+        timeScheduleAndCancel(threadPoolExecutor, reps);
+    }
+
+    public void timeTimingWheelScheduledExecutor(int reps) {
+        timeScheduleAndCancel(timingWheelExecutor, reps);
+    }
+
+    private static void timeScheduleAndCancel(ScheduledExecutorService executor, int reps) {
+        for (int i = 0; i < reps; ++i) {
+            ScheduledFuture<?> future = executor.schedule(NOTHING, 30, TimeUnit.SECONDS);
+            future.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.cert.CertificateFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import sun.security.x509.X509CertImpl;
+
+/**
+ * Parses every certificate of the system CA store with X509CertImpl, then reads
+ * what different callers need of it. The CA store is used as a corpus of real
+ * certificates, with the names, keys and extensions seen in real chains.
+ */
+public class X509CertImplBenchmark {
+
+    private static final String CA_STORE = "/system/etc/security/cacerts";
+
+    public enum Access {
+        /** Nothing beyond parsing, as when a certificate is only interned. */
+        NONE {
+            @Override int access(X509CertImpl cert) {
+                return 0;
+            }
+        },
+        /** What a TLS client needs of a leaf certificate. */
+        PUBLIC_KEY_AND_SUBJECT {
+            @Override int access(X509CertImpl cert) {
+                return cert.getPublicKey().hashCode()
+                        + cert.getSubjectX500Principal().hashCode();
+            }
+        },
+        /** What path validation needs of an intermediate. */
+        CONSTRAINTS {
+            @Override int access(X509CertImpl cert) {
+                return cert.getBasicConstraints()
+                        + (cert.getKeyUsage() != null ? 1 : 0)
+                        + (cert.getAuthKeyId() != null ? 1 : 0);
+            }
+        },
+        /** Every extension, as listing their OIDs decodes them all. */
+        ALL_EXTENSIONS {
+            @Override int access(X509CertImpl cert) {
+                // Both are null for v1 certificates, which have no extensions.
+                Set<String> critical = cert.getCriticalExtensionOIDs();
+                return (critical != null)
+                        ? critical.size() + cert.getNonCriticalExtensionOIDs().size()
+                        : 0;
+            }
+        };
+
+        abstract int access(X509CertImpl cert) throws Exception;
+    }
+
+    @Param private Access access;
+
+    private byte[][] encodedCertificates;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        CertificateFactory factory = CertificateFactory.getInstance("X.509");
+        List<byte[]> encoded = new ArrayList<byte[]>();
+        for (File file : new File(CA_STORE).listFiles()) {
+            try (InputStream in = new FileInputStream(file)) {
+                encoded.add(factory.generateCertificate(in).getEncoded());
+            }
+        }
+        encodedCertificates = encoded.toArray(new byte[encoded.size()][]);
+    }
+
+    public int timeParse(int reps) throws Exception {
+        int result = 0;
+        for (int i = 0; i < reps; ++i) {
+            for (byte[] encoded : encodedCertificates) {
+                result += access.access(new X509CertImpl(encoded));
+            }
+        }
+        return result;
+    }
+}
@@ -24,6 +24,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Formatter;
 import java.util.Locale;
 
 @RunWith(AndroidJUnit4.class)
@@ -62,4 +63,17 @@ public class FormatterTest {
             }
         }
     }
+
+    @Test
+    public void precompiledFormatNumber_allLocales() {
+        final BenchmarkState state = benchmarkRule.getState();
+        final Formatter.Precompiled format = Formatter.Precompiled.compile("%d s");
+        final StringBuilder sb = new StringBuilder();
+        while (state.keepRunning()) {
+            for (Locale locale : Locale.getAvailableLocales()) {
+                sb.setLength(0);
+                format.formatTo(sb, locale, 0);
+            }
+        }
+    }
 }
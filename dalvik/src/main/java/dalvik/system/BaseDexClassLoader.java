@@ -32,6 +32,8 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import jdk.internal.misc.JavaLangAccess;
+import jdk.internal.misc.SharedSecrets;
 import libcore.util.NonNull;
 import libcore.util.Nullable;
 import sun.misc.CompoundEnumeration;
@@ -55,6 +57,16 @@ public class BaseDexClassLoader extends ClassLoader {
      */
     /* @NonNull */ private static volatile Reporter reporter = null;
 
+    /**
+     * The boot class loader, which loaders usually reach at the top of their parent chain.
+     */
+    private static final ClassLoader BOOT_CLASS_LOADER = Object.class.getClassLoader();
+
+    /**
+     * Looks up boot class path classes without throwing for a miss.
+     */
+    private static final JavaLangAccess JAVA_LANG_ACCESS = SharedSecrets.getJavaLangAccess();
+
     @UnsupportedAppUsage
     private final DexPathList pathList;
 
@@ -244,6 +256,7 @@ public class BaseDexClassLoader extends ClassLoader {
         List<Throwable> suppressedExceptions = new ArrayList<Throwable>();
         Class c = pathList.findClass(name, suppressedExceptions);
         if (c != null) {
+            ZygoteHooks.recordClassUse(name);
             return c;
         }
         // Now, check whether the class is present in the "after" shared libraries.
@@ -266,6 +279,97 @@ public class BaseDexClassLoader extends ClassLoader {
         return c;
     }
 
+    /**
+     * Loads the class with the given binary name like {@link #loadClass(String)}, but returns
+     * {@code null} instead of throwing if it can't be found. Probing for optional classes this
+     * way doesn't construct and discard a {@code ClassNotFoundException} per class loader
+     * searched.
+     *
+     * <p>Follows the delegation order of {@link #loadClass(String)} for this class. Subclasses
+     * that change the delegation order must override this method to match. Parents and shared
+     * libraries other than the platform's own dex class loaders are asked through
+     * {@code loadClass}.
+     *
+     * @param name the binary name of the class
+     * @return the class, or {@code null} if it wasn't found
+     *
+     * @hide
+     */
+    public Class<?> tryLoadClass(String name) {
+        Class<?> c = findLoadedClass(name);
+        if (c != null) {
+            return c;
+        }
+        ClassLoader parent = getParent();
+        if (parent != null) {
+            c = loadClassOrNull(parent, name);
+            if (c != null) {
+                return c;
+            }
+        }
+        return findClassOrNull(name);
+    }
+
+    /**
+     * Like {@link #findClass}, but returns {@code null} if the class isn't found.
+     */
+    /* package */ Class<?> findClassOrNull(String name) {
+        if (sharedLibraryLoaders != null) {
+            for (ClassLoader loader : sharedLibraryLoaders) {
+                Class<?> c = loadClassOrNull(loader, name);
+                if (c != null) {
+                    return c;
+                }
+            }
+        }
+        // Nothing reports why the class wasn't found, so don't collect the reasons.
+        Class<?> c = pathList.findClass(name, null);
+        if (c != null) {
+            ZygoteHooks.recordClassUse(name);
+            return c;
+        }
+        if (sharedLibraryLoadersAfter != null) {
+            for (ClassLoader loader : sharedLibraryLoadersAfter) {
+                c = loadClassOrNull(loader, name);
+                if (c != null) {
+                    return c;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Loads a class through {@code loader}, returning {@code null} if it isn't found. Uses
+     * {@link #tryLoadClass} for the platform's dex class loaders, which are known not to change
+     * it, a non-throwing lookup for the boot class loader, and {@code loadClass} for any other
+     * loader.
+     */
+    /* package */ static Class<?> loadClassOrNull(ClassLoader loader, String name) {
+        if (loader == BOOT_CLASS_LOADER) {
+            return findBootClassOrNull(name);
+        }
+        Class<?> loaderClass = loader.getClass();
+        if (loaderClass == PathClassLoader.class || loaderClass == DexClassLoader.class
+                || loaderClass == DelegateLastClassLoader.class
+                || loaderClass == InMemoryDexClassLoader.class) {
+            return ((BaseDexClassLoader) loader).tryLoadClass(name);
+        }
+        try {
+            return loader.loadClass(name);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the class with the given binary name if the boot class path defines it, or
+     * {@code null} otherwise, without constructing a {@code ClassNotFoundException}.
+     */
+    /* package */ static Class<?> findBootClassOrNull(String name) {
+        return JAVA_LANG_ACCESS.findBootClassOrNull(name);
+    }
+
     /**
      * Adds a new dex path to path list.
      *
@@ -287,6 +391,32 @@ public class BaseDexClassLoader extends ClassLoader {
         pathList.addDexPath(dexPath, null /*optimizedDirectory*/, isTrusted);
     }
 
+    /**
+     * Enables or disables indexed class and resource lookup in this class loader's dex path.
+     * Worthwhile for class paths with many elements, at the cost of a map entry per class and
+     * resource.
+     *
+     * @param enabled whether to look up classes and resources through the index
+     *
+     * @hide
+     */
+    public void setLookupIndexEnabled(boolean enabled) {
+        pathList.setLookupIndexEnabled(enabled);
+    }
+
+    /**
+     * Sets the number of threads used to open the dex and resource files of class loaders
+     * created or extended from now on. 1, the default, opens them sequentially on the calling
+     * thread. Higher values speed up creating class loaders with many path entries.
+     *
+     * @param parallelism the number of threads, at least 1
+     *
+     * @hide
+     */
+    public static void setDexLoadingParallelism(int parallelism) {
+        DexPathList.setDexLoadingParallelism(parallelism);
+    }
+
     /**
      * Adds additional native paths for consideration in subsequent calls to
      * {@link #findLibrary(String)}.
@@ -312,6 +442,7 @@ public class BaseDexClassLoader extends ClassLoader {
         }
         URL url = pathList.findResource(name);
         if (url != null) {
+            ZygoteHooks.recordResourceUse(name);
             return url;
         }
         if (sharedLibraryLoadersAfter != null) {
@@ -328,6 +459,9 @@ public class BaseDexClassLoader extends ClassLoader {
     @Override
     protected Enumeration<URL> findResources(String name) {
         Enumeration<URL> myResources = pathList.findResources(name);
+        if (myResources.hasMoreElements()) {
+            ZygoteHooks.recordResourceUse(name);
+        }
         if (sharedLibraryLoaders == null && sharedLibraryLoadersAfter == null) {
           return myResources;
         }
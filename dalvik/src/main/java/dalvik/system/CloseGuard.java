@@ -21,6 +21,8 @@ import static android.annotation.SystemApi.Client.MODULE_LIBRARIES;
 import android.annotation.SystemApi;
 import android.compat.annotation.UnsupportedAppUsage;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * CloseGuard is a mechanism for flagging implicit finalizer cleanup of
  * resources that should have been cleaned up by explicit close
@@ -137,6 +139,19 @@ public final class CloseGuard {
      */
     private static volatile Tracker currentTracker = null; // Disabled by default.
 
+    /**
+     * While enabled, a call stack is captured, and the Tracker informed, for only one in this
+     * many calls to open.
+     */
+    private static volatile int samplingInterval = 1;
+
+    // Opens left until the next sampled one. Updated without synchronization; races only make
+    // the sampling slightly less regular.
+    private static int opensUntilSample;
+
+    // Resources opened without a sampled call stack that were never released.
+    private static final AtomicLong unsampledLeakCount = new AtomicLong();
+
     private static final String MESSAGE = "A resource was acquired at attached stack trace but never released. " +
             "See java.io.Closeable for information on avoiding resource leaks.";
 
@@ -181,6 +196,62 @@ public final class CloseGuard {
         return stackAndTrackingEnabled;
     }
 
+    /**
+     * Makes CloseGuard, while {@link #isEnabled() enabled}, capture a call stack and inform
+     * the {@link Tracker} for only one in {@code interval} calls to {@link #open}, so that leak
+     * detection is cheap enough to leave on in production. Resources opened without a
+     * sampled call stack that are never released are logged with a one-line warning, as when
+     * disabled, and counted by {@link #getUnsampledLeakCount}. Pairing sampling with a
+     * {@link CloseGuardSiteTracker} gives leak counts per allocation site.
+     *
+     * @param interval 1, the default, to capture a call stack on every open, or more to
+     *                 sample
+     * @throws IllegalArgumentException if {@code interval} is less than 1
+     *
+     * @hide
+     */
+    public static void setSamplingInterval(int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("interval < 1: " + interval);
+        }
+        opensUntilSample = 0;
+        samplingInterval = interval;
+    }
+
+    /**
+     * Returns the sampling interval; see {@link #setSamplingInterval}.
+     *
+     * @hide
+     */
+    public static int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * Returns the number of resources that were opened without a sampled call stack and
+     * found unreleased by {@link #warnIfOpen}.
+     *
+     * @hide
+     */
+    public static long getUnsampledLeakCount() {
+        return unsampledLeakCount.get();
+    }
+
+    /**
+     * Returns true if this open should capture a call stack.
+     */
+    private static boolean sampleOpen() {
+        int interval = samplingInterval;
+        if (interval == 1) {
+            return true;
+        }
+        if (--opensUntilSample > 0) {
+            return false;
+        }
+        opensUntilSample = interval;
+        return true;
+    }
+
     /**
      * Used to replace default Reporter used to warn of CloseGuard
      * violations when stack tracking is enabled. Must be non-null.
@@ -215,8 +286,8 @@ public final class CloseGuard {
      * The Tracker is invoked only if CloseGuard {@link #isEnabled()} held when {@link #open()}
      * was called. A null argument disables tracking.
      *
-     * <p>This is only intended for use by {@code dalvik.system.CloseGuardSupport} class and so
-     * MUST NOT be used for any other purposes.
+     * <p>This is only intended for use by {@code dalvik.system.CloseGuardSupport} class and
+     * {@link CloseGuardSiteTracker}, and so MUST NOT be used for any other purposes.
      *
      * @hide
      */
@@ -228,8 +299,8 @@ public final class CloseGuard {
      * Returns {@link #setTracker(Tracker) last Tracker that was set}, or null to indicate
      * there is none.
      *
-     * <p>This is only intended for use by {@code dalvik.system.CloseGuardSupport} class and so
-     * MUST NOT be used for any other purposes.
+     * <p>This is only intended for use by {@code dalvik.system.CloseGuardSupport} class and
+     * {@link CloseGuardSiteTracker}, and so MUST NOT be used for any other purposes.
      *
      * @hide
      */
@@ -283,6 +354,12 @@ public final class CloseGuard {
         // Always record stack trace when tracker installed, which only happens in tests. Otherwise, skip expensive
         // stack trace creation when explicit callsite is passed in for better performance.
         Tracker tracker = currentTracker;
+        if ((callsite == null || tracker != null) && !sampleOpen()) {
+            // Leave this open untracked, and report a leak of it as if disabled.
+            unsampled = true;
+            closerNameOrAllocationInfo = closer;
+            return;
+        }
         if (callsite == null || tracker != null) {
             String message = "Explicit termination method '" + closer + "' not called";
             Throwable stack = new Throwable(message);
@@ -300,6 +377,9 @@ public final class CloseGuard {
     // We keep them in a single field only to minimize overhead.
     private Object /* String or Throwable */ closerNameOrAllocationInfo;
 
+    // True if opened while enabled, but not sampled. Fits in padding, so costs no memory.
+    private boolean unsampled;
+
     /**
      * Marks this CloseGuard instance as closed to avoid warnings on
      * finalization.
@@ -316,6 +396,7 @@ public final class CloseGuard {
             tracker.close((Throwable) closerNameOrAllocationInfo);
         }
         closerNameOrAllocationInfo = null;
+        unsampled = false;
     }
 
     /**
@@ -333,7 +414,16 @@ public final class CloseGuard {
     public void warnIfOpen() {
         if (closerNameOrAllocationInfo != null) {
             if (closerNameOrAllocationInfo instanceof Throwable) {
-                reporter.report(MESSAGE, (Throwable) closerNameOrAllocationInfo);
+                Throwable allocationSite = (Throwable) closerNameOrAllocationInfo;
+                Tracker tracker = currentTracker;
+                if (tracker != null) {
+                    tracker.leaked(allocationSite);
+                }
+                reporter.report(MESSAGE, allocationSite);
+            } else if (unsampled) {
+                unsampledLeakCount.incrementAndGet();
+                System.logW("A resource failed to call "
+                        + (String) closerNameOrAllocationInfo + ". ");
             } else if (stackAndTrackingEnabled) {
                 reporter.report(MESSAGE + " Callsite: " + closerNameOrAllocationInfo);
             } else {
@@ -347,14 +437,20 @@ public final class CloseGuard {
     /**
      * Interface to allow customization of tracking behaviour.
      *
-     * <p>This is only intended for use by {@code dalvik.system.CloseGuardSupport} class and so
-     * MUST NOT be used for any other purposes.
+     * <p>This is only intended for use by {@code dalvik.system.CloseGuardSupport} class and
+     * {@link CloseGuardSiteTracker}, and so MUST NOT be used for any other purposes.
      *
      * @hide
      */
     public interface Tracker {
         void open(Throwable allocationSite);
         void close(Throwable allocationSite);
+
+        /**
+         * Called when a resource tracked by {@link #open} is found unreleased by
+         * {@link CloseGuard#warnIfOpen}. {@link #close} may still be called for it afterwards.
+         */
+        default void leaked(Throwable allocationSite) {}
     }
 
     /**
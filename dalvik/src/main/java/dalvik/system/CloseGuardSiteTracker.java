@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dalvik.system;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link CloseGuard.Tracker} that aggregates guarded resources by allocation site, the
+ * method that opened the {@link CloseGuard} and its caller, rather than keeping the call
+ * stack of each one. Together with {@link CloseGuard#setSamplingInterval} it allows leak
+ * detection to stay on under load, with a compact report of where leaked resources came from:
+ * <pre>   {@code
+ *   CloseGuardSiteTracker tracker = new CloseGuardSiteTracker();
+ *   CloseGuard.setSamplingInterval(100);
+ *   CloseGuard.setTracker(tracker);
+ *   CloseGuard.setEnabled(true);
+ *   ...
+ *   System.logI(tracker.getLeakReport());
+ * }</pre>
+ * With sampling, the counts cover only sampled resources; multiply by the sampling interval
+ * for an estimate of the totals.
+ *
+ * @hide
+ */
+public final class CloseGuardSiteTracker implements CloseGuard.Tracker {
+
+    private static final String CLOSE_GUARD_CLASS = CloseGuard.class.getName();
+
+    /** Counts for one allocation site. Guarded by the tracker. */
+    private static final class Site {
+        long opened;
+        long open;
+        long leaked;
+    }
+
+    private final HashMap<String, Site> sites = new HashMap<>();
+
+    @Override
+    public void open(Throwable allocationSite) {
+        String key = getSiteKey(allocationSite);
+        synchronized (this) {
+            Site site = sites.get(key);
+            if (site == null) {
+                site = new Site();
+                sites.put(key, site);
+            }
+            site.opened++;
+            site.open++;
+        }
+    }
+
+    @Override
+    public void close(Throwable allocationSite) {
+        String key = getSiteKey(allocationSite);
+        synchronized (this) {
+            Site site = sites.get(key);
+            // The tracker may have been installed after the resource was opened.
+            if (site != null && site.open > 0) {
+                site.open--;
+            }
+        }
+    }
+
+    @Override
+    public void leaked(Throwable allocationSite) {
+        String key = getSiteKey(allocationSite);
+        synchronized (this) {
+            Site site = sites.get(key);
+            if (site == null) {
+                site = new Site();
+                sites.put(key, site);
+            }
+            site.leaked++;
+        }
+    }
+
+    /**
+     * Returns the number of leaked resources by allocation site, for sites with at least one
+     * leak.
+     */
+    public synchronized Map<String, Long> getLeakCounts() {
+        HashMap<String, Long> counts = new HashMap<>();
+        for (Map.Entry<String, Site> entry : sites.entrySet()) {
+            if (entry.getValue().leaked > 0) {
+                counts.put(entry.getKey(), entry.getValue().leaked);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the number of resources currently open by allocation site, for sites with at
+     * least one. Resources leaked but not yet finalized are included.
+     */
+    public synchronized Map<String, Long> getOpenCounts() {
+        HashMap<String, Long> counts = new HashMap<>();
+        for (Map.Entry<String, Site> entry : sites.entrySet()) {
+            if (entry.getValue().open > 0) {
+                counts.put(entry.getKey(), entry.getValue().open);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns a report of leaked resources with one line per allocation site, most leaks
+     * first, in the form {@code <leaked> leaked of <opened> opened: <site>}. Empty if nothing
+     * leaked.
+     */
+    public String getLeakReport() {
+        List<Map.Entry<String, Site>> leaks = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<String, Site> entry : sites.entrySet()) {
+                if (entry.getValue().leaked > 0) {
+                    leaks.add(entry);
+                }
+            }
+            Collections.sort(leaks, (a, b) -> Long.compare(b.getValue().leaked,
+                    a.getValue().leaked));
+            StringBuilder report = new StringBuilder();
+            for (Map.Entry<String, Site> entry : leaks) {
+                report.append(entry.getValue().leaked).append(" leaked of ")
+                        .append(entry.getValue().opened).append(" opened: ")
+                        .append(entry.getKey()).append('\n');
+            }
+            return report.toString();
+        }
+    }
+
+    /** Forgets all counts. */
+    public synchronized void reset() {
+        sites.clear();
+    }
+
+    /**
+     * Returns the key identifying the allocation site of a resource: the first frame outside
+     * CloseGuard, typically the resource's constructor or open method, and its caller.
+     */
+    private static String getSiteKey(Throwable allocationSite) {
+        StackTraceElement[] stack = allocationSite.getStackTrace();
+        int i = 0;
+        while (i < stack.length && CLOSE_GUARD_CLASS.equals(stack[i].getClassName())) {
+            i++;
+        }
+        if (i == stack.length) {
+            return "<unknown>";
+        }
+        if (i + 1 == stack.length) {
+            return stack[i].toString();
+        }
+        return stack[i] + " <- " + stack[i + 1];
+    }
+}
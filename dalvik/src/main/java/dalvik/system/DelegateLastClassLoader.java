@@ -213,6 +213,31 @@ public final class DelegateLastClassLoader extends PathClassLoader {
         }
     }
 
+    /**
+     * @hide
+     */
+    @Override
+    public Class<?> tryLoadClass(String name) {
+        // Same lookup order as loadClass.
+        Class<?> cl = findLoadedClass(name);
+        if (cl != null) {
+            return cl;
+        }
+
+        cl = findBootClassOrNull(name);
+        if (cl != null) {
+            return cl;
+        }
+
+        cl = findClassOrNull(name);
+        if (cl != null) {
+            return cl;
+        }
+
+        final ClassLoader parent = getParent();
+        return (parent == null) ? null : loadClassOrNull(parent, name);
+    }
+
     @Override
     public URL getResource(String name) {
         // The lookup order we use here is the same as for classes.
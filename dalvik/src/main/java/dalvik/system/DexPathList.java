@@ -31,8 +31,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 import libcore.io.ClassPathURLStreamHandler;
 import libcore.io.IoUtils;
 import libcore.io.Libcore;
@@ -58,6 +60,9 @@ public final class DexPathList {
     private static final String DEX_SUFFIX = ".dex";
     private static final String zipSeparator = "!/";
 
+    /** The number of threads opening dex path entries; see {@link #setDexLoadingParallelism}. */
+    private static volatile int dexLoadingParallelism = 1;
+
     /** class definition context */
     @UnsupportedAppUsage
     private final ClassLoader definingContext;
@@ -89,6 +94,23 @@ public final class DexPathList {
     @UnsupportedAppUsage
     private IOException[] dexElementsSuppressedExceptions;
 
+    /** Whether lookups should go through {@code lookupIndex}. */
+    private volatile boolean lookupIndexEnabled;
+
+    /**
+     * Index of the class and resource names in {@code dexElements}, built on first use when
+     * {@code lookupIndexEnabled} is set. {@code null} until then, and discarded whenever
+     * {@code dexElements} changes.
+     */
+    private volatile LookupIndex lookupIndex;
+
+    /**
+     * Names of classes recently not found in {@code dexElements}, so that repeated probes for
+     * optional classes don't search every dex file again. {@code null} until the first miss,
+     * and discarded whenever {@code dexElements} changes.
+     */
+    private volatile MissedClasses missedClasses;
+
     private List<File> getAllNativeLibraryDirectories() {
         List<File> allNativeLibraryDirectories = new ArrayList<>(nativeLibraryDirectories);
         allNativeLibraryDirectories.addAll(systemNativeLibraryDirectories);
@@ -222,6 +244,8 @@ public final class DexPathList {
 
         if (newElements != null && newElements.length > 0) {
             dexElements = concat(Element.class, dexElements, newElements);
+            lookupIndex = null;
+            missedClasses = null;
         }
 
         if (suppressedExceptionList.size() > 0) {
@@ -367,56 +391,22 @@ public final class DexPathList {
 
     private static Element[] makeDexElements(List<File> files, File optimizedDirectory,
             List<IOException> suppressedExceptions, ClassLoader loader, boolean isTrusted) {
+      int parallelism = dexLoadingParallelism;
+      if (parallelism > 1 && files.size() > 1) {
+          return makeDexElementsInParallel(files, optimizedDirectory, suppressedExceptions,
+                  loader, isTrusted, parallelism);
+      }
+
       Element[] elements = new Element[files.size()];
       int elementsPos = 0;
       /*
        * Open all files and load the (direct or contained) dex files up front.
        */
       for (File file : files) {
-          if (file.isDirectory()) {
-              // We support directories for looking up resources. Looking up resources in
-              // directories is useful for running libcore tests.
-              elements[elementsPos++] = new Element(file);
-          } else if (file.isFile()) {
-              String name = file.getName();
-
-              DexFile dex = null;
-              if (name.endsWith(DEX_SUFFIX)) {
-                  // Raw dex file (not inside a zip/jar).
-                  try {
-                      dex = loadDexFile(file, optimizedDirectory, loader, elements);
-                      if (dex != null) {
-                          elements[elementsPos++] = new Element(dex, null);
-                      }
-                  } catch (IOException suppressed) {
-                      System.logE("Unable to load dex file: " + file, suppressed);
-                      suppressedExceptions.add(suppressed);
-                  }
-              } else {
-                  try {
-                      dex = loadDexFile(file, optimizedDirectory, loader, elements);
-                  } catch (IOException suppressed) {
-                      /*
-                       * IOException might get thrown "legitimately" by the DexFile constructor if
-                       * the zip file turns out to be resource-only (that is, no classes.dex file
-                       * in it).
-                       * Let dex == null and hang on to the exception to add to the tea-leaves for
-                       * when findClass returns null.
-                       */
-                      suppressedExceptions.add(suppressed);
-                  }
-
-                  if (dex == null) {
-                      elements[elementsPos++] = new Element(file);
-                  } else {
-                      elements[elementsPos++] = new Element(dex, file);
-                  }
-              }
-              if (dex != null && isTrusted) {
-                dex.setTrusted();
-              }
-          } else {
-              System.logW("ClassLoader referenced unknown path: " + file);
+          Element element = makeDexElement(file, optimizedDirectory, suppressedExceptions,
+                  loader, isTrusted, elements);
+          if (element != null) {
+              elements[elementsPos++] = element;
           }
       }
       if (elementsPos != elements.length) {
@@ -425,6 +415,193 @@ public final class DexPathList {
       return elements;
     }
 
+    /**
+     * Makes the element for a single dex/resource path entry, or returns {@code null} if the
+     * entry doesn't exist or is a dex file that can't be loaded. {@code elements} holds the
+     * elements made so far for the same path, and may be {@code null}.
+     */
+    private static Element makeDexElement(File file, File optimizedDirectory,
+            List<IOException> suppressedExceptions, ClassLoader loader, boolean isTrusted,
+            Element[] elements) {
+      if (file.isDirectory()) {
+          // We support directories for looking up resources. Looking up resources in
+          // directories is useful for running libcore tests.
+          return new Element(file);
+      } else if (file.isFile()) {
+          String name = file.getName();
+
+          Element element = null;
+          DexFile dex = null;
+          if (name.endsWith(DEX_SUFFIX)) {
+              // Raw dex file (not inside a zip/jar).
+              try {
+                  dex = loadDexFile(file, optimizedDirectory, loader, elements);
+                  if (dex != null) {
+                      element = new Element(dex, null);
+                  }
+              } catch (IOException suppressed) {
+                  System.logE("Unable to load dex file: " + file, suppressed);
+                  suppressedExceptions.add(suppressed);
+              }
+          } else {
+              try {
+                  dex = loadDexFile(file, optimizedDirectory, loader, elements);
+              } catch (IOException suppressed) {
+                  /*
+                   * IOException might get thrown "legitimately" by the DexFile constructor if
+                   * the zip file turns out to be resource-only (that is, no classes.dex file
+                   * in it).
+                   * Let dex == null and hang on to the exception to add to the tea-leaves for
+                   * when findClass returns null.
+                   */
+                  suppressedExceptions.add(suppressed);
+              }
+
+              if (dex == null) {
+                  element = new Element(file);
+              } else {
+                  element = new Element(dex, file);
+              }
+          }
+          if (dex != null && isTrusted) {
+            dex.setTrusted();
+          }
+          return element;
+      } else {
+          System.logW("ClassLoader referenced unknown path: " + file);
+          return null;
+      }
+    }
+
+    /**
+     * Like {@link #makeDexElements(List, File, List, ClassLoader, boolean)}, but opens the
+     * files on up to {@code parallelism} threads. The elements and suppressed exceptions are
+     * returned in the same order as a sequential load would produce them.
+     *
+     * <p>The first file is opened on the calling thread exactly as it would be sequentially.
+     * The others are opened without the elements preceding them, as those may not be loaded
+     * yet, so the runtime can't take them into account when checking their class loader
+     * context.
+     *
+     * <p>Each load starts its own helper threads and waits for them to finish, so no thread
+     * outlives it; that matters in the zygote, which can't fork with extra threads running.
+     */
+    private static Element[] makeDexElementsInParallel(List<File> files,
+            File optimizedDirectory, List<IOException> suppressedExceptions, ClassLoader loader,
+            boolean isTrusted, int parallelism) {
+        File[] fileArray = files.toArray(new File[files.size()]);
+        Element[] slots = new Element[fileArray.length];
+        @SuppressWarnings("unchecked")
+        List<IOException>[] slotExceptions = new List[fileArray.length];
+        for (int i = 0; i < fileArray.length; i++) {
+            slotExceptions[i] = new ArrayList<IOException>();
+        }
+
+        DexElementsLoader elementsLoader = new DexElementsLoader(fileArray, optimizedDirectory,
+                loader, isTrusted, slots, slotExceptions);
+        // The calling thread takes part, so it needs one helper fewer.
+        Thread[] helpers = new Thread[Math.min(parallelism, fileArray.length - 1) - 1];
+        try {
+            for (int i = 0; i < helpers.length; i++) {
+                Thread helper = new Thread(elementsLoader, "DexLoader-" + (i + 1));
+                helper.start();
+                helpers[i] = helper;
+            }
+            slots[0] = makeDexElement(fileArray[0], optimizedDirectory, slotExceptions[0],
+                    loader, isTrusted, new Element[fileArray.length]);
+            elementsLoader.run();
+        } finally {
+            // Whatever the calling thread threw, don't return before every helper is done.
+            boolean interrupted = false;
+            for (Thread helper : helpers) {
+                while (helper != null) {
+                    try {
+                        helper.join();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        elementsLoader.rethrowFailure();
+
+        int elementsPos = 0;
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null) {
+                slots[elementsPos++] = slots[i];
+            }
+            suppressedExceptions.addAll(slotExceptions[i]);
+        }
+        return elementsPos != slots.length ? Arrays.copyOf(slots, elementsPos) : slots;
+    }
+
+    /**
+     * Sets the number of threads used to open the entries of a dex path when a class loader is
+     * created or extended. 1, the default, opens them one after the other on the calling thread.
+     * Higher values help paths with many entries, such as apps with many splits, but the
+     * runtime can then only check the class loader context of the first entry against its
+     * compiled code; see {@link #makeDexElementsInParallel}.
+     */
+    public static void setDexLoadingParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism < 1: " + parallelism);
+        }
+        dexLoadingParallelism = parallelism;
+    }
+
+    /**
+     * Opens the files after the first into the corresponding slots, taking the next unopened
+     * one until none are left. Run by the loading thread and each of its helpers.
+     */
+    private static final class DexElementsLoader implements Runnable {
+        private final File[] files;
+        private final File optimizedDirectory;
+        private final ClassLoader loader;
+        private final boolean isTrusted;
+        private final Element[] slots;
+        private final List<IOException>[] slotExceptions;
+        // The next file to open. The first is opened separately.
+        private final AtomicInteger next = new AtomicInteger(1);
+        private volatile Throwable failure;
+
+        DexElementsLoader(File[] files, File optimizedDirectory, ClassLoader loader,
+                boolean isTrusted, Element[] slots, List<IOException>[] slotExceptions) {
+            this.files = files;
+            this.optimizedDirectory = optimizedDirectory;
+            this.loader = loader;
+            this.isTrusted = isTrusted;
+            this.slots = slots;
+            this.slotExceptions = slotExceptions;
+        }
+
+        @Override
+        public void run() {
+            try {
+                int i;
+                while (failure == null && (i = next.getAndIncrement()) < files.length) {
+                    slots[i] = makeDexElement(files[i], optimizedDirectory, slotExceptions[i],
+                            loader, isTrusted, null);
+                }
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            }
+        }
+
+        /** Rethrows, on the loading thread, what a helper thread failed with. */
+        void rethrowFailure() {
+            Throwable t = failure;
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else if (t instanceof Error) {
+                throw (Error) t;
+            }
+        }
+    }
+
     /**
      * Constructs a {@code DexFile} instance, as appropriate depending on whether
      * {@code optimizedDirectory} is {@code null}. An application image file may be associated with
@@ -523,24 +700,80 @@ public final class DexPathList {
      * context that this instance was constructed with.
      *
      * @param name of class to find
-     * @param suppressed exceptions encountered whilst finding the class
+     * @param suppressed exceptions encountered whilst finding the class, or {@code null} if
+     * the caller has no use for them
      * @return the named class or {@code null} if the class is not
      * found in any of the dex files
      */
     public Class<?> findClass(String name, List<Throwable> suppressed) {
-        for (Element element : dexElements) {
-            Class<?> clazz = element.findClass(name, definingContext, suppressed);
-            if (clazz != null) {
-                return clazz;
+        Element[] elements = dexElements;
+        MissedClasses missed = missedClasses;
+        Class<?> clazz = null;
+        if (missed == null || missed.elements != elements || !missed.contains(name)) {
+            // Collect the failures even if the caller doesn't want them, to spot clean misses.
+            List<Throwable> failures =
+                    suppressed != null ? suppressed : new ArrayList<Throwable>();
+            int failureCount = failures.size();
+            clazz = findClassInElements(name, elements, failures, suppressed == null);
+            // Only remember clean misses. A class that exists but failed to load, say because
+            // its superclass is missing, reports why in the suppressed exceptions and may load
+            // fine later on.
+            if (clazz == null && failures.size() == failureCount) {
+                if (missed == null || missed.elements != elements) {
+                    missed = new MissedClasses(elements);
+                    missedClasses = missed;
+                }
+                missed.add(name);
             }
         }
+        if (clazz != null) {
+            return clazz;
+        }
 
-        if (dexElementsSuppressedExceptions != null) {
+        if (dexElementsSuppressedExceptions != null && suppressed != null) {
             suppressed.addAll(Arrays.asList(dexElementsSuppressedExceptions));
         }
         return null;
     }
 
+    /**
+     * Finds the named class in {@code elements}, using the lookup index if there is one. The
+     * index only answers a miss outright if {@code skipSuppressed} is set, as a full search
+     * collects each dex file's reason for not loading the class in {@code suppressed}.
+     */
+    private Class<?> findClassInElements(String name, Element[] elements,
+            List<Throwable> suppressed, boolean skipSuppressed) {
+        Element tried = null;
+        LookupIndex index = getLookupIndex();
+        if (index != null) {
+            Element element = index.classes.get(name);
+            if (element != null) {
+                Class<?> clazz = element.findClass(name, definingContext, suppressed);
+                if (clazz != null) {
+                    return clazz;
+                }
+                // The class failed to load from the first dex file defining it. Fall back to
+                // the full search so that any later definition is found just as it would be
+                // without the index, but don't ask this dex file twice.
+                tried = element;
+            } else if (skipSuppressed) {
+                // No dex file defines this class, so don't bother asking each of them.
+                return null;
+            }
+        }
+
+        for (Element element : elements) {
+            if (element == tried) {
+                continue;
+            }
+            Class<?> clazz = element.findClass(name, definingContext, suppressed);
+            if (clazz != null) {
+                return clazz;
+            }
+        }
+        return null;
+    }
+
     /**
      * Finds the named resource in one of the zip/jar files pointed at
      * by this instance. This will find the one in the earliest listed
@@ -550,6 +783,12 @@ public final class DexPathList {
      * resource is not found in any of the zip/jar files
      */
     public URL findResource(String name) {
+        LookupIndex index = getLookupIndex();
+        if (index != null && index.resourcesIndexed) {
+            Element element = index.resources.get(name);
+            return element != null ? element.findResource(name) : null;
+        }
+
         for (Element element : dexElements) {
             URL url = element.findResource(name);
             if (url != null) {
@@ -566,6 +805,11 @@ public final class DexPathList {
      * name, then this method returns an empty enumeration.
      */
     public Enumeration<URL> findResources(String name) {
+        LookupIndex index = getLookupIndex();
+        if (index != null && index.resourcesIndexed && !index.resources.containsKey(name)) {
+            return Collections.emptyEnumeration();
+        }
+
         ArrayList<URL> result = new ArrayList<URL>();
 
         for (Element element : dexElements) {
@@ -578,6 +822,111 @@ public final class DexPathList {
         return Collections.enumeration(result);
     }
 
+    /**
+     * Enables or disables the lookup index. When enabled, {@link #findClass},
+     * {@link #findResource} and {@link #findResources} consult an index mapping each class and
+     * resource name to the first element containing it, instead of asking every element in
+     * turn. The index is built on first use from the class lists of the dex files and the
+     * central directories of the zip files, and rebuilt after the elements change. It costs a
+     * map entry per class and resource, so is only worthwhile for long class paths.
+     *
+     * <p>A class missing from the index is still searched for in every element when the
+     * caller of {@link #findClass} collects suppressed exceptions, so that a
+     * {@code ClassNotFoundException} reports the same causes as without the index.
+     */
+    public void setLookupIndexEnabled(boolean enabled) {
+        lookupIndexEnabled = enabled;
+        if (!enabled) {
+            lookupIndex = null;
+        }
+    }
+
+    /**
+     * Returns the lookup index for the current elements, building it if necessary, or
+     * {@code null} if the index is disabled.
+     */
+    private LookupIndex getLookupIndex() {
+        if (!lookupIndexEnabled) {
+            return null;
+        }
+        // Apps are known to replace dexElements through reflection, so check that the index
+        // still matches rather than relying on addDexPath() to discard it.
+        Element[] elements = dexElements;
+        LookupIndex index = lookupIndex;
+        if (index == null || index.elements != elements) {
+            index = new LookupIndex(elements);
+            lookupIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Recently missed class names for a given array of elements. Each name has a single slot,
+     * chosen by its hash code, and a newer miss simply replaces an older one. Strings are
+     * immutable, so the slots are read and written without a lock, and a lookup on the class
+     * loading path costs a hash and a comparison.
+     */
+    private static final class MissedClasses {
+        private static final int SIZE = 64;
+
+        final Element[] elements;
+        private final String[] names = new String[SIZE];
+
+        MissedClasses(Element[] elements) {
+            this.elements = elements;
+        }
+
+        boolean contains(String name) {
+            return name.equals(names[name.hashCode() & (SIZE - 1)]);
+        }
+
+        void add(String name) {
+            names[name.hashCode() & (SIZE - 1)] = name;
+        }
+    }
+
+    /**
+     * Maps class and resource names to the first element of a given array of elements that
+     * contains them. Immutable once constructed.
+     */
+    private static final class LookupIndex {
+        final Element[] elements;
+        final HashMap<String, Element> classes = new HashMap<>();
+        final HashMap<String, Element> resources = new HashMap<>();
+
+        /**
+         * False if some element holds resources that can't be enumerated (a directory), in
+         * which case {@code resources} must not be used.
+         */
+        final boolean resourcesIndexed;
+
+        LookupIndex(Element[] elements) {
+            this.elements = elements;
+            boolean resourcesIndexed = true;
+            for (Element element : elements) {
+                if (element.dexFile != null) {
+                    for (Enumeration<String> e = element.dexFile.entries(); e.hasMoreElements(); ) {
+                        classes.putIfAbsent(e.nextElement().replace('/', '.'), element);
+                    }
+                }
+                List<String> entryNames = element.getResourceNames();
+                if (entryNames == null) {
+                    resourcesIndexed = false;
+                    continue;
+                }
+                for (String entryName : entryNames) {
+                    resources.putIfAbsent(entryName, element);
+                    // Zip lookups for "foo" also match a directory entry "foo/".
+                    if (entryName.endsWith("/")) {
+                        resources.putIfAbsent(
+                                entryName.substring(0, entryName.length() - 1), element);
+                    }
+                }
+            }
+            this.resourcesIndexed = resourcesIndexed;
+        }
+    }
+
     /**
      * Finds the named native code library on any of the library
      * directories pointed at by this instance. This will find the
@@ -773,6 +1122,22 @@ public final class DexPathList {
                     : null;
         }
 
+        /**
+         * Returns the names of all resources in this element, or {@code null} if they can't be
+         * listed because this element is a directory.
+         */
+        /*package*/ List<String> getResourceNames() {
+            maybeInit();
+
+            if (urlHandler != null) {
+                return urlHandler.getEntryNames();
+            }
+            if (path != null && path.isDirectory()) {
+                return null;
+            }
+            return Collections.emptyList();
+        }
+
         public URL findResource(String name) {
             maybeInit();
 
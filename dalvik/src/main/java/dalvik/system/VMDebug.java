@@ -598,7 +598,9 @@ public final class VMDebug {
 
     /**
      * Returns the value of a particular runtime statistic or {@code null} if no
-     * such runtime statistic exists.
+     * such runtime statistic exists. Names starting with {@code libcore.} are
+     * finalization and reference processing statistics kept by the core
+     * library daemons.
      *
      * @param statName the name of the runtime statistic to look up.
      *
@@ -611,6 +613,9 @@ public final class VMDebug {
         if (statName == null) {
             throw new NullPointerException("statName == null");
         }
+        if (statName.startsWith("libcore.")) {
+            return Daemons.getFinalizerStats().get(statName);
+        }
         Integer statId = runtimeStatsMap.get(statName);
         if (statId != null) {
             return getRuntimeStatInternal(statId);
@@ -635,6 +640,7 @@ public final class VMDebug {
             String value = values[id];
             map.put(name, value);
         }
+        map.putAll(Daemons.getFinalizerStats());
         return map;
     }
 
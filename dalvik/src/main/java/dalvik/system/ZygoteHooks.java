@@ -23,12 +23,26 @@ import android.annotation.SystemApi;
 import libcore.icu.DecimalFormatData;
 import libcore.icu.ICU;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.lang.reflect.Method;
 import java.lang.ClassNotFoundException;
 import java.lang.NoSuchMethodException;
 import java.lang.ReflectiveOperationException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import libcore.icu.SimpleDateFormatData;
 
 import sun.util.locale.BaseLocale;
@@ -46,6 +60,19 @@ public final class ZygoteHooks {
     private static Method enableMemoryMappedDataMethod;
     private static boolean inZygoteProcess = true;
 
+    // First use of classes and resources recorded since startPreloadRecording, as profile
+    // lines, or null if not recording. Guarded by itself.
+    private static volatile LinkedHashSet<String> preloadRecording;
+
+    // Classes that dex class loaders had already defined when recording started, which the
+    // class table dump at the end of recording leaves out. Weak, so that recording doesn't keep
+    // class loaders alive. Guarded by ZygoteHooks.class, as are starting and stopping.
+    private static Set<Class<?>> preloadBaseline;
+
+    private static final String PRELOAD_PROFILE_HEADER = "# preload profile v1";
+    private static final String PRELOAD_CLASS = "C ";
+    private static final String PRELOAD_RESOURCE = "R ";
+
     /** All methods are static, no need to instantiate. */
     private ZygoteHooks() {
     }
@@ -238,6 +265,201 @@ public final class ZygoteHooks {
       return inZygoteProcess;
     }
 
+    /**
+     * Starts recording the classes and resources that {@link BaseDexClassLoader}s load, for a
+     * training run of a workload. Classes on the boot class path are not recorded; the zygote
+     * preloads those. Restarting discards the previous recording.
+     * <p>
+     * The runtime resolves most classes of dex class loaders natively, for bytecode and for
+     * {@code Class.forName}, without calling back into {@code findClass}. So besides recording
+     * lookups that do reach the class loader as they happen, this notes the classes already
+     * defined, and {@link #stopPreloadRecording} adds every class defined since.
+     *
+     * @hide
+     */
+    public static synchronized void startPreloadRecording() {
+        preloadBaseline = loadedDexClasses();
+        preloadRecording = new LinkedHashSet<>();
+    }
+
+    /**
+     * Stops recording and writes the recorded classes and resources to {@code profile}, for
+     * {@link #preloadFromProfile}. The profile is UTF-8 text: a header line, then one line per
+     * class ({@code C <binary name>}) or resource ({@code R <name>}). Entries recorded as they
+     * were looked up come first, in order of first use, followed by the other classes that
+     * dex class loaders defined while recording, sorted by name.
+     *
+     * @return the number of classes and resources written
+     * @throws IllegalStateException if not recording
+     * @throws IOException if writing fails
+     *
+     * @hide
+     */
+    public static synchronized int stopPreloadRecording(File profile) throws IOException {
+        LinkedHashSet<String> recording = preloadRecording;
+        if (recording == null) {
+            throw new IllegalStateException("not recording");
+        }
+        preloadRecording = null;
+        Set<Class<?>> baseline = preloadBaseline;
+        preloadBaseline = null;
+
+        ArrayList<String> defined = new ArrayList<>();
+        for (Class<?> c : loadedDexClasses()) {
+            if (!baseline.contains(c)) {
+                defined.add(c.getName());
+            }
+        }
+        Collections.sort(defined);
+        ArrayList<String> lines;
+        synchronized (recording) {
+            for (String name : defined) {
+                recording.add(PRELOAD_CLASS + name);
+            }
+            lines = new ArrayList<>(recording);
+        }
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(profile), StandardCharsets.UTF_8))) {
+            out.write(PRELOAD_PROFILE_HEADER);
+            out.newLine();
+            for (String line : lines) {
+                out.write(line);
+                out.newLine();
+            }
+        }
+        return lines.size();
+    }
+
+    /**
+     * Returns the classes currently defined by {@link BaseDexClassLoader}s, found by walking
+     * the heap for class objects.
+     */
+    private static Set<Class<?>> loadedDexClasses() {
+        Set<Class<?>> classes = Collections.newSetFromMap(new WeakHashMap<Class<?>, Boolean>());
+        Object[] all = VMDebug.getInstancesOfClasses(new Class[] { Class.class }, false)[0];
+        for (Object o : all) {
+            Class<?> c = (Class<?>) o;
+            // Array classes are created on demand, so there's nothing to preload for them.
+            if (!c.isArray() && c.getClassLoader() instanceof BaseDexClassLoader) {
+                classes.add(c);
+            }
+        }
+        return classes;
+    }
+
+    /** Records the first use of a class found by a {@link BaseDexClassLoader}. */
+    static void recordClassUse(String name) {
+        recordPreloadUse(PRELOAD_CLASS, name);
+    }
+
+    /** Records the first use of a resource found by a {@link BaseDexClassLoader}. */
+    static void recordResourceUse(String name) {
+        recordPreloadUse(PRELOAD_RESOURCE, name);
+    }
+
+    private static void recordPreloadUse(String kind, String name) {
+        LinkedHashSet<String> recording = preloadRecording;
+        if (recording != null) {
+            synchronized (recording) {
+                recording.add(kind + name);
+            }
+        }
+    }
+
+    /**
+     * Loads the classes and looks up the resources listed in a profile written by
+     * {@link #stopPreloadRecording}, through {@code loader}, so that a workload finds them
+     * ready. Entries are taken in profile order by {@code threads} threads, including the
+     * calling one; all of them have finished when this returns. Entries that can no longer be
+     * found are skipped.
+     * <p>
+     * Classes are initialized only if {@code initialize} is true. Initializing in parallel can
+     * deadlock if static initializers of classes used on different threads depend on each
+     * other in a cycle, so only do so with profiles known to be free of that.
+     * <p>
+     * In the zygote, more than one thread may only be used outside of
+     * {@link #startZygoteNoThreadCreation} and {@link #stopZygoteNoThreadCreation}.
+     *
+     * @return the number of classes and resources found
+     * @throws IllegalArgumentException if {@code threads} is less than 1
+     * @throws IOException if the profile can't be read or is not a profile
+     *
+     * @hide
+     */
+    public static int preloadFromProfile(File profile, final ClassLoader loader,
+            final boolean initialize, int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads < 1: " + threads);
+        }
+        final ArrayList<String> entries = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new FileInputStream(profile), StandardCharsets.UTF_8))) {
+            if (!PRELOAD_PROFILE_HEADER.equals(in.readLine())) {
+                throw new IOException("Not a preload profile: " + profile);
+            }
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith(PRELOAD_CLASS) || line.startsWith(PRELOAD_RESOURCE)) {
+                    entries.add(line);
+                }
+            }
+        }
+
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger found = new AtomicInteger();
+        Runnable preloader = new Runnable() {
+            @Override public void run() {
+                int i;
+                while ((i = next.getAndIncrement()) < entries.size()) {
+                    if (preload(entries.get(i), loader, initialize)) {
+                        found.incrementAndGet();
+                    }
+                }
+            }
+        };
+        threads = Math.min(threads, entries.size());
+        Thread[] helpers = new Thread[Math.max(0, threads - 1)];
+        try {
+            for (int i = 0; i < helpers.length; i++) {
+                Thread helper = new Thread(preloader, "Preload-" + (i + 1));
+                helper.start();
+                helpers[i] = helper;
+            }
+            preloader.run();
+        } finally {
+            // The zygote can't fork with extra threads running, so wait for every helper even
+            // if the calling thread threw.
+            boolean interrupted = false;
+            for (Thread helper : helpers) {
+                while (helper != null) {
+                    try {
+                        helper.join();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return found.get();
+    }
+
+    private static boolean preload(String entry, ClassLoader loader, boolean initialize) {
+        String name = entry.substring(2);
+        if (entry.startsWith(PRELOAD_RESOURCE)) {
+            return loader.getResource(name) != null;
+        }
+        try {
+            Class.forName(name, initialize, loader);
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
     // Hook for SystemServer specific early initialization post-forking.
     private static native void nativePostForkSystemServer(int runtimeFlags);
 
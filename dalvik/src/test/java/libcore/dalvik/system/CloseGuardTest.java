@@ -15,6 +15,11 @@
  */
 package libcore.dalvik.system;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestRule;
@@ -22,6 +27,7 @@ import org.junit.runner.Description;
 import org.junit.runners.model.Statement;
 
 import dalvik.system.CloseGuard;
+import dalvik.system.CloseGuardSiteTracker;
 
 /**
  * Tests {@link CloseGuard}.
@@ -39,10 +45,12 @@ public class CloseGuardTest {
             @Override
             public void evaluate() throws Throwable {
                 boolean oldEnabledState = CloseGuard.isEnabled();
+                int oldSamplingInterval = CloseGuard.getSamplingInterval();
                 try {
                     base.evaluate();
                 } finally {
                     CloseGuard.setEnabled(oldEnabledState);
+                    CloseGuard.setSamplingInterval(oldSamplingInterval);
                 }
             }
         };
@@ -164,6 +172,65 @@ public class CloseGuardTest {
         assertUnreleasedResources(owner, 1);
     }
 
+    @Test
+    public void testSampling_OnlySampledOpensTracked() throws Throwable {
+        CloseGuard.setEnabled(true);
+        CloseGuard.setSamplingInterval(3);
+        CloseGuardSiteTracker tracker = new CloseGuardSiteTracker();
+        CloseGuard.Tracker oldTracker = CloseGuard.getTracker();
+        CloseGuard.setTracker(tracker);
+        ResourceOwner[] owners = new ResourceOwner[6];
+        try {
+            for (int i = 0; i < owners.length; i++) {
+                owners[i] = new ResourceOwner();
+                owners[i].open();
+            }
+        } finally {
+            CloseGuard.setTracker(oldTracker);
+        }
+        Map<String, Long> openCounts = tracker.getOpenCounts();
+        assertEquals(1, openCounts.size());
+        assertEquals(2L, (long) openCounts.values().iterator().next());
+        for (ResourceOwner owner : owners) {
+            owner.close();
+        }
+    }
+
+    @Test
+    public void testSampling_LeaksCountedBySite() throws Throwable {
+        CloseGuard.setEnabled(true);
+        CloseGuard.setSamplingInterval(2);
+        CloseGuardSiteTracker tracker = new CloseGuardSiteTracker();
+        CloseGuard.Tracker oldTracker = CloseGuard.getTracker();
+        CloseGuard.Reporter oldReporter = CloseGuard.getReporter();
+        CloseGuard.setTracker(tracker);
+        CloseGuard.setReporter((message, allocationSite) -> {});
+        long oldUnsampledLeakCount = CloseGuard.getUnsampledLeakCount();
+        try {
+            for (int i = 0; i < 4; i++) {
+                ResourceOwner owner = new ResourceOwner();
+                owner.open();
+                owner.finalize();
+                owner.close();
+            }
+        } finally {
+            CloseGuard.setTracker(oldTracker);
+            CloseGuard.setReporter(oldReporter);
+        }
+        assertEquals(oldUnsampledLeakCount + 2, CloseGuard.getUnsampledLeakCount());
+        Map<String, Long> leakCounts = tracker.getLeakCounts();
+        assertEquals(1, leakCounts.size());
+        assertEquals(2L, (long) leakCounts.values().iterator().next());
+        assertTrue(leakCounts.keySet().iterator().next().contains("ResourceOwner.open"));
+        assertTrue(tracker.getLeakReport().startsWith("2 leaked of 2 opened: "));
+        assertTrue(tracker.getOpenCounts().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSampling_BadInterval() {
+        CloseGuard.setSamplingInterval(0);
+    }
+
     private void assertUnreleasedResources(ResourceOwner owner, int expectedCount)
             throws Throwable {
         try {
@@ -206,7 +206,8 @@ public final class VMRuntime {
 
     private static Consumer<String> nonSdkApiUsageConsumer = null;
 
-    private int targetSdkVersion = SDK_VERSION_CUR_DEVELOPMENT;
+    // Volatile rather than guarded by this, as it is read whenever a StringBuilder is created.
+    private volatile int targetSdkVersion = SDK_VERSION_CUR_DEVELOPMENT;
 
     // notifyNativeAllocationsInternal (below) should be called every notifyNativeInterval
     // allocations. Initialized on demand to allow completely static class initialization.
@@ -408,7 +409,7 @@ public final class VMRuntime {
      * @hide
      */
     @SystemApi(client = MODULE_LIBRARIES)
-    public synchronized int getTargetSdkVersion() {
+    public int getTargetSdkVersion() {
         return targetSdkVersion;
     }
 
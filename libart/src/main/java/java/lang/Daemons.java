@@ -23,10 +23,16 @@ import android.system.OsConstants;
 import java.lang.ref.FinalizerReference;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import libcore.util.EmptyArray;
+import libcore.util.NativeAllocationRegistry;
 
 import dalvik.system.VMRuntime;
 import dalvik.system.VMDebug;
@@ -61,11 +67,41 @@ public final class Daemons {
 
     private static boolean postZygoteFork = false;
 
+    /** The maximum number of threads running finalizers, including the FinalizerDaemon. */
+    public static final int MAX_FINALIZER_THREADS = 8;
+
+    // Guards the fields below. Only writes of finalizerHelpers are guarded, so that the
+    // FinalizerWatchdogDaemon never waits for a helper being stopped.
+    private static final Object FINALIZER_HELPERS_LOCK = new Object();
+    private static int finalizerThreadCount = 1;
+    private static boolean daemonsRunning;
+    private static volatile FinalizerHelperDaemon[] finalizerHelpers =
+            new FinalizerHelperDaemon[0];
+    // Objects finalized by helpers that have since been stopped.
+    private static volatile long retiredFinalizedCount;
+
+    // One in this many (a power of two) finalize() calls is timed, for the slowest finalizers.
+    private static final int FINALIZE_TIME_SAMPLE_INTERVAL = 64;
+    private static final int SLOWEST_FINALIZER_COUNT = 8;
+
+    // Guards the fields below. Preallocated so that recording a sample never allocates. Classes
+    // are kept by name, so that a slow finalizer never keeps its class loader alive.
+    private static final Object FINALIZER_STATS_LOCK = new Object();
+    private static final String[] slowestFinalizerClasses = new String[SLOWEST_FINALIZER_COUNT];
+    private static final long[] slowestFinalizerNanos = new long[SLOWEST_FINALIZER_COUNT];
+
+    // When finalized-per-second starts counting.
+    private static final long STATS_START_NANOS = System.nanoTime();
+
     @UnsupportedAppUsage
     public static void start() {
         for (Daemon daemon : DAEMONS) {
             daemon.start();
         }
+        synchronized (FINALIZER_HELPERS_LOCK) {
+            daemonsRunning = true;
+            startFinalizerHelpers();
+        }
     }
 
     public static void startPostZygoteFork() {
@@ -73,15 +109,187 @@ public final class Daemons {
         for (Daemon daemon : DAEMONS) {
             daemon.startPostZygoteFork();
         }
+        synchronized (FINALIZER_HELPERS_LOCK) {
+            daemonsRunning = true;
+            startFinalizerHelpers();
+        }
     }
 
     @UnsupportedAppUsage
     public static void stop() {
+        // Stop the helpers first, so that the FinalizerDaemon takes back anything pending.
+        synchronized (FINALIZER_HELPERS_LOCK) {
+            daemonsRunning = false;
+            stopFinalizerHelpers(0);
+        }
         for (Daemon daemon : DAEMONS) {
             daemon.stop();
         }
     }
 
+    /**
+     * Sets the number of threads running finalizers, including the FinalizerDaemon itself.
+     * With more than one, the FinalizerDaemon hands objects to helper threads so a burst of
+     * finalizable objects is drained in parallel, and finalizers may then run concurrently
+     * with each other. {@link System#runFinalization} still waits for all objects that were
+     * pending when it was called. Takes effect immediately if the daemons are running.
+     *
+     * @param count the number of threads, from 1, the default, to
+     *  {@link #MAX_FINALIZER_THREADS}
+     */
+    public static void setFinalizerThreadCount(int count) {
+        if (count < 1 || count > MAX_FINALIZER_THREADS) {
+            throw new IllegalArgumentException("count out of range [1, "
+                    + MAX_FINALIZER_THREADS + "]: " + count);
+        }
+        synchronized (FINALIZER_HELPERS_LOCK) {
+            finalizerThreadCount = count;
+            if (daemonsRunning) {
+                stopFinalizerHelpers(count - 1);
+                startFinalizerHelpers();
+            }
+        }
+    }
+
+    /** Returns the number of threads running finalizers; see {@link #setFinalizerThreadCount}. */
+    public static int getFinalizerThreadCount() {
+        synchronized (FINALIZER_HELPERS_LOCK) {
+            return finalizerThreadCount;
+        }
+    }
+
+    /** Starts helpers until there are {@code finalizerThreadCount - 1}. */
+    private static void startFinalizerHelpers() {
+        int oldCount = finalizerHelpers.length;
+        int newCount = finalizerThreadCount - 1;
+        if (newCount <= oldCount) {
+            return;
+        }
+        FinalizerHelperDaemon[] helpers = Arrays.copyOf(finalizerHelpers, newCount);
+        for (int i = oldCount; i < newCount; i++) {
+            helpers[i] = new FinalizerHelperDaemon(i);
+            if (postZygoteFork) {
+                helpers[i].startPostZygoteFork();
+            } else {
+                helpers[i].start();
+            }
+        }
+        finalizerHelpers = helpers;
+        // Only hand objects over once there is someone to take them.
+        FinalizerHelperDaemon.handoffEnabled = true;
+    }
+
+    /** Stops helpers until there are at most {@code count}. */
+    private static void stopFinalizerHelpers(int count) {
+        int oldCount = finalizerHelpers.length;
+        if (count >= oldCount) {
+            return;
+        }
+        if (count == 0) {
+            // Objects handed over after this are picked up again by the FinalizerDaemon.
+            FinalizerHelperDaemon.handoffEnabled = false;
+        }
+        FinalizerHelperDaemon[] oldHelpers = finalizerHelpers;
+        finalizerHelpers = Arrays.copyOf(oldHelpers, count);
+        for (int i = count; i < oldCount; i++) {
+            oldHelpers[i].stop();
+            retiredFinalizedCount += oldHelpers[i].finalizedCount.get();
+        }
+    }
+
+    /** Returns the FinalizerDaemon followed by its running helpers. */
+    private static FinalizerDaemon[] getFinalizerDaemons() {
+        FinalizerHelperDaemon[] helpers = finalizerHelpers;
+        FinalizerDaemon[] daemons = new FinalizerDaemon[1 + helpers.length];
+        daemons[0] = FinalizerDaemon.INSTANCE;
+        System.arraycopy(helpers, 0, daemons, 1, helpers.length);
+        return daemons;
+    }
+
+    /**
+     * Returns finalization and reference processing statistics, in the form of
+     * {@link dalvik.system.VMDebug#getRuntimeStats}:
+     * <ul>
+     * <li>{@code libcore.finalizer.queue-depth}: objects waiting to be finalized.
+     * <li>{@code libcore.finalizer.finalized-count}: objects finalized so far.
+     * <li>{@code libcore.finalizer.finalized-per-second}: the average number of objects
+     *     finalized per second since the runtime started. Callers wanting the rate over an
+     *     interval should compare two readings of {@code finalized-count} instead.
+     * <li>{@code libcore.finalizer.slowest-finalizers}: up to 8 comma separated
+     *     {@code class:microseconds} pairs, slowest first, with the longest sampled finalize()
+     *     call of each class. Only one in 64 calls is timed.
+     * <li>{@code libcore.refqueue.batch-count}, {@code libcore.refqueue.reference-count}: the
+     *     number of lists of references handed over by the GC, and the references in them.
+     * <li>{@code libcore.refqueue.max-batch-size}: the most references in one list.
+     * <li>{@code libcore.refqueue.batch-time}, {@code libcore.refqueue.max-batch-time}: the
+     *     total and the longest time, in microseconds, spent enqueuing a list.
+     * </ul>
+     * The counts are read without synchronization, so they may be slightly stale.
+     */
+    public static Map<String, String> getFinalizerStats() {
+        HashMap<String, String> stats = new HashMap<>();
+        int queueDepth = FinalizerReference.queue.getQueuedCount()
+                + FinalizerHelperDaemon.HANDOFF.size();
+        stats.put("libcore.finalizer.queue-depth", Integer.toString(queueDepth));
+
+        long finalized = retiredFinalizedCount;
+        for (FinalizerDaemon daemon : getFinalizerDaemons()) {
+            finalized += daemon.finalizedCount.get();
+        }
+        stats.put("libcore.finalizer.finalized-count", Long.toString(finalized));
+
+        long elapsed = System.nanoTime() - STATS_START_NANOS;
+        long perSecond = elapsed <= 0 ? 0 : (long) (finalized * 1e9 / elapsed);
+        stats.put("libcore.finalizer.finalized-per-second", Long.toString(perSecond));
+
+        StringBuilder slowest = new StringBuilder();
+        synchronized (FINALIZER_STATS_LOCK) {
+            for (int i = 0; i < SLOWEST_FINALIZER_COUNT && slowestFinalizerClasses[i] != null;
+                    i++) {
+                if (i > 0) {
+                    slowest.append(',');
+                }
+                slowest.append(slowestFinalizerClasses[i]).append(':')
+                        .append(slowestFinalizerNanos[i] / 1000);
+            }
+        }
+        stats.put("libcore.finalizer.slowest-finalizers", slowest.toString());
+
+        ReferenceQueueDaemon rq = ReferenceQueueDaemon.INSTANCE;
+        stats.put("libcore.refqueue.batch-count", Long.toString(rq.batchCount));
+        stats.put("libcore.refqueue.reference-count", Long.toString(rq.referenceCount));
+        stats.put("libcore.refqueue.max-batch-size", Long.toString(rq.maxBatchSize));
+        stats.put("libcore.refqueue.batch-time", Long.toString(rq.batchNanos / 1000));
+        stats.put("libcore.refqueue.max-batch-time", Long.toString(rq.maxBatchNanos / 1000));
+        return stats;
+    }
+
+    /**
+     * Records a sampled finalize() time, keeping the slowest call of each of the
+     * {@link #SLOWEST_FINALIZER_COUNT} slowest classes, sorted slowest first.
+     */
+    private static void recordFinalizeTime(String className, long nanos) {
+        synchronized (FINALIZER_STATS_LOCK) {
+            int i = 0;
+            while (i < SLOWEST_FINALIZER_COUNT - 1 && slowestFinalizerClasses[i] != null
+                    && !slowestFinalizerClasses[i].equals(className)) {
+                i++;
+            }
+            // i is now className's entry, the first free entry or the last, fastest one.
+            if (slowestFinalizerClasses[i] != null && slowestFinalizerNanos[i] >= nanos) {
+                return;
+            }
+            // Move slower entries up past the ones this call beats.
+            while (i > 0 && slowestFinalizerNanos[i - 1] < nanos) {
+                slowestFinalizerClasses[i] = slowestFinalizerClasses[i - 1];
+                slowestFinalizerNanos[i] = slowestFinalizerNanos[i - 1];
+                i--;
+            }
+            slowestFinalizerClasses[i] = className;
+            slowestFinalizerNanos[i] = nanos;
+        }
+    }
+
     private static void waitForDaemonStart() throws Exception {
         if (postZygoteFork) {
             POST_ZYGOTE_START_LATCH.await();
@@ -100,9 +308,16 @@ public final class Daemons {
         private Thread thread;
         private String name;
         private boolean postZygoteFork;
+        // False for daemons started on demand, which the start latches don't wait for.
+        private final boolean signalsStart;
 
         protected Daemon(String name) {
+            this(name, true);
+        }
+
+        protected Daemon(String name, boolean signalsStart) {
             this.name = name;
+            this.signalsStart = signalsStart;
         }
 
         @UnsupportedAppUsage
@@ -132,8 +347,10 @@ public final class Daemons {
                 // priority. We (may) use a native priority that doesn't have a corresponding
                 // java.lang.Thread-level priority (native priorities are more coarse-grained.)
                 VMRuntime.getRuntime().setSystemDaemonThreadPriority();
-                POST_ZYGOTE_START_LATCH.countDown();
-            } else {
+                if (signalsStart) {
+                    POST_ZYGOTE_START_LATCH.countDown();
+                }
+            } else if (signalsStart) {
                 PRE_ZYGOTE_START_LATCH.countDown();
             }
             try {
@@ -214,6 +431,13 @@ public final class Daemons {
         // Monitored by FinalizerWatchdogDaemon to make sure we're still working.
         private final AtomicInteger progressCounter = new AtomicInteger(0);
 
+        // Statistics for getFinalizerStats. Only written by this daemon, once per GC.
+        private volatile long batchCount;
+        private volatile long referenceCount;
+        private volatile long maxBatchSize;
+        private volatile long batchNanos;
+        private volatile long maxBatchNanos;
+
         ReferenceQueueDaemon() {
             super("ReferenceQueueDaemon");
         }
@@ -243,8 +467,21 @@ public final class Daemons {
                 } catch (OutOfMemoryError e) {
                     continue;
                 }
-                ReferenceQueue.enqueuePending(list, progressCounter);
+                long start = System.nanoTime();
+                int size = ReferenceQueue.enqueuePending(list, progressCounter);
+                long nanos = System.nanoTime() - start;
                 FinalizerWatchdogDaemon.INSTANCE.resetTimeouts();
+                batchCount++;
+                referenceCount += size;
+                batchNanos += nanos;
+                if (size > maxBatchSize) {
+                    maxBatchSize = size;
+                }
+                if (nanos > maxBatchNanos) {
+                    maxBatchNanos = nanos;
+                }
+                // Cleaners run above may have queued batched native frees.
+                NativeAllocationRegistry.flushPendingFrees();
             }
         }
 
@@ -261,9 +498,19 @@ public final class Daemons {
         // Object (not reference!) being finalized. Accesses may race!
         @UnsupportedAppUsage
         private Object finalizingObject = null;
+        // The FinalizerWatchdogDaemon bit identifying this daemon.
+        final int watchdogBit;
+        // Objects finalized by this daemon. Only written by this daemon, with lazySet.
+        final AtomicLong finalizedCount = new AtomicLong(0);
 
         FinalizerDaemon() {
             super("FinalizerDaemon");
+            this.watchdogBit = FinalizerWatchdogDaemon.FINALIZER_DAEMON;
+        }
+
+        FinalizerDaemon(String name, int watchdogBit) {
+            super(name, false);
+            this.watchdogBit = watchdogBit;
         }
 
         @Override public void runInternal() {
@@ -292,6 +539,15 @@ public final class Daemons {
                         finalizingObject = finalizingReference.get();
                         progressCounter.lazySet(++localProgressCounter);
                     } else {
+                        // Finish anything handed over to helpers that have since stopped
+                        // before blocking.
+                        FinalizerReference<?> handedOver = FinalizerHelperDaemon.HANDOFF.poll();
+                        if (handedOver != null) {
+                            finalizingObject = handedOver.get();
+                            progressCounter.lazySet(++localProgressCounter);
+                            FinalizerHelperDaemon.finalizeHandedOver(this, handedOver);
+                            continue;
+                        }
                         finalizingObject = null;
                         progressCounter.lazySet(++localProgressCounter);
                         // Slow path; block.
@@ -303,6 +559,16 @@ public final class Daemons {
                         FinalizerWatchdogDaemon.INSTANCE.monitoringNeeded(
                                 FinalizerWatchdogDaemon.FINALIZER_DAEMON);
                     }
+                    if (FinalizerReference.isSentinel(finalizingObject)) {
+                        // Everything enqueued before the sentinel must be finalized before it,
+                        // including anything handed over to helpers.
+                        FinalizerHelperDaemon.awaitHandedOver(this);
+                        localProgressCounter = progressCounter.get();
+                    } else if (FinalizerHelperDaemon.handoffEnabled
+                            && FinalizerHelperDaemon.handOver(finalizingReference)) {
+                        finalizingObject = null;
+                        continue;
+                    }
                     doFinalize(finalizingReference);
                 } catch (InterruptedException ignored) {
                 } catch (OutOfMemoryError ignored) {
@@ -311,10 +577,14 @@ public final class Daemons {
         }
 
         @FindBugsSuppressWarnings("FI_EXPLICIT_INVOCATION")
-        private void doFinalize(FinalizerReference<?> reference) {
+        void doFinalize(FinalizerReference<?> reference) {
             FinalizerReference.remove(reference);
             Object object = reference.get();
             reference.clear();
+            long count = finalizedCount.get() + 1;
+            // Reading the time costs a kernel call on some devices, so only time a sample.
+            boolean timed = (count & (FINALIZE_TIME_SAMPLE_INTERVAL - 1)) == 0;
+            long start = timed ? System.nanoTime() : 0;
             try {
                 object.finalize();
             } catch (Throwable ex) {
@@ -324,6 +594,110 @@ public final class Daemons {
                 // Done finalizing, stop holding the object as live.
                 finalizingObject = null;
             }
+            if (timed) {
+                recordFinalizeTime(object.getClass().getName(), System.nanoTime() - start);
+            }
+            finalizedCount.lazySet(count);
+        }
+    }
+
+    /**
+     * Finalizes objects handed over by the FinalizerDaemon, so that several finalizers can run
+     * at once; see {@link #setFinalizerThreadCount}. Only the FinalizerDaemon takes objects
+     * from the finalizer queue, so it can tell when everything ahead of a
+     * {@link System#runFinalization} sentinel is done.
+     */
+    private static class FinalizerHelperDaemon extends FinalizerDaemon {
+        // References handed over by the FinalizerDaemon. Bounded, so that the FinalizerDaemon
+        // finalizes objects itself when the helpers fall behind.
+        static final ArrayBlockingQueue<FinalizerReference<?>> HANDOFF =
+                new ArrayBlockingQueue<>(256);
+
+        // Handed over references not yet finalized, including those still in HANDOFF.
+        // Notified on when it drops to zero.
+        private static final AtomicInteger unfinished = new AtomicInteger(0);
+
+        // Whether the FinalizerDaemon should hand objects over. Set while helpers are running.
+        static volatile boolean handoffEnabled;
+
+        FinalizerHelperDaemon(int index) {
+            // Watchdog bits 1 and 2 are taken by the FinalizerDaemon and ReferenceQueueDaemon.
+            super("FinalizerDaemon-" + (index + 1),
+                    FinalizerWatchdogDaemon.FINALIZER_HELPER_DAEMONS << index);
+        }
+
+        static boolean handOver(FinalizerReference<?> reference) {
+            unfinished.incrementAndGet();
+            if (HANDOFF.offer(reference)) {
+                return true;
+            }
+            finished();
+            return false;
+        }
+
+        static void finalizeHandedOver(FinalizerDaemon daemon, FinalizerReference<?> reference) {
+            try {
+                daemon.doFinalize(reference);
+            } finally {
+                finished();
+            }
+        }
+
+        private static void finished() {
+            if (unfinished.decrementAndGet() == 0) {
+                synchronized (unfinished) {
+                    unfinished.notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Waits until every reference handed over so far is finalized, helping out with those
+         * not yet taken by a helper. Gives up early if {@code daemon} is being stopped.
+         */
+        static void awaitHandedOver(FinalizerDaemon daemon) {
+            while (unfinished.get() != 0 && daemon.isRunning()) {
+                FinalizerReference<?> reference = HANDOFF.poll();
+                if (reference != null) {
+                    finalizeHandedOver(daemon, reference);
+                } else {
+                    synchronized (unfinished) {
+                        try {
+                            if (unfinished.get() != 0) {
+                                unfinished.wait(10);
+                            }
+                        } catch (InterruptedException ignored) {
+                            // Daemon.stop may have interrupted us; isRunning() will tell.
+                        }
+                    }
+                }
+                // Only helpers may be stuck; keep the watchdog off this daemon meanwhile.
+                daemon.progressCounter.incrementAndGet();
+            }
+        }
+
+        @Override public void runInternal() {
+            int localProgressCounter = progressCounter.get();
+            while (isRunning()) {
+                try {
+                    FinalizerReference<?> reference = HANDOFF.poll();
+                    if (reference == null) {
+                        progressCounter.lazySet(++localProgressCounter);
+                        FinalizerWatchdogDaemon.INSTANCE.monitoringNotNeeded(watchdogBit);
+                        try {
+                            reference = HANDOFF.take();
+                        } finally {
+                            FinalizerWatchdogDaemon.INSTANCE.monitoringNeeded(watchdogBit);
+                        }
+                    }
+                    finalizingObject = reference.get();
+                    progressCounter.lazySet(++localProgressCounter);
+                    finalizeHandedOver(this, reference);
+                } catch (InterruptedException ignored) {
+                } catch (OutOfMemoryError ignored) {
+                }
+            }
+            FinalizerWatchdogDaemon.INSTANCE.monitoringNotNeeded(watchdogBit);
         }
     }
 
@@ -339,6 +713,8 @@ public final class Daemons {
         // Single bit values to identify daemon to be watched.
         static final int FINALIZER_DAEMON = 1;
         static final int RQ_DAEMON = 2;
+        // The lowest of the bits for FinalizerHelperDaemons; each takes the next one up.
+        static final int FINALIZER_HELPER_DAEMONS = 4;
 
         @UnsupportedAppUsage
         private static final FinalizerWatchdogDaemon INSTANCE = new FinalizerWatchdogDaemon();
@@ -347,6 +723,13 @@ public final class Daemons {
 
         private long finalizerTimeoutNs = 0;  // Lazily initialized.
 
+        // The finalizer threads watched by waitForProgress, preallocated so that the watchdog
+        // never allocates, and so can't fail, while the heap is exhausted.
+        private final FinalizerDaemon[] watchedFinalizers =
+                new FinalizerDaemon[MAX_FINALIZER_THREADS];
+        private final boolean[] monitorFinalizer = new boolean[MAX_FINALIZER_THREADS];
+        private final int[] finalizerStartCount = new int[MAX_FINALIZER_THREADS];
+
         // We tolerate this many timeouts during an enqueuePending call.
         // This number is > 1, since we may only report enqueuePending progress rarely.
         private static final int TOLERATED_REFERENCE_QUEUE_TIMEOUTS = 5;
@@ -463,11 +846,26 @@ public final class Daemons {
                 // Temporary app backward compatibility. Remove eventually.
                 MAX_FINALIZE_NANOS = finalizerTimeoutNs;
             }
-            boolean monitorFinalizer = false;
-            int finalizerStartCount = 0;
-            if (isActive(FINALIZER_DAEMON)) {
-                monitorFinalizer = true;
-                finalizerStartCount = FinalizerDaemon.INSTANCE.progressCounter.get();
+            final FinalizerDaemon[] finalizers = watchedFinalizers;
+            FinalizerHelperDaemon[] helpers = finalizerHelpers;
+            int finalizerCount = 1 + helpers.length;
+            finalizers[0] = FinalizerDaemon.INSTANCE;
+            System.arraycopy(helpers, 0, finalizers, 1, helpers.length);
+            try {
+                return waitForProgress(finalizers, finalizerCount);
+            } finally {
+                // Don't keep stopped helpers reachable until the next round.
+                Arrays.fill(finalizers, null);
+            }
+        }
+
+        private TimeoutException waitForProgress(FinalizerDaemon[] finalizers,
+                int finalizerCount) {
+            for (int i = 0; i < finalizerCount; i++) {
+                monitorFinalizer[i] = isActive(finalizers[i].watchdogBit);
+                if (monitorFinalizer[i]) {
+                    finalizerStartCount[i] = finalizers[i].progressCounter.get();
+                }
             }
             boolean monitorRefQueue = false;
             int refQueueStartCount = 0;
@@ -481,31 +879,36 @@ public final class Daemons {
                 // Don't report possibly spurious timeout if we are interrupted.
                 return null;
             }
-            if (FinalizerDaemon.INSTANCE.progressCounter.get() == finalizerStartCount
-                && monitorFinalizer && isActive(FINALIZER_DAEMON)) {
-                // We assume that only remove() and doFinalize() may take time comparable to the
-                // finalizer timeout.
-                // We observed neither the effect of the monitoringNotNeeded() nor the increment
-                // preceding a later wakeUp. Any remove() call by the FinalizerDaemon during our
-                // sleep interval must have been followed by a monitoringNeeded() call before we
-                // checked activeCallees.  But then we would have seen the counter increment.
-                // Thus there cannot have been such a remove() call.
-                // The FinalizerDaemon must not have progressed (from either the beginning or the
-                // last progressCounter increment) to either the next increment or
-                // monitoringNotNeeded() call.
-                // Thus we must have taken essentially the whole finalizerTimeoutMs in a single
-                // doFinalize() call.  Thus it's OK to time out.  finalizingObject was set just
-                // before the counter increment, which preceded the doFinalize() call.  Thus we
-                // are guaranteed to get the correct finalizing value below, unless doFinalize()
-                // just finished as we were timing out, in which case we may get null or a later
-                // one.  In this last case, we are very likely to discard it below.
-                Object finalizing = FinalizerDaemon.INSTANCE.finalizingObject;
-                sleepForNanos(500 * NANOS_PER_MILLI);
-                // Recheck to make it even less likely we report the wrong finalizing object in
-                // the case which a very slow finalization just finished as we were timing out.
-                if (isActive(FINALIZER_DAEMON)
-                        && FinalizerDaemon.INSTANCE.progressCounter.get() == finalizerStartCount) {
-                    return finalizerTimeoutException(finalizing);
+            for (int i = 0; i < finalizerCount; i++) {
+                FinalizerDaemon finalizer = finalizers[i];
+                if (finalizer.progressCounter.get() == finalizerStartCount[i]
+                    && monitorFinalizer[i] && isActive(finalizer.watchdogBit)) {
+                    // We assume that only remove() and doFinalize() may take time comparable to
+                    // the finalizer timeout.
+                    // We observed neither the effect of the monitoringNotNeeded() nor the
+                    // increment preceding a later wakeUp. Any remove() call by the finalizer
+                    // during our sleep interval must have been followed by a monitoringNeeded()
+                    // call before we checked activeCallees.  But then we would have seen the
+                    // counter increment.  Thus there cannot have been such a remove() call.
+                    // The finalizer must not have progressed (from either the beginning or the
+                    // last progressCounter increment) to either the next increment or
+                    // monitoringNotNeeded() call.
+                    // Thus we must have taken essentially the whole finalizerTimeoutMs in a
+                    // single doFinalize() call.  Thus it's OK to time out.  finalizingObject was
+                    // set just before the counter increment, which preceded the doFinalize()
+                    // call.  Thus we are guaranteed to get the correct finalizing value below,
+                    // unless doFinalize() just finished as we were timing out, in which case we
+                    // may get null or a later one.  In this last case, we are very likely to
+                    // discard it below.
+                    Object finalizing = finalizer.finalizingObject;
+                    sleepForNanos(500 * NANOS_PER_MILLI);
+                    // Recheck to make it even less likely we report the wrong finalizing object
+                    // in the case which a very slow finalization just finished as we were timing
+                    // out.
+                    if (isActive(finalizer.watchdogBit)
+                            && finalizer.progressCounter.get() == finalizerStartCount[i]) {
+                        return finalizerTimeoutException(finalizer, finalizing);
+                    }
                 }
             }
             if (ReferenceQueueDaemon.INSTANCE.progressCounter.get() == refQueueStartCount
@@ -519,12 +922,13 @@ public final class Daemons {
             return null;
         }
 
-        private static TimeoutException finalizerTimeoutException(Object object) {
+        private static TimeoutException finalizerTimeoutException(FinalizerDaemon finalizer,
+                Object object) {
             String message = object.getClass().getName() + ".finalize() timed out after "
                     + VMRuntime.getRuntime().getFinalizerTimeoutMs() / 1000 + " seconds";
             TimeoutException syntheticException = new TimeoutException(message);
             // We use the stack from where finalize() was running to show where it was stuck.
-            syntheticException.setStackTrace(FinalizerDaemon.INSTANCE.getStackTrace());
+            syntheticException.setStackTrace(finalizer.getStackTrace());
             return syntheticException;
         }
 
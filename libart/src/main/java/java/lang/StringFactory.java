@@ -124,7 +124,7 @@ public final class StringFactory {
 
     public static String newStringFromStringBuffer(StringBuffer stringBuffer) {
         synchronized (stringBuffer) {
-            return newStringFromChars(stringBuffer.getValue(), 0, stringBuffer.length());
+            return stringBuffer.newString(0, stringBuffer.length());
         }
     }
 
@@ -146,6 +146,6 @@ public final class StringFactory {
     }
 
     public static String newStringFromStringBuilder(StringBuilder stringBuilder) {
-        return newStringFromChars(stringBuilder.getValue(), 0, stringBuilder.length());
+        return stringBuilder.newString(0, stringBuilder.length());
     }
 }
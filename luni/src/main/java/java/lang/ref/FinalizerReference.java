@@ -102,6 +102,14 @@ public final class FinalizerReference<T> extends Reference<T> {
         sentinel.awaitFinalization(timeout);
     }
 
+    /**
+     * Returns true if {@code object} is a sentinel enqueued by {@link #finalizeAllEnqueued}.
+     * Its finalization must wait for all finalizable objects enqueued before it.
+     */
+    public static boolean isSentinel(Object object) {
+        return object instanceof Sentinel;
+    }
+
     private static boolean enqueueSentinelReference(Sentinel sentinel) {
         synchronized (LIST_LOCK) {
             // When a finalizable object is allocated, a FinalizerReference is added to the list.
@@ -16,6 +16,7 @@
 
 package libcore.io;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FilterInputStream;
@@ -26,6 +27,13 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 import sun.net.www.ParseUtil;
@@ -37,8 +45,24 @@ import sun.net.www.protocol.jar.Handler;
  * {@link URLConnection} objects created are a subclass of {@link JarURLConnection}.
  *
  * <p>Use {@link #getEntryUrlOrNull(String)} to obtain a URL backed by this stream handler.
+ *
+ * <p>Small resources can optionally be kept in memory once decompressed, shared by all
+ * instances; see {@link #setResourceCacheLimits(int, long)}.
  */
 public class ClassPathURLStreamHandler extends Handler {
+  /**
+   * Decompressed contents of small resources, keyed by jar file URI and entry name, in access
+   * order. Guards itself and {@link #resourceCacheBytes}.
+   */
+  private static final LinkedHashMap<String, byte[]> resourceCache =
+      new LinkedHashMap<>(16, 0.75f, true /* accessOrder */);
+  private static long resourceCacheBytes;
+  private static long maxResourceCacheBytes;
+  private static volatile int maxCachedResourceSize;
+
+  private static final AtomicLong resourceCacheHits = new AtomicLong();
+  private static final AtomicLong resourceCacheMisses = new AtomicLong();
+
   private final String fileUri;
   private final JarFile jarFile;
 
@@ -69,6 +93,17 @@ public class ClassPathURLStreamHandler extends Handler {
     return null;
   }
 
+  /**
+   * Returns the names of all entries in the jar file, in central directory order.
+   */
+  public List<String> getEntryNames() {
+    List<String> names = new ArrayList<>(jarFile.size());
+    for (Enumeration<? extends ZipEntry> e = jarFile.entries(); e.hasMoreElements(); ) {
+      names.add(e.nextElement().getName());
+    }
+    return names;
+  }
+
   /**
    * Returns true if an entry with the specified name exists and is stored (not compressed),
    * and false otherwise.
@@ -86,6 +121,101 @@ public class ClassPathURLStreamHandler extends Handler {
   /** Used from tests to indicate this stream handler is finished with. */
   public void close() throws IOException {
     jarFile.close();
+    String prefix = fileUri + "!/";
+    synchronized (resourceCache) {
+      for (Iterator<Map.Entry<String, byte[]>> it = resourceCache.entrySet().iterator();
+          it.hasNext(); ) {
+        Map.Entry<String, byte[]> entry = it.next();
+        if (entry.getKey().startsWith(prefix)) {
+          resourceCacheBytes -= entry.getValue().length;
+          it.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Enables caching the decompressed contents of resources of at most {@code maxEntrySize}
+   * bytes, up to {@code maxTotalSize} bytes in total across all class path jar files, evicting
+   * the least recently read resources first. Streams for cached resources read straight from
+   * the cached bytes. Passing 0 for either limit disables the cache and empties it.
+   *
+   * <p>Only worthwhile for resources read repeatedly, such as service and properties files.
+   * The cache assumes the jar files aren't modified while open, as {@link JarFile} does.
+   */
+  public static void setResourceCacheLimits(int maxEntrySize, long maxTotalSize) {
+    if (maxEntrySize < 0) {
+      throw new IllegalArgumentException("maxEntrySize < 0: " + maxEntrySize);
+    }
+    if (maxTotalSize < 0) {
+      throw new IllegalArgumentException("maxTotalSize < 0: " + maxTotalSize);
+    }
+    synchronized (resourceCache) {
+      boolean enabled = maxEntrySize > 0 && maxTotalSize > 0;
+      maxCachedResourceSize = enabled ? maxEntrySize : 0;
+      maxResourceCacheBytes = enabled ? maxTotalSize : 0;
+      trimResourceCache();
+    }
+  }
+
+  /** Returns the number of resource reads served from the cache. */
+  public static long getResourceCacheHitCount() {
+    return resourceCacheHits.get();
+  }
+
+  /** Returns the number of reads of cacheable resources that weren't in the cache. */
+  public static long getResourceCacheMissCount() {
+    return resourceCacheMisses.get();
+  }
+
+  /** Returns the total size of the cached resources, in bytes. */
+  public static long getResourceCacheSize() {
+    synchronized (resourceCache) {
+      return resourceCacheBytes;
+    }
+  }
+
+  /** Evicts the least recently used resources until the cache fits its limits. */
+  private static void trimResourceCache() {
+    Iterator<byte[]> it = resourceCache.values().iterator();
+    while (resourceCacheBytes > maxResourceCacheBytes && it.hasNext()) {
+      resourceCacheBytes -= it.next().length;
+      it.remove();
+    }
+  }
+
+  /**
+   * Returns the decompressed contents of {@code entry}, from the cache if possible, or
+   * {@code null} if the entry isn't eligible for caching.
+   */
+  private byte[] getCachedResourceOrNull(ZipEntry entry) throws IOException {
+    int maxEntrySize = maxCachedResourceSize;
+    long size = entry.getSize();
+    if (maxEntrySize == 0 || entry.isDirectory() || size < 0 || size > maxEntrySize) {
+      return null;
+    }
+
+    String key = fileUri + "!/" + entry.getName();
+    byte[] bytes;
+    synchronized (resourceCache) {
+      bytes = resourceCache.get(key);
+    }
+    if (bytes != null) {
+      resourceCacheHits.incrementAndGet();
+      return bytes;
+    }
+
+    resourceCacheMisses.incrementAndGet();
+    bytes = Streams.readFully(jarFile.getInputStream(entry));
+    synchronized (resourceCache) {
+      // The limits may have changed while reading.
+      if (maxCachedResourceSize != 0 && bytes.length <= maxCachedResourceSize) {
+        byte[] previous = resourceCache.put(key, bytes);
+        resourceCacheBytes += bytes.length - (previous != null ? previous.length : 0);
+        trimResourceCache();
+      }
+    }
+    return bytes;
   }
 
   private class ClassPathURLConnection extends JarURLConnection {
@@ -159,6 +289,13 @@ public class ClassPathURLStreamHandler extends Handler {
       if (jarInput != null) {
         return jarInput;
       }
+      if (useCachedJarFile) {
+        byte[] cachedBytes = getCachedResourceOrNull(jarEntry);
+        if (cachedBytes != null) {
+          // ByteArrayInputStream never writes to its buffer, so it can be shared.
+          return jarInput = new ByteArrayInputStream(cachedBytes);
+        }
+      }
       return jarInput = new FilterInputStream(jarFile.getInputStream(jarEntry)) {
         @Override
         public void close() throws IOException {
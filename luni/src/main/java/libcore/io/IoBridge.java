@@ -307,6 +307,7 @@ public final class IoBridge {
         }
 
         AsynchronousCloseMonitor.signalBlockedThreads(oldFd);
+        ManagedBlockingExecutor.signalClosed();
         try {
             Libcore.os.close(oldFd);
         } catch (ErrnoException errnoException) {
@@ -600,6 +601,7 @@ public final class IoBridge {
         if (byteCount == 0) {
             return 0;
         }
+        ManagedBlockingExecutor.awaitReadable(fd);
         try {
             int readCount = Libcore.os.read(fd, bytes, byteOffset, byteCount);
             if (readCount == 0) {
@@ -750,7 +752,22 @@ public final class IoBridge {
         int result;
         try {
             InetSocketAddress srcAddress = packet != null ? new InetSocketAddress() : null;
-            result = Libcore.os.recvfrom(fd, bytes, byteOffset, byteCount, flags, srcAddress);
+            if ((flags & MSG_DONTWAIT) == 0 && ManagedBlockingExecutor.isCarrierThread()) {
+                // Only park the carrier if there is nothing to read yet.
+                try {
+                    result = Libcore.os.recvfrom(fd, bytes, byteOffset, byteCount,
+                            flags | MSG_DONTWAIT, srcAddress);
+                } catch (ErrnoException e) {
+                    if (e.errno != EAGAIN
+                            || !ManagedBlockingExecutor.awaitReadableAfterEagain(fd)) {
+                        throw e;
+                    }
+                    result = Libcore.os.recvfrom(fd, bytes, byteOffset, byteCount, flags,
+                            srcAddress);
+                }
+            } else {
+                result = Libcore.os.recvfrom(fd, bytes, byteOffset, byteCount, flags, srcAddress);
+            }
             result = postRecvfrom(isRead, packet, srcAddress, result);
         } catch (ErrnoException errnoException) {
             result = maybeThrowAfterRecvfrom(isRead, isConnected, errnoException);
@@ -763,7 +780,20 @@ public final class IoBridge {
         int result;
         try {
             InetSocketAddress srcAddress = packet != null ? new InetSocketAddress() : null;
-            result = Libcore.os.recvfrom(fd, buffer, flags, srcAddress);
+            if ((flags & MSG_DONTWAIT) == 0 && ManagedBlockingExecutor.isCarrierThread()) {
+                // Only park the carrier if there is nothing to read yet.
+                try {
+                    result = Libcore.os.recvfrom(fd, buffer, flags | MSG_DONTWAIT, srcAddress);
+                } catch (ErrnoException e) {
+                    if (e.errno != EAGAIN
+                            || !ManagedBlockingExecutor.awaitReadableAfterEagain(fd)) {
+                        throw e;
+                    }
+                    result = Libcore.os.recvfrom(fd, buffer, flags, srcAddress);
+                }
+            } else {
+                result = Libcore.os.recvfrom(fd, buffer, flags, srcAddress);
+            }
             result = postRecvfrom(isRead, packet, srcAddress, result);
         } catch (ErrnoException errnoException) {
             result = maybeThrowAfterRecvfrom(isRead, isConnected, errnoException);
@@ -856,6 +886,12 @@ public final class IoBridge {
      */
     public static void poll(FileDescriptor fd, int events, int timeout)
             throws SocketException, SocketTimeoutException {
+        if (ManagedBlockingExecutor.isCarrierThread()) {
+            if (!ManagedBlockingExecutor.awaitReady(fd, events, timeout)) {
+                throw new SocketTimeoutException("Poll timed out");
+            }
+            return;
+        }
         StructPollfd[] pollFds = new StructPollfd[]{ new StructPollfd() };
         pollFds[0].fd = fd;
         pollFds[0].events = (short) events;
@@ -0,0 +1,441 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.io;
+
+import android.system.ErrnoException;
+import android.system.StructPollfd;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static android.system.OsConstants.*;
+
+/**
+ * An executor for tasks that do blocking-style socket I/O. Tasks run on a small
+ * pool of carrier threads. When a task on a carrier would block reading from a
+ * socket in {@link IoBridge} or {@code java.net.SocketInputStream}, it instead
+ * registers the file descriptor with a poller shared by all such executors and
+ * parks; the pool starts or resumes another carrier in its place, so that the
+ * number of carriers running tasks stays at the requested parallelism however
+ * many tasks are waiting for input.
+ *
+ * <p>There are no continuations, so a task that waits keeps its thread's stack.
+ * Handlers that should not hold a thread at all while idle can instead use
+ * {@link #executeWhenReady} to run once their socket is ready, then re-register.
+ *
+ * @hide
+ */
+public final class ManagedBlockingExecutor extends AbstractExecutorService {
+
+    private static final Object pollerLock = new Object();
+    private static volatile Poller poller;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an executor that runs tasks on {@code parallelism} carrier threads.
+     */
+    public ManagedBlockingExecutor(int parallelism) {
+        pool = new ForkJoinPool(parallelism, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                return new Carrier(pool);
+            }
+        }, null, true);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        pool.execute(command);
+    }
+
+    /**
+     * Runs {@code task} on this executor once {@code fd} is ready for one of the
+     * poll(2) {@code events}, or is closed, without holding any thread until then.
+     * The task is dropped if this executor has been shut down by then.
+     *
+     * @throws RejectedExecutionException if this executor has been shut down
+     */
+    public void executeWhenReady(FileDescriptor fd, int events, Runnable task) {
+        if (fd == null || task == null) {
+            throw new NullPointerException();
+        }
+        if (pool.isShutdown()) {
+            throw new RejectedExecutionException("Executor has been shut down");
+        }
+        poller().register(new Waiter(fd, events, null, task, pool));
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return pool.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return pool.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return pool.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Returns true if the calling thread is a carrier of a ManagedBlockingExecutor.
+     */
+    public static boolean isCarrierThread() {
+        return Thread.currentThread() instanceof Carrier;
+    }
+
+    /**
+     * If the calling thread is a carrier, waits for {@code fd} to be ready for one of
+     * the poll(2) {@code events} or be closed, letting another carrier run meanwhile.
+     * A negative {@code timeoutMs} waits indefinitely. Returns false if the timeout
+     * elapsed first, and true otherwise, including when the caller is not a carrier.
+     *
+     * <p>Interrupts do not end the wait, as they do not end a blocking read, but are
+     * preserved.
+     */
+    public static boolean awaitReady(FileDescriptor fd, int events, int timeoutMs) {
+        return isCarrierThread() && fd.valid() ? await(fd, events, timeoutMs, false) : true;
+    }
+
+    /**
+     * Called before a read from {@code fd} that may block. If the calling thread is a
+     * carrier and {@code fd} is in blocking mode, waits until it is readable as
+     * {@link #awaitReady} does. Reads that can be tried without blocking, such as
+     * {@code recvfrom} with {@code MSG_DONTWAIT}, should use {@link #awaitReadableAfterEagain}
+     * instead, which costs nothing when there is input.
+     */
+    public static void awaitReadable(FileDescriptor fd) {
+        if (isCarrierThread() && fd.valid()) {
+            await(fd, POLLIN, -1, true);
+        }
+    }
+
+    /**
+     * Called after a read from {@code fd} that was tried without blocking failed with
+     * {@code EAGAIN}. If the calling thread is a carrier and {@code fd} is in blocking mode,
+     * waits until it is readable as {@link #awaitReady} does, and returns true so that the
+     * caller reads again, this time blocking. Otherwise returns false, and the caller should
+     * report the {@code EAGAIN} as it would have without this executor.
+     */
+    public static boolean awaitReadableAfterEagain(FileDescriptor fd) {
+        if (!isCarrierThread() || !fd.valid()) {
+            return false;
+        }
+        try {
+            if ((Libcore.rawOs.fcntlVoid(fd, F_GETFL) & O_NONBLOCK) != 0) {
+                return false;
+            }
+        } catch (ErrnoException e) {
+            return false;
+        }
+        park(fd, POLLIN, -1);
+        return true;
+    }
+
+    private static boolean await(FileDescriptor fd, int events, int timeoutMs,
+            boolean onlyIfBlocking) {
+        try {
+            StructPollfd[] pollFds = new StructPollfd[] { new StructPollfd() };
+            pollFds[0].fd = fd;
+            pollFds[0].events = (short) events;
+            if (Libcore.rawOs.poll(pollFds, 0) != 0 || (onlyIfBlocking
+                    && (Libcore.rawOs.fcntlVoid(fd, F_GETFL) & O_NONBLOCK) != 0)) {
+                return true;
+            }
+        } catch (ErrnoException e) {
+            // Let the caller's own system call report the error.
+            return true;
+        }
+        return timeoutMs != 0 && park(fd, events, timeoutMs);
+    }
+
+    /**
+     * Parks the calling carrier until {@code fd} is ready for one of {@code events}, is
+     * closed, or {@code timeoutMs} elapses. Returns false if the timeout elapsed first.
+     */
+    private static boolean park(FileDescriptor fd, int events, int timeoutMs) {
+        Waiter waiter = new Waiter(fd, events, Thread.currentThread(), null, null);
+        if (timeoutMs > 0) {
+            waiter.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        }
+        poller().register(waiter);
+        try {
+            ForkJoinPool.managedBlock(waiter);
+        } catch (InterruptedException impossible) {
+            throw new AssertionError(impossible);
+        }
+        if (waiter.interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (waiter.state.get() == Waiter.TIMED_OUT) {
+            // Stop polling for it.
+            poller.wakeup();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Wakes any task waiting for a file descriptor that has since been released,
+     * so that it fails as a blocked system call would. Called when closing a file
+     * descriptor, alongside {@link AsynchronousCloseMonitor#signalBlockedThreads}.
+     */
+    public static void signalClosed() {
+        Poller p = poller;
+        if (p != null) {
+            p.wakeup();
+        }
+    }
+
+    private static Poller poller() {
+        Poller p = poller;
+        if (p == null) {
+            synchronized (pollerLock) {
+                p = poller;
+                if (p == null) {
+                    try {
+                        p = new Poller();
+                    } catch (ErrnoException e) {
+                        throw new IllegalStateException("Unable to create poller", e);
+                    }
+                    Thread thread = new Thread(p, "ManagedBlockingPoller");
+                    thread.setDaemon(true);
+                    thread.start();
+                    poller = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    private static final class Carrier extends ForkJoinWorkerThread {
+        Carrier(ForkJoinPool pool) {
+            super(pool);
+        }
+    }
+
+    /**
+     * A file descriptor being waited for, by either a parked carrier or a task to
+     * be submitted once it is ready.
+     */
+    private static final class Waiter implements ForkJoinPool.ManagedBlocker {
+        static final int WAITING = 0;
+        static final int READY = 1;
+        static final int TIMED_OUT = 2;
+
+        final FileDescriptor fd;
+        final int events;
+        final Thread thread;
+        final Runnable task;
+        final ForkJoinPool pool;
+        final AtomicInteger state = new AtomicInteger(WAITING);
+        // Only accessed by the waiting thread.
+        long deadline;
+        boolean interrupted;
+
+        Waiter(FileDescriptor fd, int events, Thread thread, Runnable task, ForkJoinPool pool) {
+            this.fd = fd;
+            this.events = events;
+            this.thread = thread;
+            this.task = task;
+            this.pool = pool;
+        }
+
+        boolean isDone() {
+            return state.get() != WAITING;
+        }
+
+        void complete(int newState) {
+            if (!state.compareAndSet(WAITING, newState)) {
+                return;
+            }
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            } else {
+                try {
+                    pool.execute(task);
+                } catch (RejectedExecutionException ignored) {
+                    // The executor was shut down while the task waited.
+                }
+            }
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return isDone();
+        }
+
+        @Override
+        public boolean block() {
+            while (!isDone()) {
+                if (deadline == 0) {
+                    LockSupport.park(this);
+                } else {
+                    long nanos = deadline - System.nanoTime();
+                    if (nanos <= 0) {
+                        complete(TIMED_OUT);
+                        break;
+                    }
+                    LockSupport.parkNanos(this, nanos);
+                }
+                if (Thread.interrupted()) {
+                    interrupted = true;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Polls the file descriptors of all waiters on one thread, together with a pipe
+     * written to whenever the set of waiters may have changed.
+     */
+    private static final class Poller implements Runnable {
+        private final ConcurrentLinkedQueue<Waiter> registrations =
+                new ConcurrentLinkedQueue<Waiter>();
+        private final AtomicBoolean wakeupPending = new AtomicBoolean();
+        private final FileDescriptor wakeupIn;
+        private final FileDescriptor wakeupOut;
+        // Only accessed by the poller thread. Entry 0 polls the wakeup pipe, and entry i of
+        // the first pollCount ones polls waiters[i]. Kept from one poll to the next and
+        // updated as waiters come and go, so that a wakeup costs no work per waiter beyond
+        // the poll itself. Unused entries have a null fd, which ends the array for poll.
+        private StructPollfd[] pollFds = new StructPollfd[0];
+        private Waiter[] waiters = new Waiter[0];
+        private int pollCount;
+
+        Poller() throws ErrnoException {
+            FileDescriptor[] pipe = Libcore.rawOs.pipe2(O_CLOEXEC | O_NONBLOCK);
+            wakeupIn = pipe[0];
+            wakeupOut = pipe[1];
+            add(wakeupIn, POLLIN, null);
+        }
+
+        private void add(FileDescriptor fd, int events, Waiter waiter) {
+            if (pollCount == pollFds.length) {
+                int oldLength = pollFds.length;
+                int newLength = Math.max(16, oldLength * 2);
+                pollFds = Arrays.copyOf(pollFds, newLength);
+                waiters = Arrays.copyOf(waiters, newLength);
+                for (int i = oldLength; i < newLength; i++) {
+                    pollFds[i] = new StructPollfd();
+                }
+            }
+            pollFds[pollCount].fd = fd;
+            pollFds[pollCount].events = (short) events;
+            pollFds[pollCount].revents = 0;
+            waiters[pollCount] = waiter;
+            pollCount++;
+        }
+
+        /** Replaces entry {@code i} with the last one, revents included. */
+        private void remove(int i) {
+            int last = --pollCount;
+            StructPollfd removed = pollFds[i];
+            pollFds[i] = pollFds[last];
+            pollFds[last] = removed;
+            removed.fd = null;
+            waiters[i] = waiters[last];
+            waiters[last] = null;
+        }
+
+        void register(Waiter waiter) {
+            registrations.offer(waiter);
+            wakeup();
+        }
+
+        void wakeup() {
+            if (wakeupPending.compareAndSet(false, true)) {
+                try {
+                    Libcore.rawOs.write(wakeupOut, new byte[1], 0, 1);
+                } catch (ErrnoException | IOException e) {
+                    // A full pipe already wakes the poller.
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            byte[] drain = new byte[64];
+            while (true) {
+                for (Waiter waiter; (waiter = registrations.poll()) != null; ) {
+                    add(waiter.fd, waiter.events, waiter);
+                }
+                try {
+                    Libcore.rawOs.poll(pollFds, -1);
+                } catch (ErrnoException e) {
+                    if (e.errno != EINTR) {
+                        // Fall back to letting every waiter block in its own system call.
+                        while (pollCount > 1) {
+                            waiters[1].complete(Waiter.READY);
+                            remove(1);
+                        }
+                    }
+                    continue;
+                }
+                // Waiters only time out or have their file descriptor closed after a wakeup,
+                // so only look for those then.
+                boolean woken = pollFds[0].revents != 0;
+                if (woken) {
+                    // Clear the flag first, so that a later wakeup writes again.
+                    wakeupPending.set(false);
+                    try {
+                        while (Libcore.rawOs.read(wakeupIn, drain, 0, drain.length) > 0) {
+                        }
+                    } catch (ErrnoException | IOException e) {
+                        // EAGAIN: the pipe is empty.
+                    }
+                }
+                for (int i = 1; i < pollCount; ) {
+                    Waiter waiter = waiters[i];
+                    // A closed file descriptor wakes its waiter to fail in its own system call.
+                    if (pollFds[i].revents != 0 || (woken && !waiter.fd.valid())) {
+                        waiter.complete(Waiter.READY);
+                        remove(i);
+                    } else if (woken && waiter.isDone()) {
+                        remove(i);
+                    } else {
+                        i++;
+                    }
+                }
+            }
+        }
+    }
+}
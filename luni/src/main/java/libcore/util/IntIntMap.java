@@ -0,0 +1,296 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.util;
+
+import java.util.Arrays;
+import libcore.io.Memory;
+
+/**
+ * A map from {@code int} keys to {@code int} values, such as per-uid counters. Keys
+ * and values are stored unboxed and interleaved in one table probed linearly from the
+ * key's hash. Iteration order is unspecified.
+ *
+ * <p>The table normally lives on the Java heap. A map created with
+ * {@link #createOffHeap} keeps it in native memory instead, where a large,
+ * long-lived table costs the garbage collector nothing to trace or move; that memory
+ * is freed by {@link NativeAllocationRegistry} once the map becomes unreachable.
+ *
+ * <p>Not thread safe.
+ *
+ * @hide
+ */
+public final class IntIntMap {
+
+    private static final int MIN_CAPACITY = 8;
+    // Keeps the table's length, in ints, representable.
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    // Each slot is a key followed by its value. A key of 0 marks a free slot; the
+    // mapping for 0 itself is kept in hasZeroKey and zeroValue.
+    // Off-heap maps have a null table, and their table at address instead.
+    private int[] table;
+    private long address;
+    private Runnable freeTable;
+    private int capacity;
+    private boolean hasZeroKey;
+    private int zeroValue;
+    private int size;
+
+    public IntIntMap() {
+        this(0);
+    }
+
+    /**
+     * Creates a map that can hold {@code expectedSize} entries without growing.
+     */
+    public IntIntMap(int expectedSize) {
+        this(expectedSize, false);
+    }
+
+    private IntIntMap(int expectedSize, boolean offHeap) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize < 0");
+        }
+        capacity = MIN_CAPACITY;
+        while (capacity >> 1 < expectedSize && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        if (offHeap) {
+            allocateNativeTable(capacity);
+        } else {
+            table = new int[capacity << 1];
+        }
+    }
+
+    /**
+     * Creates a map that can hold {@code expectedSize} entries without growing, and
+     * whose table is kept in native memory.
+     */
+    public static IntIntMap createOffHeap(int expectedSize) {
+        return new IntIntMap(expectedSize, true);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return key == 0 ? hasZeroKey : findSlot(key) >= 0;
+    }
+
+    /**
+     * Returns the value for {@code key}, or {@code valueIfAbsent} if there is none.
+     */
+    public int get(int key, int valueIfAbsent) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : valueIfAbsent;
+        }
+        int slot = findSlot(key);
+        return slot >= 0 ? valueAt(slot) : valueIfAbsent;
+    }
+
+    public void put(int key, int value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            write(slot * 2 + 1, value);
+        } else {
+            insert(~slot, key, value);
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the value for {@code key}, treating a missing value as 0,
+     * and returns the sum.
+     */
+    public int add(int key, int delta) {
+        if (key == 0) {
+            int value = (hasZeroKey ? zeroValue : 0) + delta;
+            put(0, value);
+            return value;
+        }
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            int value = valueAt(slot) + delta;
+            write(slot * 2 + 1, value);
+            return value;
+        }
+        insert(~slot, key, delta);
+        return delta;
+    }
+
+    /**
+     * Removes the mapping for {@code key}, returning false if there was none.
+     */
+    public boolean remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = false;
+            size--;
+            return true;
+        }
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return false;
+        }
+        // See IntObjectMap.removeSlot.
+        int mask = capacity - 1;
+        int gap = slot;
+        for (int j = (slot + 1) & mask; keyAt(j) != 0; j = (j + 1) & mask) {
+            int home = IntObjectMap.hash(keyAt(j)) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                write(gap * 2, keyAt(j));
+                write(gap * 2 + 1, valueAt(j));
+                gap = j;
+            }
+        }
+        write(gap * 2, 0);
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        if (table != null) {
+            Arrays.fill(table, 0);
+        } else {
+            // A fresh calloc'ed table is already zeroed.
+            Runnable freeOldTable = freeTable;
+            allocateNativeTable(capacity);
+            freeOldTable.run();
+        }
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    /**
+     * Returns a new array of the keys in this map.
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int count = 0;
+        if (hasZeroKey) {
+            count++;
+        }
+        for (int i = 0; i < capacity; i++) {
+            int key = keyAt(i);
+            if (key != 0) {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+
+    // Returns the slot holding the non-zero key, or the complement of the free slot
+    // where it belongs.
+    private int findSlot(int key) {
+        int mask = capacity - 1;
+        for (int i = IntObjectMap.hash(key) & mask; ; i = (i + 1) & mask) {
+            int k = keyAt(i);
+            if (k == key) {
+                return i;
+            }
+            if (k == 0) {
+                return ~i;
+            }
+        }
+    }
+
+    private void insert(int slot, int key, int value) {
+        write(slot * 2, key);
+        write(slot * 2 + 1, value);
+        if (++size > capacity >> 1 && capacity < MAX_CAPACITY) {
+            rehash(capacity << 1);
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldTable = table;
+        long oldAddress = address;
+        Runnable freeOldTable = freeTable;
+        int oldCapacity = capacity;
+        if (oldTable != null) {
+            table = new int[newCapacity << 1];
+        } else {
+            allocateNativeTable(newCapacity);
+        }
+        capacity = newCapacity;
+        int mask = newCapacity - 1;
+        for (int j = 0; j < oldCapacity; j++) {
+            int key = read(oldTable, oldAddress, j * 2);
+            if (key != 0) {
+                int i = IntObjectMap.hash(key) & mask;
+                while (keyAt(i) != 0) {
+                    i = (i + 1) & mask;
+                }
+                write(i * 2, key);
+                write(i * 2 + 1, read(oldTable, oldAddress, j * 2 + 1));
+            }
+        }
+        if (freeOldTable != null) {
+            freeOldTable.run();
+        }
+    }
+
+    private void allocateNativeTable(int capacity) {
+        long newAddress = NativeMemory.calloc(tableBytes(capacity));
+        freeTable = NativeTableRegistry.INSTANCE.registerNativeAllocation(this, newAddress);
+        address = newAddress;
+    }
+
+    private int keyAt(int slot) {
+        return read(table, address, slot * 2);
+    }
+
+    private int valueAt(int slot) {
+        return read(table, address, slot * 2 + 1);
+    }
+
+    private static int read(int[] table, long address, int index) {
+        return table != null ? table[index] : Memory.peekInt(address + ((long) index << 2), false);
+    }
+
+    private void write(int index, int value) {
+        if (table != null) {
+            table[index] = value;
+        } else {
+            Memory.pokeInt(address + ((long) index << 2), value, false);
+        }
+    }
+
+    private static long tableBytes(int capacity) {
+        return (long) capacity << 3;
+    }
+
+    // Created on first use, so that maps on the Java heap don't need it.
+    private static final class NativeTableRegistry {
+        static final NativeAllocationRegistry INSTANCE = NativeAllocationRegistry.createMalloced(
+                IntIntMap.class.getClassLoader(), NativeMemory.FREE_FUNCTION);
+    }
+}
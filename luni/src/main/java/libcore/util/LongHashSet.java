@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.util;
+
+import java.util.Arrays;
+
+/**
+ * A set of {@code long} values, stored unboxed in a single array probed linearly
+ * from each value's hash. Iteration order is unspecified.
+ *
+ * <p>Not thread safe.
+ *
+ * @hide
+ */
+public final class LongHashSet {
+
+    private static final int MIN_CAPACITY = 8;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    // 0 marks a free slot; whether the set holds 0 itself is tracked separately.
+    private long[] table;
+    private boolean containsZero;
+    private int size;
+
+    public LongHashSet() {
+        this(0);
+    }
+
+    /**
+     * Creates a set that can hold {@code expectedSize} values without growing.
+     */
+    public LongHashSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize < 0");
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity >> 1 < expectedSize && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        table = new long[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int mask = table.length - 1;
+        for (int i = LongObjectMap.hash(value) & mask; ; i = (i + 1) & mask) {
+            long v = table[i];
+            if (v == value) {
+                return true;
+            }
+            if (v == 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Adds {@code value}, returning false if it was already present.
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = table.length - 1;
+        for (int i = LongObjectMap.hash(value) & mask; ; i = (i + 1) & mask) {
+            long v = table[i];
+            if (v == value) {
+                return false;
+            }
+            if (v == 0) {
+                table[i] = value;
+                if (++size > table.length >> 1 && table.length < MAX_CAPACITY) {
+                    rehash(table.length << 1);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes {@code value}, returning false if it was not present.
+     */
+    public boolean remove(long value) {
+        if (value == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int mask = table.length - 1;
+        for (int i = LongObjectMap.hash(value) & mask; ; i = (i + 1) & mask) {
+            long v = table[i];
+            if (v == 0) {
+                return false;
+            }
+            if (v == value) {
+                removeSlot(i);
+                return true;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    /**
+     * Returns a new array of the values in this set.
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int count = 0;
+        if (containsZero) {
+            count++;
+        }
+        for (long v : table) {
+            if (v != 0) {
+                result[count++] = v;
+            }
+        }
+        return result;
+    }
+
+    // See IntObjectMap.removeSlot.
+    private void removeSlot(int i) {
+        int mask = table.length - 1;
+        int gap = i;
+        for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+            int home = LongObjectMap.hash(table[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                table[gap] = table[j];
+                gap = j;
+            }
+        }
+        table[gap] = 0;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldTable = table;
+        table = new long[capacity];
+        int mask = capacity - 1;
+        for (long v : oldTable) {
+            if (v != 0) {
+                int i = LongObjectMap.hash(v) & mask;
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = v;
+            }
+        }
+    }
+}
@@ -24,6 +24,7 @@ import dalvik.system.VMRuntime;
 import sun.misc.Cleaner;
 
 import java.lang.ref.Reference;
+import java.util.concurrent.atomic.AtomicLong;
 
 import libcore.util.NonNull;
 
@@ -65,6 +66,23 @@ public class NativeAllocationRegistry {
     // Bit mask for "is_malloced" information.
     private static final long IS_MALLOCED = 0x1;
 
+    // Registered allocations that have not been freed yet, including those waiting in
+    // pendingFrees.
+    private final AtomicLong outstandingCount = new AtomicLong();
+
+    // With batched frees, pointers released by Cleaners waiting to be freed by a single native
+    // call. Null if frees are not batched. Guarded by this.
+    private long[] pendingFrees;
+    private int pendingFreeCount;
+    // Next registry in the list of those with pending frees. Guarded by PENDING_LOCK.
+    private NativeAllocationRegistry nextWithPendingFrees;
+    private boolean hasPendingFrees;
+
+    // Guards the list of registries with pending frees. Linked through the registries, so that
+    // adding to it from a Cleaner never allocates.
+    private static final Object PENDING_LOCK = new Object();
+    private static NativeAllocationRegistry firstWithPendingFrees;
+
     /**
      * Return a {@link NativeAllocationRegistry} for native memory that is mostly
      * allocated by means other than the system memory allocator. For example,
@@ -266,6 +284,7 @@ public class NativeAllocationRegistry {
             applyFreeFunction(freeFunction, nativePtr);
             throw vme;
         } // Other exceptions are impossible.
+        outstandingCount.incrementAndGet();
         // Enable the cleaner only after we can no longer throw anything, including OOME.
         thunk.setNativePtr(nativePtr);
         // Ensure that cleaner doesn't get invoked before we enable it.
@@ -282,8 +301,11 @@ public class NativeAllocationRegistry {
 
         public void run() {
             if (nativePtr != 0) {
-                applyFreeFunction(freeFunction, nativePtr);
-                registerNativeFree(size);
+                if (!queueFree(nativePtr)) {
+                    applyFreeFunction(freeFunction, nativePtr);
+                    registerNativeFree(size);
+                    outstandingCount.decrementAndGet();
+                }
             }
         }
 
@@ -292,7 +314,7 @@ public class NativeAllocationRegistry {
         }
     }
 
-    private static class CleanerRunner implements Runnable {
+    private class CleanerRunner implements Runnable {
         private final Cleaner cleaner;
 
         public CleanerRunner(Cleaner cleaner) {
@@ -301,7 +323,136 @@ public class NativeAllocationRegistry {
 
         public void run() {
             cleaner.clean();
+            // Explicit frees take effect immediately, even when batched.
+            flushFrees();
+        }
+    }
+
+    /**
+     * Makes native allocations released by the garbage collector be freed in batches of up
+     * to {@code batchSize}, with a single native call per batch rather than one per
+     * allocation. Batches are also freed once the runtime has processed all references
+     * released by a collection, so frees are delayed at most until then. Allocations freed
+     * explicitly with the {@link Runnable} returned by {@link #registerNativeAllocation} are
+     * still freed immediately.
+     * <p>
+     * Only worthwhile for registries freeing many small allocations, and only safe if
+     * {@code freeFunction} may be called on the runtime's reference processing thread after
+     * the referent was collected, which is the case for any free function that does not rely
+     * on Java state.
+     *
+     * @param batchSize the maximum number of allocations freed by one native call, or 1 to
+     *                  free each allocation separately, the default
+     * @throws IllegalArgumentException if {@code batchSize} is less than 1
+     *
+     * @hide
+     */
+    public void setFreeBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize < 1: " + batchSize);
+        }
+        synchronized (this) {
+            flushFreesLocked();
+            pendingFrees = batchSize > 1 ? new long[batchSize] : null;
+        }
+    }
+
+    /**
+     * Returns the number of native allocations registered with this registry that have not
+     * been freed yet, including those waiting for a batched free.
+     *
+     * @hide
+     */
+    public long getOutstandingAllocationCount() {
+        return outstandingCount.get();
+    }
+
+    /**
+     * Returns the estimated number of native bytes registered with this registry that have
+     * not been freed yet, based on the size the registry was created with. Zero if that
+     * size was unknown.
+     *
+     * @hide
+     */
+    public long getOutstandingBytes() {
+        return outstandingCount.get() * (size & ~IS_MALLOCED);
+    }
+
+    /**
+     * Returns the number of released native allocations waiting for a batched free.
+     *
+     * @hide
+     */
+    public synchronized int getPendingFreeCount() {
+        return pendingFreeCount;
+    }
+
+    /**
+     * Frees all native allocations waiting for a batched free, in all registries. Called by
+     * the runtime after processing the references released by a collection.
+     *
+     * @hide
+     */
+    public static void flushPendingFrees() {
+        while (true) {
+            NativeAllocationRegistry registry;
+            synchronized (PENDING_LOCK) {
+                registry = firstWithPendingFrees;
+                if (registry == null) {
+                    return;
+                }
+                firstWithPendingFrees = registry.nextWithPendingFrees;
+                registry.nextWithPendingFrees = null;
+                registry.hasPendingFrees = false;
+            }
+            registry.flushFrees();
+        }
+    }
+
+    /**
+     * Adds {@code nativePtr} to the pending batch, freeing the batch if it is full. Returns
+     * false if frees are not batched.
+     */
+    private boolean queueFree(long nativePtr) {
+        boolean first;
+        synchronized (this) {
+            if (pendingFrees == null) {
+                return false;
+            }
+            pendingFrees[pendingFreeCount++] = nativePtr;
+            if (pendingFreeCount == pendingFrees.length) {
+                flushFreesLocked();
+                return true;
+            }
+            first = pendingFreeCount == 1;
+        }
+        if (first) {
+            synchronized (PENDING_LOCK) {
+                if (!hasPendingFrees) {
+                    hasPendingFrees = true;
+                    nextWithPendingFrees = firstWithPendingFrees;
+                    firstWithPendingFrees = this;
+                }
+            }
+        }
+        return true;
+    }
+
+    private synchronized void flushFrees() {
+        flushFreesLocked();
+    }
+
+    private void flushFreesLocked() {
+        int count = pendingFreeCount;
+        if (count == 0) {
+            return;
         }
+        pendingFreeCount = 0;
+        applyFreeFunctions(freeFunction, pendingFrees, count);
+        if ((size & IS_MALLOCED) == 0) {
+            VMRuntime.getRuntime().registerNativeFree(size * count);
+        }
+        outstandingCount.addAndGet(-count);
     }
 
     // Inform the garbage collector of the allocation. We do this differently for
@@ -341,5 +492,8 @@ public class NativeAllocationRegistry {
      */
     @SystemApi(client = MODULE_LIBRARIES)
     public static native void applyFreeFunction(long freeFunction, long nativePtr);
+
+    // Calls freeFunction(nativePtrs[i]) for each i < count.
+    private static native void applyFreeFunctions(long freeFunction, long[] nativePtrs, int count);
 }
 
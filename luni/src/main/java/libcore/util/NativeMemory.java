@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.util;
+
+/**
+ * Zeroed blocks of native memory for the off-heap structures in this package. Blocks
+ * are read and written through {@link libcore.io.Memory}, and freed by a malloced
+ * {@link NativeAllocationRegistry} created with {@link #FREE_FUNCTION}.
+ */
+final class NativeMemory {
+
+    /** The address of the native function that frees a block. */
+    static final long FREE_FUNCTION = nativeGetFreeFunction();
+
+    private NativeMemory() {
+    }
+
+    /**
+     * Returns the address of a new zeroed block of {@code byteCount} bytes.
+     *
+     * @throws OutOfMemoryError if the block can't be allocated
+     */
+    static native long calloc(long byteCount);
+
+    private static native long nativeGetFreeFunction();
+}
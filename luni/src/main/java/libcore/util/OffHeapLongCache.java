@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.util;
+
+import libcore.io.Memory;
+
+/**
+ * A cache from {@code long} keys to small byte arrays, held entirely in native
+ * memory. Values are copied in and out, so a cached entry costs the Java heap and
+ * the garbage collector nothing. When the cache is full, an entry is evicted with
+ * the CLOCK algorithm, an approximation of least-recently-used that needs a single
+ * reference bit per entry.
+ *
+ * <p>Entries live in fixed-size slots, each big enough for a value of up to
+ * {@code maxValueBytes}, in native blocks allocated as the cache grows. The blocks
+ * and the hash index over them are freed by {@link NativeAllocationRegistry} once
+ * the cache becomes unreachable, or by {@link #clear}.
+ *
+ * <p>This class is thread safe.
+ *
+ * @hide
+ */
+public final class OffHeapLongCache {
+
+    // The layout of a slot: the key, the value's length, the state bits, the value.
+    private static final int KEY_OFFSET = 0;
+    private static final int LENGTH_OFFSET = 8;
+    private static final int STATE_OFFSET = 12;
+    private static final int VALUE_OFFSET = 16;
+
+    private static final int OCCUPIED = 1;
+    private static final int REFERENCED = 2;
+
+    private static final int BLOCK_BYTES = 1 << 20;
+    private static final int MAX_ENTRIES = 1 << 29;
+
+    private final int maxEntries;
+    private final int maxValueBytes;
+    private final int slotBytes;
+    private final int slotsPerBlock;
+    private final NativeAllocationRegistry blockRegistry;
+    private final NativeAllocationRegistry indexRegistry;
+
+    // Maps the key's hash to 1 + the index of its slot, probed linearly; 0 is free.
+    private final int indexCapacity;
+    private long index;
+    private Runnable freeIndex;
+    private long[] blocks;
+    private Runnable[] freeBlocks;
+
+    // Slots below usedSlots have been handed out. Removed slots are chained through
+    // their length fields from freeSlot.
+    private int usedSlots;
+    private int freeSlot = -1;
+    private int size;
+    private int hand;
+    private long evictionCount;
+
+    /**
+     * Creates a cache of at most {@code maxEntries} values of at most
+     * {@code maxValueBytes} each.
+     */
+    public OffHeapLongCache(int maxEntries, int maxValueBytes) {
+        if (maxEntries <= 0 || maxEntries > MAX_ENTRIES) {
+            throw new IllegalArgumentException("maxEntries out of range: " + maxEntries);
+        }
+        if (maxValueBytes < 0 || maxValueBytes > BLOCK_BYTES - VALUE_OFFSET) {
+            throw new IllegalArgumentException("maxValueBytes out of range: " + maxValueBytes);
+        }
+        this.maxEntries = maxEntries;
+        this.maxValueBytes = maxValueBytes;
+        slotBytes = VALUE_OFFSET + ((maxValueBytes + 7) & ~7);
+        slotsPerBlock = Math.min(maxEntries, BLOCK_BYTES / slotBytes);
+        int capacity = 8;
+        while (capacity >> 1 < maxEntries) {
+            capacity <<= 1;
+        }
+        indexCapacity = capacity;
+
+        ClassLoader classLoader = OffHeapLongCache.class.getClassLoader();
+        blockRegistry = NativeAllocationRegistry.createMalloced(classLoader,
+                NativeMemory.FREE_FUNCTION, (long) slotsPerBlock * slotBytes);
+        indexRegistry = NativeAllocationRegistry.createMalloced(classLoader,
+                NativeMemory.FREE_FUNCTION, (long) indexCapacity * 4);
+        allocate();
+    }
+
+    private void allocate() {
+        index = NativeMemory.calloc((long) indexCapacity * 4);
+        freeIndex = indexRegistry.registerNativeAllocation(this, index);
+        int blockCount = (maxEntries + slotsPerBlock - 1) / slotsPerBlock;
+        blocks = new long[blockCount];
+        freeBlocks = new Runnable[blockCount];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int maxSize() {
+        return maxEntries;
+    }
+
+    public int maxValueBytes() {
+        return maxValueBytes;
+    }
+
+    /**
+     * Returns the number of entries evicted to make room for others.
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of bytes of native memory currently allocated.
+     */
+    public synchronized long nativeBytes() {
+        long bytes = (long) indexCapacity * 4;
+        for (long block : blocks) {
+            if (block != 0) {
+                bytes += (long) slotsPerBlock * slotBytes;
+            }
+        }
+        return bytes;
+    }
+
+    public synchronized boolean containsKey(long key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Returns a copy of the value for {@code key}, or null if there is none.
+     */
+    public synchronized byte[] get(long key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        long address = touch(slot);
+        byte[] value = new byte[Memory.peekInt(address + LENGTH_OFFSET, false)];
+        Memory.peekByteArray(address + VALUE_OFFSET, value, 0, value.length);
+        return value;
+    }
+
+    /**
+     * Copies the value for {@code key} into {@code buffer} at {@code offset}, without
+     * allocating. Returns the value's length, which is more than was copied if the
+     * rest of the buffer is too short for it, or -1 if there is no value.
+     */
+    public synchronized int get(long key, byte[] buffer, int offset) {
+        if (offset < 0 || offset > buffer.length) {
+            throw new ArrayIndexOutOfBoundsException("offset=" + offset
+                    + ", length=" + buffer.length);
+        }
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return -1;
+        }
+        long address = touch(slot);
+        int length = Memory.peekInt(address + LENGTH_OFFSET, false);
+        Memory.peekByteArray(address + VALUE_OFFSET, buffer, offset,
+                Math.min(length, buffer.length - offset));
+        return length;
+    }
+
+    /**
+     * Maps {@code key} to a copy of {@code value}, evicting another entry if the
+     * cache is full.
+     *
+     * @throws IllegalArgumentException if {@code value} is longer than
+     *     {@link #maxValueBytes}
+     */
+    public void put(long key, byte[] value) {
+        put(key, value, 0, value.length);
+    }
+
+    /**
+     * Maps {@code key} to a copy of {@code count} bytes of {@code value} from
+     * {@code offset}, evicting another entry if the cache is full.
+     *
+     * @throws IllegalArgumentException if {@code count} exceeds {@link #maxValueBytes}
+     */
+    public synchronized void put(long key, byte[] value, int offset, int count) {
+        ArrayUtils.throwsIfOutOfBounds(value.length, offset, count);
+        if (count > maxValueBytes) {
+            throw new IllegalArgumentException("Value of " + count + " bytes exceeds "
+                    + maxValueBytes);
+        }
+        int position = findPosition(key);
+        int slot;
+        if (position >= 0) {
+            slot = entryAt(position) - 1;
+        } else {
+            long evictions = evictionCount;
+            slot = newSlot();
+            if (evictionCount != evictions) {
+                // The eviction may have moved entries within the index.
+                position = findPosition(key);
+            }
+            setEntry(~position, slot + 1);
+            Memory.pokeLong(slotAddress(slot) + KEY_OFFSET, key, false);
+            size++;
+        }
+        long address = slotAddress(slot);
+        Memory.pokeInt(address + LENGTH_OFFSET, count, false);
+        Memory.pokeInt(address + STATE_OFFSET, OCCUPIED | REFERENCED, false);
+        Memory.pokeByteArray(address + VALUE_OFFSET, value, offset, count);
+    }
+
+    /**
+     * Removes the value for {@code key}, returning false if there was none.
+     */
+    public synchronized boolean remove(long key) {
+        int position = findPosition(key);
+        if (position < 0) {
+            return false;
+        }
+        int slot = entryAt(position) - 1;
+        removeAt(position);
+        long address = slotAddress(slot);
+        Memory.pokeInt(address + STATE_OFFSET, 0, false);
+        Memory.pokeInt(address + LENGTH_OFFSET, freeSlot, false);
+        freeSlot = slot;
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes all entries and frees all native memory but that of an empty index.
+     */
+    public synchronized void clear() {
+        freeIndex.run();
+        for (Runnable free : freeBlocks) {
+            if (free != null) {
+                free.run();
+            }
+        }
+        allocate();
+        usedSlots = 0;
+        freeSlot = -1;
+        size = 0;
+        hand = 0;
+    }
+
+    private int findSlot(long key) {
+        int position = findPosition(key);
+        return position >= 0 ? entryAt(position) - 1 : -1;
+    }
+
+    // Returns the index position of key, or the complement of the free position where
+    // it belongs.
+    private int findPosition(long key) {
+        int mask = indexCapacity - 1;
+        for (int i = LongObjectMap.hash(key) & mask; ; i = (i + 1) & mask) {
+            int entry = entryAt(i);
+            if (entry == 0) {
+                return ~i;
+            }
+            if (keyAt(entry - 1) == key) {
+                return i;
+            }
+        }
+    }
+
+    // Returns a free slot, evicting an entry if there is none.
+    private int newSlot() {
+        if (freeSlot >= 0) {
+            int slot = freeSlot;
+            freeSlot = Memory.peekInt(slotAddress(slot) + LENGTH_OFFSET, false);
+            return slot;
+        }
+        if (usedSlots < maxEntries) {
+            int slot = usedSlots++;
+            int block = slot / slotsPerBlock;
+            if (blocks[block] == 0) {
+                long address = NativeMemory.calloc((long) slotsPerBlock * slotBytes);
+                freeBlocks[block] = blockRegistry.registerNativeAllocation(this, address);
+                blocks[block] = address;
+            }
+            return slot;
+        }
+        // Every slot is occupied. Sweep the clock hand, clearing reference bits,
+        // until it reaches an entry not used since the last sweep.
+        while (true) {
+            int slot = hand;
+            hand = (hand + 1 == maxEntries) ? 0 : hand + 1;
+            long address = slotAddress(slot);
+            int state = Memory.peekInt(address + STATE_OFFSET, false);
+            if ((state & REFERENCED) != 0) {
+                Memory.pokeInt(address + STATE_OFFSET, state & ~REFERENCED, false);
+            } else {
+                removeAt(findPosition(keyAt(slot)));
+                size--;
+                evictionCount++;
+                return slot;
+            }
+        }
+    }
+
+    // Closes the gap left at position by moving back later entries of its probe run,
+    // as IntObjectMap.removeSlot does.
+    private void removeAt(int position) {
+        int mask = indexCapacity - 1;
+        int gap = position;
+        for (int j = (gap + 1) & mask; ; j = (j + 1) & mask) {
+            int entry = entryAt(j);
+            if (entry == 0) {
+                break;
+            }
+            int home = LongObjectMap.hash(keyAt(entry - 1)) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                setEntry(gap, entry);
+                gap = j;
+            }
+        }
+        setEntry(gap, 0);
+    }
+
+    private int entryAt(int position) {
+        return Memory.peekInt(index + ((long) position << 2), false);
+    }
+
+    private void setEntry(int position, int entry) {
+        Memory.pokeInt(index + ((long) position << 2), entry, false);
+    }
+
+    private long keyAt(int slot) {
+        return Memory.peekLong(slotAddress(slot) + KEY_OFFSET, false);
+    }
+
+    private long touch(int slot) {
+        long address = slotAddress(slot);
+        Memory.pokeInt(address + STATE_OFFSET, OCCUPIED | REFERENCED, false);
+        return address;
+    }
+
+    private long slotAddress(int slot) {
+        return blocks[slot / slotsPerBlock] + (long) (slot % slotsPerBlock) * slotBytes;
+    }
+}
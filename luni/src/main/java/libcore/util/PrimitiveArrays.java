@@ -0,0 +1,592 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorting and searching of large primitive arrays.
+ *
+ * <p>The sorts are least-significant-digit radix sorts over 8-bit digits: linear
+ * in the array's length, stable, and skipping any digit that all elements share.
+ * They order elements as {@link Arrays#sort} does, including {@code -0.0} before
+ * {@code 0.0} and NaNs last, and use a buffer as large as the array. The
+ * {@code parallel} variants split each counting and scattering pass among the
+ * {@link ForkJoinPool#commonPool() common pool}'s threads.
+ *
+ * @hide
+ */
+public final class PrimitiveArrays {
+
+    private PrimitiveArrays() {}
+
+    // Below this length, Arrays.sort is faster than counting digits.
+    private static final int RADIX_THRESHOLD = 256;
+    // The minimum number of elements given to each parallel task.
+    private static final int PARALLEL_GRAIN = 1 << 16;
+    private static final int RADIX = 256;
+
+    public static void sort(int[] a) {
+        if (a.length < RADIX_THRESHOLD) {
+            Arrays.sort(a);
+        } else {
+            radixSort(a, null, a.length, 1);
+        }
+    }
+
+    public static void parallelSort(int[] a) {
+        if (a.length < RADIX_THRESHOLD) {
+            Arrays.sort(a);
+        } else {
+            radixSort(a, null, a.length, chunkCount(a.length));
+        }
+    }
+
+    public static void sort(long[] a) {
+        if (a.length < RADIX_THRESHOLD) {
+            Arrays.sort(a);
+        } else {
+            radixSort(a, null, a.length, 1);
+        }
+    }
+
+    public static void parallelSort(long[] a) {
+        if (a.length < RADIX_THRESHOLD) {
+            Arrays.sort(a);
+        } else {
+            radixSort(a, null, a.length, chunkCount(a.length));
+        }
+    }
+
+    public static void sort(float[] a) {
+        sort(a, 1);
+    }
+
+    public static void parallelSort(float[] a) {
+        sort(a, chunkCount(a.length));
+    }
+
+    private static void sort(float[] a, int chunks) {
+        if (a.length < RADIX_THRESHOLD) {
+            Arrays.sort(a);
+            return;
+        }
+        // Move NaNs to the end unchanged, as Arrays.sort does, and sort the rest as keys.
+        int n = a.length;
+        for (int i = n - 1; i >= 0; i--) {
+            float f = a[i];
+            if (f != f) {
+                a[i] = a[--n];
+                a[n] = f;
+            }
+        }
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = floatKey(Float.floatToRawIntBits(a[i]));
+        }
+        radixSort(keys, null, n, chunks);
+        for (int i = 0; i < n; i++) {
+            a[i] = Float.intBitsToFloat(floatKey(keys[i]));
+        }
+    }
+
+    public static void sort(double[] a) {
+        sort(a, 1);
+    }
+
+    public static void parallelSort(double[] a) {
+        sort(a, chunkCount(a.length));
+    }
+
+    private static void sort(double[] a, int chunks) {
+        if (a.length < RADIX_THRESHOLD) {
+            Arrays.sort(a);
+            return;
+        }
+        int n = a.length;
+        for (int i = n - 1; i >= 0; i--) {
+            double d = a[i];
+            if (d != d) {
+                a[i] = a[--n];
+                a[n] = d;
+            }
+        }
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = doubleKey(Double.doubleToRawLongBits(a[i]));
+        }
+        radixSort(keys, null, n, chunks);
+        for (int i = 0; i < n; i++) {
+            a[i] = Double.longBitsToDouble(doubleKey(keys[i]));
+        }
+    }
+
+    /**
+     * Returns the permutation that sorts {@code a}, which is left unchanged: the
+     * indices of its elements in ascending order of element. Equal elements keep
+     * ascending indices.
+     */
+    public static int[] sortIndices(int[] a) {
+        return sortIndices(a.clone(), 1);
+    }
+
+    /**
+     * Like {@link #sortIndices(int[])}, but splits the work among the common pool.
+     */
+    public static int[] parallelSortIndices(int[] a) {
+        return sortIndices(a.clone(), chunkCount(a.length));
+    }
+
+    private static int[] sortIndices(int[] keys, int chunks) {
+        int[] indices = identity(keys.length);
+        radixSort(keys, indices, keys.length, chunks);
+        return indices;
+    }
+
+    public static int[] sortIndices(long[] a) {
+        return sortIndices(a.clone(), 1);
+    }
+
+    public static int[] parallelSortIndices(long[] a) {
+        return sortIndices(a.clone(), chunkCount(a.length));
+    }
+
+    private static int[] sortIndices(long[] keys, int chunks) {
+        int[] indices = identity(keys.length);
+        radixSort(keys, indices, keys.length, chunks);
+        return indices;
+    }
+
+    public static int[] sortIndices(float[] a) {
+        return sortIndices(floatKeys(a), 1);
+    }
+
+    public static int[] parallelSortIndices(float[] a) {
+        return sortIndices(floatKeys(a), chunkCount(a.length));
+    }
+
+    public static int[] sortIndices(double[] a) {
+        return sortIndices(doubleKeys(a), 1);
+    }
+
+    public static int[] parallelSortIndices(double[] a) {
+        return sortIndices(doubleKeys(a), chunkCount(a.length));
+    }
+
+    /**
+     * Searches the sorted array {@code a} for each of {@code keys}, returning what
+     * {@link Arrays#binarySearch(int[], int)} would for each: an index of the key if
+     * it is present, and otherwise {@code -(insertion point) - 1}. Each key in an
+     * ascending run is searched for by galloping forward from the previous key's
+     * position, so that sorted keys cost little more than a merge.
+     */
+    public static int[] binarySearch(int[] a, int[] keys) {
+        int[] results = new int[keys.length];
+        search(a, keys, results, 0, keys.length);
+        return results;
+    }
+
+    /**
+     * Like {@link #binarySearch(int[], int[])}, but splits the keys among the
+     * common pool.
+     */
+    public static int[] parallelBinarySearch(final int[] a, final int[] keys) {
+        final int[] results = new int[keys.length];
+        forEachChunk(keys.length, chunkCount(keys.length), new ChunkTask() {
+            @Override public void run(int chunk, int from, int to) {
+                search(a, keys, results, from, to);
+            }
+        });
+        return results;
+    }
+
+    private static void search(int[] a, int[] keys, int[] results, int from, int to) {
+        int n = a.length;
+        int low = 0;
+        for (int i = from; i < to; i++) {
+            int key = keys[i];
+            if (i > from && key < keys[i - 1]) {
+                low = 0;
+            }
+            int step = 1;
+            while (low + step < n && a[low + step] < key) {
+                step <<= 1;
+            }
+            int result = Arrays.binarySearch(a, low + (step >> 1),
+                    Math.min(low + step + 1, n), key);
+            results[i] = result;
+            low = (result >= 0) ? result : ~result;
+        }
+    }
+
+    public static int[] binarySearch(long[] a, long[] keys) {
+        int[] results = new int[keys.length];
+        search(a, keys, results, 0, keys.length);
+        return results;
+    }
+
+    public static int[] parallelBinarySearch(final long[] a, final long[] keys) {
+        final int[] results = new int[keys.length];
+        forEachChunk(keys.length, chunkCount(keys.length), new ChunkTask() {
+            @Override public void run(int chunk, int from, int to) {
+                search(a, keys, results, from, to);
+            }
+        });
+        return results;
+    }
+
+    private static void search(long[] a, long[] keys, int[] results, int from, int to) {
+        int n = a.length;
+        int low = 0;
+        for (int i = from; i < to; i++) {
+            long key = keys[i];
+            if (i > from && key < keys[i - 1]) {
+                low = 0;
+            }
+            int step = 1;
+            while (low + step < n && a[low + step] < key) {
+                step <<= 1;
+            }
+            int result = Arrays.binarySearch(a, low + (step >> 1),
+                    Math.min(low + step + 1, n), key);
+            results[i] = result;
+            low = (result >= 0) ? result : ~result;
+        }
+    }
+
+    public static int[] binarySearch(float[] a, float[] keys) {
+        int[] results = new int[keys.length];
+        search(a, keys, results, 0, keys.length);
+        return results;
+    }
+
+    public static int[] parallelBinarySearch(final float[] a, final float[] keys) {
+        final int[] results = new int[keys.length];
+        forEachChunk(keys.length, chunkCount(keys.length), new ChunkTask() {
+            @Override public void run(int chunk, int from, int to) {
+                search(a, keys, results, from, to);
+            }
+        });
+        return results;
+    }
+
+    private static void search(float[] a, float[] keys, int[] results, int from, int to) {
+        int n = a.length;
+        int low = 0;
+        for (int i = from; i < to; i++) {
+            float key = keys[i];
+            if (i > from && Float.compare(key, keys[i - 1]) < 0) {
+                low = 0;
+            }
+            int step = 1;
+            while (low + step < n && Float.compare(a[low + step], key) < 0) {
+                step <<= 1;
+            }
+            int result = Arrays.binarySearch(a, low + (step >> 1),
+                    Math.min(low + step + 1, n), key);
+            results[i] = result;
+            low = (result >= 0) ? result : ~result;
+        }
+    }
+
+    public static int[] binarySearch(double[] a, double[] keys) {
+        int[] results = new int[keys.length];
+        search(a, keys, results, 0, keys.length);
+        return results;
+    }
+
+    public static int[] parallelBinarySearch(final double[] a, final double[] keys) {
+        final int[] results = new int[keys.length];
+        forEachChunk(keys.length, chunkCount(keys.length), new ChunkTask() {
+            @Override public void run(int chunk, int from, int to) {
+                search(a, keys, results, from, to);
+            }
+        });
+        return results;
+    }
+
+    private static void search(double[] a, double[] keys, int[] results, int from, int to) {
+        int n = a.length;
+        int low = 0;
+        for (int i = from; i < to; i++) {
+            double key = keys[i];
+            if (i > from && Double.compare(key, keys[i - 1]) < 0) {
+                low = 0;
+            }
+            int step = 1;
+            while (low + step < n && Double.compare(a[low + step], key) < 0) {
+                step <<= 1;
+            }
+            int result = Arrays.binarySearch(a, low + (step >> 1),
+                    Math.min(low + step + 1, n), key);
+            results[i] = result;
+            low = (result >= 0) ? result : ~result;
+        }
+    }
+
+    /**
+     * Sorts the first {@code n} elements of {@code a} in signed order, permuting the
+     * first {@code n} elements of {@code indices} alongside them if that is non-null.
+     */
+    private static void radixSort(final int[] a, final int[] indices, final int n,
+            int chunks) {
+        final int digits = 4;
+        // Count every digit of every element in one pass.
+        final int[][] counts = new int[chunks][digits * RADIX];
+        forEachChunk(n, chunks, new ChunkTask() {
+            @Override public void run(int chunk, int from, int to) {
+                int[] count = counts[chunk];
+                for (int i = from; i < to; i++) {
+                    int k = a[i];
+                    count[k & 0xff]++;
+                    count[RADIX + ((k >>> 8) & 0xff)]++;
+                    count[2 * RADIX + ((k >>> 16) & 0xff)]++;
+                    count[3 * RADIX + ((k >>> 24) ^ 0x80)]++;
+                }
+            }
+        });
+
+        int[] src = a;
+        int[] dst = new int[n];
+        int[] srcIndices = indices;
+        int[] dstIndices = (indices != null) ? new int[n] : null;
+        boolean moved = false;
+        for (int digit = 0; digit < digits; digit++) {
+            if (isUniform(counts, digit, n)) {
+                continue;
+            }
+            final int shift = digit * 8;
+            final int flip = (digit == digits - 1) ? 0x80 : 0;
+            final int[] from = src;
+            if (chunks > 1 && moved) {
+                // An earlier pass moved elements between chunks, so count them again.
+                final int base = digit * RADIX;
+                forEachChunk(n, chunks, new ChunkTask() {
+                    @Override public void run(int chunk, int start, int end) {
+                        int[] count = counts[chunk];
+                        Arrays.fill(count, base, base + RADIX, 0);
+                        for (int i = start; i < end; i++) {
+                            count[base + (((from[i] >>> shift) & 0xff) ^ flip)]++;
+                        }
+                    }
+                });
+            }
+            final int[][] offsets = offsets(counts, digit);
+            final int[] to = dst;
+            final int[] fromIndices = srcIndices;
+            final int[] toIndices = dstIndices;
+            forEachChunk(n, chunks, new ChunkTask() {
+                @Override public void run(int chunk, int start, int end) {
+                    int[] offset = offsets[chunk];
+                    for (int i = start; i < end; i++) {
+                        int k = from[i];
+                        int j = offset[((k >>> shift) & 0xff) ^ flip]++;
+                        to[j] = k;
+                        if (toIndices != null) {
+                            toIndices[j] = fromIndices[i];
+                        }
+                    }
+                }
+            });
+            src = to;
+            dst = from;
+            moved = true;
+            srcIndices = toIndices;
+            dstIndices = fromIndices;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+            if (indices != null) {
+                System.arraycopy(srcIndices, 0, indices, 0, n);
+            }
+        }
+    }
+
+    /**
+     * Sorts the first {@code n} elements of {@code a} in signed order, permuting the
+     * first {@code n} elements of {@code indices} alongside them if that is non-null.
+     */
+    private static void radixSort(final long[] a, final int[] indices, final int n,
+            int chunks) {
+        final int digits = 8;
+        final int[][] counts = new int[chunks][digits * RADIX];
+        forEachChunk(n, chunks, new ChunkTask() {
+            @Override public void run(int chunk, int from, int to) {
+                int[] count = counts[chunk];
+                for (int i = from; i < to; i++) {
+                    long k = a[i];
+                    for (int digit = 0; digit < digits - 1; digit++) {
+                        count[digit * RADIX + (int) ((k >>> (digit * 8)) & 0xff)]++;
+                    }
+                    count[(digits - 1) * RADIX + (int) ((k >>> 56) ^ 0x80)]++;
+                }
+            }
+        });
+
+        long[] src = a;
+        long[] dst = new long[n];
+        int[] srcIndices = indices;
+        int[] dstIndices = (indices != null) ? new int[n] : null;
+        boolean moved = false;
+        for (int digit = 0; digit < digits; digit++) {
+            if (isUniform(counts, digit, n)) {
+                continue;
+            }
+            final int shift = digit * 8;
+            final int flip = (digit == digits - 1) ? 0x80 : 0;
+            final long[] from = src;
+            if (chunks > 1 && moved) {
+                // An earlier pass moved elements between chunks, so count them again.
+                final int base = digit * RADIX;
+                forEachChunk(n, chunks, new ChunkTask() {
+                    @Override public void run(int chunk, int start, int end) {
+                        int[] count = counts[chunk];
+                        Arrays.fill(count, base, base + RADIX, 0);
+                        for (int i = start; i < end; i++) {
+                            count[base + ((int) ((from[i] >>> shift) & 0xff) ^ flip)]++;
+                        }
+                    }
+                });
+            }
+            final int[][] offsets = offsets(counts, digit);
+            final long[] to = dst;
+            final int[] fromIndices = srcIndices;
+            final int[] toIndices = dstIndices;
+            forEachChunk(n, chunks, new ChunkTask() {
+                @Override public void run(int chunk, int start, int end) {
+                    int[] offset = offsets[chunk];
+                    for (int i = start; i < end; i++) {
+                        long k = from[i];
+                        int j = offset[(int) ((k >>> shift) & 0xff) ^ flip]++;
+                        to[j] = k;
+                        if (toIndices != null) {
+                            toIndices[j] = fromIndices[i];
+                        }
+                    }
+                }
+            });
+            src = to;
+            dst = from;
+            moved = true;
+            srcIndices = toIndices;
+            dstIndices = fromIndices;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+            if (indices != null) {
+                System.arraycopy(srcIndices, 0, indices, 0, n);
+            }
+        }
+    }
+
+    // Returns whether every element has the same value of digit, so that its pass
+    // can be skipped.
+    private static boolean isUniform(int[][] counts, int digit, int n) {
+        int base = digit * RADIX;
+        for (int value = 0; value < RADIX; value++) {
+            int total = 0;
+            for (int[] count : counts) {
+                total += count[base + value];
+            }
+            if (total != 0) {
+                return total == n;
+            }
+        }
+        return true;
+    }
+
+    // Returns, for each chunk and value of digit, where the chunk's first element
+    // with that value goes.
+    private static int[][] offsets(int[][] counts, int digit) {
+        int base = digit * RADIX;
+        int[][] offsets = new int[counts.length][RADIX];
+        int position = 0;
+        for (int value = 0; value < RADIX; value++) {
+            for (int chunk = 0; chunk < counts.length; chunk++) {
+                offsets[chunk][value] = position;
+                position += counts[chunk][base + value];
+            }
+        }
+        return offsets;
+    }
+
+    // Maps raw float bits to ints whose signed order is that of Float.compare, and back.
+    private static int floatKey(int bits) {
+        return bits ^ ((bits >> 31) & 0x7fffffff);
+    }
+
+    private static long doubleKey(long bits) {
+        return bits ^ ((bits >> 63) & 0x7fffffffffffffffL);
+    }
+
+    private static int[] floatKeys(float[] a) {
+        int[] keys = new int[a.length];
+        for (int i = 0; i < a.length; i++) {
+            // floatToIntBits makes every NaN the same, greatest key.
+            keys[i] = floatKey(Float.floatToIntBits(a[i]));
+        }
+        return keys;
+    }
+
+    private static long[] doubleKeys(double[] a) {
+        long[] keys = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            keys[i] = doubleKey(Double.doubleToLongBits(a[i]));
+        }
+        return keys;
+    }
+
+    private static int[] identity(int n) {
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    private static int chunkCount(int n) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        return Math.max(1, Math.min(parallelism, n / PARALLEL_GRAIN));
+    }
+
+    private interface ChunkTask {
+        void run(int chunk, int from, int to);
+    }
+
+    // Runs task over chunks of [0, n), in parallel if there is more than one.
+    private static void forEachChunk(int n, int chunks, final ChunkTask task) {
+        if (chunks == 1) {
+            task.run(0, 0, n);
+            return;
+        }
+        RecursiveAction[] actions = new RecursiveAction[chunks];
+        for (int c = 0; c < chunks; c++) {
+            final int chunk = c;
+            final int from = (int) ((long) n * c / chunks);
+            final int to = (int) ((long) n * (c + 1) / chunks);
+            actions[c] = new RecursiveAction() {
+                @Override protected void compute() {
+                    task.run(chunk, from, to);
+                }
+            };
+        }
+        ForkJoinTask.invokeAll(actions);
+    }
+}
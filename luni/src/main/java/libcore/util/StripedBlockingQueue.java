@@ -0,0 +1,359 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.util;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link BlockingQueue} for the work queue of a
+ * {@link java.util.concurrent.ThreadPoolExecutor} with many busy threads. Elements
+ * are spread over lock-free stripes: each thread offers to and polls from its own
+ * stripe first, and polls steal from the other stripes when that is empty. Unlike
+ * with {@link java.util.concurrent.LinkedBlockingQueue}, offering and polling take no
+ * lock while elements are available; a lock is only used to park and wake threads
+ * that wait for an element or, if the queue is bounded, for space.
+ *
+ * <p>Elements are only ordered first-in-first-out within a stripe. Like that of
+ * {@link ConcurrentLinkedQueue}, {@link #size} walks the queue unless it is bounded.
+ *
+ * @hide
+ */
+public final class StripedBlockingQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E> {
+
+    private static final int MAX_STRIPES = 64;
+
+    private final ConcurrentLinkedQueue<E>[] stripes;
+    private final int mask;
+    private final int capacity;
+    // The number of elements, kept only if the queue is bounded.
+    private final AtomicInteger count;
+
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition notEmpty = waitLock.newCondition();
+    private final Condition notFull = waitLock.newCondition();
+    private volatile int takers;
+    private volatile int putters;
+
+    /**
+     * Creates an unbounded queue with one stripe per processor.
+     */
+    public StripedBlockingQueue() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a queue that holds at most {@code capacity} elements, with one stripe
+     * per processor.
+     */
+    @SuppressWarnings("unchecked")
+    public StripedBlockingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity <= 0");
+        }
+        int n = Integer.highestOneBit(
+                Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES) * 2 - 1);
+        stripes = (ConcurrentLinkedQueue<E>[]) new ConcurrentLinkedQueue<?>[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new ConcurrentLinkedQueue<E>();
+        }
+        mask = n - 1;
+        this.capacity = capacity;
+        count = (capacity == Integer.MAX_VALUE) ? null : new AtomicInteger();
+    }
+
+    private int homeStripe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 32)) & mask;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException("e == null");
+        }
+        if (count != null) {
+            int c;
+            do {
+                if ((c = count.get()) >= capacity) {
+                    return false;
+                }
+            } while (!count.compareAndSet(c, c + 1));
+        }
+        stripes[homeStripe()].offer(e);
+        if (takers > 0) {
+            signal(notEmpty);
+        }
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        int home = homeStripe();
+        for (int i = 0; i <= mask; i++) {
+            E e = stripes[(home + i) & mask].poll();
+            if (e != null) {
+                if (count != null) {
+                    count.decrementAndGet();
+                    if (putters > 0) {
+                        signal(notFull);
+                    }
+                }
+                return e;
+            }
+        }
+        return null;
+    }
+
+    private void signal(Condition condition) {
+        waitLock.lock();
+        try {
+            condition.signal();
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e = poll();
+        if (e != null) {
+            return e;
+        }
+        waitLock.lockInterruptibly();
+        takers++;
+        try {
+            // Offers check takers after adding their element, so any element added
+            // before that increment is visible to this poll.
+            while ((e = poll()) == null) {
+                notEmpty.await();
+            }
+            return e;
+        } finally {
+            takers--;
+            waitLock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = poll();
+        if (e != null) {
+            return e;
+        }
+        long nanos = unit.toNanos(timeout);
+        waitLock.lockInterruptibly();
+        takers++;
+        try {
+            while ((e = poll()) == null) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return e;
+        } finally {
+            takers--;
+            waitLock.unlock();
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (offer(e)) {
+            return;
+        }
+        waitLock.lockInterruptibly();
+        putters++;
+        try {
+            while (!offer(e)) {
+                notFull.await();
+            }
+        } finally {
+            putters--;
+            waitLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (offer(e)) {
+            return true;
+        }
+        long nanos = unit.toNanos(timeout);
+        waitLock.lockInterruptibly();
+        putters++;
+        try {
+            while (!offer(e)) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            putters--;
+            waitLock.unlock();
+        }
+    }
+
+    @Override
+    public E peek() {
+        int home = homeStripe();
+        for (int i = 0; i <= mask; i++) {
+            E e = stripes[(home + i) & mask].peek();
+            if (e != null) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (ConcurrentLinkedQueue<E> stripe : stripes) {
+            if (!stripe.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        if (count != null) {
+            return Math.max(count.get(), 0);
+        }
+        long size = 0;
+        for (ConcurrentLinkedQueue<E> stripe : stripes) {
+            size += stripe.size();
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return (count == null) ? Integer.MAX_VALUE : capacity - size();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        for (ConcurrentLinkedQueue<E> stripe : stripes) {
+            if (stripe.remove(o)) {
+                if (count != null) {
+                    count.decrementAndGet();
+                    if (putters > 0) {
+                        signal(notFull);
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            return false;
+        }
+        for (ConcurrentLinkedQueue<E> stripe : stripes) {
+            if (stripe.contains(o)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException("c == null");
+        }
+        if (c == this) {
+            throw new IllegalArgumentException("c == this");
+        }
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements of each stripe in turn.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int stripe;
+            private Iterator<E> current = stripes[0].iterator();
+            private Iterator<E> last;
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (++stripe > mask) {
+                        return false;
+                    }
+                    current = stripes[stripe].iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = current;
+                return current.next();
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                last.remove();
+                last = null;
+                if (count != null) {
+                    count.decrementAndGet();
+                }
+            }
+        };
+    }
+}
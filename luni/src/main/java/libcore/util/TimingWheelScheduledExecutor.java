@@ -0,0 +1,479 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.util;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link ScheduledExecutorService} for large numbers of short timer tasks, such as
+ * connection timeouts that are nearly always cancelled before they fire.
+ *
+ * <p>Tasks are spread over several partitions, each with its own thread and its own
+ * hierarchical timing wheel: four levels of 64 slots, where each slot of a level spans
+ * the whole of the level below. Scheduling and cancelling only append to a lock-free
+ * queue that the partition's thread drains, so both are O(1) and never contend on a
+ * lock or a shared heap as they do in {@link java.util.Timer} and
+ * {@link java.util.concurrent.ScheduledThreadPoolExecutor}. Every task that falls due
+ * in a tick is run as one batch.
+ *
+ * <p>Compared with {@code ScheduledThreadPoolExecutor}:
+ * <ul>
+ * <li>Tasks run on their partition's thread and must not block; a slow task delays
+ *     every other task of its partition.
+ * <li>Tasks run no earlier than their delay, rounded up to a whole tick.
+ * <li>Cancelled tasks are removed from the wheel at the next tick.
+ * <li>After {@link #shutdown}, delayed tasks still run but periodic ones do not.
+ *     {@link #shutdownNow} cancels every pending task and returns an empty list.
+ * </ul>
+ *
+ * @hide
+ */
+public final class TimingWheelScheduledExecutor extends AbstractExecutorService
+        implements ScheduledExecutorService {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    private static final int RUNNING = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOP = 2;
+
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final Wheel[] wheels;
+    private final CountDownLatch terminated;
+    private volatile int state = RUNNING;
+
+    /**
+     * Creates an executor with one partition per processor and a tick of one millisecond.
+     */
+    public TimingWheelScheduledExecutor() {
+        this(Runtime.getRuntime().availableProcessors(), 1, TimeUnit.MILLISECONDS,
+                Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates an executor with {@code partitions} threads, made by {@code threadFactory},
+     * that run tasks to a resolution of {@code tick}.
+     */
+    public TimingWheelScheduledExecutor(int partitions, long tick, TimeUnit unit,
+            ThreadFactory threadFactory) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("partitions <= 0");
+        }
+        if (tick <= 0) {
+            throw new IllegalArgumentException("tick <= 0");
+        }
+        if (threadFactory == null) {
+            throw new NullPointerException("threadFactory == null");
+        }
+        tickNanos = unit.toNanos(tick);
+        terminated = new CountDownLatch(partitions);
+        wheels = new Wheel[partitions];
+        for (int i = 0; i < partitions; i++) {
+            wheels[i] = new Wheel();
+        }
+        for (Wheel wheel : wheels) {
+            wheel.thread = threadFactory.newThread(wheel);
+            if (wheel.thread == null) {
+                throw new IllegalStateException("threadFactory returned null");
+            }
+            wheel.thread.start();
+        }
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        if (command == null || unit == null) {
+            throw new NullPointerException();
+        }
+        return enqueue(new Task<Void>(command, null, deadline(delay, unit), 0));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        if (callable == null || unit == null) {
+            throw new NullPointerException();
+        }
+        return enqueue(new Task<V>(callable, deadline(delay, unit), 0));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay,
+            long period, TimeUnit unit) {
+        if (command == null || unit == null) {
+            throw new NullPointerException();
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException("period <= 0");
+        }
+        return enqueue(new Task<Void>(command, null, deadline(initialDelay, unit),
+                unit.toNanos(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay,
+            long delay, TimeUnit unit) {
+        if (command == null || unit == null) {
+            throw new NullPointerException();
+        }
+        if (delay <= 0) {
+            throw new IllegalArgumentException("delay <= 0");
+        }
+        return enqueue(new Task<Void>(command, null, deadline(initialDelay, unit),
+                -unit.toNanos(delay)));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        setState(SHUTDOWN);
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        setState(STOP);
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return state != RUNNING;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    private synchronized void setState(int newState) {
+        if (state < newState) {
+            state = newState;
+            for (Wheel wheel : wheels) {
+                LockSupport.unpark(wheel.thread);
+            }
+        }
+    }
+
+    private static long deadline(long delay, TimeUnit unit) {
+        // Keep deadlines comparable, as ScheduledThreadPoolExecutor does.
+        long delayNanos = Math.min(Math.max(unit.toNanos(delay), 0), Long.MAX_VALUE >> 1);
+        return System.nanoTime() + delayNanos;
+    }
+
+    private <V> Task<V> enqueue(Task<V> task) {
+        if (state != RUNNING) {
+            throw new RejectedExecutionException("Executor is shut down");
+        }
+        Wheel wheel = wheels[(int) (Thread.currentThread().getId() % wheels.length)];
+        task.wheel = wheel;
+        wheel.inbox.offer(task);
+        // The wheel may have seen the shutdown, and an empty inbox, and exited.
+        if (state != RUNNING && wheel.inbox.remove(task)) {
+            throw new RejectedExecutionException("Executor is shut down");
+        }
+        if (wheel.idle) {
+            LockSupport.unpark(wheel.thread);
+        }
+        return task;
+    }
+
+    private final class Task<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+        // Positive for a fixed rate, negative for a fixed delay, 0 for a one-shot task.
+        private final long period;
+        private volatile long deadlineNanos;
+        Wheel wheel;
+
+        // The fields below are only used by the wheel's thread.
+        long deadlineTick;
+        // The index of the slot holding this task, or -1.
+        int slot = -1;
+        Task<?> prev;
+        Task<?> next;
+
+        Task(Runnable runnable, V result, long deadlineNanos, long period) {
+            super(runnable, result);
+            this.deadlineNanos = deadlineNanos;
+            this.period = period;
+        }
+
+        Task(Callable<V> callable, long deadlineNanos, long period) {
+            super(callable);
+            this.deadlineNanos = deadlineNanos;
+            this.period = period;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS),
+                    other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                // Lets the wheel's thread unlink the task at its next tick.
+                wheel.inbox.offer(this);
+            }
+            return cancelled;
+        }
+
+        @Override
+        public void run() {
+            if (!isPeriodic()) {
+                super.run();
+            } else if (state != RUNNING) {
+                super.cancel(false);
+            } else if (super.runAndReset()) {
+                deadlineNanos = period > 0 ? deadlineNanos + period : System.nanoTime() - period;
+                wheel.add(this, wheel.tick + 1);
+            }
+        }
+    }
+
+    private final class Wheel implements Runnable {
+        final ConcurrentLinkedQueue<Task<?>> inbox = new ConcurrentLinkedQueue<>();
+        volatile boolean idle;
+        Thread thread;
+
+        // The fields below are only used by this wheel's thread.
+        private final Task<?>[] slots = new Task<?>[LEVELS * SLOTS];
+        // The last tick that has been processed.
+        long tick;
+        private int count;
+        private boolean periodicCancelled;
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    int s = state;
+                    if (s == STOP) {
+                        cancelAll();
+                        return;
+                    }
+                    drainInbox();
+                    if (s == SHUTDOWN) {
+                        if (!periodicCancelled) {
+                            cancelPeriodic();
+                            periodicCancelled = true;
+                        }
+                        if (count == 0 && inbox.isEmpty()) {
+                            return;
+                        }
+                    }
+                    long target = (System.nanoTime() - startNanos) / tickNanos;
+                    if (count == 0) {
+                        tick = Math.max(tick, target);
+                    }
+                    while (tick < target && count > 0) {
+                        // Skip the ticks where nothing happens.
+                        tick = Math.min(nextBusyTick(), target) - 1;
+                        advance();
+                    }
+                    if (count == 0 || tick >= target) {
+                        // Sleep until the next tick with work, or until a task is scheduled.
+                        idle = true;
+                        if (inbox.isEmpty() && state == RUNNING) {
+                            if (count == 0) {
+                                LockSupport.park(this);
+                            } else {
+                                long wakeNanos = startNanos + nextBusyTick() * tickNanos;
+                                LockSupport.parkNanos(this, wakeNanos - System.nanoTime());
+                            }
+                        }
+                        idle = false;
+                    }
+                }
+            } finally {
+                terminated.countDown();
+            }
+        }
+
+        private void drainInbox() {
+            Task<?> task;
+            while ((task = inbox.poll()) != null) {
+                if (task.isCancelled()) {
+                    if (task.slot >= 0) {
+                        unlink(task);
+                    }
+                } else if (task.slot < 0) {
+                    add(task, tick + 1);
+                }
+            }
+        }
+
+        /** Links {@code task} into the wheel no earlier than {@code minTick}. */
+        void add(Task<?> task, long minTick) {
+            long elapsed = task.deadlineNanos - startNanos;
+            // Round up, so that the task never runs early.
+            task.deadlineTick = Math.max(elapsed / tickNanos + (elapsed % tickNanos > 0 ? 1 : 0),
+                    minTick);
+            link(task);
+        }
+
+        private void link(Task<?> task) {
+            long delta = task.deadlineTick - tick;
+            int level = 0;
+            while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+                level++;
+            }
+            int slot = level * SLOTS
+                    + (int) ((task.deadlineTick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+            Task<?> head = slots[slot];
+            task.slot = slot;
+            task.prev = null;
+            task.next = head;
+            if (head != null) {
+                head.prev = task;
+            }
+            slots[slot] = task;
+            count++;
+        }
+
+        private void unlink(Task<?> task) {
+            if (task.prev != null) {
+                task.prev.next = task.next;
+            } else {
+                slots[task.slot] = task.next;
+            }
+            if (task.next != null) {
+                task.next.prev = task.prev;
+            }
+            task.slot = -1;
+            task.prev = null;
+            task.next = null;
+            count--;
+        }
+
+        // Detaches and returns the list of tasks in a slot.
+        private Task<?> takeSlot(int slot) {
+            Task<?> head = slots[slot];
+            slots[slot] = null;
+            for (Task<?> task = head; task != null; task = task.next) {
+                task.slot = -1;
+                count--;
+            }
+            return head;
+        }
+
+        /**
+         * Returns the first tick after {@link #tick} that has work: one with a task in its
+         * level 0 slot, or the next tick that moves tasks down from the higher levels.
+         */
+        private long nextBusyTick() {
+            long cascadeTick = (tick | (SLOTS - 1)) + 1;
+            for (long t = tick + 1; t < cascadeTick; t++) {
+                if (slots[(int) (t & (SLOTS - 1))] != null) {
+                    return t;
+                }
+            }
+            return cascadeTick;
+        }
+
+        private void advance() {
+            tick++;
+            // Move the tasks of each higher level slot that starts at this tick down the
+            // wheel, highest level first.
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    int slot = level * SLOTS
+                            + (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+                    Task<?> task = takeSlot(slot);
+                    while (task != null) {
+                        Task<?> next = task.next;
+                        link(task);
+                        task = next;
+                    }
+                }
+            }
+            Task<?> task = takeSlot((int) (tick & (SLOTS - 1)));
+            while (task != null) {
+                Task<?> next = task.next;
+                task.prev = null;
+                task.next = null;
+                if (!task.isCancelled()) {
+                    task.run();
+                }
+                task = next;
+            }
+        }
+
+        private void cancelPeriodic() {
+            for (int slot = 0; slot < slots.length; slot++) {
+                Task<?> task = slots[slot];
+                while (task != null) {
+                    Task<?> next = task.next;
+                    if (task.isPeriodic()) {
+                        unlink(task);
+                        task.cancel(false);
+                    }
+                    task = next;
+                }
+            }
+        }
+
+        private void cancelAll() {
+            drainInbox();
+            for (int slot = 0; slot < slots.length; slot++) {
+                for (Task<?> task = takeSlot(slot); task != null; task = task.next) {
+                    task.cancel(false);
+                }
+            }
+            inbox.clear();
+        }
+    }
+}
@@ -34,13 +34,15 @@ import java.io.Reader;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import libcore.io.IoUtils;
 
 import dalvik.annotation.optimization.ReachabilitySensitive;
 
 /**
  * Adapts SAX API to the Expat native XML parser. Not intended for reuse
- * across documents.
+ * across documents, although the native parser can be handed on to a new
+ * instance with {@link #recycle}.
  *
  * @see org.apache.harmony.xml.ExpatReader
  */
@@ -89,6 +91,19 @@ class ExpatParser {
     @UnsupportedAppUsage
     /*package*/ ExpatParser(String encoding, ExpatReader xmlReader,
             boolean processNamespaces, String publicId, String systemId) {
+        this(encoding, xmlReader, processNamespaces, false, publicId,
+                systemId);
+    }
+
+    /**
+     * Constructs a new parser with the specified encoding.
+     *
+     * @param shareInternedStrings true to intern element and attribute names
+     *  through a table shared with other parsers constructed this way
+     */
+    /*package*/ ExpatParser(String encoding, ExpatReader xmlReader,
+            boolean processNamespaces, boolean shareInternedStrings,
+            String publicId, String systemId) {
         this.publicId = publicId;
         this.systemId = systemId;
 
@@ -104,12 +119,13 @@ class ExpatParser {
         this.encoding = encoding == null ? DEFAULT_ENCODING : encoding;
         this.pointer = initialize(
             this.encoding,
-            processNamespaces
+            processNamespaces,
+            shareInternedStrings
         );
     }
 
     /**
-     * Used by {@link EntityParser}.
+     * Used by {@link EntityParser} and {@link #recycle}.
      */
     private ExpatParser(String encoding, ExpatReader xmlReader, long pointer,
             String publicId, String systemId) {
@@ -125,7 +141,48 @@ class ExpatParser {
      *
      * @return the pointer to the native parser
      */
-    private native long initialize(String encoding, boolean namespacesEnabled);
+    private native long initialize(String encoding, boolean namespacesEnabled,
+            boolean shareInternedStrings);
+
+    /**
+     * Creates a parser for a new document that reuses the native parser, and
+     * with it the interned name cache, of {@code previous}. The native parser
+     * is reset rather than reallocated. {@code previous} must have finished
+     * parsing and must not be used afterwards.
+     *
+     * @return the new parser, or null if the native parser couldn't be reused
+     */
+    /*package*/ static ExpatParser recycle(ExpatParser previous,
+            String encoding, ExpatReader xmlReader, String publicId,
+            String systemId) {
+        if (encoding == null) {
+            encoding = DEFAULT_ENCODING;
+        }
+
+        long pointer;
+        synchronized (previous) {
+            pointer = previous.pointer;
+            previous.pointer = 0;
+        }
+        if (pointer == 0) {
+            return null;
+        }
+
+        ExpatParser parser = new ExpatParser(encoding, xmlReader, pointer,
+                publicId, systemId);
+        if (!reset(pointer, encoding)) {
+            // Let the finalizer release the parser and its context.
+            return null;
+        }
+        return parser;
+    }
+
+    /**
+     * Resets the native parser so it can parse a new document.
+     *
+     * @return false if the parser couldn't be reset
+     */
+    private static native boolean reset(long pointer, String encoding);
 
     /**
      * Called at the start of an element.
@@ -478,6 +535,26 @@ class ExpatParser {
     private native void appendBytes(long pointer, byte[] xml, int offset,
             int length) throws SAXException, ExpatException;
 
+    /**
+     * Appends the remaining bytes of a direct buffer without copying them.
+     * This parser will parse the given XML to the extent possible and
+     * dispatch to the appropriate methods. Doesn't change the buffer's
+     * position.
+     *
+     * @param xml a direct buffer holding a whole or partial snippet of XML
+     * @throws SAXException if an error occurs during parsing
+     */
+    /*package*/ void appendDirect(ByteBuffer xml) throws SAXException {
+        try {
+            appendDirectBytes(this.pointer, xml, xml.position(), xml.remaining());
+        } catch (ExpatException e) {
+            throw new ParseException(e.getMessage(), this.locator);
+        }
+    }
+
+    private native void appendDirectBytes(long pointer, ByteBuffer xml,
+            int offset, int length) throws SAXException, ExpatException;
+
     /**
      * Parses an XML document from the given input stream.
      */
@@ -530,7 +607,7 @@ class ExpatParser {
         }
     }
 
-    private void startDocument() throws SAXException {
+    /*package*/ void startDocument() throws SAXException {
         ContentHandler contentHandler = xmlReader.contentHandler;
         if (contentHandler != null) {
             contentHandler.setDocumentLocator(this.locator);
@@ -538,7 +615,7 @@ class ExpatParser {
         }
     }
 
-    private void endDocument() throws SAXException {
+    /*package*/ void endDocument() throws SAXException {
         ContentHandler contentHandler;
         contentHandler = xmlReader.contentHandler;
         if (contentHandler != null) {
@@ -591,19 +668,23 @@ class ExpatParser {
     }
 
     /**
-     * Gets the current line number within the XML file.
+     * Gets the current line number within the XML file, or -1 if the native
+     * parser has been released or handed on by {@link #recycle}.
      */
     private int line() {
-        return line(this.pointer);
+        long pointer = this.pointer;
+        return (pointer != 0) ? line(pointer) : -1;
     }
 
     private static native int line(long pointer);
 
     /**
-     * Gets the current column number within the XML file.
+     * Gets the current column number within the XML file, or -1 if the native
+     * parser has been released or handed on by {@link #recycle}.
      */
     private int column() {
-        return column(this.pointer);
+        long pointer = this.pointer;
+        return (pointer != 0) ? column(pointer) : -1;
     }
 
     private static native int column(long pointer);
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.xml;
+
+import java.nio.ByteBuffer;
+import org.xml.sax.SAXException;
+
+/**
+ * Parses a single XML document that is pushed to it in pieces, as the bytes
+ * arrive, rather than pulled from a blocking stream. Events are dispatched to
+ * the handlers of the {@link ExpatReader} this parser was created with while
+ * {@link #feed} and {@link #endOfInput} run, so a selector loop can parse any
+ * number of slow streams on one thread.
+ *
+ * <p>Feeding never blocks on input. It may still block if the reader's
+ * {@link org.xml.sax.EntityResolver} resolves an external entity to a stream.
+ *
+ * <p>Not thread safe; calls for one document must not overlap.
+ */
+public final class ExpatPushParser {
+
+    private static final int COPY_BUFFER_SIZE = 8096; // in bytes
+
+    private final ExpatParser parser;
+
+    private boolean started;
+    private boolean finished;
+    private byte[] copyBuffer;
+
+    /**
+     * Creates a push parser for one document.
+     *
+     * @param reader supplies the handlers and features to parse with. Its
+     *  handlers may be changed between calls to {@link #feed}.
+     * @param encoding the document's character encoding, or null for UTF-8
+     */
+    public ExpatPushParser(ExpatReader reader, String encoding, String publicId,
+            String systemId) throws SAXException {
+        if (reader == null) {
+            throw new NullPointerException("reader == null");
+        }
+        reader.checkFeatures();
+        this.parser = new ExpatParser(encoding, reader,
+                reader.isNamespaceProcessingEnabled(), publicId, systemId);
+    }
+
+    /**
+     * Parses the given bytes as the next part of the document, dispatching
+     * events for everything that can be parsed so far.
+     *
+     * @throws SAXException if the document is malformed or a handler throws.
+     *  The parser can't be used afterwards.
+     */
+    public void feed(byte[] data, int offset, int length) throws SAXException {
+        if ((offset | length) < 0 || offset > data.length - length) {
+            throw new ArrayIndexOutOfBoundsException("data.length=" + data.length
+                    + "; offset=" + offset + "; length=" + length);
+        }
+        start();
+        boolean succeeded = false;
+        try {
+            parser.append(data, offset, length);
+            succeeded = true;
+        } finally {
+            if (!succeeded) {
+                finished = true;
+            }
+        }
+    }
+
+    /**
+     * Parses the remaining bytes of {@code data} as the next part of the
+     * document and advances its position to its limit. Direct buffers are
+     * parsed in place; other buffers without an accessible array are copied.
+     *
+     * @throws SAXException if the document is malformed or a handler throws.
+     *  The parser can't be used afterwards.
+     */
+    public void feed(ByteBuffer data) throws SAXException {
+        if (data.hasArray()) {
+            feed(data.array(), data.arrayOffset() + data.position(), data.remaining());
+            data.position(data.limit());
+            return;
+        }
+
+        start();
+        boolean succeeded = false;
+        try {
+            if (data.isDirect()) {
+                parser.appendDirect(data);
+                data.position(data.limit());
+            } else {
+                if (copyBuffer == null) {
+                    copyBuffer = new byte[COPY_BUFFER_SIZE];
+                }
+                while (data.hasRemaining()) {
+                    int length = Math.min(data.remaining(), copyBuffer.length);
+                    data.get(copyBuffer, 0, length);
+                    parser.append(copyBuffer, 0, length);
+                }
+            }
+            succeeded = true;
+        } finally {
+            if (!succeeded) {
+                finished = true;
+            }
+        }
+    }
+
+    /**
+     * Signals that the whole document has been fed, and dispatches the end of
+     * the document.
+     *
+     * @throws SAXException if the document is incomplete or malformed
+     */
+    public void endOfInput() throws SAXException {
+        start();
+        finished = true;
+        parser.finish();
+        parser.endDocument();
+    }
+
+    private void start() throws SAXException {
+        if (finished) {
+            throw new IllegalStateException("Parsing has finished");
+        }
+        if (!started) {
+            started = true;
+            parser.startDocument();
+        }
+    }
+}
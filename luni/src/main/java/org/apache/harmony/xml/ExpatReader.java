@@ -53,6 +53,14 @@ public class ExpatReader implements XMLReader {
     private boolean processNamespaces = true;
     private boolean processNamespacePrefixes = false;
 
+    private boolean recycleParsers = false;
+
+    /** Parser from the last parse() call, kept if recycling is enabled. */
+    private ExpatParser recycledParser;
+
+    /** Whether {@link #recycledParser} was created with namespace processing. */
+    private boolean recycledParserProcessesNamespaces;
+
     private static final String LEXICAL_HANDLER_PROPERTY
             = "http://xml.org/sax/properties/lexical-handler";
 
@@ -254,19 +262,35 @@ public class ExpatReader implements XMLReader {
         this.processNamespaces = processNamespaces;
     }
 
-    public void parse(InputSource input) throws IOException, SAXException {
-        if (processNamespacePrefixes && processNamespaces) {
-            /*
-             * Expat has XML_SetReturnNSTriplet, but that still doesn't
-             * include xmlns attributes like this feature requires. We may
-             * have to implement namespace processing ourselves if we want
-             * this (not too difficult). We obviously "support" namespace
-             * prefixes if namespaces are disabled.
-             */
-            throw new SAXNotSupportedException("The 'namespace-prefix' " +
-                    "feature is not supported while the 'namespaces' " +
-                    "feature is enabled.");
+    /**
+     * Returns true if this reader reuses its native parser across documents.
+     *
+     * @see #setParserRecyclingEnabled(boolean)
+     */
+    public boolean isParserRecyclingEnabled() {
+        return recycleParsers;
+    }
+
+    /**
+     * Enables or disables native parser recycling. Set to false by default.
+     * When enabled, each {@code parse()} call resets and reuses the native
+     * parser from the previous call rather than creating a new one, which
+     * keeps its cache of interned element and attribute names warm. Names are
+     * also interned through a bounded table shared by all recycling readers,
+     * so that readers used by different threads benefit from each other.
+     *
+     * <p>Like any {@link XMLReader}, a recycling reader must only be used by
+     * one thread at a time.
+     */
+    public void setParserRecyclingEnabled(boolean recycleParsers) {
+        this.recycleParsers = recycleParsers;
+        if (!recycleParsers) {
+            recycledParser = null;
         }
+    }
+
+    public void parse(InputSource input) throws IOException, SAXException {
+        checkFeatures();
 
         // Try the character stream.
         Reader reader = input.getCharacterStream();
@@ -305,23 +329,70 @@ public class ExpatReader implements XMLReader {
         }
     }
 
+    /**
+     * Throws if the current combination of features can't be parsed.
+     */
+    /*package*/ void checkFeatures() throws SAXNotSupportedException {
+        if (processNamespacePrefixes && processNamespaces) {
+            /*
+             * Expat has XML_SetReturnNSTriplet, but that still doesn't
+             * include xmlns attributes like this feature requires. We may
+             * have to implement namespace processing ourselves if we want
+             * this (not too difficult). We obviously "support" namespace
+             * prefixes if namespaces are disabled.
+             */
+            throw new SAXNotSupportedException("The 'namespace-prefix' " +
+                    "feature is not supported while the 'namespaces' " +
+                    "feature is enabled.");
+        }
+    }
+
     private void parse(Reader in, String publicId, String systemId)
             throws IOException, SAXException {
-        ExpatParser parser = new ExpatParser(
+        ExpatParser parser = newParser(
                 ExpatParser.CHARACTER_ENCODING,
-                this,
-                processNamespaces,
                 publicId,
                 systemId
         );
-        parser.parseDocument(in);
+        try {
+            parser.parseDocument(in);
+        } finally {
+            keepForRecycling(parser);
+        }
     }
 
     private void parse(InputStream in, String charsetName, String publicId, String systemId)
             throws IOException, SAXException {
-        ExpatParser parser =
-            new ExpatParser(charsetName, this, processNamespaces, publicId, systemId);
-        parser.parseDocument(in);
+        ExpatParser parser = newParser(charsetName, publicId, systemId);
+        try {
+            parser.parseDocument(in);
+        } finally {
+            keepForRecycling(parser);
+        }
+    }
+
+    private ExpatParser newParser(String encoding, String publicId, String systemId) {
+        if (!recycleParsers) {
+            return new ExpatParser(encoding, this, processNamespaces, publicId, systemId);
+        }
+
+        ExpatParser previous = recycledParser;
+        recycledParser = null;
+        if (previous != null && recycledParserProcessesNamespaces == processNamespaces) {
+            ExpatParser parser = ExpatParser.recycle(previous, encoding, this, publicId, systemId);
+            if (parser != null) {
+                return parser;
+            }
+        }
+        // Namespace processing can't be changed by resetting a native parser.
+        recycledParserProcessesNamespaces = processNamespaces;
+        return new ExpatParser(encoding, this, processNamespaces, true, publicId, systemId);
+    }
+
+    private void keepForRecycling(ExpatParser parser) {
+        if (recycleParsers) {
+            recycledParser = parser;
+        }
     }
 
     public void parse(String systemId) throws IOException, SAXException {
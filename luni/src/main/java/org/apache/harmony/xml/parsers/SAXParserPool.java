@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.xml.parsers;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.harmony.xml.ExpatReader;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * A thread-safe pool of Expat based SAX readers for parsing many independent
+ * documents concurrently. Each pooled reader recycles its native parser from
+ * one document to the next, and all pooled readers intern element and
+ * attribute names through a shared table, so small documents don't pay for
+ * parser creation and name interning every time.
+ *
+ * <p>Readers are created on demand, so the pool never blocks; at most
+ * {@code maxIdleReaders} are retained between parses.
+ */
+public final class SAXParserPool {
+
+    private final boolean namespaceAware;
+    private final int maxIdleReaders;
+
+    private final ConcurrentLinkedQueue<ExpatReader> idleReaders
+            = new ConcurrentLinkedQueue<ExpatReader>();
+    private final AtomicInteger idleReaderCount = new AtomicInteger();
+
+    private final AtomicLong readersCreated = new AtomicLong();
+    private final AtomicLong documentsParsed = new AtomicLong();
+    private final AtomicLong documentsFailed = new AtomicLong();
+    private final AtomicLong parseTimeNanos = new AtomicLong();
+
+    /**
+     * @param namespaceAware true if pooled readers should process namespaces
+     * @param maxIdleReaders the maximum number of readers kept between parses,
+     *  typically the number of worker threads
+     */
+    public SAXParserPool(boolean namespaceAware, int maxIdleReaders) {
+        if (maxIdleReaders < 0) {
+            throw new IllegalArgumentException("maxIdleReaders < 0: " + maxIdleReaders);
+        }
+        this.namespaceAware = namespaceAware;
+        this.maxIdleReaders = maxIdleReaders;
+    }
+
+    /**
+     * Parses a document with a pooled reader, reporting events to
+     * {@code handler}. If {@code handler} also implements
+     * {@link LexicalHandler} it receives lexical events too. May be called
+     * from any number of threads at once.
+     */
+    public void parse(InputSource input, DefaultHandler handler)
+            throws IOException, SAXException {
+        if (input == null) {
+            throw new NullPointerException("input == null");
+        }
+        if (handler == null) {
+            throw new NullPointerException("handler == null");
+        }
+
+        ExpatReader reader = acquire();
+        reader.setContentHandler(handler);
+        reader.setDTDHandler(handler);
+        reader.setEntityResolver(handler);
+        reader.setErrorHandler(handler);
+        if (handler instanceof LexicalHandler) {
+            reader.setLexicalHandler((LexicalHandler) handler);
+        }
+
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            reader.parse(input);
+            succeeded = true;
+        } finally {
+            parseTimeNanos.addAndGet(System.nanoTime() - start);
+            (succeeded ? documentsParsed : documentsFailed).incrementAndGet();
+
+            // Don't keep the caller's handler reachable from the pool.
+            reader.setContentHandler(null);
+            reader.setDTDHandler(null);
+            reader.setEntityResolver(null);
+            reader.setErrorHandler(null);
+            reader.setLexicalHandler(null);
+            release(reader);
+        }
+    }
+
+    private ExpatReader acquire() {
+        ExpatReader reader = idleReaders.poll();
+        if (reader != null) {
+            idleReaderCount.decrementAndGet();
+            return reader;
+        }
+
+        reader = new ExpatReader();
+        reader.setNamespaceProcessingEnabled(namespaceAware);
+        reader.setParserRecyclingEnabled(true);
+        readersCreated.incrementAndGet();
+        return reader;
+    }
+
+    private void release(ExpatReader reader) {
+        if (idleReaderCount.incrementAndGet() <= maxIdleReaders) {
+            idleReaders.offer(reader);
+        } else {
+            idleReaderCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of readers, and therefore native parsers, created by
+     * this pool. Parsing more documents than this means parsers were recycled.
+     */
+    public long getReadersCreated() {
+        return readersCreated.get();
+    }
+
+    /** Returns the number of documents parsed successfully. */
+    public long getDocumentsParsed() {
+        return documentsParsed.get();
+    }
+
+    /** Returns the number of documents whose parse threw an exception. */
+    public long getDocumentsFailed() {
+        return documentsFailed.get();
+    }
+
+    /**
+     * Returns the total time spent in {@link #parse}, summed over all threads,
+     * including time spent in the handlers.
+     */
+    public long getParseTimeNanos() {
+        return parseTimeNanos.get();
+    }
+
+    /**
+     * Returns the number of documents parsed per second of parse time on a
+     * single thread, or 0 if nothing has been parsed yet. Multiply by the
+     * number of concurrently parsing threads for the aggregate throughput.
+     */
+    public double getDocumentsPerSecond() {
+        long nanos = parseTimeNanos.get();
+        if (nanos == 0) {
+            return 0;
+        }
+        return (documentsParsed.get() + documentsFailed.get()) * 1e9 / nanos;
+    }
+}
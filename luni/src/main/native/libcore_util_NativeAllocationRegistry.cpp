@@ -14,6 +14,8 @@
  * limitations under the License.
  */
 
+#include <algorithm>
+
 #include <nativehelper/JNIHelp.h>
 #include <nativehelper/jni_macros.h>
 
@@ -29,8 +31,27 @@ static void NativeAllocationRegistry_applyFreeFunction(JNIEnv*,
     nativeFreeFunction(nativePtr);
 }
 
+static void NativeAllocationRegistry_applyFreeFunctions(JNIEnv* env,
+                                                        jclass,
+                                                        jlong freeFunction,
+                                                        jlongArray ptrs,
+                                                        jint count) {
+    FreeFunction nativeFreeFunction
+        = reinterpret_cast<FreeFunction>(static_cast<uintptr_t>(freeFunction));
+    // Copy in chunks, so that free functions never run inside a critical section.
+    jlong chunk[256];
+    for (jint start = 0; start < count; start += NELEM(chunk)) {
+        jint length = std::min<jint>(count - start, NELEM(chunk));
+        env->GetLongArrayRegion(ptrs, start, length, chunk);
+        for (jint i = 0; i < length; i++) {
+            nativeFreeFunction(reinterpret_cast<void*>(static_cast<uintptr_t>(chunk[i])));
+        }
+    }
+}
+
 static JNINativeMethod gMethods[] = {
     NATIVE_METHOD(NativeAllocationRegistry, applyFreeFunction, "(JJ)V"),
+    NATIVE_METHOD(NativeAllocationRegistry, applyFreeFunctions, "(J[JI)V"),
 };
 
 void register_libcore_util_NativeAllocationRegistry(JNIEnv* env) {
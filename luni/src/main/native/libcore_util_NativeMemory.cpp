@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#define LOG_TAG "NativeMemory"
+
+#include <stdlib.h>
+
+#include <nativehelper/JNIHelp.h>
+#include <nativehelper/jni_macros.h>
+
+static void NativeMemory_free(void* block) {
+    free(block);
+}
+
+static jlong NativeMemory_calloc(JNIEnv* env, jclass, jlong byteCount) {
+    void* block = calloc(1, static_cast<size_t>(byteCount));
+    if (block == nullptr) {
+        jniThrowOutOfMemoryError(env, "Unable to allocate native memory");
+        return 0;
+    }
+    return static_cast<jlong>(reinterpret_cast<uintptr_t>(block));
+}
+
+static jlong NativeMemory_nativeGetFreeFunction(JNIEnv*, jclass) {
+    return static_cast<jlong>(reinterpret_cast<uintptr_t>(&NativeMemory_free));
+}
+
+static JNINativeMethod gMethods[] = {
+    NATIVE_METHOD(NativeMemory, calloc, "(J)J"),
+    NATIVE_METHOD(NativeMemory, nativeGetFreeFunction, "()J"),
+};
+
+void register_libcore_util_NativeMemory(JNIEnv* env) {
+    jniRegisterNativeMethods(env, "libcore/util/NativeMemory", gMethods, NELEM(gMethods));
+}
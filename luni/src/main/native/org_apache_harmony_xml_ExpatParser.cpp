@@ -20,6 +20,9 @@
 #include <string.h>
 
 #include <memory>
+#include <mutex>
+#include <string>
+#include <unordered_map>
 
 #include <android/log.h>
 #include <android-base/stringprintf.h>
@@ -94,6 +97,10 @@ public:
         return (size == 0) ? NULL : array[--size];
     }
 
+    void clear() {
+        size = 0;
+    }
+
 private:
     enum { DEFAULT_CAPACITY = 10 };
 
@@ -107,7 +114,8 @@ private:
  */
 struct ParsingContext {
     explicit ParsingContext(jobject object)
-        : env(NULL), object(object), buffer(NULL), bufferSize(-1) {
+        : env(NULL), object(object), buffer(NULL), bufferSize(-1),
+          shareInternedStrings(false), internedStringCount(0) {
         for (int i = 0; i < BUCKET_COUNT; i++) {
             internedStrings[i] = NULL;
         }
@@ -116,8 +124,14 @@ struct ParsingContext {
     // Warning: 'env' must be valid on entry.
     ~ParsingContext() {
         freeBuffer();
+        freeInternedStrings();
+    }
 
-        // Free interned string cache.
+    /**
+     * Frees the interned string cache and the global references it holds.
+     * Warning: 'env' must be valid on entry.
+     */
+    void freeInternedStrings() {
         for (int i = 0; i < BUCKET_COUNT; i++) {
             if (internedStrings[i]) {
                 InternedString** bucket = internedStrings[i];
@@ -132,8 +146,10 @@ struct ParsingContext {
 
                 // Free the buckets.
                 delete[] internedStrings[i];
+                internedStrings[i] = NULL;
             }
         }
+        internedStringCount = 0;
     }
 
     jcharArray ensureCapacity(int length) {
@@ -191,11 +207,17 @@ public:
     /** True if namespace support is enabled. */
     bool processNamespaces;
 
+    /** True if names missing from our cache should be looked up in sharedInternTable. */
+    bool shareInternedStrings;
+
     /** Keep track of names. */
     StringStack stringStack;
 
     /** Cache of interned strings. */
     InternedString** internedStrings[BUCKET_COUNT];
+
+    /** Number of entries in internedStrings, each holding a global reference. */
+    size_t internedStringCount;
 };
 
 static ParsingContext* toParsingContext(void* data) {
@@ -249,15 +271,52 @@ static int hashString(const char* s) {
     return hash;
 }
 
+/**
+ * Interned names shared by all parsers created in recycling mode. A parser
+ * whose own cache misses checks here before calling String.intern(), so
+ * workers parsing similar documents only pay for each name once. Entries are
+ * never removed; the table stops growing at SHARED_INTERN_TABLE_CAPACITY so
+ * that documents with unbounded names can't exhaust global references.
+ */
+static std::mutex sharedInternTableMutex;
+static std::unordered_map<std::string, jstring> sharedInternTable;
+static const size_t SHARED_INTERN_TABLE_CAPACITY = 1024;
+
+/**
+ * Returns a global reference owned by the shared table, or NULL if the given
+ * UTF-8 string hasn't been interned by any parser sharing the table.
+ */
+static jstring findSharedInternedString(const char* bytes) {
+    std::lock_guard<std::mutex> lock(sharedInternTableMutex);
+    auto it = sharedInternTable.find(bytes);
+    return (it == sharedInternTable.end()) ? NULL : it->second;
+}
+
+/**
+ * Adds an interned string to the shared table if there is room for it.
+ */
+static void addSharedInternedString(JNIEnv* env, const char* bytes, jstring interned) {
+    std::lock_guard<std::mutex> lock(sharedInternTableMutex);
+    if (sharedInternTable.size() >= SHARED_INTERN_TABLE_CAPACITY
+            || sharedInternTable.count(bytes) != 0) {
+        return;
+    }
+    jstring globalRef = reinterpret_cast<jstring>(env->NewGlobalRef(interned));
+    if (globalRef != NULL) {
+        sharedInternTable.emplace(bytes, globalRef);
+    }
+}
+
 /**
  * Creates a new interned string wrapper. Looks up the interned string
  * representing the given UTF-8 bytes.
  *
  * @param bytes null-terminated string to intern
  * @param hash of bytes
+ * @param shared true to consult and populate sharedInternTable
  * @returns wrapper of interned Java string
  */
-static InternedString* newInternedString(JNIEnv* env, const char* bytes, int hash) {
+static InternedString* newInternedString(JNIEnv* env, const char* bytes, int hash, bool shared) {
     // Allocate a new wrapper.
     std::unique_ptr<InternedString> wrapper(new InternedString);
     if (wrapper.get() == NULL) {
@@ -278,6 +337,18 @@ static InternedString* newInternedString(JNIEnv* env, const char* bytes, int has
     // Save the hash.
     wrapper->hash = hash;
 
+    // Another parser may have interned this name already.
+    if (shared) {
+        jstring found = findSharedInternedString(bytes);
+        if (found != NULL) {
+            wrapper->interned = reinterpret_cast<jstring>(env->NewGlobalRef(found));
+            if (env->ExceptionCheck()) {
+                return NULL;
+            }
+            return wrapper.release();
+        }
+    }
+
     // To intern a string, we must first create a new string and then call
     // intern() on it. We then keep a global reference to the interned string.
     ScopedLocalRef<jstring> newString(env, env->NewStringUTF(bytes));
@@ -298,6 +369,10 @@ static InternedString* newInternedString(JNIEnv* env, const char* bytes, int has
         return NULL;
     }
 
+    if (shared) {
+        addSharedInternedString(env, bytes, wrapper->interned);
+    }
+
     return wrapper.release();
 }
 
@@ -386,7 +461,8 @@ static jstring internString(JNIEnv* env, ParsingContext* parsingContext, const c
 
         // We didn't find it. :(
         // Create a new entry.
-        internedString = newInternedString(env, s, hash);
+        internedString = newInternedString(env, s, hash,
+                parsingContext->shareInternedStrings);
         if (internedString == NULL) return NULL;
 
         // Expand the bucket.
@@ -398,11 +474,13 @@ static jstring internString(JNIEnv* env, ParsingContext* parsingContext, const c
         }
 
         buckets[bucketIndex] = bucket;
+        parsingContext->internedStringCount++;
 
         return internedString->interned;
     } else {
         // We don't even have a bucket yet. Create an entry.
-        internedString = newInternedString(env, s, hash);
+        internedString = newInternedString(env, s, hash,
+                parsingContext->shareInternedStrings);
         if (internedString == NULL) return NULL;
 
         // Create a new bucket with one entry.
@@ -414,6 +492,7 @@ static jstring internString(JNIEnv* env, ParsingContext* parsingContext, const c
         }
 
         buckets[bucketIndex] = bucket;
+        parsingContext->internedStringCount++;
 
         return internedString->interned;
     }
@@ -967,16 +1046,39 @@ static void notationDecl(void* data, const char* name, const char* /*base*/, con
     env->CallVoidMethod(javaParser, notationDeclMethod, javaName.get(), javaPublicId.get(), javaSystemId.get());
 }
 
+/**
+ * Installs our handlers and parsing context on a new or freshly reset parser.
+ */
+static void setHandlers(XML_Parser parser, ParsingContext* context) {
+    if (context->processNamespaces) {
+        XML_SetNamespaceDeclHandler(parser, startNamespace, endNamespace);
+        XML_SetReturnNSTriplet(parser, 1);
+    }
+
+    XML_SetCdataSectionHandler(parser, startCdata, endCdata);
+    XML_SetCharacterDataHandler(parser, text);
+    XML_SetCommentHandler(parser, comment);
+    XML_SetDoctypeDeclHandler(parser, startDtd, endDtd);
+    XML_SetElementHandler(parser, startElement, endElement);
+    XML_SetExternalEntityRefHandler(parser, handleExternalEntity);
+    XML_SetNotationDeclHandler(parser, notationDecl);
+    XML_SetProcessingInstructionHandler(parser, processingInstruction);
+    XML_SetUnparsedEntityDeclHandler(parser, unparsedEntityDecl);
+    XML_SetUserData(parser, context);
+}
+
 /**
  * Creates a new Expat parser. Called from the Java ExpatParser constructor.
  *
  * @param object the Java ExpatParser instance
  * @param javaEncoding the character encoding name
  * @param processNamespaces true if the parser should handle namespaces
+ * @param shareInternedStrings true if the parser should use the shared
+ *  intern table
  * @returns the pointer to the C Expat parser
  */
 static jlong ExpatParser_initialize(JNIEnv* env, jobject object, jstring javaEncoding,
-        jboolean processNamespaces) {
+        jboolean processNamespaces, jboolean shareInternedStrings) {
     // Allocate parsing context.
     std::unique_ptr<ParsingContext> context(new ParsingContext(object));
     if (context.get() == NULL) {
@@ -985,6 +1087,7 @@ static jlong ExpatParser_initialize(JNIEnv* env, jobject object, jstring javaEnc
     }
 
     context->processNamespaces = processNamespaces;
+    context->shareInternedStrings = shareInternedStrings;
 
     // Create a parser.
     XML_Parser parser;
@@ -1000,21 +1103,7 @@ static jlong ExpatParser_initialize(JNIEnv* env, jobject object, jstring javaEnc
     }
 
     if (parser != NULL) {
-        if (processNamespaces) {
-            XML_SetNamespaceDeclHandler(parser, startNamespace, endNamespace);
-            XML_SetReturnNSTriplet(parser, 1);
-        }
-
-        XML_SetCdataSectionHandler(parser, startCdata, endCdata);
-        XML_SetCharacterDataHandler(parser, text);
-        XML_SetCommentHandler(parser, comment);
-        XML_SetDoctypeDeclHandler(parser, startDtd, endDtd);
-        XML_SetElementHandler(parser, startElement, endElement);
-        XML_SetExternalEntityRefHandler(parser, handleExternalEntity);
-        XML_SetNotationDeclHandler(parser, notationDecl);
-        XML_SetProcessingInstructionHandler(parser, processingInstruction);
-        XML_SetUnparsedEntityDeclHandler(parser, unparsedEntityDecl);
-        XML_SetUserData(parser, context.release());
+        setHandlers(parser, context.release());
     } else {
         jniThrowOutOfMemoryError(env, NULL);
         return 0;
@@ -1054,6 +1143,18 @@ static void ExpatParser_appendBytes(JNIEnv* env, jobject object, jlong pointer,
     append(env, object, pointer, bytes, byteOffset, byteCount, XML_FALSE);
 }
 
+static void ExpatParser_appendDirectBytes(JNIEnv* env, jobject object, jlong pointer,
+        jobject xml, jint byteOffset, jint byteCount) {
+    void* address = env->GetDirectBufferAddress(xml);
+    if (address == NULL) {
+        jniThrowException(env, "java/lang/IllegalArgumentException", "not a direct buffer");
+        return;
+    }
+
+    const char* bytes = reinterpret_cast<const char*>(address);
+    append(env, object, pointer, bytes, byteOffset, byteCount, XML_FALSE);
+}
+
 static void ExpatParser_appendChars(JNIEnv* env, jobject object, jlong pointer,
         jcharArray xml, jint charOffset, jint charCount) {
     ScopedCharArrayRO charArray(env, xml);
@@ -1077,6 +1178,45 @@ static void ExpatParser_appendString(JNIEnv* env, jobject object, jlong pointer,
     append(env, object, pointer, bytes, 0, byteCount, isFinal);
 }
 
+/**
+ * The most interned names a recycled parser keeps from earlier documents.
+ */
+static const size_t MAX_RECYCLED_INTERNED_STRINGS = 1024;
+
+/**
+ * Prepares a parser to parse a new document, keeping its parsing context and
+ * therefore its interned string cache. Expat clears all handlers on reset, so
+ * we reinstall them.
+ *
+ * @returns false if the parser can't be reset, in which case it is unchanged
+ */
+static jboolean ExpatParser_reset(JNIEnv* env, jobject, jlong address, jstring javaEncoding) {
+    XML_Parser parser = toXMLParser(address);
+    ParsingContext* context = toParsingContext(parser);
+
+    ScopedUtfChars encoding(env, javaEncoding);
+    if (encoding.c_str() == NULL) {
+        return JNI_FALSE;
+    }
+    if (!XML_ParserReset(parser, encoding.c_str())) {
+        return JNI_FALSE;
+    }
+
+    // A previous document may have failed part way through an element.
+    context->stringStack.clear();
+
+    // Each cached name holds a global reference. Keep the cache for documents
+    // that share a vocabulary, but don't let a long-lived parser fed varied
+    // names grow it without bound.
+    if (context->internedStringCount > MAX_RECYCLED_INTERNED_STRINGS) {
+        context->env = env;
+        context->freeInternedStrings();
+    }
+
+    setHandlers(parser, context);
+    return JNI_TRUE;
+}
+
 /**
  * Releases parser only.
  */
@@ -1370,13 +1510,15 @@ static JNINativeMethod parserMethods[] = {
     NATIVE_METHOD(ExpatParser, appendString, "(JLjava/lang/String;Z)V"),
     NATIVE_METHOD(ExpatParser, appendBytes, "(J[BII)V"),
     NATIVE_METHOD(ExpatParser, appendChars, "(J[CII)V"),
+    NATIVE_METHOD(ExpatParser, appendDirectBytes, "(JLjava/nio/ByteBuffer;II)V"),
     NATIVE_METHOD(ExpatParser, cloneAttributes, "(JI)J"),
     NATIVE_METHOD(ExpatParser, column, "(J)I"),
     NATIVE_METHOD(ExpatParser, createEntityParser, "(JLjava/lang/String;)J"),
-    NATIVE_METHOD(ExpatParser, initialize, "(Ljava/lang/String;Z)J"),
+    NATIVE_METHOD(ExpatParser, initialize, "(Ljava/lang/String;ZZ)J"),
     NATIVE_METHOD(ExpatParser, line, "(J)I"),
     NATIVE_METHOD(ExpatParser, release, "(J)V"),
     NATIVE_METHOD(ExpatParser, releaseParser, "(J)V"),
+    NATIVE_METHOD(ExpatParser, reset, "(JLjava/lang/String;)Z"),
     NATIVE_METHOD(ExpatParser, staticInitialize, "(Ljava/lang/String;)V"),
 };
 
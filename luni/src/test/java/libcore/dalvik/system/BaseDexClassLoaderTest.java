@@ -26,12 +26,15 @@ import static org.junit.Assert.fail;
 import dalvik.system.BaseDexClassLoader;
 import dalvik.system.DelegateLastClassLoader;
 import dalvik.system.PathClassLoader;
+import dalvik.system.ZygoteHooks;
 import java.lang.reflect.Method;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
@@ -772,4 +775,199 @@ public final class BaseDexClassLoaderTest {
         String frotzResult = (String) frotzMethod.invoke(null, (Object[]) null);
         assertEquals("frotz", frotzResult);
     }
+
+    @Test
+    public void testLookupIndex_classes() throws Exception {
+        BaseDexClassLoader bdcl = new PathClassLoader(jar.getPath(),
+            ClassLoader.getSystemClassLoader());
+        bdcl.setLookupIndexEnabled(true);
+
+        Class test1Class = bdcl.loadClass("test.Test1");
+        assertSame(bdcl, test1Class.getClassLoader());
+        try {
+          bdcl.loadClass("test2.Target2");
+          fail();
+        } catch (ClassNotFoundException expected) {
+        }
+
+        // The index must pick up dex files added after it was built.
+        bdcl.addDexPath(jar2.getPath());
+        Class target2Class = bdcl.loadClass("test2.Target2");
+        assertSame(bdcl, target2Class.getClassLoader());
+    }
+
+    @Test
+    public void testLookupIndex_keepsSuppressedExceptions() throws Exception {
+        String missingPath = new File(jar.getParentFile(), "missing.jar").getPath();
+        String path = jar.getPath() + File.pathSeparator + missingPath;
+        BaseDexClassLoader plain = new PathClassLoader(path, ClassLoader.getSystemClassLoader());
+        BaseDexClassLoader indexed = new PathClassLoader(path,
+                ClassLoader.getSystemClassLoader());
+        indexed.setLookupIndexEnabled(true);
+
+        assertEquals(suppressedCount(plain, "test.Missing"),
+                suppressedCount(indexed, "test.Missing"));
+        assertNull(indexed.tryLoadClass("test.Missing"));
+    }
+
+    private static int suppressedCount(ClassLoader loader, String name) {
+        try {
+            loader.loadClass(name);
+            fail();
+            return -1;
+        } catch (ClassNotFoundException expected) {
+            return expected.getSuppressed().length;
+        }
+    }
+
+    @Test
+    public void testLookupIndex_resources() throws Exception {
+        String parentPath = resourcesMap.get("parent.jar").getAbsolutePath();
+        String childPath = resourcesMap.get("child.jar").getAbsolutePath();
+        BaseDexClassLoader loader = new PathClassLoader(parentPath, null,
+                Object.class.getClassLoader());
+        loader.setLookupIndexEnabled(true);
+
+        assertEquals("parent", readResource(loader, "resource.txt"));
+        assertEquals(Arrays.asList("parent"), readResources(loader, "resource.txt"));
+        assertNull(loader.getResource("missing.txt"));
+        assertFalse(loader.getResources("missing.txt").hasMoreElements());
+
+        loader.addDexPath(childPath);
+        assertEquals("parent", readResource(loader, "resource.txt"));
+        assertEquals(Arrays.asList("parent", "child"), readResources(loader, "resource.txt"));
+    }
+
+    @Test
+    public void testParallelDexLoading() throws Exception {
+        String parentPath = resourcesMap.get("parent.jar").getAbsolutePath();
+        String childPath = resourcesMap.get("child.jar").getAbsolutePath();
+        String missingPath = new File(jar.getParentFile(), "missing.jar").getPath();
+        BaseDexClassLoader.setDexLoadingParallelism(4);
+        try {
+            BaseDexClassLoader loader = new PathClassLoader(String.join(File.pathSeparator,
+                    jar.getPath(), missingPath, parentPath, jar2.getPath(), childPath),
+                    ClassLoader.getSystemClassLoader());
+
+            assertSame(loader, loader.loadClass("test.Test1").getClassLoader());
+            assertSame(loader, loader.loadClass("test2.Target2").getClassLoader());
+            // Elements keep the order of the path.
+            assertEquals(Arrays.asList("parent", "child"), readResources(loader, "resource.txt"));
+        } finally {
+            BaseDexClassLoader.setDexLoadingParallelism(1);
+        }
+    }
+
+    @Test
+    public void testSetDexLoadingParallelism_invalid() {
+        try {
+            BaseDexClassLoader.setDexLoadingParallelism(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testTryLoadClass() throws Exception {
+        // As for an app's own loader, the boot class loader is the parent.
+        BaseDexClassLoader bdcl = new PathClassLoader(jar.getPath(),
+            Object.class.getClassLoader());
+
+        assertSame(bdcl, bdcl.tryLoadClass("test.Test1").getClassLoader());
+        assertSame(String.class, bdcl.tryLoadClass("java.lang.String"));
+        assertEquals("java.util.zip.Adler32",
+                bdcl.tryLoadClass("java.util.zip.Adler32").getName());
+        assertNull(bdcl.tryLoadClass("test2.Target2"));
+        // Misses are cached, but must still be reported the usual way.
+        assertNull(bdcl.tryLoadClass("test2.Target2"));
+        try {
+            bdcl.loadClass("test2.Target2");
+            fail();
+        } catch (ClassNotFoundException expected) {
+        }
+
+        // Adding to the path forgets earlier misses.
+        bdcl.addDexPath(jar2.getPath());
+        assertSame(bdcl, bdcl.tryLoadClass("test2.Target2").getClassLoader());
+    }
+
+    @Test
+    public void testTryLoadClass_delegateLast() throws Exception {
+        ClassLoader parent = new PathClassLoader(jar2.getPath(),
+            ClassLoader.getSystemClassLoader());
+        BaseDexClassLoader dlcl = new DelegateLastClassLoader(jar.getPath(), parent);
+
+        assertSame(dlcl, dlcl.tryLoadClass("test.Test1").getClassLoader());
+        assertSame(parent, dlcl.tryLoadClass("test2.Target2").getClassLoader());
+        assertSame(String.class, dlcl.tryLoadClass("java.lang.String"));
+        assertNull(dlcl.tryLoadClass("test3.Missing"));
+    }
+
+    @Test
+    public void testTryLoadClass_bootParent() throws Exception {
+        // Only the child has test.Test1, so the boot class path is probed and misses it.
+        BaseDexClassLoader bdcl = new PathClassLoader(jar.getPath(),
+                Object.class.getClassLoader());
+        assertSame(String.class, bdcl.tryLoadClass("java.lang.String"));
+        assertSame(bdcl, bdcl.tryLoadClass("test.Test1").getClassLoader());
+        assertNull(bdcl.tryLoadClass("test3.Missing"));
+        // Misses are remembered, and must still be reported the usual way.
+        assertNull(bdcl.tryLoadClass("test3.Missing"));
+        try {
+            Object.class.getClassLoader().loadClass("test3.Missing");
+            fail();
+        } catch (ClassNotFoundException expected) {
+        }
+    }
+
+    @Test
+    public void testPreloadRecordAndReplay() throws Exception {
+        String parentPath = resourcesMap.get("parent.jar").getAbsolutePath();
+        String path = jar.getPath() + File.pathSeparator + parentPath;
+        File profile = File.createTempFile("preload", ".txt");
+        try {
+            // Other class loaders, like the test's own, may record entries meanwhile, so only
+            // use loaders that can't find those.
+            ZygoteHooks.startPreloadRecording();
+            BaseDexClassLoader loader = new PathClassLoader(path, Object.class.getClassLoader());
+            loader.loadClass("test.Test1");
+            loader.loadClass("test.Test1");
+            // Resolved by the runtime, for Class.forName and for bytecode, without asking
+            // the class loader.
+            Class<?> testMethods = Class.forName("test.TestMethods", true, loader);
+            testMethods.getMethod("test_constructor").invoke(null);
+            assertEquals("parent", readResource(loader, "resource.txt"));
+            assertTrue(loader.getResources("test/Resource1.txt").hasMoreElements());
+            assertTrue(ZygoteHooks.stopPreloadRecording(profile) >= 5);
+            List<String> lines = Files.readAllLines(profile.toPath(), StandardCharsets.UTF_8);
+            assertEquals("# preload profile v1", lines.get(0));
+            assertTrue(lines.contains("C test.Test1"));
+            assertTrue(lines.contains("C test.TestMethods"));
+            assertTrue(lines.contains("C test.Target"));
+            assertTrue(lines.contains("R resource.txt"));
+            assertTrue(lines.contains("R test/Resource1.txt"));
+            assertEquals(lines.indexOf("C test.Test1"), lines.lastIndexOf("C test.Test1"));
+
+            BaseDexClassLoader replayed = new PathClassLoader(path, Object.class.getClassLoader());
+            assertEquals(5, ZygoteHooks.preloadFromProfile(profile, replayed, false, 2));
+
+            // Entries no longer found are skipped.
+            BaseDexClassLoader other = new PathClassLoader(jar2.getPath(), null);
+            assertEquals(0, ZygoteHooks.preloadFromProfile(profile, other, false, 1));
+        } finally {
+            profile.delete();
+        }
+    }
+
+    @Test
+    public void testPreloadFromProfile_notAProfile() throws Exception {
+        File profile = File.createTempFile("preload", ".txt");
+        try {
+            ZygoteHooks.preloadFromProfile(profile, ClassLoader.getSystemClassLoader(), false, 1);
+            fail();
+        } catch (IOException expected) {
+        } finally {
+            profile.delete();
+        }
+    }
 }
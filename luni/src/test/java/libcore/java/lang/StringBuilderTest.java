@@ -16,6 +16,11 @@
 
 package libcore.java.lang;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
 import java.util.Arrays;
 
 public class StringBuilderTest extends junit.framework.TestCase {
@@ -161,4 +166,89 @@ public class StringBuilderTest extends junit.framework.TestCase {
         assertEquals((int) low, surrogateCP.codePoints().toArray()[1]); // Unmatched surrogate.
         assertEquals((int) '0', surrogateCP.codePoints().toArray()[2]);
     }
+
+    public void testLatin1ThenInflate() {
+        StringBuilder sb = new StringBuilder(4);
+        sb.append("caf").append('é').append(42).append(true).append(-7L);
+        assertEquals("café42true-7", sb.toString());
+        assertEquals(2, sb.indexOf("fé"));
+        assertEquals(-1, sb.indexOf("Ā"));
+        int capacity = sb.capacity();
+
+        // The first character outside Latin-1 switches storage without losing anything.
+        sb.insert(1, 'Ā');
+        assertEquals("cĀafé42true-7", sb.toString());
+        assertEquals(capacity, sb.capacity());
+        sb.deleteCharAt(1).append("ω");
+        assertEquals("café42true-7ω", sb.toString());
+        assertEquals(sb.length() - 1, sb.lastIndexOf("ω"));
+    }
+
+    public void testLatin1Operations() {
+        StringBuilder sb = new StringBuilder("helloÿ");
+        sb.setCharAt(0, 'j');
+        sb.replace(1, 3, "àáâ");
+        sb.reverse();
+        assertEquals("ÿolâáàj", sb.toString());
+        assertEquals(0xff, sb.codePointAt(0));
+        assertEquals('j', sb.codePointBefore(sb.length()));
+        assertEquals(sb.length(), sb.codePointCount(0, sb.length()));
+        assertEquals(3, sb.offsetByCodePoints(1, 2));
+        try {
+            sb.offsetByCodePoints(1, sb.length());
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        char[] chars = new char[3];
+        sb.getChars(1, 3, chars, 1);
+        assertTrue(Arrays.equals(new char[] { '\0', 'o', 'l' }, chars));
+        try {
+            sb.getChars(0, 3, chars, 1);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        sb.setLength(9);
+        assertEquals('\0', sb.charAt(8));
+        assertEquals("ol", sb.substring(1, 3));
+    }
+
+    public void testAppendSelfAndSurrogates() {
+        StringBuilder sb = new StringBuilder("ab");
+        sb.append(sb).append((CharSequence) sb);
+        assertEquals("abababab", sb.toString());
+        sb.appendCodePoint(0x1f602);
+        assertEquals(9, sb.codePointCount(0, sb.length()));
+        sb.reverse();
+        assertEquals(0x1f602, sb.codePointAt(0));
+        assertEquals("😂babababa", sb.toString());
+    }
+
+    public void testContentEquals() {
+        StringBuilder latin1 = new StringBuilder("naïve");
+        assertTrue("naïve".contentEquals(latin1));
+        assertFalse("naive".contentEquals(latin1));
+        StringBuffer inflated = new StringBuffer("naïve…");
+        assertTrue("naïve…".contentEquals(inflated));
+        assertEquals("naïve…", new String(inflated));
+        assertEquals("naïve", new String(latin1));
+    }
+
+    public void testSerializingLatin1DoesNotInflate() throws Exception {
+        StringBuilder sb = new StringBuilder("café");
+        Field value = sb.getClass().getSuperclass().getDeclaredField("value");
+        value.setAccessible(true);
+        Object before = value.get(sb);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(sb);
+        }
+        assertSame(before, value.get(sb));
+        try (ObjectInputStream in =
+                new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            StringBuilder copy = (StringBuilder) in.readObject();
+            assertEquals("café", copy.toString());
+            assertEquals("café!", copy.append('!').toString());
+        }
+    }
 }
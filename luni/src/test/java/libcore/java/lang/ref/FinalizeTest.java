@@ -16,6 +16,8 @@
 
 package libcore.java.lang.ref;
 
+import dalvik.system.VMDebug;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -153,4 +155,72 @@ public final class FinalizeTest extends TestCase {
             }
         };
     }
+
+    /**
+     * With helper finalizer threads, runFinalization() must still wait for every object that
+     * was pending when it was called, including those finalized by the helpers.
+     */
+    public void testRunFinalizationWaitsForFinalizerHelpers() throws Exception {
+        Daemons.setFinalizerThreadCount(4);
+        try {
+            AtomicInteger count = new AtomicInteger();
+            createSlowFinalizers(200, count);
+            FinalizationTester.induceFinalization();
+            assertEquals(200, count.get());
+        } finally {
+            Daemons.setFinalizerThreadCount(1);
+        }
+        assertEquals(1, Daemons.getFinalizerThreadCount());
+    }
+
+    /** Do not inline this method; that could break non-precise GCs. See FinalizationTester. */
+    private void createSlowFinalizers(int n, final AtomicInteger counter) {
+        for (int i = 0; i < n; i++) {
+            new Object() {
+                @Override protected void finalize() throws Throwable {
+                    Thread.sleep(1);
+                    counter.incrementAndGet();
+                }
+            };
+        }
+    }
+
+    public void testSetFinalizerThreadCountRejectsOutOfRange() {
+        try {
+            Daemons.setFinalizerThreadCount(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            Daemons.setFinalizerThreadCount(Daemons.MAX_FINALIZER_THREADS + 1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testFinalizerStats() throws Exception {
+        Map<String, String> before = Daemons.getFinalizerStats();
+        AtomicInteger count = new AtomicInteger();
+        createSlowFinalizers(200, count);
+        FinalizationTester.induceFinalization();
+        assertEquals(200, count.get());
+
+        Map<String, String> after = VMDebug.getRuntimeStats();
+        assertTrue(Long.parseLong(after.get("libcore.finalizer.finalized-count"))
+                >= Long.parseLong(before.get("libcore.finalizer.finalized-count")) + 200);
+        // Reading the rate doesn't reset it, so a second reader sees about the same rate.
+        long perSecond = Long.parseLong(after.get("libcore.finalizer.finalized-per-second"));
+        long again = Long.parseLong(
+                VMDebug.getRuntimeStat("libcore.finalizer.finalized-per-second"));
+        assertTrue(perSecond >= 0);
+        assertTrue(Math.abs(perSecond - again) <= Math.max(1, perSecond / 10));
+        assertTrue(Integer.parseInt(after.get("libcore.finalizer.queue-depth")) >= 0);
+        // At least 3 of the 200 calls were timed, each taking 1ms or more.
+        assertFalse(after.get("libcore.finalizer.slowest-finalizers").isEmpty());
+        assertTrue(Long.parseLong(after.get("libcore.refqueue.batch-count"))
+                > Long.parseLong(before.get("libcore.refqueue.batch-count")));
+        assertTrue(Long.parseLong(after.get("libcore.refqueue.max-batch-size")) > 0);
+        assertNotNull(VMDebug.getRuntimeStat("libcore.refqueue.batch-time"));
+        assertNull(VMDebug.getRuntimeStat("libcore.no-such-stat"));
+    }
 }
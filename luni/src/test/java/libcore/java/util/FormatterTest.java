@@ -23,8 +23,11 @@ import java.text.NumberFormat;
 import java.util.Calendar;
 import java.util.Formatter;
 import java.util.GregorianCalendar;
+import java.util.IllegalFormatConversionException;
 import java.util.Locale;
+import java.util.MissingFormatArgumentException;
 import java.util.TimeZone;
+import java.util.UnknownFormatConversionException;
 
 public class FormatterTest extends junit.framework.TestCase {
     public void test_numberLocalization() throws Exception {
@@ -207,4 +210,81 @@ public class FormatterTest extends junit.framework.TestCase {
         formatter.format("%,d", 123456789);
         // No exception expected
     }
+
+    public void testSimpleSpecifiers() {
+        assertEquals("-2147483648 7fffffff ffffffff -5 null s",
+                String.format(Locale.US, "%d %x %x %d %s %s", Integer.MIN_VALUE,
+                        Integer.MAX_VALUE, -1, (byte) -5, null, new StringBuilder("s")));
+        assertEquals("-9223372036854775808 0 8000000000000000",
+                String.format(Locale.US, "%d %x %x", Long.MIN_VALUE, 0L, Long.MIN_VALUE));
+        // Arguments without a fast path fall back to the general one.
+        assertEquals("1.5 null", String.format(Locale.US, "%s %d", 1.5, null));
+        try {
+            String.format(Locale.US, "%d", "not a number");
+            fail();
+        } catch (IllegalFormatConversionException expected) {
+        }
+        // Formatting to an Appendable other than a StringBuilder.
+        StringBuffer sb = new StringBuffer();
+        new Formatter(sb, Locale.US).format("%d-%x-%s", 10, 10, "x");
+        assertEquals("10-a-x", sb.toString());
+    }
+
+    public void testParsedFormatsAreReused() {
+        Locale arabic = new Locale("ar");
+        String format = "[%d %s]";
+        // The same parsed format must still honor each call's locale and arguments.
+        assertEquals("[1 a]", String.format(Locale.US, format, 1, "a"));
+        assertEquals("[\u0662 b]", String.format(arabic, format, 2, "b"));
+        assertEquals("[3 c]", String.format(Locale.US, format, 3, "c"));
+        try {
+            String.format("%q", 1);
+            fail();
+        } catch (UnknownFormatConversionException expected) {
+        }
+        try {
+            String.format("%q", 1);
+            fail();
+        } catch (UnknownFormatConversionException expected) {
+        }
+    }
+
+    public void testPrecompiled() {
+        Formatter.Precompiled format = Formatter.Precompiled.compile("%s=%d (%x)");
+        assertEquals("%s=%d (%x)", format.toString());
+        assertEquals("a=10 (a)", format.format(Locale.US, "a", 10, 10));
+        assertEquals("b=\u0661\u0661 (b)", format.format(new Locale("ar"), "b", 11, 11));
+
+        StringBuilder sb = new StringBuilder("> ");
+        assertSame(sb, format.formatTo(sb, Locale.US, "c", 12, 12));
+        assertEquals("> c=12 (c)", sb.toString());
+        sb.setLength(0);
+        format.formatTo(sb, Locale.US, "d", 13, 13);
+        assertEquals("d=13 (d)", sb.toString());
+
+        try {
+            format.format(Locale.US, "e");
+            fail();
+        } catch (MissingFormatArgumentException expected) {
+        }
+        // The formatter reused by the failed call must be usable again.
+        assertEquals("f=14 (e)", format.format(Locale.US, "f", 14, 14));
+
+        try {
+            Formatter.Precompiled.compile("%");
+            fail();
+        } catch (UnknownFormatConversionException expected) {
+        }
+    }
+
+    public void testPrecompiled_nested() {
+        final Formatter.Precompiled inner = Formatter.Precompiled.compile("<%s>");
+        Object arg = new Object() {
+            @Override public String toString() {
+                return inner.format(Locale.US, "inner");
+            }
+        };
+        Formatter.Precompiled outer = Formatter.Precompiled.compile("%s %s %d");
+        assertEquals("<inner> <inner> 1", outer.format(Locale.US, arg, arg, 1));
+    }
 }
@@ -16,11 +16,19 @@
 
 package libcore.java.util.concurrent;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer.ContentionSnapshot;
 
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -128,4 +136,107 @@ public class AbstractQueuedSynchronizerTest {
         assertTrue(mutex.owns(condition));
     }
 
+    static class Mutex extends AbstractQueuedSynchronizer {
+        @Override
+        protected boolean tryAcquire(int acquires) {
+            return compareAndSetState(0, 1);
+        }
+
+        @Override
+        protected boolean tryRelease(int releases) {
+            setState(0);
+            return true;
+        }
+    }
+
+    @After
+    public void tearDown() {
+        AbstractQueuedSynchronizer.setAdaptiveSpinningEnabled(false);
+        AbstractQueuedSynchronizer.setContentionProfilingEnabled(false);
+    }
+
+    @Test
+    public void testContentionProfiling() throws Exception {
+        AbstractQueuedSynchronizer.setContentionProfilingEnabled(true);
+        Mutex mutex = new Mutex();
+        mutex.acquire(1);
+        // Uncontended synchronizers have no profile.
+        assertNull(mutex.getContentionSnapshot());
+
+        Thread waiter = new Thread(() -> {
+            mutex.acquire(1);
+            mutex.release(1);
+        });
+        waiter.start();
+        Thread.sleep(50);
+        mutex.release(1);
+        waiter.join();
+
+        ContentionSnapshot snapshot = mutex.getContentionSnapshot();
+        assertNotNull(snapshot);
+        assertSame(mutex, snapshot.getSynchronizer());
+        assertNotNull(snapshot.getFirstWaitedAt());
+        assertEquals(1, snapshot.getWaitCount());
+        assertTrue(snapshot.getTotalWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(snapshot.getTotalWaitNanos(), snapshot.getMaxWaitNanos());
+        long[] histogram = snapshot.getHistogram();
+        long total = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            total += histogram[i];
+            if (histogram[i] != 0) {
+                assertTrue(snapshot.getMaxWaitNanos()
+                        < ContentionSnapshot.getBucketLimitNanos(i));
+            }
+        }
+        assertEquals(1, total);
+
+        List<ContentionSnapshot> snapshots =
+                AbstractQueuedSynchronizer.getContentionSnapshots();
+        assertEquals(1, snapshots.size());
+        assertSame(mutex, snapshots.get(0).getSynchronizer());
+
+        // Enabling again starts new profiles.
+        AbstractQueuedSynchronizer.setContentionProfilingEnabled(true);
+        assertNull(mutex.getContentionSnapshot());
+        assertTrue(AbstractQueuedSynchronizer.getContentionSnapshots().isEmpty());
+    }
+
+    @Test
+    public void testAdaptiveSpinning() throws Exception {
+        AbstractQueuedSynchronizer.setAdaptiveSpinningEnabled(true);
+        AbstractQueuedSynchronizer.setContentionProfilingEnabled(true);
+        Mutex mutex = new Mutex();
+        int[] counter = new int[1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    mutex.acquire(1);
+                    counter[0]++;
+                    mutex.release(1);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, counter[0]);
+        ContentionSnapshot snapshot = mutex.getContentionSnapshot();
+        if (snapshot != null) {
+            assertTrue(snapshot.getSpinAcquireCount() <= snapshot.getWaitCount());
+        }
+    }
+
+    @Test
+    public void testBucketLimits() {
+        assertEquals(1000, ContentionSnapshot.getBucketLimitNanos(0));
+        assertEquals(4000, ContentionSnapshot.getBucketLimitNanos(1));
+        assertEquals(Long.MAX_VALUE, ContentionSnapshot.getBucketLimitNanos(9));
+        try {
+            ContentionSnapshot.getBucketLimitNanos(10);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
 }
@@ -18,11 +18,13 @@ package libcore.java.util.concurrent;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.AbstractMap;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -388,4 +390,79 @@ public class ConcurrentHashMapTest {
         assertTrue(set.containsAll(Arrays.asList("A", "C")));
     }
 
+    @Test
+    public void testBulkLoadMap() {
+        Map<Long, Long> source = new HashMap<Long, Long>();
+        for (long i = 0; i < 10000; ++i) {
+            source.put(i, -i);
+        }
+        for (long threshold : new long[] { IN_PARALLEL, SEQUENTIALLY }) {
+            ConcurrentHashMap<Long, Long> map = createMap();
+            map.put(20000L, 1L);
+            map.bulkLoad(source, threshold);
+            assertEquals(10001, map.size());
+            for (long i = 0; i < 10000; ++i) {
+                assertEquals(Long.valueOf(-i), map.get(i));
+            }
+            assertEquals(Long.valueOf(1L), map.get(20000L));
+        }
+    }
+
+    @Test
+    public void testBulkLoadArrays() {
+        Long[] keys = new Long[5000];
+        Long[] values = new Long[5000];
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = Long.valueOf(i);
+            values[i] = Long.valueOf(i * 2);
+        }
+        ConcurrentHashMap<Long, Long> map = new ConcurrentHashMap<Long, Long>();
+        map.setStatisticsEnabled(true);
+        map.bulkLoad(keys, values, IN_PARALLEL);
+        assertEquals(keys.length, map.size());
+        for (int i = 0; i < keys.length; ++i) {
+            assertEquals(values[i], map.get(keys[i]));
+        }
+        // The table is sized up front, rather than doubled as mappings are inserted.
+        assertTrue(map.getStatistics().getResizeCount() <= 1);
+    }
+
+    @Test
+    public void testBulkLoadRejectsNulls() {
+        ConcurrentHashMap<Long, Long> map = new ConcurrentHashMap<Long, Long>();
+        try {
+            map.bulkLoad(new Long[] { 1L, 2L }, new Long[] { 1L, null }, IN_PARALLEL);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        assertTrue(map.isEmpty());
+        try {
+            map.bulkLoad(new Long[] { 1L }, new Long[0], IN_PARALLEL);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testStatistics() {
+        ConcurrentHashMap<Long, Long> map = new ConcurrentHashMap<Long, Long>();
+        assertNull(map.getStatistics());
+        map.setStatisticsEnabled(true);
+        for (long i = 0; i < 1000; ++i) {
+            map.put(i, i);
+        }
+        ConcurrentHashMap.Statistics statistics = map.getStatistics();
+        // 16 -> 32 -> ... -> 2048.
+        assertEquals(7, statistics.getResizeCount());
+        assertTrue(statistics.getTransferNanos() > 0);
+
+        map.reduceValues(SEQUENTIALLY, (x, y) -> x + y);
+        map.reduceValues(IN_PARALLEL, (x, y) -> x + y);
+        assertEquals(2, statistics.getBulkOperationCount());
+        assertEquals(1, statistics.getParallelBulkOperationCount());
+        assertTrue(statistics.getBulkBatchCount() > 0);
+
+        map.setStatisticsEnabled(false);
+        assertNull(map.getStatistics());
+    }
 }
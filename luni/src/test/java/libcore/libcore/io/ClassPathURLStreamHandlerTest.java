@@ -150,6 +150,58 @@ public class ClassPathURLStreamHandlerTest extends TestCase {
         streamHandler.close();
     }
 
+    public void testResourceCache() throws Exception {
+        String fileName = jarFile.getPath();
+        ClassPathURLStreamHandler streamHandler = new ClassPathURLStreamHandler(fileName);
+        ClassPathURLStreamHandler.setResourceCacheLimits(1024, 64 * 1024);
+        try {
+            long hits = ClassPathURLStreamHandler.getResourceCacheHitCount();
+            long misses = ClassPathURLStreamHandler.getResourceCacheMissCount();
+
+            URL url = streamHandler.getEntryUrlOrNull(ENTRY_IN_SUBDIR);
+            byte[] first = Streams.readFully(url.openStream());
+            assertEquals(misses + 1, ClassPathURLStreamHandler.getResourceCacheMissCount());
+            assertTrue(ClassPathURLStreamHandler.getResourceCacheSize() >= first.length);
+
+            byte[] second = Streams.readFully(url.openStream());
+            assertEquals(Arrays.toString(first), Arrays.toString(second));
+            assertEquals(hits + 1, ClassPathURLStreamHandler.getResourceCacheHitCount());
+
+            // Cached resources must behave exactly like uncached ones.
+            assertOpenConnectionOk(jarFile, ENTRY_IN_ROOT, streamHandler);
+            assertOpenConnectionOk(jarFile, ENTRY_IN_ROOT, streamHandler);
+            assertOpenConnectionOk(jarFile, DIR_ENTRY_WITH_SLASH, streamHandler);
+
+            // Closing the handler drops its resources.
+            streamHandler.close();
+            assertEquals(0, ClassPathURLStreamHandler.getResourceCacheSize());
+        } finally {
+            ClassPathURLStreamHandler.setResourceCacheLimits(0, 0);
+        }
+    }
+
+    public void testResourceCache_limits() throws Exception {
+        String fileName = jarFile.getPath();
+        ClassPathURLStreamHandler streamHandler = new ClassPathURLStreamHandler(fileName);
+        ClassPathURLStreamHandler.setResourceCacheLimits(1, 1);
+        try {
+            // Too large to be cached.
+            long misses = ClassPathURLStreamHandler.getResourceCacheMissCount();
+            Streams.readFully(streamHandler.getEntryUrlOrNull(ENTRY_IN_SUBDIR).openStream());
+            assertEquals(misses, ClassPathURLStreamHandler.getResourceCacheMissCount());
+            assertEquals(0, ClassPathURLStreamHandler.getResourceCacheSize());
+
+            try {
+                ClassPathURLStreamHandler.setResourceCacheLimits(-1, 0);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+        } finally {
+            ClassPathURLStreamHandler.setResourceCacheLimits(0, 0);
+            streamHandler.close();
+        }
+    }
+
     private void assertOpenConnectionConnectFails(
             File jarFile, String entryName, URLStreamHandler streamHandler) throws IOException {
 
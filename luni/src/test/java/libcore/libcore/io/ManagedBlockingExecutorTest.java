@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.libcore.io;
+
+import static android.system.OsConstants.AF_UNIX;
+import static android.system.OsConstants.POLLIN;
+import static android.system.OsConstants.SOCK_STREAM;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import junit.framework.TestCase;
+
+import libcore.io.IoBridge;
+import libcore.io.IoUtils;
+import libcore.io.Libcore;
+import libcore.io.ManagedBlockingExecutor;
+
+public class ManagedBlockingExecutorTest extends TestCase {
+
+    private ManagedBlockingExecutor executor;
+
+    @Override protected void setUp() throws Exception {
+        super.setUp();
+        executor = new ManagedBlockingExecutor(1);
+    }
+
+    @Override protected void tearDown() throws Exception {
+        executor.shutdownNow();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        super.tearDown();
+    }
+
+    public void testIsCarrierThread() throws Exception {
+        assertFalse(ManagedBlockingExecutor.isCarrierThread());
+        final AtomicInteger carrier = new AtomicInteger();
+        executor.submit(new Runnable() {
+            @Override public void run() {
+                carrier.set(ManagedBlockingExecutor.isCarrierThread() ? 1 : 0);
+            }
+        }).get(5, TimeUnit.SECONDS);
+        assertEquals(1, carrier.get());
+    }
+
+    public void testWaitingReadersDoNotStarveOtherTasks() throws Exception {
+        final int readers = 16;
+        FileDescriptor[] readEnds = new FileDescriptor[readers];
+        FileDescriptor[] writeEnds = new FileDescriptor[readers];
+        final CountDownLatch read = new CountDownLatch(readers);
+        final AtomicInteger bytesRead = new AtomicInteger();
+        try {
+            for (int i = 0; i < readers; i++) {
+                readEnds[i] = new FileDescriptor();
+                writeEnds[i] = new FileDescriptor();
+                Libcore.os.socketpair(AF_UNIX, SOCK_STREAM, 0, readEnds[i], writeEnds[i]);
+                final FileDescriptor fd = readEnds[i];
+                executor.execute(new Runnable() {
+                    @Override public void run() {
+                        try {
+                            bytesRead.addAndGet(IoBridge.read(fd, new byte[8], 0, 8));
+                        } catch (IOException e) {
+                            throw new AssertionError(e);
+                        }
+                        read.countDown();
+                    }
+                });
+            }
+
+            // Every reader is waiting, yet a task submitted after them still runs.
+            final CountDownLatch ran = new CountDownLatch(1);
+            executor.execute(new Runnable() {
+                @Override public void run() {
+                    ran.countDown();
+                }
+            });
+            assertTrue(ran.await(5, TimeUnit.SECONDS));
+            assertEquals(readers, read.getCount());
+
+            for (FileDescriptor fd : writeEnds) {
+                IoBridge.write(fd, new byte[] { 1, 2 }, 0, 2);
+            }
+            assertTrue(read.await(5, TimeUnit.SECONDS));
+            assertEquals(readers * 2, bytesRead.get());
+        } finally {
+            for (int i = 0; i < readers; i++) {
+                IoUtils.closeQuietly(readEnds[i]);
+                IoUtils.closeQuietly(writeEnds[i]);
+            }
+        }
+    }
+
+    public void testReceiversWokenInAnyOrder() throws Exception {
+        final int receivers = 8;
+        FileDescriptor[] readEnds = new FileDescriptor[receivers];
+        FileDescriptor[] writeEnds = new FileDescriptor[receivers];
+        final CountDownLatch[] received = new CountDownLatch[receivers];
+        try {
+            for (int i = 0; i < receivers; i++) {
+                readEnds[i] = new FileDescriptor();
+                writeEnds[i] = new FileDescriptor();
+                Libcore.os.socketpair(AF_UNIX, SOCK_STREAM, 0, readEnds[i], writeEnds[i]);
+                received[i] = new CountDownLatch(1);
+                final FileDescriptor fd = readEnds[i];
+                final CountDownLatch done = received[i];
+                executor.execute(new Runnable() {
+                    @Override public void run() {
+                        try {
+                            if (IoBridge.recvfrom(true, fd, new byte[8], 0, 8, 0, null, true)
+                                    == 1) {
+                                done.countDown();
+                            }
+                        } catch (IOException e) {
+                            throw new AssertionError(e);
+                        }
+                    }
+                });
+            }
+            Thread.sleep(50);
+
+            // Wake the middle and the last waiters first, then the rest, one at a time.
+            int[] order = { 3, 7, 0, 6, 1, 5, 2, 4 };
+            for (int i : order) {
+                assertEquals(1, received[i].getCount());
+                IoBridge.write(writeEnds[i], new byte[] { 1 }, 0, 1);
+                assertTrue(received[i].await(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            for (int i = 0; i < receivers; i++) {
+                IoUtils.closeQuietly(readEnds[i]);
+                IoUtils.closeQuietly(writeEnds[i]);
+            }
+        }
+    }
+
+    public void testSocketReadTimesOut() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                final Socket client = new Socket(server.getInetAddress(), server.getLocalPort());
+                Socket accepted = server.accept()) {
+            client.setSoTimeout(50);
+            final AtomicReference<Throwable> thrown = new AtomicReference<Throwable>();
+            executor.submit(new Runnable() {
+                @Override public void run() {
+                    try {
+                        client.getInputStream().read();
+                    } catch (IOException e) {
+                        thrown.set(e);
+                    }
+                }
+            }).get(5, TimeUnit.SECONDS);
+            assertTrue(thrown.get() instanceof SocketTimeoutException);
+
+            // The socket is still usable afterwards.
+            accepted.getOutputStream().write(7);
+            assertEquals(7, executor.submit(new Callable<Integer>() {
+                @Override public Integer call() throws IOException {
+                    return client.getInputStream().read();
+                }
+            }).get(5, TimeUnit.SECONDS).intValue());
+        }
+    }
+
+    public void testCloseWakesWaitingReader() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                final Socket client = new Socket(server.getInetAddress(), server.getLocalPort());
+                Socket accepted = server.accept()) {
+            final CountDownLatch failed = new CountDownLatch(1);
+            executor.execute(new Runnable() {
+                @Override public void run() {
+                    try {
+                        client.getInputStream().read();
+                    } catch (SocketException expected) {
+                        failed.countDown();
+                    } catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            });
+            Thread.sleep(50);
+            client.close();
+            assertTrue(failed.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    public void testExecuteWhenReady() throws Exception {
+        FileDescriptor readEnd = new FileDescriptor();
+        FileDescriptor writeEnd = new FileDescriptor();
+        Libcore.os.socketpair(AF_UNIX, SOCK_STREAM, 0, readEnd, writeEnd);
+        try {
+            final CountDownLatch ran = new CountDownLatch(1);
+            executor.executeWhenReady(readEnd, POLLIN, new Runnable() {
+                @Override public void run() {
+                    ran.countDown();
+                }
+            });
+            assertFalse(ran.await(50, TimeUnit.MILLISECONDS));
+            IoBridge.write(writeEnd, new byte[] { 1 }, 0, 1);
+            assertTrue(ran.await(5, TimeUnit.SECONDS));
+        } finally {
+            IoUtils.closeQuietly(readEnd);
+            IoUtils.closeQuietly(writeEnd);
+        }
+    }
+
+    public void testAwaitReadyOffCarrierReturnsImmediately() throws Exception {
+        FileDescriptor readEnd = new FileDescriptor();
+        FileDescriptor writeEnd = new FileDescriptor();
+        Libcore.os.socketpair(AF_UNIX, SOCK_STREAM, 0, readEnd, writeEnd);
+        try {
+            assertTrue(ManagedBlockingExecutor.awaitReady(readEnd, POLLIN, -1));
+        } finally {
+            IoUtils.closeQuietly(readEnd);
+            IoUtils.closeQuietly(writeEnd);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.libcore.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+import libcore.util.IntIntMap;
+
+public final class IntIntMapTest extends TestCase {
+
+    public void testPutGetRemove() {
+        checkPutGetRemove(new IntIntMap());
+    }
+
+    public void testPutGetRemove_offHeap() {
+        checkPutGetRemove(IntIntMap.createOffHeap(0));
+    }
+
+    public void testMatchesHashMap() {
+        checkMatchesHashMap(new IntIntMap());
+    }
+
+    public void testMatchesHashMap_offHeap() {
+        checkMatchesHashMap(IntIntMap.createOffHeap(4));
+    }
+
+    public void testAdd() {
+        IntIntMap map = new IntIntMap();
+        assertEquals(3, map.add(1000, 3));
+        assertEquals(5, map.add(1000, 2));
+        assertEquals(-1, map.add(0, -1));
+        assertEquals(5, map.get(1000, 0));
+        assertEquals(-1, map.get(0, 0));
+        assertEquals(2, map.size());
+    }
+
+    private static void checkPutGetRemove(IntIntMap map) {
+        assertTrue(map.isEmpty());
+        map.put(0, 10);
+        map.put(7, 70);
+        map.put(7, 77);
+        assertEquals(2, map.size());
+        assertEquals(10, map.get(0, -1));
+        assertEquals(77, map.get(7, -1));
+        assertEquals(-1, map.get(8, -1));
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(8));
+
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        assertTrue(Arrays.equals(new int[] { 0, 7 }, keys));
+
+        assertTrue(map.remove(0));
+        assertFalse(map.remove(0));
+        assertFalse(map.containsKey(0));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(7));
+    }
+
+    private static void checkMatchesHashMap(IntIntMap map) {
+        Random random = new Random(42);
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(512);
+            if (random.nextBoolean()) {
+                expected.put(key, i);
+                map.put(key, i);
+            } else {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = 0; key < 512; key++) {
+            Integer value = expected.get(key);
+            assertEquals(value == null ? -1 : value, map.get(key, -1));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.libcore.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+import libcore.util.IntObjectMap;
+
+public final class IntObjectMapTest extends TestCase {
+
+    public void testPutGetRemove() {
+        IntObjectMap<String> map = new IntObjectMap<String>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(-1, "minus one"));
+        assertEquals("zero", map.put(0, "nothing"));
+        assertEquals(2, map.size());
+        assertEquals("nothing", map.get(0));
+        assertEquals("minus one", map.get(-1));
+        assertNull(map.get(1));
+        assertTrue(map.containsKey(-1));
+        assertFalse(map.containsKey(1));
+
+        assertEquals("minus one", map.remove(-1));
+        assertNull(map.remove(-1));
+        assertEquals(1, map.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+    }
+
+    public void testNullValue() {
+        try {
+            new IntObjectMap<String>().put(1, null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    public void testKeysAndValues() {
+        IntObjectMap<String> map = new IntObjectMap<String>(2);
+        for (int i = 0; i < 100; i++) {
+            map.put(i * 16, Integer.toString(i));
+        }
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        assertEquals(100, keys.length);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i * 16, keys[i]);
+        }
+        assertEquals(100, map.values().size());
+        assertTrue(map.values().contains("99"));
+    }
+
+    public void testMatchesHashMap() {
+        // Small keys collide often, which exercises removal from the middle of probe runs.
+        Random random = new Random(42);
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        IntObjectMap<Integer> map = new IntObjectMap<Integer>();
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(512);
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = 0; key < 512; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.libcore.util;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+import libcore.util.LongHashSet;
+
+public final class LongHashSetTest extends TestCase {
+
+    public void testAddContainsRemove() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.add(-5));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-5));
+        assertFalse(set.contains(5));
+        assertEquals(2, set.size());
+
+        long[] values = set.toArray();
+        Arrays.sort(values);
+        assertTrue(Arrays.equals(new long[] { -5, 0 }, values));
+
+        assertTrue(set.remove(0));
+        assertFalse(set.remove(0));
+        assertFalse(set.contains(0));
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(-5));
+    }
+
+    public void testMatchesHashSet() {
+        Random random = new Random(42);
+        Set<Long> expected = new HashSet<Long>();
+        LongHashSet set = new LongHashSet();
+        for (int i = 0; i < 100000; i++) {
+            long value = random.nextInt(512) - 256;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (long value = -256; value < 256; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}
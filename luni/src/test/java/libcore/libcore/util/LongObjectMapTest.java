@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.libcore.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+import libcore.util.LongObjectMap;
+
+public final class LongObjectMapTest extends TestCase {
+
+    public void testPutGetRemove() {
+        LongObjectMap<String> map = new LongObjectMap<String>();
+        assertNull(map.put(Long.MIN_VALUE, "min"));
+        assertNull(map.put(1L << 32, "high"));
+        assertNull(map.put(1L, "low"));
+        assertEquals(3, map.size());
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertEquals("high", map.get(1L << 32));
+        assertEquals("low", map.get(1L));
+        assertNull(map.get(0L));
+        assertEquals("high", map.remove(1L << 32));
+        assertFalse(map.containsKey(1L << 32));
+        assertEquals(2, map.keys().length);
+    }
+
+    public void testMatchesHashMap() {
+        Random random = new Random(42);
+        Map<Long, Integer> expected = new HashMap<Long, Integer>();
+        LongObjectMap<Integer> map = new LongObjectMap<Integer>();
+        for (int i = 0; i < 100000; i++) {
+            long key = (long) random.nextInt(512) << 40;
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+}
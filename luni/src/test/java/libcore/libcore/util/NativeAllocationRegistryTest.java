@@ -197,6 +197,70 @@ public class NativeAllocationRegistryTest extends TestCase {
         assertEquals(numBytesAllocatedBeforeFree - size, numBytesAllocatedAfterFree);
     }
 
+    public void testBatchedFrees() {
+        if (isNativeBridgedABI()) {
+            // See the explanation in testNativeAllocation.
+            System.logI("Skipping test for native bridged ABI");
+            return;
+        }
+        long size = 1234;
+        NativeAllocationRegistry registry
+            = new NativeAllocationRegistry(classLoader, getNativeFinalizer(), size);
+        registry.setFreeBatchSize(4);
+        long numBytesAllocatedBefore = getNumNativeBytesAllocated();
+        registerUnreachableAllocations(registry, size, 10);
+        assertEquals(10, registry.getOutstandingAllocationCount());
+        assertEquals(10 * size, registry.getOutstandingBytes());
+
+        Runtime.getRuntime().gc();
+        System.runFinalization();
+        // Full batches are freed as soon as they fill up, the rest once flushed.
+        assertTrue(registry.getPendingFreeCount() < 4);
+        NativeAllocationRegistry.flushPendingFrees();
+        assertEquals(0, registry.getPendingFreeCount());
+        assertEquals(0, registry.getOutstandingAllocationCount());
+        assertEquals(numBytesAllocatedBefore, getNumNativeBytesAllocated());
+    }
+
+    public void testBatchedFreesEarlyFree() {
+        if (isNativeBridgedABI()) {
+            // See the explanation in testNativeAllocation.
+            System.logI("Skipping test for native bridged ABI");
+            return;
+        }
+        long size = 1234;
+        NativeAllocationRegistry registry
+            = new NativeAllocationRegistry(classLoader, getNativeFinalizer(), size);
+        registry.setFreeBatchSize(16);
+        Object referent = new Object();
+        Runnable cleaner = registry.registerNativeAllocation(referent, doNativeAllocation(size));
+        long numBytesAllocatedBeforeClean = getNumNativeBytesAllocated();
+
+        // Explicit frees are not batched.
+        cleaner.run();
+        assertEquals(numBytesAllocatedBeforeClean - size, getNumNativeBytesAllocated());
+        assertEquals(0, registry.getOutstandingAllocationCount());
+        assertEquals(0, registry.getPendingFreeCount());
+    }
+
+    public void testBadBatchSize() {
+        final NativeAllocationRegistry registry
+            = new NativeAllocationRegistry(classLoader, getNativeFinalizer(), 1024);
+        assertThrowsIllegalArgumentException(new Runnable() {
+            public void run() {
+                registry.setFreeBatchSize(0);
+            }
+        });
+    }
+
+    /** Do not inline this method; that could break non-precise GCs. See FinalizationTester. */
+    private static void registerUnreachableAllocations(NativeAllocationRegistry registry,
+            long size, int count) {
+        for (int i = 0; i < count; i++) {
+            registry.registerNativeAllocation(new Object(), doNativeAllocation(size));
+        }
+    }
+
     public void testNullArguments() {
         final NativeAllocationRegistry registry
             = new NativeAllocationRegistry(classLoader, getNativeFinalizer(), 1024);
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.libcore.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+import libcore.util.OffHeapLongCache;
+
+public final class OffHeapLongCacheTest extends TestCase {
+
+    public void testPutGet() {
+        OffHeapLongCache cache = new OffHeapLongCache(16, 8);
+        assertEquals(0, cache.size());
+        assertNull(cache.get(1));
+        cache.put(1, new byte[] { 1, 2, 3 });
+        cache.put(0, new byte[0]);
+        cache.put(Long.MIN_VALUE, new byte[] { 9, 9, 9, 9, 9, 9, 9, 9 });
+        assertEquals(3, cache.size());
+        assertTrue(Arrays.equals(new byte[] { 1, 2, 3 }, cache.get(1)));
+        assertTrue(Arrays.equals(new byte[0], cache.get(0)));
+        assertTrue(Arrays.equals(new byte[] { 9, 9, 9, 9, 9, 9, 9, 9 }, cache.get(Long.MIN_VALUE)));
+        assertTrue(cache.containsKey(0));
+        assertFalse(cache.containsKey(2));
+
+        cache.put(1, new byte[] { 4 });
+        assertEquals(3, cache.size());
+        assertTrue(Arrays.equals(new byte[] { 4 }, cache.get(1)));
+    }
+
+    public void testValuesAreCopied() {
+        OffHeapLongCache cache = new OffHeapLongCache(4, 4);
+        byte[] value = { 1, 2 };
+        cache.put(7, value);
+        value[0] = 5;
+        byte[] copy = cache.get(7);
+        assertEquals(1, copy[0]);
+        copy[1] = 5;
+        assertEquals(2, cache.get(7)[1]);
+    }
+
+    public void testPutRange() {
+        OffHeapLongCache cache = new OffHeapLongCache(4, 4);
+        cache.put(7, new byte[] { 1, 2, 3, 4, 5, 6 }, 2, 3);
+        assertTrue(Arrays.equals(new byte[] { 3, 4, 5 }, cache.get(7)));
+        try {
+            cache.put(7, new byte[2], 1, 2);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException expected) {
+        }
+    }
+
+    public void testValueTooLarge() {
+        OffHeapLongCache cache = new OffHeapLongCache(4, 4);
+        try {
+            cache.put(1, new byte[5]);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(0, cache.size());
+    }
+
+    public void testInvalidArguments() {
+        try {
+            new OffHeapLongCache(0, 4);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new OffHeapLongCache(4, -1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testGetIntoBuffer() {
+        OffHeapLongCache cache = new OffHeapLongCache(4, 8);
+        cache.put(3, new byte[] { 1, 2, 3, 4 });
+        byte[] buffer = new byte[6];
+        assertEquals(-1, cache.get(4, buffer, 0));
+        assertEquals(4, cache.get(3, buffer, 2));
+        assertTrue(Arrays.equals(new byte[] { 0, 0, 1, 2, 3, 4 }, buffer));
+
+        // A short buffer gets a prefix, and the full length is reported.
+        byte[] shortBuffer = new byte[3];
+        assertEquals(4, cache.get(3, shortBuffer, 1));
+        assertTrue(Arrays.equals(new byte[] { 0, 1, 2 }, shortBuffer));
+
+        try {
+            cache.get(3, buffer, 7);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException expected) {
+        }
+    }
+
+    public void testRemove() {
+        OffHeapLongCache cache = new OffHeapLongCache(4, 4);
+        cache.put(1, new byte[] { 1 });
+        cache.put(2, new byte[] { 2 });
+        assertTrue(cache.remove(1));
+        assertFalse(cache.remove(1));
+        assertNull(cache.get(1));
+        assertEquals(1, cache.size());
+        // Removed slots are reused before anything is evicted.
+        for (long key = 3; key <= 5; key++) {
+            cache.put(key, new byte[] { (byte) key });
+        }
+        assertEquals(4, cache.size());
+        assertEquals(0, cache.evictionCount());
+    }
+
+    public void testClockEvictsUnreferencedEntries() {
+        OffHeapLongCache cache = new OffHeapLongCache(4, 4);
+        for (long key = 0; key < 4; key++) {
+            cache.put(key, new byte[] { (byte) key });
+        }
+        // The first insertion past capacity clears every reference bit and evicts
+        // the entry under the hand.
+        cache.put(4, new byte[] { 4 });
+        assertEquals(4, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertFalse(cache.containsKey(0));
+
+        // Entries used since then survive the next sweep.
+        cache.get(1);
+        cache.get(2);
+        cache.put(5, new byte[] { 5 });
+        assertTrue(cache.containsKey(1));
+        assertTrue(cache.containsKey(2));
+        assertFalse(cache.containsKey(3));
+        assertTrue(cache.containsKey(4));
+        assertTrue(cache.containsKey(5));
+        assertEquals(2, cache.evictionCount());
+    }
+
+    public void testClear() {
+        OffHeapLongCache cache = new OffHeapLongCache(100000, 16);
+        long emptyBytes = cache.nativeBytes();
+        for (long key = 0; key < 100000; key++) {
+            cache.put(key, new byte[16]);
+        }
+        assertTrue(cache.nativeBytes() > emptyBytes);
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get(1));
+        assertEquals(emptyBytes, cache.nativeBytes());
+        cache.put(1, new byte[] { 1 });
+        assertTrue(Arrays.equals(new byte[] { 1 }, cache.get(1)));
+    }
+
+    public void testMatchesHashMapUnderRandomOperations() {
+        OffHeapLongCache cache = new OffHeapLongCache(100000, 12);
+        Map<Long, byte[]> expected = new HashMap<Long, byte[]>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            long key = random.nextInt(50000) * 0x100000001L;
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(key) != null, cache.remove(key));
+            } else {
+                byte[] value = new byte[random.nextInt(13)];
+                random.nextBytes(value);
+                expected.put(key, value);
+                cache.put(key, value);
+            }
+        }
+        assertEquals(expected.size(), cache.size());
+        assertEquals(0, cache.evictionCount());
+        for (Map.Entry<Long, byte[]> entry : expected.entrySet()) {
+            assertTrue(Arrays.equals(entry.getValue(), cache.get(entry.getKey())));
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.libcore.util;
+
+import java.util.Arrays;
+import java.util.Random;
+import junit.framework.TestCase;
+
+import libcore.util.PrimitiveArrays;
+
+public final class PrimitiveArraysTest extends TestCase {
+
+    // Lengths either side of the radix threshold, and one large enough to be split
+    // among several threads.
+    private static final int[] LENGTHS = { 0, 1, 17, 255, 256, 1000, 300000 };
+
+    public void testSortInts() {
+        Random random = new Random(1);
+        for (int length : LENGTHS) {
+            int[] a = new int[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = random.nextInt();
+            }
+            if (length > 2) {
+                a[0] = Integer.MIN_VALUE;
+                a[1] = Integer.MAX_VALUE;
+            }
+            int[] expected = a.clone();
+            Arrays.sort(expected);
+            int[] sorted = a.clone();
+            PrimitiveArrays.sort(sorted);
+            assertTrue(Arrays.equals(expected, sorted));
+            sorted = a.clone();
+            PrimitiveArrays.parallelSort(sorted);
+            assertTrue(Arrays.equals(expected, sorted));
+        }
+    }
+
+    public void testSortIntsWithFewDistinctValues() {
+        Random random = new Random(2);
+        int[] a = new int[100000];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = random.nextInt(4) - 2;
+        }
+        int[] expected = a.clone();
+        Arrays.sort(expected);
+        PrimitiveArrays.sort(a);
+        assertTrue(Arrays.equals(expected, a));
+    }
+
+    public void testSortLongs() {
+        Random random = new Random(3);
+        for (int length : LENGTHS) {
+            long[] a = new long[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = random.nextLong();
+            }
+            if (length > 2) {
+                a[0] = Long.MIN_VALUE;
+                a[1] = Long.MAX_VALUE;
+            }
+            long[] expected = a.clone();
+            Arrays.sort(expected);
+            long[] sorted = a.clone();
+            PrimitiveArrays.sort(sorted);
+            assertTrue(Arrays.equals(expected, sorted));
+            sorted = a.clone();
+            PrimitiveArrays.parallelSort(sorted);
+            assertTrue(Arrays.equals(expected, sorted));
+        }
+    }
+
+    public void testSortFloats() {
+        Random random = new Random(4);
+        float[] specials = { Float.NaN, -0.0f, 0.0f, Float.NEGATIVE_INFINITY,
+                Float.POSITIVE_INFINITY, Float.MIN_VALUE, -Float.MAX_VALUE,
+                Float.intBitsToFloat(0xffc00001) };
+        for (int length : LENGTHS) {
+            float[] a = new float[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = (random.nextInt(8) == 0)
+                        ? specials[random.nextInt(specials.length)]
+                        : (float) random.nextGaussian() * 1000;
+            }
+            float[] expected = a.clone();
+            Arrays.sort(expected);
+            float[] sorted = a.clone();
+            PrimitiveArrays.sort(sorted);
+            assertTrue(Arrays.equals(expected, sorted));
+            sorted = a.clone();
+            PrimitiveArrays.parallelSort(sorted);
+            assertTrue(Arrays.equals(expected, sorted));
+        }
+    }
+
+    public void testSortDoubles() {
+        Random random = new Random(5);
+        double[] specials = { Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.MIN_VALUE, -Double.MAX_VALUE };
+        for (int length : LENGTHS) {
+            double[] a = new double[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = (random.nextInt(8) == 0)
+                        ? specials[random.nextInt(specials.length)]
+                        : random.nextGaussian() * 1000;
+            }
+            double[] expected = a.clone();
+            Arrays.sort(expected);
+            double[] sorted = a.clone();
+            PrimitiveArrays.sort(sorted);
+            assertTrue(Arrays.equals(expected, sorted));
+            sorted = a.clone();
+            PrimitiveArrays.parallelSort(sorted);
+            assertTrue(Arrays.equals(expected, sorted));
+        }
+    }
+
+    public void testSortIndicesIsStable() {
+        int[] a = { 3, -1, 3, 0, -1, 3 };
+        int[] expected = { 1, 4, 3, 0, 2, 5 };
+        assertTrue(Arrays.equals(expected, PrimitiveArrays.sortIndices(a)));
+        assertTrue(Arrays.equals(expected, PrimitiveArrays.sortIndices(
+                new long[] { 3, -1, 3, 0, -1, 3 })));
+        assertTrue(Arrays.equals(new int[] { 3, 1, 0, 2 }, PrimitiveArrays.sortIndices(
+                new float[] { Float.NaN, 0.0f, Float.NaN, -0.0f })));
+        // The input is left alone.
+        assertTrue(Arrays.equals(new int[] { 3, -1, 3, 0, -1, 3 }, a));
+    }
+
+    public void testSortIndices() {
+        Random random = new Random(6);
+        for (int length : LENGTHS) {
+            int[] ints = new int[length];
+            long[] longs = new long[length];
+            double[] doubles = new double[length];
+            for (int i = 0; i < length; i++) {
+                ints[i] = random.nextInt(1000) - 500;
+                longs[i] = random.nextLong();
+                doubles[i] = random.nextGaussian();
+            }
+            assertPermutationSorts(ints, PrimitiveArrays.sortIndices(ints));
+            assertPermutationSorts(ints, PrimitiveArrays.parallelSortIndices(ints));
+            assertPermutationSorts(longs, PrimitiveArrays.parallelSortIndices(longs));
+            assertPermutationSorts(doubles, PrimitiveArrays.sortIndices(doubles));
+        }
+    }
+
+    public void testBinarySearch() {
+        Random random = new Random(7);
+        int[] a = new int[5000];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = random.nextInt(20000) - 10000;
+        }
+        Arrays.sort(a);
+        int[] keys = new int[200000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(24000) - 12000;
+        }
+        assertSearchResults(a, keys, PrimitiveArrays.binarySearch(a, keys));
+        assertSearchResults(a, keys, PrimitiveArrays.parallelBinarySearch(a, keys));
+        // Ascending keys take the galloping path throughout.
+        Arrays.sort(keys);
+        assertSearchResults(a, keys, PrimitiveArrays.binarySearch(a, keys));
+        assertSearchResults(a, keys, PrimitiveArrays.parallelBinarySearch(a, keys));
+
+        assertTrue(Arrays.equals(new int[] { -1, -1 },
+                PrimitiveArrays.binarySearch(new int[0], new int[] { 5, 6 })));
+    }
+
+    public void testBinarySearchLongsAndDoubles() {
+        long[] longs = { Long.MIN_VALUE, -5, 0, 7, 7, Long.MAX_VALUE };
+        long[] longKeys = { Long.MAX_VALUE, -6, 7, 8, Long.MIN_VALUE, 1 };
+        int[] results = PrimitiveArrays.binarySearch(longs, longKeys);
+        for (int i = 0; i < longKeys.length; i++) {
+            int expected = Arrays.binarySearch(longs, longKeys[i]);
+            if (expected >= 0) {
+                assertEquals(longKeys[i], longs[results[i]]);
+            } else {
+                assertEquals(expected, results[i]);
+            }
+        }
+
+        double[] doubles = { Double.NEGATIVE_INFINITY, -0.0, 0.0, 1.5, Double.NaN };
+        double[] doubleKeys = { -0.0, 0.0, Double.NaN, -1, 2, Double.NEGATIVE_INFINITY };
+        assertTrue(Arrays.equals(new int[] { 1, 2, 4, -2, -5, 0 },
+                PrimitiveArrays.binarySearch(doubles, doubleKeys)));
+        assertTrue(Arrays.equals(new int[] { 1, 2, 4, -2, -5, 0 },
+                PrimitiveArrays.parallelBinarySearch(doubles, doubleKeys)));
+        float[] floats = { -0.0f, 0.0f, Float.NaN };
+        assertTrue(Arrays.equals(new int[] { 1, 0, 2 },
+                PrimitiveArrays.binarySearch(floats, new float[] { 0.0f, -0.0f, Float.NaN })));
+    }
+
+    private static void assertPermutationSorts(int[] a, int[] indices) {
+        assertEquals(a.length, indices.length);
+        boolean[] seen = new boolean[a.length];
+        for (int i = 0; i < indices.length; i++) {
+            assertFalse(seen[indices[i]]);
+            seen[indices[i]] = true;
+            if (i > 0) {
+                int previous = indices[i - 1];
+                assertTrue(a[previous] < a[indices[i]]
+                        || (a[previous] == a[indices[i]] && previous < indices[i]));
+            }
+        }
+    }
+
+    private static void assertPermutationSorts(long[] a, int[] indices) {
+        assertEquals(a.length, indices.length);
+        for (int i = 1; i < indices.length; i++) {
+            assertTrue(a[indices[i - 1]] <= a[indices[i]]);
+        }
+    }
+
+    private static void assertPermutationSorts(double[] a, int[] indices) {
+        assertEquals(a.length, indices.length);
+        for (int i = 1; i < indices.length; i++) {
+            assertTrue(Double.compare(a[indices[i - 1]], a[indices[i]]) <= 0);
+        }
+    }
+
+    private static void assertSearchResults(int[] a, int[] keys, int[] results) {
+        assertEquals(keys.length, results.length);
+        for (int i = 0; i < keys.length; i++) {
+            int expected = Arrays.binarySearch(a, keys[i]);
+            if (expected >= 0) {
+                // With duplicates, any index of the key will do.
+                assertEquals(keys[i], a[results[i]]);
+            } else {
+                assertEquals(expected, results[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.libcore.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+import libcore.util.StripedBlockingQueue;
+
+public final class StripedBlockingQueueTest extends TestCase {
+
+    public void testOfferPoll() {
+        StripedBlockingQueue<Integer> queue = new StripedBlockingQueue<Integer>();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+        assertNull(queue.peek());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertEquals(100, queue.size());
+        assertEquals(Integer.MAX_VALUE, queue.remainingCapacity());
+        // Offers from one thread land in one stripe, so they come out in order.
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (int) queue.peek());
+            assertEquals(i, (int) queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testNullRejected() {
+        StripedBlockingQueue<Integer> queue = new StripedBlockingQueue<Integer>();
+        try {
+            queue.offer(null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    public void testInvalidCapacity() {
+        try {
+            new StripedBlockingQueue<Integer>(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testBounded() throws Exception {
+        StripedBlockingQueue<Integer> queue = new StripedBlockingQueue<Integer>(2);
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertFalse(queue.offer(3));
+        assertFalse(queue.offer(3, 10, TimeUnit.MILLISECONDS));
+        assertEquals(2, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+        assertEquals(1, (int) queue.poll());
+        assertEquals(1, queue.remainingCapacity());
+        assertTrue(queue.offer(3));
+    }
+
+    public void testPutBlocksUntilSpace() throws Exception {
+        final StripedBlockingQueue<Integer> queue = new StripedBlockingQueue<Integer>(1);
+        queue.put(1);
+        Thread putter = new Thread() {
+            @Override public void run() {
+                try {
+                    queue.put(2);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        };
+        putter.start();
+        Thread.sleep(50);
+        assertTrue(putter.isAlive());
+        assertEquals(1, (int) queue.take());
+        putter.join(5000);
+        assertFalse(putter.isAlive());
+        assertEquals(2, (int) queue.take());
+    }
+
+    public void testTakeBlocksUntilOffer() throws Exception {
+        final StripedBlockingQueue<Integer> queue = new StripedBlockingQueue<Integer>();
+        final AtomicInteger taken = new AtomicInteger();
+        Thread taker = new Thread() {
+            @Override public void run() {
+                try {
+                    taken.set(queue.take());
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        };
+        taker.start();
+        Thread.sleep(50);
+        assertTrue(taker.isAlive());
+        queue.offer(42);
+        taker.join(5000);
+        assertFalse(taker.isAlive());
+        assertEquals(42, taken.get());
+    }
+
+    public void testTimedPoll() throws Exception {
+        StripedBlockingQueue<Integer> queue = new StripedBlockingQueue<Integer>();
+        long start = System.nanoTime();
+        assertNull(queue.poll(20, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        queue.offer(1);
+        assertEquals(1, (int) queue.poll(20, TimeUnit.MILLISECONDS));
+    }
+
+    public void testTakeIsInterruptible() throws Exception {
+        final StripedBlockingQueue<Integer> queue = new StripedBlockingQueue<Integer>();
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        Thread taker = new Thread() {
+            @Override public void run() {
+                try {
+                    queue.take();
+                } catch (InterruptedException expected) {
+                    interrupted.countDown();
+                }
+            }
+        };
+        taker.start();
+        Thread.sleep(50);
+        taker.interrupt();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    public void testRemoveContainsDrainTo() {
+        StripedBlockingQueue<Integer> queue = new StripedBlockingQueue<Integer>(10);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        assertTrue(queue.contains(3));
+        assertTrue(queue.remove(3));
+        assertFalse(queue.contains(3));
+        assertFalse(queue.remove(3));
+        assertEquals(4, queue.size());
+
+        List<Integer> drained = new ArrayList<Integer>();
+        assertEquals(2, queue.drainTo(drained, 2));
+        assertEquals(2, queue.drainTo(drained));
+        assertEquals(4, drained.size());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    public void testIterator() {
+        StripedBlockingQueue<Integer> queue = new StripedBlockingQueue<Integer>(10);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        Set<Integer> seen = new HashSet<Integer>();
+        for (Iterator<Integer> it = queue.iterator(); it.hasNext(); ) {
+            int value = it.next();
+            seen.add(value);
+            if (value % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(5, seen.size());
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.toArray().length);
+    }
+
+    public void testConcurrentProducersAndConsumers() throws Exception {
+        final StripedBlockingQueue<Integer> queue = new StripedBlockingQueue<Integer>(64);
+        final int producers = 4;
+        final int perProducer = 20000;
+        final AtomicInteger sum = new AtomicInteger();
+        final CountDownLatch consumed = new CountDownLatch(producers * perProducer);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++) {
+            threads.add(new Thread() {
+                @Override public void run() {
+                    try {
+                        for (int i = 1; i <= perProducer; i++) {
+                            queue.put(i);
+                        }
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            });
+            threads.add(new Thread() {
+                @Override public void run() {
+                    try {
+                        for (int i = 0; i < perProducer; i++) {
+                            sum.addAndGet(queue.take());
+                            consumed.countDown();
+                        }
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            });
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        assertTrue(consumed.await(30, TimeUnit.SECONDS));
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(producers * (perProducer * (perProducer + 1) / 2), sum.get());
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testStripedThreadPool() throws Exception {
+        ExecutorService executor =
+                Executors.newStripedThreadPool(4, Executors.defaultThreadFactory());
+        final int tasks = 10000;
+        final CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(new Runnable() {
+                @Override public void run() {
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        try {
+            executor.execute(new Runnable() {
+                @Override public void run() {
+                }
+            });
+            fail();
+        } catch (RejectedExecutionException expected) {
+        }
+    }
+
+    public void testThreadPoolGrowsAndRejectsWhenBoundedQueueIsFull() throws Exception {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 2, 1, TimeUnit.SECONDS,
+                new StripedBlockingQueue<Runnable>(1));
+        final CountDownLatch release = new CountDownLatch(1);
+        Runnable blocker = new Runnable() {
+            @Override public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        };
+        try {
+            executor.execute(blocker); // Core thread.
+            executor.execute(blocker); // Queued.
+            executor.execute(blocker); // Non-core thread.
+            assertEquals(2, executor.getPoolSize());
+            try {
+                executor.execute(blocker);
+                fail();
+            } catch (RejectedExecutionException expected) {
+            }
+        } finally {
+            release.countDown();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(3, executor.getCompletedTaskCount());
+    }
+
+    public void testShutdownNowReturnsQueuedTasks() throws Exception {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new StripedBlockingQueue<Runnable>());
+        final CountDownLatch started = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override public void run() {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                } catch (InterruptedException expected) {
+                }
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            executor.execute(new Runnable() {
+                @Override public void run() {
+                }
+            });
+        }
+        assertEquals(3, executor.shutdownNow().size());
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.libcore.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+import libcore.util.TimingWheelScheduledExecutor;
+
+public final class TimingWheelScheduledExecutorTest extends TestCase {
+
+    private TimingWheelScheduledExecutor executor;
+
+    @Override protected void setUp() throws Exception {
+        super.setUp();
+        executor = new TimingWheelScheduledExecutor(2, 1, TimeUnit.MILLISECONDS,
+                Executors.defaultThreadFactory());
+    }
+
+    @Override protected void tearDown() throws Exception {
+        executor.shutdownNow();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        super.tearDown();
+    }
+
+    public void testScheduleRunsNoEarlierThanDelay() throws Exception {
+        // Delays that span the first three levels of the wheel.
+        long[] delays = { 0, 1, 5, 63, 64, 65, 300, 4100 };
+        final CountDownLatch done = new CountDownLatch(delays.length);
+        final AtomicInteger early = new AtomicInteger();
+        for (final long delay : delays) {
+            final long start = System.nanoTime();
+            executor.schedule(new Runnable() {
+                @Override public void run() {
+                    if (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(delay)) {
+                        early.incrementAndGet();
+                    }
+                    done.countDown();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(0, early.get());
+    }
+
+    public void testScheduleWhileWaitingForLaterTask() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        ScheduledFuture<?> later = executor.schedule(runs::incrementAndGet,
+                1, TimeUnit.HOURS);
+        // Let the wheel go to sleep until the later task's level moves down.
+        Thread.sleep(20);
+        ScheduledFuture<?> sooner = executor.schedule(runs::incrementAndGet,
+                1, TimeUnit.MILLISECONDS);
+        sooner.get(5, TimeUnit.SECONDS);
+        assertEquals(1, runs.get());
+        assertFalse(later.isDone());
+    }
+
+    public void testCallable() throws Exception {
+        ScheduledFuture<String> future = executor.schedule(() -> "done", 10, TimeUnit.MILLISECONDS);
+        assertEquals("done", future.get(5, TimeUnit.SECONDS));
+        assertTrue(future.isDone());
+    }
+
+    public void testCancel() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        ScheduledFuture<?> cancelled = executor.schedule(runs::incrementAndGet,
+                50, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> kept = executor.schedule(runs::incrementAndGet,
+                100, TimeUnit.MILLISECONDS);
+        assertTrue(cancelled.cancel(false));
+        assertTrue(cancelled.isCancelled());
+        kept.get(5, TimeUnit.SECONDS);
+        assertEquals(1, runs.get());
+    }
+
+    public void testFixedRateAndFixedDelay() throws Exception {
+        final CountDownLatch rate = new CountDownLatch(5);
+        final CountDownLatch delay = new CountDownLatch(5);
+        ScheduledFuture<?> rateFuture = executor.scheduleAtFixedRate(rate::countDown,
+                0, 2, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> delayFuture = executor.scheduleWithFixedDelay(delay::countDown,
+                0, 2, TimeUnit.MILLISECONDS);
+        assertTrue(rate.await(5, TimeUnit.SECONDS));
+        assertTrue(delay.await(5, TimeUnit.SECONDS));
+        assertTrue(rateFuture.cancel(false));
+        assertTrue(delayFuture.cancel(false));
+    }
+
+    public void testShutdown() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        executor.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> periodic = executor.scheduleAtFixedRate(runs::incrementAndGet,
+                1, 1, TimeUnit.HOURS);
+        executor.shutdown();
+        assertTrue(executor.isShutdown());
+        try {
+            executor.execute(runs::incrementAndGet);
+            fail();
+        } catch (RejectedExecutionException expected) {
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+        assertTrue(periodic.isCancelled());
+    }
+
+    public void testShutdownNow() throws Exception {
+        ScheduledFuture<?> future = executor.schedule(() -> { }, 1, TimeUnit.HOURS);
+        assertTrue(executor.shutdownNow().isEmpty());
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(executor.isTerminated());
+        assertTrue(future.isCancelled());
+    }
+}
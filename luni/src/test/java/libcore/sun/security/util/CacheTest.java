@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package libcore.sun.security.util;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import sun.security.util.Cache;
+
+public class CacheTest extends TestCase {
+
+    public void testConcurrentCache_putGetRemove() {
+        Cache<String, String> cache = Cache.newConcurrentSoftMemoryCache(4);
+        assertNull(cache.get("a"));
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a"));
+        assertEquals(2, cache.size());
+        cache.put("a", "3");
+        assertEquals("3", cache.get("a"));
+        assertEquals(2, cache.size());
+        cache.remove("a");
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get("b"));
+    }
+
+    public void testConcurrentCache_countsHitsAndMisses() {
+        Cache<String, String> cache = Cache.newConcurrentSoftMemoryCache(4);
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        Cache<String, String> uncounted = Cache.newSoftMemoryCache(4);
+        assertEquals(-1, uncounted.getHitCount());
+        assertEquals(-1, uncounted.getMissCount());
+    }
+
+    public void testConcurrentCache_evictsUnreferencedEntriesFirst() {
+        Cache<Integer, String> cache = Cache.newConcurrentSoftMemoryCache(3);
+        cache.put(1, "1");
+        cache.put(2, "2");
+        cache.put(3, "3");
+        cache.get(1);
+        cache.put(4, "4");
+        assertEquals(3, cache.size());
+        assertEquals("1", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals("3", cache.get(3));
+        assertEquals("4", cache.get(4));
+    }
+
+    public void testConcurrentCache_staysWithinCapacity() {
+        Cache<Integer, String> cache = Cache.newConcurrentSoftMemoryCache(100);
+        for (int i = 0; i < 10000; i++) {
+            cache.put(i % 300, "v");
+            cache.get((i * 7) % 300);
+            assertTrue(cache.size() <= 100);
+        }
+        cache.setCapacity(10);
+        assertEquals(10, cache.size());
+    }
+
+    public void testConcurrentCache_expiresEntries() throws Exception {
+        Cache<String, String> cache = Cache.newConcurrentSoftMemoryCache(4, 1);
+        cache.put("a", "1");
+        assertEquals("1", cache.get("a"));
+        Thread.sleep(1100);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    public void testConcurrentCache_accept() {
+        Cache<String, String> cache = Cache.newConcurrentSoftMemoryCache(4);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        final AtomicInteger visited = new AtomicInteger();
+        cache.accept(new Cache.CacheVisitor<String, String>() {
+            @Override
+            public void visit(Map<String, String> map) {
+                assertEquals(2, map.size());
+                assertEquals("2", map.get("b"));
+                visited.incrementAndGet();
+            }
+        });
+        assertEquals(1, visited.get());
+    }
+
+    public void testConcurrentCache_concurrentPutsAndGets() throws Exception {
+        final Cache<Integer, Integer> cache = Cache.newConcurrentSoftMemoryCache(64);
+        final AtomicInteger wrong = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int seed = t;
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 20000; i++) {
+                        int key = (i * (seed + 1)) % 200;
+                        Integer value = cache.get(key);
+                        if (value == null) {
+                            cache.put(key, key);
+                        } else if (value != key) {
+                            wrong.incrementAndGet();
+                        }
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, wrong.get());
+        assertTrue(cache.size() <= 64);
+        assertEquals(80000, cache.getHitCount() + cache.getMissCount());
+    }
+
+    public void testEqualByteArray() {
+        Cache.EqualByteArray a = new Cache.EqualByteArray(new byte[] { 1, 2, 3 });
+        Cache.EqualByteArray b = new Cache.EqualByteArray(new byte[] { 1, 2, 3 });
+        Cache.EqualByteArray reordered = new Cache.EqualByteArray(new byte[] { 3, 2, 1 });
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertFalse(a.equals(reordered));
+        assertFalse(a.hashCode() == reordered.hashCode());
+        assertFalse(a.equals(new Cache.EqualByteArray(new byte[0])));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package libcore.sun.security.x509;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.cert.CertificateException;
+import java.util.Arrays;
+
+import sun.security.x509.X509CertImpl;
+import tests.support.resource.Support_Resources;
+
+public class X509CertImplTest extends TestCase {
+
+    private static final String[] CERTS = {
+            "x509/cert-rsa.der",
+            "x509/cert-ca.der",
+            "x509/cert-caWithPathLen.der",
+            "x509/cert-userWithPathLen.der",
+            "x509/cert-keyUsage-extraLong.der",
+            "x509/cert-extendedKeyUsage.der",
+            "x509/cert-alt-dns.der",
+            "x509/cert-alt-email.der",
+            "x509/cert-alt-uri.der",
+            "x509/cert-ec.der",
+            "x509/cert-dsa.der",
+    };
+
+    private static final String[] EXTENSION_OIDS = {
+            "2.5.29.14", // SubjectKeyIdentifier
+            "2.5.29.15", // KeyUsage
+            "2.5.29.17", // SubjectAlternativeName
+            "2.5.29.19", // BasicConstraints
+            "2.5.29.35", // AuthorityKeyIdentifier
+            "2.5.29.37", // ExtendedKeyUsage
+    };
+
+    public void test_lazyExtensionsMatchDecodedExtensions() throws Exception {
+        for (String name : CERTS) {
+            byte[] encoded = getResourceAsBytes(name);
+            X509CertImpl lazy = new X509CertImpl(encoded);
+            X509CertImpl decoded = new X509CertImpl(encoded);
+            // Listing the OIDs decodes every extension of the second copy up front.
+            String criticalOids = String.valueOf(decoded.getCriticalExtensionOIDs());
+            String nonCriticalOids = String.valueOf(decoded.getNonCriticalExtensionOIDs());
+
+            assertEquals(name, decoded.getBasicConstraints(), lazy.getBasicConstraints());
+            assertTrue(name, Arrays.equals(decoded.getKeyUsage(), lazy.getKeyUsage()));
+            assertEquals(name, decoded.getExtendedKeyUsage(), lazy.getExtendedKeyUsage());
+            // A fresh copy for each OID, so that only the extension asked for is decoded.
+            for (String oid : EXTENSION_OIDS) {
+                assertTrue(name + " " + oid, Arrays.equals(decoded.getExtensionValue(oid),
+                        new X509CertImpl(encoded).getExtensionValue(oid)));
+            }
+            assertEquals(name, criticalOids, String.valueOf(lazy.getCriticalExtensionOIDs()));
+            assertEquals(name, nonCriticalOids,
+                    String.valueOf(lazy.getNonCriticalExtensionOIDs()));
+            assertEquals(name, decoded.toString(), lazy.toString());
+            assertEquals(name, decoded, lazy);
+        }
+    }
+
+    public void test_getEncodedReturnsInput() throws Exception {
+        for (String name : CERTS) {
+            byte[] encoded = getResourceAsBytes(name);
+            X509CertImpl cert = new X509CertImpl(encoded);
+            assertTrue(name, Arrays.equals(encoded, cert.getEncoded()));
+            // The certificate keeps its own copy of the encoding.
+            encoded[encoded.length - 1] ^= 1;
+            assertFalse(name, Arrays.equals(encoded, cert.getEncoded()));
+        }
+    }
+
+    public void test_getEncodedIsMinimalForLongFormLength() throws Exception {
+        byte[] encoded = getResourceAsBytes("x509/cert-rsa.der");
+        // Re-encode the outer SEQUENCE length with one more length byte than needed.
+        int lengthBytes = encoded[1] & 0x7f;
+        byte[] longForm = new byte[encoded.length + 1];
+        longForm[0] = encoded[0];
+        longForm[1] = (byte) (0x80 | (lengthBytes + 1));
+        longForm[2] = 0;
+        System.arraycopy(encoded, 2, longForm, 3, encoded.length - 2);
+
+        X509CertImpl cert = new X509CertImpl(longForm);
+        assertTrue(Arrays.equals(encoded, cert.getEncoded()));
+    }
+
+    public void test_trailingDataIsRejected() throws Exception {
+        byte[] encoded = getResourceAsBytes("x509/cert-rsa.der");
+        byte[] trailing = Arrays.copyOf(encoded, encoded.length + 1);
+        try {
+            new X509CertImpl(trailing);
+            fail();
+        } catch (CertificateException expected) {
+        }
+    }
+
+    private static byte[] getResourceAsBytes(String name) throws IOException {
+        try (InputStream in = Support_Resources.getStream(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        }
+    }
+}
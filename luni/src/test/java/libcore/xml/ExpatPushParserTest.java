@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.xml;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+import org.apache.harmony.xml.ExpatPushParser;
+import org.apache.harmony.xml.ExpatReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class ExpatPushParserTest extends TestCase {
+
+    private static final byte[] SNIPPET
+            = "<dagny dad=\"bob\">hello</dagny>".getBytes(StandardCharsets.UTF_8);
+
+    public void testFeedOneByteAtATime() throws Exception {
+        ExpatReader reader = new ExpatReader();
+        ExpatSaxParserTest.TestHandler handler = new ExpatSaxParserTest.TestHandler();
+        reader.setContentHandler(handler);
+
+        ExpatPushParser parser = new ExpatPushParser(reader, null, null, null);
+        for (int i = 0; i < SNIPPET.length; i++) {
+            parser.feed(SNIPPET, i, 1);
+        }
+        parser.endOfInput();
+        ExpatSaxParserTest.validate(handler);
+    }
+
+    public void testEventsAreDispatchedAsDataArrives() throws Exception {
+        ExpatReader reader = new ExpatReader();
+        EventHandler handler = new EventHandler();
+        reader.setContentHandler(handler);
+
+        ExpatPushParser parser = new ExpatPushParser(reader, "UTF-8", null, null);
+        byte[] first = "<a><b/>".getBytes(StandardCharsets.UTF_8);
+        parser.feed(first, 0, first.length);
+        assertEquals("[startDocument, start a, start b, end b]", handler.events.toString());
+
+        byte[] second = "</a>".getBytes(StandardCharsets.UTF_8);
+        parser.feed(second, 0, second.length);
+        parser.endOfInput();
+        assertEquals("[startDocument, start a, start b, end b, end a, endDocument]",
+                handler.events.toString());
+    }
+
+    public void testFeedHeapByteBuffer() throws Exception {
+        checkFeedByteBuffer(fill(ByteBuffer.allocate(SNIPPET.length)));
+    }
+
+    public void testFeedDirectByteBuffer() throws Exception {
+        checkFeedByteBuffer(fill(ByteBuffer.allocateDirect(SNIPPET.length)));
+    }
+
+    public void testFeedReadOnlyByteBuffer() throws Exception {
+        checkFeedByteBuffer(fill(ByteBuffer.allocate(SNIPPET.length)).asReadOnlyBuffer());
+    }
+
+    private void checkFeedByteBuffer(ByteBuffer source) throws Exception {
+        ExpatReader reader = new ExpatReader();
+        ExpatSaxParserTest.TestHandler handler = new ExpatSaxParserTest.TestHandler();
+        reader.setContentHandler(handler);
+        ExpatPushParser parser = new ExpatPushParser(reader, null, null, null);
+
+        // Feed the document in two pieces, the second from a non-zero position.
+        int split = 10;
+        source.limit(split);
+        parser.feed(source);
+        assertEquals(split, source.position());
+        source.limit(SNIPPET.length);
+        parser.feed(source);
+        assertEquals(SNIPPET.length, source.position());
+
+        parser.endOfInput();
+        ExpatSaxParserTest.validate(handler);
+    }
+
+    private static ByteBuffer fill(ByteBuffer buffer) {
+        buffer.put(SNIPPET);
+        buffer.flip();
+        return buffer;
+    }
+
+    public void testMalformedDocument() throws Exception {
+        ExpatPushParser parser = new ExpatPushParser(new ExpatReader(), null, null, null);
+        byte[] xml = "<a></b>".getBytes(StandardCharsets.UTF_8);
+        try {
+            parser.feed(xml, 0, xml.length);
+            fail();
+        } catch (SAXException expected) {
+        }
+        try {
+            parser.feed(xml, 0, xml.length);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    public void testIncompleteDocument() throws Exception {
+        ExpatPushParser parser = new ExpatPushParser(new ExpatReader(), null, null, null);
+        byte[] xml = "<a>".getBytes(StandardCharsets.UTF_8);
+        parser.feed(xml, 0, xml.length);
+        try {
+            parser.endOfInput();
+            fail();
+        } catch (SAXException expected) {
+        }
+    }
+
+    public void testFeedChecksBounds() throws Exception {
+        ExpatPushParser parser = new ExpatPushParser(new ExpatReader(), null, null, null);
+        try {
+            parser.feed(SNIPPET, 1, SNIPPET.length);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException expected) {
+        }
+    }
+
+    static class EventHandler extends DefaultHandler {
+        final List<String> events = new ArrayList<String>();
+
+        @Override public void startDocument() {
+            events.add("startDocument");
+        }
+
+        @Override public void endDocument() {
+            events.add("endDocument");
+        }
+
+        @Override public void startElement(String uri, String localName, String qName,
+                Attributes attributes) {
+            events.add("start " + localName);
+        }
+
+        @Override public void endElement(String uri, String localName, String qName) {
+            events.add("end " + localName);
+        }
+    }
+}
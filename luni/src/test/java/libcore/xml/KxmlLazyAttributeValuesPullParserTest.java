@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.xml;
+
+import com.android.org.kxml2.io.KXmlParser;
+import java.io.StringReader;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+/**
+ * Runs the pull parser tests with attribute values materialized lazily.
+ */
+public class KxmlLazyAttributeValuesPullParserTest extends PullParserTest {
+
+    @Override XmlPullParser newPullParser() {
+        KXmlParser parser = new KXmlParser();
+        try {
+            parser.setFeature(KXmlParser.FEATURE_LAZY_ATTRIBUTE_VALUES, true);
+        } catch (XmlPullParserException e) {
+            throw new AssertionError(e);
+        }
+        return parser;
+    }
+
+    public void testLazyAttributeValues() throws Exception {
+        KXmlParser parser = (KXmlParser) newPullParser();
+        assertTrue(parser.getFeature(KXmlParser.FEATURE_LAZY_ATTRIBUTE_VALUES));
+        parser.setInput(new StringReader(
+                "<foo a='1' b=\"two\" c='x&amp;y' d='line\nbreak'><bar e='5'/></foo>"));
+        assertEquals(XmlPullParser.START_TAG, parser.next());
+        assertEquals(4, parser.getAttributeCount());
+        assertEquals("two", parser.getAttributeValue(null, "b"));
+        assertEquals("1", parser.getAttributeValue(0));
+        assertEquals("x&y", parser.getAttributeValue(2));
+        assertEquals("line break", parser.getAttributeValue(3));
+
+        assertEquals(XmlPullParser.START_TAG, parser.next());
+        assertEquals("bar", parser.getName());
+        assertEquals("5", parser.getAttributeValue(0));
+    }
+
+    public void testGetAttributeIndex() throws Exception {
+        KXmlParser parser = (KXmlParser) newPullParser();
+        parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, true);
+        parser.setInput(new StringReader("<foo xmlns:n='ns:n' a='1' n:b='2'/>"));
+        assertEquals(XmlPullParser.START_TAG, parser.next());
+        assertEquals(0, parser.getAttributeIndex(null, "a"));
+        assertEquals(1, parser.getAttributeIndex("ns:n", "b"));
+        assertEquals(1, parser.getAttributeIndex(null, "b"));
+        assertEquals(-1, parser.getAttributeIndex("", "b"));
+        assertEquals(-1, parser.getAttributeIndex(null, "c"));
+        assertEquals("2", parser.getAttributeValue(1));
+    }
+
+    public void testAttributeValueEquals() throws Exception {
+        KXmlParser parser = (KXmlParser) newPullParser();
+        parser.setInput(new StringReader("<foo a='abc' b='a&lt;b' c=''/>"));
+        assertEquals(XmlPullParser.START_TAG, parser.next());
+        assertTrue(parser.attributeValueEquals(0, "abc"));
+        assertFalse(parser.attributeValueEquals(0, "abd"));
+        assertFalse(parser.attributeValueEquals(0, "ab"));
+        assertFalse(parser.attributeValueEquals(0, null));
+        assertTrue(parser.attributeValueEquals(1, "a<b"));
+        assertTrue(parser.attributeValueEquals(2, ""));
+        try {
+            parser.attributeValueEquals(3, "");
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    public void testNamespaceDeclarationsAreRemovedWithLazyValues() throws Exception {
+        KXmlParser parser = (KXmlParser) newPullParser();
+        parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, true);
+        parser.setInput(new StringReader("<foo a='1' xmlns:n='ns:n' b='2' xmlns='ns:d' c='3'/>"));
+        assertEquals(XmlPullParser.START_TAG, parser.next());
+        assertEquals("ns:d", parser.getNamespace());
+        assertEquals(3, parser.getAttributeCount());
+        assertEquals("1", parser.getAttributeValue(null, "a"));
+        assertEquals("2", parser.getAttributeValue(null, "b"));
+        assertEquals("3", parser.getAttributeValue(null, "c"));
+        assertEquals("ns:n", parser.getNamespace("n"));
+    }
+
+    public void testNamespaceDeclarationBeforeEagerlyReadValues() throws Exception {
+        KXmlParser parser = (KXmlParser) newPullParser();
+        parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, true);
+        parser.setInput(new StringReader(
+                "<a xmlns:x='u' b='&amp;' c='&amp;' d='&amp;' e='&amp;' f='&amp;'/>"));
+        assertEquals(XmlPullParser.START_TAG, parser.next());
+        assertEquals("u", parser.getNamespace("x"));
+        assertEquals(5, parser.getAttributeCount());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("&", parser.getAttributeValue(i));
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.xml;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import junit.framework.TestCase;
+import org.apache.harmony.xml.ExpatReader;
+import org.apache.harmony.xml.parsers.SAXParserPool;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class SAXParserPoolTest extends TestCase {
+
+    private static final String SNIPPET = "<dagny dad=\"bob\">hello</dagny>";
+
+    public void testRecyclingReaderParsesSuccessiveDocuments() throws Exception {
+        ExpatReader reader = new ExpatReader();
+        reader.setParserRecyclingEnabled(true);
+        assertTrue(reader.isParserRecyclingEnabled());
+
+        for (int i = 0; i < 3; i++) {
+            ExpatSaxParserTest.TestHandler handler = new ExpatSaxParserTest.TestHandler();
+            reader.setContentHandler(handler);
+            reader.parse(new InputSource(new StringReader(SNIPPET)));
+            ExpatSaxParserTest.validate(handler);
+        }
+    }
+
+    public void testRecyclingReaderRecoversFromMalformedDocument() throws Exception {
+        ExpatReader reader = new ExpatReader();
+        reader.setParserRecyclingEnabled(true);
+        reader.setContentHandler(new DefaultHandler());
+        try {
+            reader.parse(new InputSource(new StringReader("<a><b></a>")));
+            fail();
+        } catch (SAXException expected) {
+        }
+
+        ExpatSaxParserTest.TestHandler handler = new ExpatSaxParserTest.TestHandler();
+        reader.setContentHandler(handler);
+        reader.parse(new InputSource(new StringReader(SNIPPET)));
+        ExpatSaxParserTest.validate(handler);
+    }
+
+    public void testRecyclingReaderHonorsNamespaceChanges() throws Exception {
+        ExpatReader reader = new ExpatReader();
+        reader.setParserRecyclingEnabled(true);
+        reader.setContentHandler(new DefaultHandler());
+        reader.parse(new InputSource(new StringReader(SNIPPET)));
+
+        reader.setNamespaceProcessingEnabled(false);
+        final List<String> qNames = new ArrayList<String>();
+        reader.setContentHandler(new DefaultHandler() {
+            @Override public void startElement(String uri, String localName, String qName,
+                    Attributes attributes) {
+                qNames.add(qName);
+            }
+        });
+        reader.parse(new InputSource(new StringReader("<n:a xmlns:n='ns:n'/>")));
+        assertEquals(1, qNames.size());
+        assertEquals("n:a", qNames.get(0));
+    }
+
+    public void testLocatorFromRecycledParser() throws Exception {
+        ExpatReader reader = new ExpatReader();
+        reader.setParserRecyclingEnabled(true);
+        final Locator[] locator = new Locator[1];
+        reader.setContentHandler(new DefaultHandler() {
+            @Override public void setDocumentLocator(Locator l) {
+                locator[0] = l;
+            }
+        });
+        reader.parse(new InputSource(new StringReader(SNIPPET)));
+        Locator previous = locator[0];
+
+        // The next document takes over the native parser.
+        reader.parse(new InputSource(new StringReader(SNIPPET)));
+        assertNotSame(previous, locator[0]);
+        assertEquals(-1, previous.getLineNumber());
+        assertEquals(-1, previous.getColumnNumber());
+    }
+
+    public void testRecyclingReaderWithManyDistinctNames() throws Exception {
+        ExpatReader reader = new ExpatReader();
+        reader.setParserRecyclingEnabled(true);
+        final int[] elements = new int[1];
+        reader.setContentHandler(new DefaultHandler() {
+            @Override public void startElement(String uri, String localName, String qName,
+                    Attributes attributes) {
+                elements[0]++;
+            }
+        });
+        // Far more names than a recycled parser keeps, each holding a global reference.
+        for (int i = 0; i < 200; i++) {
+            StringBuilder xml = new StringBuilder("<root>");
+            for (int j = 0; j < 100; j++) {
+                xml.append("<e").append(i).append('_').append(j).append(" a").append(j)
+                        .append("='v'/>");
+            }
+            xml.append("</root>");
+            reader.parse(new InputSource(new StringReader(xml.toString())));
+        }
+        assertEquals(200 * 101, elements[0]);
+    }
+
+    public void testPoolReusesReaders() throws Exception {
+        SAXParserPool pool = new SAXParserPool(true, 1);
+        for (int i = 0; i < 5; i++) {
+            ExpatSaxParserTest.TestHandler handler = new ExpatSaxParserTest.TestHandler();
+            pool.parse(new InputSource(new StringReader(SNIPPET)), handler);
+            ExpatSaxParserTest.validate(handler);
+        }
+        assertEquals(1, pool.getReadersCreated());
+        assertEquals(5, pool.getDocumentsParsed());
+        assertEquals(0, pool.getDocumentsFailed());
+        assertTrue(pool.getParseTimeNanos() > 0);
+        assertTrue(pool.getDocumentsPerSecond() > 0);
+    }
+
+    public void testPoolCountsFailures() throws Exception {
+        SAXParserPool pool = new SAXParserPool(true, 1);
+        try {
+            pool.parse(new InputSource(new StringReader("<a>")), new DefaultHandler());
+            fail();
+        } catch (SAXException expected) {
+        }
+        assertEquals(0, pool.getDocumentsParsed());
+        assertEquals(1, pool.getDocumentsFailed());
+    }
+
+    public void testPoolIsThreadSafe() throws Exception {
+        final SAXParserPool pool = new SAXParserPool(true, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override public Void call() throws Exception {
+                        ExpatSaxParserTest.TestHandler handler
+                                = new ExpatSaxParserTest.TestHandler();
+                        pool.parse(new InputSource(new StringReader(SNIPPET)), handler);
+                        ExpatSaxParserTest.validate(handler);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(200, pool.getDocumentsParsed());
+        assertTrue(pool.getReadersCreated() <= 200);
+    }
+
+    public void testPoolRejectsNegativeSize() {
+        try {
+            new SAXParserPool(true, -1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
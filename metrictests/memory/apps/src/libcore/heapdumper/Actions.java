@@ -16,8 +16,10 @@
 
 package libcore.heapdumper;
 
+import java.lang.reflect.Method;
 import java.text.Collator;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -92,10 +94,58 @@ enum Actions implements Runnable {
             m.useAnchoringBounds(true);
             boolean matchesPrefixAnchoringBounds = m.lookingAt();
         }
+    },
+
+    /**
+     * Caches {@link #CACHE_ENTRIES} values in a {@code libcore.util.OffHeapLongCache}, and keeps
+     * it.
+     *
+     * <p>The cache is {@code @hide}, so this app still builds against the public SDK and reaches
+     * it reflectively. The instrumentation must be run with {@code --no-hidden-api-checks} for
+     * this action only.
+     */
+    OFF_HEAP_LONG_CACHE {
+        @Override
+        public void run() {
+            try {
+                Class<?> cacheClass = Class.forName("libcore.util.OffHeapLongCache");
+                Object cache = cacheClass.getConstructor(int.class, int.class)
+                        .newInstance(CACHE_ENTRIES, CACHE_VALUE_BYTES);
+                Method put = cacheClass.getMethod("put", long.class, byte[].class);
+                byte[] value = new byte[CACHE_VALUE_BYTES];
+                for (int i = 0; i < CACHE_ENTRIES; i++) {
+                    put.invoke(cache, (long) i, value);
+                }
+                retained = cache;
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    },
+
+    /**
+     * Caches the same values as {@link #OFF_HEAP_LONG_CACHE} in a {@code HashMap<Long, byte[]>},
+     * and keeps it, for comparison.
+     */
+    BOXED_LONG_HASH_MAP {
+        @Override
+        public void run() {
+            HashMap<Long, byte[]> map = new HashMap<>();
+            for (int i = 0; i < CACHE_ENTRIES; i++) {
+                map.put((long) i, new byte[CACHE_VALUE_BYTES]);
+            }
+            retained = map;
+        }
     }
 
     ;
 
+    static final int CACHE_ENTRIES = 100_000;
+    static final int CACHE_VALUE_BYTES = 32;
+
+    // Keeps the result of an action reachable until the heap has been dumped again.
+    private static Object retained;
+
     private static void useCollatorForLocale(Locale locale) {
         String[] strings = { "caff", "café", "cafe", "안녕", "잘 가" };
         Collator collator = Collator.getInstance(locale);
@@ -16,6 +16,8 @@
 
 package libcore.heapmetrics;
 
+import static org.junit.Assert.assertTrue;
+
 import com.android.ahat.heapdump.AhatHeap;
 import com.android.ahat.heapdump.AhatInstance;
 import com.android.ahat.heapdump.AhatSnapshot;
@@ -109,6 +111,32 @@ public class LibcoreHeapMetricsTest implements IDeviceTest {
         recordBeforeAndAfterAppHeapMetrics(result.getBeforeDump(), result.getAfterDump());
     }
 
+    @Test
+    public void measureOffHeapLongCache() throws Exception {
+        MetricsRunner.Result result = metricsRunner.runAllInstrumentations(
+                "OFF_HEAP_LONG_CACHE", /* hiddenApiChecks= */ false);
+        recordBeforeAndAfterAppHeapMetrics(result.getBeforeDump(), result.getAfterDump());
+        recordDeltaPssMetric(result);
+        // 100,000 cached values of 32 bytes each live in native memory: all that should
+        // remain on the Java heap is the cache object and its per-block bookkeeping.
+        long deltaAppSize = result.getAfterDump().getHeap("app").getSize().getSize()
+                - result.getBeforeDump().getHeap("app").getSize().getSize();
+        assertTrue("App heap grew by " + deltaAppSize + " bytes", deltaAppSize < 64 * 1024);
+    }
+
+    @Test
+    public void measureBoxedLongHashMap() throws Exception {
+        MetricsRunner.Result result = metricsRunner.runAllInstrumentations("BOXED_LONG_HASH_MAP");
+        recordBeforeAndAfterAppHeapMetrics(result.getBeforeDump(), result.getAfterDump());
+        recordDeltaPssMetric(result);
+    }
+
+    private void recordDeltaPssMetric(MetricsRunner.Result result) {
+        recordBytesMetric(
+                "deltaTotalPss",
+                (result.getAfterTotalPssKb() - result.getBeforeTotalPssKb()) * 1024L);
+    }
+
     private void recordHeapMetrics(AhatSnapshot dump, String metricPrefix, String heapName) {
         AhatHeap heap = dump.getHeap(heapName);
         recordSizeMetric(metricPrefix, heap.getSize());
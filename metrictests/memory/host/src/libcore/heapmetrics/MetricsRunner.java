@@ -117,16 +117,30 @@ class MetricsRunner {
      */
     Result runAllInstrumentations(String action)
             throws DeviceNotAvailableException, IOException, HprofFormatException {
+        return runAllInstrumentations(action, /* hiddenApiChecks= */ true);
+    }
+
+    /**
+     * Runs all the instrumentation and fetches the metrics, optionally with the hidden API checks
+     * disabled. Only actions which exercise {@code @hide} libcore classes should disable them, so
+     * that the metrics of the other actions stay comparable.
+     *
+     * @param action The name of the action to run, to be sent as an argument to the instrumentation
+     * @param hiddenApiChecks Whether the instrumentation enforces the hidden API checks
+     * @return The combined results of the instrumentations.
+     */
+    Result runAllInstrumentations(String action, boolean hiddenApiChecks)
+            throws DeviceNotAvailableException, IOException, HprofFormatException {
         String relativeDirectoryName = String.format("%s-%s", timestampedLabel, action);
         String deviceDirectoryName =
                 String.format("%s/%s", deviceParentDirectory, relativeDirectoryName);
         testDevice.executeShellCommand(String.format("mkdir %s", deviceDirectoryName));
         try {
             runInstrumentation(
-                    action, relativeDirectoryName, deviceDirectoryName,
+                    action, relativeDirectoryName, deviceDirectoryName, hiddenApiChecks,
                     "libcore.heapdumper/.HeapDumpInstrumentation");
             runInstrumentation(
-                    action, relativeDirectoryName, deviceDirectoryName,
+                    action, relativeDirectoryName, deviceDirectoryName, hiddenApiChecks,
                     "libcore.heapdumper/.PssInstrumentation");
             AhatSnapshot beforeDump = fetchHeapDump(deviceDirectoryName, "before.hprof", action);
             AhatSnapshot afterDump = fetchHeapDump(deviceDirectoryName, "after.hprof", action);
@@ -148,13 +162,16 @@ class MetricsRunner {
      * @param relativeDirectoryName The relative directory name for files on the device, to be sent
      *     as an argument to the instrumentation
      * @param deviceDirectoryName The absolute directory name for files on the device
+     * @param hiddenApiChecks Whether the instrumentation enforces the hidden API checks
      * @param apk The name of the APK, in the form {@code test_package/runner_class}
      */
     private void runInstrumentation(
-            String action, String relativeDirectoryName, String deviceDirectoryName, String apk)
+            String action, String relativeDirectoryName, String deviceDirectoryName,
+            boolean hiddenApiChecks, String apk)
             throws DeviceNotAvailableException, IOException {
         String command = String.format(
-                "am instrument -w -e dumpdir %s -e action %s  %s",
+                "am instrument -w %s-e dumpdir %s -e action %s  %s",
+                hiddenApiChecks ? "" : "--no-hidden-api-checks ",
                 relativeDirectoryName, action, apk);
         testDevice.executeShellCommand(command);
         checkForErrorFile(deviceDirectoryName);
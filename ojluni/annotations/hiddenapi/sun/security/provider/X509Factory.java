@@ -33,25 +33,25 @@ public class X509Factory {
     }
 
     @android.compat.annotation.UnsupportedAppUsage
-    public static synchronized sun.security.x509.X509CertImpl intern(
+    public static sun.security.x509.X509CertImpl intern(
             java.security.cert.X509Certificate c) throws java.security.cert.CertificateException {
         throw new RuntimeException("Stub!");
     }
 
     @android.compat.annotation.UnsupportedAppUsage
-    public static synchronized sun.security.x509.X509CRLImpl intern(java.security.cert.X509CRL c)
+    public static sun.security.x509.X509CRLImpl intern(java.security.cert.X509CRL c)
             throws java.security.cert.CRLException {
         throw new RuntimeException("Stub!");
     }
 
     @android.compat.annotation.UnsupportedAppUsage
-    private static synchronized <K, V> V getFromCache(
+    private static <K, V> V getFromCache(
             sun.security.util.Cache<K, V> cache, byte[] encoding) {
         throw new RuntimeException("Stub!");
     }
 
     @android.compat.annotation.UnsupportedAppUsage
-    private static synchronized <V> void addToCache(
+    private static <V> void addToCache(
             sun.security.util.Cache<java.lang.Object, V> cache, byte[] encoding, V value) {
         throw new RuntimeException("Stub!");
     }
@@ -44,11 +44,11 @@ public class X509CertificatePair {
     }
 
     @android.compat.annotation.UnsupportedAppUsage
-    public static synchronized void clearCache() {
+    public static void clearCache() {
         throw new RuntimeException("Stub!");
     }
 
-    public static synchronized sun.security.provider.certpath.X509CertificatePair
+    public static sun.security.provider.certpath.X509CertificatePair
             generateCertificatePair(byte[] encoded) throws java.security.cert.CertificateException {
         throw new RuntimeException("Stub!");
     }
@@ -25,6 +25,12 @@
 
 package java.lang;
 
+import android.compat.annotation.ChangeId;
+import android.compat.annotation.EnabledAfter;
+
+import dalvik.annotation.compat.VersionCodes;
+import dalvik.system.VMRuntime;
+
 import jdk.internal.math.FloatingDecimal;
 import java.util.Arrays;
 
@@ -46,11 +52,35 @@ import java.util.Arrays;
  */
 abstract class AbstractStringBuilder implements Appendable, CharSequence {
     // TODO: remove java.lang.Integer.getChars(int, int, char[]) once updated to byte[] from 11.
+    // Android-changed: Compact Latin-1 storage.
     /**
-     * The value is used for character storage.
+     * The value is used for character storage. It is {@code null} while the
+     * characters are held in {@link #latin1Value}, which only happens when
+     * {@link #COMPACT_STORAGE} is enabled.
      */
     char[] value;
 
+    // BEGIN Android-added: Compact Latin-1 storage.
+    /**
+     * Builders of apps targeting a later SDK than {@link VersionCodes#TIRAMISU} start out
+     * with Latin-1 storage, and their {@code value} field is {@code null} until a character
+     * outside Latin-1 is stored. Builders of older apps always use {@code value}, which such
+     * apps may read by reflection.
+     */
+    @ChangeId
+    @EnabledAfter(targetSdkVersion = VersionCodes.TIRAMISU)
+    static final long COMPACT_STORAGE = 270366154L;
+
+    /**
+     * The characters, one byte each, while every character stored so far is in
+     * the Latin-1 range. The first character outside that range inflates the
+     * storage to {@link #value} for the rest of this object's life, so exactly
+     * one of the two arrays is non-null, except while a subclass is being
+     * deserialized.
+     */
+    byte[] latin1Value;
+    // END Android-added: Compact Latin-1 storage.
+
     /**
      * The count is the number of characters used.
      */
@@ -66,9 +96,121 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * Creates an AbstractStringBuilder of the specified capacity.
      */
     AbstractStringBuilder(int capacity) {
-        value = new char[capacity];
+        // BEGIN Android-changed: Start out with compact Latin-1 storage.
+        // Don't use Compatibility.isChangeEnabled(COMPACT_STORAGE), because the app compat
+        // framework builds strings itself.
+        if (VMRuntime.getRuntime().getTargetSdkVersion() > VersionCodes.TIRAMISU) {
+            latin1Value = new byte[capacity];
+        } else {
+            value = new char[capacity];
+        }
+        // END Android-changed: Start out with compact Latin-1 storage.
+    }
+
+    // BEGIN Android-added: Compact Latin-1 storage.
+    /**
+     * Returns {@code true} if the characters are held in {@link #latin1Value}.
+     */
+    final boolean isLatin1() {
+        return latin1Value != null;
+    }
+
+    /**
+     * Moves the characters from {@link #latin1Value} to {@link #value}, keeping
+     * the capacity. Does nothing if they are there already.
+     */
+    private void inflate() {
+        final byte[] latin1 = latin1Value;
+        if (latin1 == null) {
+            return;
+        }
+        char[] chars = new char[latin1.length];
+        for (int i = 0; i < count; i++) {
+            chars[i] = (char) (latin1[i] & 0xff);
+        }
+        value = chars;
+        latin1Value = null;
     }
 
+    /**
+     * Returns {@code true} if {@code s[start, end)} can be held in {@link #latin1Value}.
+     */
+    private static boolean canEncodeLatin1(CharSequence s, int start, int end) {
+        if (s instanceof String && ((String) s).isCompressed()) {
+            return true;
+        }
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) > 0xff) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean canEncodeLatin1(char[] s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (s[i] > 0xff) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the leading Latin-1 characters of {@code s[start, end)} to the end of
+     * {@link #latin1Value}, which must have room for all of them, and returns the
+     * index of the first character that was not copied.
+     */
+    private int appendLatin1(CharSequence s, int start, int end) {
+        final byte[] latin1 = latin1Value;
+        int j = count;
+        int i = start;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c > 0xff) {
+                break;
+            }
+            latin1[j++] = (byte) c;
+        }
+        count = j;
+        return i;
+    }
+
+    /**
+     * Returns the character at {@code index}, which must be less than {@link #count}.
+     */
+    final char charAtNoCheck(int index) {
+        if (latin1Value != null) {
+            return (char) (latin1Value[index] & 0xff);
+        }
+        return value[index];
+    }
+
+    /**
+     * Stores the ASCII character {@code c} at {@code index}, which must be within
+     * the capacity.
+     */
+    private void putAscii(int index, char c) {
+        if (latin1Value != null) {
+            latin1Value[index] = (byte) c;
+        } else {
+            value[index] = c;
+        }
+    }
+
+    /**
+     * Returns a new string holding the characters in {@code [start, end)}, which
+     * must be a valid range. Latin-1 storage is handed to the runtime as bytes,
+     * which then stores the result compressed if every character is ASCII.
+     */
+    final String newString(int start, int end) {
+        if (latin1Value != null) {
+            return StringFactory.newStringFromBytes(latin1Value, 0, start, end - start);
+        }
+        return new String(value, start, end - start);
+    }
+    // END Android-added: Compact Latin-1 storage.
+
     /**
      * Returns the length (character count).
      *
@@ -88,7 +230,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  the current capacity
      */
     public int capacity() {
-        return value.length;
+        // Android-changed: Compact Latin-1 storage.
+        return (latin1Value != null) ? latin1Value.length : value.length;
     }
 
     /**
@@ -121,10 +264,17 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     private void ensureCapacityInternal(int minimumCapacity) {
         // overflow-conscious code
-        if (minimumCapacity - value.length > 0) {
+        // BEGIN Android-changed: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            if (minimumCapacity - latin1Value.length > 0) {
+                latin1Value = Arrays.copyOf(latin1Value,
+                        newCapacity(minimumCapacity));
+            }
+        } else if (minimumCapacity - value.length > 0) {
             value = Arrays.copyOf(value,
                     newCapacity(minimumCapacity));
         }
+        // END Android-changed: Compact Latin-1 storage.
     }
 
     /**
@@ -148,7 +298,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     private int newCapacity(int minCapacity) {
         // overflow-conscious code
-        int newCapacity = (value.length << 1) + 2;
+        // Android-changed: Compact Latin-1 storage.
+        int newCapacity = (capacity() << 1) + 2;
         if (newCapacity - minCapacity < 0) {
             newCapacity = minCapacity;
         }
@@ -173,6 +324,14 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * returned by a subsequent call to the {@link #capacity()} method.
      */
     public void trimToSize() {
+        // BEGIN Android-changed: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            if (count < latin1Value.length) {
+                latin1Value = Arrays.copyOf(latin1Value, count);
+            }
+            return;
+        }
+        // END Android-changed: Compact Latin-1 storage.
         if (count < value.length) {
             value = Arrays.copyOf(value, count);
         }
@@ -209,7 +368,13 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         ensureCapacityInternal(newLength);
 
         if (count < newLength) {
-            Arrays.fill(value, count, newLength, '\0');
+            // BEGIN Android-changed: Compact Latin-1 storage.
+            if (latin1Value != null) {
+                Arrays.fill(latin1Value, count, newLength, (byte) 0);
+            } else {
+                Arrays.fill(value, count, newLength, '\0');
+            }
+            // END Android-changed: Compact Latin-1 storage.
         }
 
         count = newLength;
@@ -236,7 +401,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public char charAt(int index) {
         if ((index < 0) || (index >= count))
             throw new StringIndexOutOfBoundsException(index);
-        return value[index];
+        // Android-changed: Compact Latin-1 storage.
+        return charAtNoCheck(index);
     }
 
     /**
@@ -264,6 +430,11 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if ((index < 0) || (index >= count)) {
             throw new StringIndexOutOfBoundsException(index);
         }
+        // BEGIN Android-added: Compact Latin-1 storage. Latin-1 has no surrogates.
+        if (latin1Value != null) {
+            return latin1Value[index] & 0xff;
+        }
+        // END Android-added: Compact Latin-1 storage.
         return Character.codePointAtImpl(value, index, count);
     }
 
@@ -293,6 +464,11 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if ((i < 0) || (i >= count)) {
             throw new StringIndexOutOfBoundsException(index);
         }
+        // BEGIN Android-added: Compact Latin-1 storage. Latin-1 has no surrogates.
+        if (latin1Value != null) {
+            return latin1Value[i] & 0xff;
+        }
+        // END Android-added: Compact Latin-1 storage.
         return Character.codePointBeforeImpl(value, index, 0);
     }
 
@@ -320,6 +496,11 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if (beginIndex < 0 || endIndex > count || beginIndex > endIndex) {
             throw new IndexOutOfBoundsException();
         }
+        // BEGIN Android-added: Compact Latin-1 storage. Latin-1 has no surrogates.
+        if (latin1Value != null) {
+            return endIndex - beginIndex;
+        }
+        // END Android-added: Compact Latin-1 storage.
         return Character.codePointCountImpl(value, beginIndex, endIndex-beginIndex);
     }
 
@@ -346,6 +527,14 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         if (index < 0 || index > count) {
             throw new IndexOutOfBoundsException();
         }
+        // BEGIN Android-added: Compact Latin-1 storage. Latin-1 has no surrogates.
+        if (latin1Value != null) {
+            if (codePointOffset > count - index || codePointOffset < -index) {
+                throw new IndexOutOfBoundsException();
+            }
+            return index + codePointOffset;
+        }
+        // END Android-added: Compact Latin-1 storage.
         return Character.offsetByCodePointsImpl(value, 0, count,
                                                 index, codePointOffset);
     }
@@ -386,6 +575,20 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             throw new StringIndexOutOfBoundsException(srcEnd);
         if (srcBegin > srcEnd)
             throw new StringIndexOutOfBoundsException("srcBegin > srcEnd");
+        // BEGIN Android-added: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            int n = srcEnd - srcBegin;
+            if (dstBegin < 0 || dstBegin > dst.length - n) {
+                throw new ArrayIndexOutOfBoundsException("dst.length=" + dst.length
+                        + "; dstBegin=" + dstBegin + "; length=" + n);
+            }
+            final byte[] latin1 = latin1Value;
+            for (int i = srcBegin; i < srcEnd; i++) {
+                dst[dstBegin++] = (char) (latin1[i] & 0xff);
+            }
+            return;
+        }
+        // END Android-added: Compact Latin-1 storage.
         System.arraycopy(value, srcBegin, dst, dstBegin, srcEnd - srcBegin);
     }
 
@@ -406,6 +609,15 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public void setCharAt(int index, char ch) {
         if ((index < 0) || (index >= count))
             throw new StringIndexOutOfBoundsException(index);
+        // BEGIN Android-added: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            if (ch <= 0xff) {
+                latin1Value[index] = (byte) ch;
+                return;
+            }
+            inflate();
+        }
+        // END Android-added: Compact Latin-1 storage.
         value[index] = ch;
     }
 
@@ -447,20 +659,33 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             return appendNull();
         int len = str.length();
         ensureCapacityInternal(count + len);
-        str.getChars(0, len, value, count);
-        count += len;
+        // BEGIN Android-changed: Compact Latin-1 storage.
+        int start = 0;
+        if (latin1Value != null) {
+            if (str.isCompressed()) {
+                final byte[] latin1 = latin1Value;
+                for (int i = 0, j = count; i < len; i++, j++) {
+                    latin1[j] = (byte) str.charAt(i);
+                }
+                count += len;
+                return this;
+            }
+            start = appendLatin1(str, 0, len);
+            if (start == len) {
+                return this;
+            }
+            inflate();
+        }
+        str.getChars(start, len, value, count);
+        count += len - start;
+        // END Android-changed: Compact Latin-1 storage.
         return this;
     }
 
     // Documentation in subclasses because of synchro difference
     public AbstractStringBuilder append(StringBuffer sb) {
-        if (sb == null)
-            return appendNull();
-        int len = sb.length();
-        ensureCapacityInternal(count + len);
-        sb.getChars(0, len, value, count);
-        count += len;
-        return this;
+        // Android-changed: Compact Latin-1 storage.
+        return append((AbstractStringBuilder) sb);
     }
 
     /**
@@ -469,11 +694,37 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     AbstractStringBuilder append(AbstractStringBuilder asb) {
         if (asb == null)
             return appendNull();
-        int len = asb.length();
+        // BEGIN Android-changed: Compact Latin-1 storage.
+        // Copy from the other builder's storage directly, holding its lock if it has one.
+        if (asb instanceof StringBuffer) {
+            synchronized (asb) {
+                return appendStorage(asb);
+            }
+        }
+        return appendStorage(asb);
+    }
+
+    private AbstractStringBuilder appendStorage(AbstractStringBuilder asb) {
+        int len = asb.count;
         ensureCapacityInternal(count + len);
-        asb.getChars(0, len, value, count);
+        // Read asb's arrays only now, in case asb is this.
+        if (asb.latin1Value != null) {
+            if (latin1Value != null) {
+                System.arraycopy(asb.latin1Value, 0, latin1Value, count, len);
+            } else {
+                final byte[] src = asb.latin1Value;
+                final char[] dst = value;
+                for (int i = 0, j = count; i < len; i++, j++) {
+                    dst[j] = (char) (src[i] & 0xff);
+                }
+            }
+        } else {
+            inflate();
+            System.arraycopy(asb.value, 0, value, count, len);
+        }
         count += len;
         return this;
+        // END Android-changed: Compact Latin-1 storage.
     }
 
     // Documentation in subclasses because of synchro difference
@@ -492,11 +743,12 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     private AbstractStringBuilder appendNull() {
         int c = count;
         ensureCapacityInternal(c + 4);
-        final char[] value = this.value;
-        value[c++] = 'n';
-        value[c++] = 'u';
-        value[c++] = 'l';
-        value[c++] = 'l';
+        // BEGIN Android-changed: Compact Latin-1 storage.
+        putAscii(c++, 'n');
+        putAscii(c++, 'u');
+        putAscii(c++, 'l');
+        putAscii(c++, 'l');
+        // END Android-changed: Compact Latin-1 storage.
         count = c;
         return this;
     }
@@ -540,6 +792,16 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
                 + s.length());
         int len = end - start;
         ensureCapacityInternal(count + len);
+        // BEGIN Android-added: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            start = appendLatin1(s, start, end);
+            if (start == end) {
+                return this;
+            }
+            inflate();
+            len = end - start;
+        }
+        // END Android-added: Compact Latin-1 storage.
         for (int i = start, j = count; i < end; i++, j++)
             value[j] = s.charAt(i);
         count += len;
@@ -565,8 +827,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public AbstractStringBuilder append(char[] str) {
         int len = str.length;
         ensureCapacityInternal(count + len);
-        System.arraycopy(str, 0, value, count, len);
-        count += len;
+        // Android-changed: Compact Latin-1 storage.
+        appendChars(str, 0, len);
         return this;
     }
 
@@ -595,10 +857,42 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public AbstractStringBuilder append(char str[], int offset, int len) {
         if (len > 0)                // let arraycopy report AIOOBE for len < 0
             ensureCapacityInternal(count + len);
+        // Android-changed: Compact Latin-1 storage.
+        appendChars(str, offset, len);
+        return this;
+    }
+
+    // BEGIN Android-added: Compact Latin-1 storage.
+    /**
+     * Appends {@code str[offset, offset + len)}, for which there must be room.
+     */
+    private void appendChars(char[] str, int offset, int len) {
+        if (latin1Value != null) {
+            if ((offset | len) < 0 || offset > str.length - len) {
+                throw new ArrayIndexOutOfBoundsException("str.length=" + str.length
+                        + "; offset=" + offset + "; length=" + len);
+            }
+            final byte[] latin1 = latin1Value;
+            int end = offset + len;
+            int j = count;
+            for (; offset < end; offset++) {
+                char c = str[offset];
+                if (c > 0xff) {
+                    break;
+                }
+                latin1[j++] = (byte) c;
+            }
+            count = j;
+            len = end - offset;
+            if (len == 0) {
+                return;
+            }
+            inflate();
+        }
         System.arraycopy(str, offset, value, count, len);
         count += len;
-        return this;
     }
+    // END Android-added: Compact Latin-1 storage.
 
     /**
      * Appends the string representation of the {@code boolean}
@@ -613,20 +907,22 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder append(boolean b) {
+        // BEGIN Android-changed: Compact Latin-1 storage.
         if (b) {
             ensureCapacityInternal(count + 4);
-            value[count++] = 't';
-            value[count++] = 'r';
-            value[count++] = 'u';
-            value[count++] = 'e';
+            putAscii(count++, 't');
+            putAscii(count++, 'r');
+            putAscii(count++, 'u');
+            putAscii(count++, 'e');
         } else {
             ensureCapacityInternal(count + 5);
-            value[count++] = 'f';
-            value[count++] = 'a';
-            value[count++] = 'l';
-            value[count++] = 's';
-            value[count++] = 'e';
+            putAscii(count++, 'f');
+            putAscii(count++, 'a');
+            putAscii(count++, 'l');
+            putAscii(count++, 's');
+            putAscii(count++, 'e');
         }
+        // END Android-changed: Compact Latin-1 storage.
         return this;
     }
 
@@ -648,6 +944,15 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     @Override
     public AbstractStringBuilder append(char c) {
         ensureCapacityInternal(count + 1);
+        // BEGIN Android-added: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            if (c <= 0xff) {
+                latin1Value[count++] = (byte) c;
+                return this;
+            }
+            inflate();
+        }
+        // END Android-added: Compact Latin-1 storage.
         value[count++] = c;
         return this;
     }
@@ -673,7 +978,13 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
                                      : Integer.stringSize(i);
         int spaceNeeded = count + appendedLength;
         ensureCapacityInternal(spaceNeeded);
-        Integer.getChars(i, spaceNeeded, value);
+        // BEGIN Android-changed: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            Integer.getChars(i, spaceNeeded, latin1Value);
+        } else {
+            Integer.getChars(i, spaceNeeded, value);
+        }
+        // END Android-changed: Compact Latin-1 storage.
         count = spaceNeeded;
         return this;
     }
@@ -699,7 +1010,13 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
                                      : Long.stringSize(l);
         int spaceNeeded = count + appendedLength;
         ensureCapacityInternal(spaceNeeded);
-        Long.getChars(l, spaceNeeded, value);
+        // BEGIN Android-changed: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            Long.getChars(l, spaceNeeded, latin1Value);
+        } else {
+            Long.getChars(l, spaceNeeded, value);
+        }
+        // END Android-changed: Compact Latin-1 storage.
         count = spaceNeeded;
         return this;
     }
@@ -761,7 +1078,13 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             throw new StringIndexOutOfBoundsException();
         int len = end - start;
         if (len > 0) {
-            System.arraycopy(value, start+len, value, start, count-end);
+            // BEGIN Android-changed: Compact Latin-1 storage.
+            if (latin1Value != null) {
+                System.arraycopy(latin1Value, start+len, latin1Value, start, count-end);
+            } else {
+                System.arraycopy(value, start+len, value, start, count-end);
+            }
+            // END Android-changed: Compact Latin-1 storage.
             count -= len;
         }
         return this;
@@ -790,11 +1113,12 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         final int count = this.count;
 
         if (Character.isBmpCodePoint(codePoint)) {
-            ensureCapacityInternal(count + 1);
-            value[count] = (char) codePoint;
-            this.count = count + 1;
+            // Android-changed: Compact Latin-1 storage.
+            return append((char) codePoint);
         } else if (Character.isValidCodePoint(codePoint)) {
             ensureCapacityInternal(count + 2);
+            // Android-added: Compact Latin-1 storage.
+            inflate();
             Character.toSurrogates(codePoint, value, count);
             this.count = count + 2;
         } else {
@@ -823,7 +1147,13 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     public AbstractStringBuilder deleteCharAt(int index) {
         if ((index < 0) || (index >= count))
             throw new StringIndexOutOfBoundsException(index);
-        System.arraycopy(value, index+1, value, index, count-index-1);
+        // BEGIN Android-changed: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            System.arraycopy(latin1Value, index+1, latin1Value, index, count-index-1);
+        } else {
+            System.arraycopy(value, index+1, value, index, count-index-1);
+        }
+        // END Android-changed: Compact Latin-1 storage.
         count--;
         return this;
     }
@@ -861,6 +1191,20 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
         int newCount = count + len - (end - start);
         ensureCapacityInternal(newCount);
 
+        // BEGIN Android-added: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            if (canEncodeLatin1(str, 0, len)) {
+                final byte[] latin1 = latin1Value;
+                System.arraycopy(latin1, end, latin1, start + len, count - end);
+                for (int i = 0; i < len; i++) {
+                    latin1[start + i] = (byte) str.charAt(i);
+                }
+                count = newCount;
+                return this;
+            }
+            inflate();
+        }
+        // END Android-added: Compact Latin-1 storage.
         System.arraycopy(value, end, value, start + len, count - end);
         str.getChars(value, start);
         count = newCount;
@@ -934,7 +1278,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             throw new StringIndexOutOfBoundsException(end);
         if (start > end)
             throw new StringIndexOutOfBoundsException(end - start);
-        return new String(value, start, end - start);
+        // Android-changed: Compact Latin-1 storage.
+        return newString(start, end);
     }
 
     /**
@@ -968,8 +1313,8 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
                 "offset " + offset + ", len " + len + ", str.length "
                 + str.length);
         ensureCapacityInternal(count + len);
-        System.arraycopy(value, index, value, index + len, count - index);
-        System.arraycopy(str, offset, value, index, len);
+        // Android-changed: Compact Latin-1 storage.
+        insertChars(index, str, offset, len);
         count += len;
         return this;
     }
@@ -1035,6 +1380,20 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             str = "null";
         int len = str.length();
         ensureCapacityInternal(count + len);
+        // BEGIN Android-added: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            if (canEncodeLatin1(str, 0, len)) {
+                final byte[] latin1 = latin1Value;
+                System.arraycopy(latin1, offset, latin1, offset + len, count - offset);
+                for (int i = 0; i < len; i++) {
+                    latin1[offset + i] = (byte) str.charAt(i);
+                }
+                count += len;
+                return this;
+            }
+            inflate();
+        }
+        // END Android-added: Compact Latin-1 storage.
         System.arraycopy(value, offset, value, offset + len, count - offset);
         str.getChars(value, offset);
         count += len;
@@ -1070,12 +1429,35 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
             throw new StringIndexOutOfBoundsException(offset);
         int len = str.length;
         ensureCapacityInternal(count + len);
-        System.arraycopy(value, offset, value, offset + len, count - offset);
-        System.arraycopy(str, 0, value, offset, len);
+        // Android-changed: Compact Latin-1 storage.
+        insertChars(offset, str, 0, len);
         count += len;
         return this;
     }
 
+    // BEGIN Android-added: Compact Latin-1 storage.
+    /**
+     * Moves the characters from {@code index} on up by {@code len} and copies
+     * {@code str[offset, offset + len)} into the gap. There must be room for them,
+     * and the caller updates {@link #count}.
+     */
+    private void insertChars(int index, char[] str, int offset, int len) {
+        if (latin1Value != null) {
+            if (canEncodeLatin1(str, offset, offset + len)) {
+                final byte[] latin1 = latin1Value;
+                System.arraycopy(latin1, index, latin1, index + len, count - index);
+                for (int i = 0; i < len; i++) {
+                    latin1[index + i] = (byte) str[offset + i];
+                }
+                return;
+            }
+            inflate();
+        }
+        System.arraycopy(value, index, value, index + len, count - index);
+        System.arraycopy(str, offset, value, index, len);
+    }
+    // END Android-added: Compact Latin-1 storage.
+
     /**
      * Inserts the specified {@code CharSequence} into this sequence.
      * <p>
@@ -1161,6 +1543,20 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
                 + s.length());
         int len = end - start;
         ensureCapacityInternal(count + len);
+        // BEGIN Android-added: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            if (canEncodeLatin1(s, start, end)) {
+                final byte[] latin1 = latin1Value;
+                System.arraycopy(latin1, dstOffset, latin1, dstOffset + len,
+                                 count - dstOffset);
+                for (int i=start; i<end; i++)
+                    latin1[dstOffset++] = (byte) s.charAt(i);
+                count += len;
+                return this;
+            }
+            inflate();
+        }
+        // END Android-added: Compact Latin-1 storage.
         System.arraycopy(value, dstOffset, value, dstOffset + len,
                          count - dstOffset);
         for (int i=start; i<end; i++)
@@ -1213,6 +1609,17 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      */
     public AbstractStringBuilder insert(int offset, char c) {
         ensureCapacityInternal(count + 1);
+        // BEGIN Android-added: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            if (c <= 0xff) {
+                System.arraycopy(latin1Value, offset, latin1Value, offset + 1, count - offset);
+                latin1Value[offset] = (byte) c;
+                count += 1;
+                return this;
+            }
+            inflate();
+        }
+        // END Android-added: Compact Latin-1 storage.
         System.arraycopy(value, offset, value, offset + 1, count - offset);
         value[offset] = c;
         count += 1;
@@ -1346,6 +1753,11 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *          specified substring, starting at the specified index.
      */
     public int indexOf(String str, int fromIndex) {
+        // BEGIN Android-added: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            return indexOfLatin1(str, fromIndex);
+        }
+        // END Android-added: Compact Latin-1 storage.
         return String.indexOf(value, 0, count, str, fromIndex);
     }
 
@@ -1385,9 +1797,71 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      *          specified substring.
      */
     public int lastIndexOf(String str, int fromIndex) {
+        // BEGIN Android-added: Compact Latin-1 storage.
+        if (latin1Value != null) {
+            return lastIndexOfLatin1(str, fromIndex);
+        }
+        // END Android-added: Compact Latin-1 storage.
         return String.lastIndexOf(value, 0, count, str, fromIndex);
     }
 
+    // BEGIN Android-added: Compact Latin-1 storage.
+    // These follow String.indexOf(char[], ...) and String.lastIndexOf(char[], ...).
+    private int indexOfLatin1(String str, int fromIndex) {
+        int targetCount = str.length();
+        if (fromIndex >= count) {
+            return (targetCount == 0 ? count : -1);
+        }
+        if (fromIndex < 0) {
+            fromIndex = 0;
+        }
+        if (targetCount == 0) {
+            return fromIndex;
+        }
+        final byte[] latin1 = latin1Value;
+        char first = str.charAt(0);
+        int max = count - targetCount;
+        for (int i = fromIndex; i <= max; i++) {
+            if ((latin1[i] & 0xff) == first && regionMatchesLatin1(i, str, targetCount)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int lastIndexOfLatin1(String str, int fromIndex) {
+        int targetCount = str.length();
+        int rightIndex = count - targetCount;
+        if (fromIndex < 0) {
+            return -1;
+        }
+        if (fromIndex > rightIndex) {
+            fromIndex = rightIndex;
+        }
+        if (targetCount == 0) {
+            return fromIndex;
+        }
+        final byte[] latin1 = latin1Value;
+        char first = str.charAt(0);
+        for (int i = fromIndex; i >= 0; i--) {
+            if ((latin1[i] & 0xff) == first && regionMatchesLatin1(i, str, targetCount)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean regionMatchesLatin1(int start, String str, int len) {
+        final byte[] latin1 = latin1Value;
+        for (int j = 1; j < len; j++) {
+            if ((latin1[start + j] & 0xff) != str.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    // END Android-added: Compact Latin-1 storage.
+
     /**
      * Causes this character sequence to be replaced by the reverse of
      * the sequence. If there are any surrogate pairs included in the
@@ -1411,6 +1885,17 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
      * @return  a reference to this object.
      */
     public AbstractStringBuilder reverse() {
+        // BEGIN Android-added: Compact Latin-1 storage. Latin-1 has no surrogates.
+        if (latin1Value != null) {
+            final byte[] latin1 = latin1Value;
+            for (int j = 0, k = count - 1; j < k; j++, k--) {
+                byte b = latin1[j];
+                latin1[j] = latin1[k];
+                latin1[k] = b;
+            }
+            return this;
+        }
+        // END Android-added: Compact Latin-1 storage.
         boolean hasSurrogates = false;
         int n = count - 1;
         for (int j = (n-1) >> 1; j >= 0; j--) {
@@ -1457,11 +1942,21 @@ abstract class AbstractStringBuilder implements Appendable, CharSequence {
     @Override
     public abstract String toString();
 
+    // Android-changed: Compact Latin-1 storage. Return chars, as callers expect them.
     /**
-     * Needed by {@code String} for the contentEquals method.
+     * Needed by subclasses for serialization. Latin-1 storage is copied to a new
+     * {@code char[]} of {@link #count} characters, leaving this builder unchanged.
      */
     final char[] getValue() {
-        return value;
+        final byte[] latin1 = latin1Value;
+        if (latin1 == null) {
+            return value;
+        }
+        char[] chars = new char[count];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (latin1[i] & 0xff);
+        }
+        return chars;
     }
 
 }
@@ -53,6 +53,7 @@ import java.util.Hashtable;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import dalvik.system.PathClassLoader;
+import jdk.internal.misc.SharedSecrets;
 import java.util.List;
 import sun.misc.CompoundEnumeration;
 import sun.misc.Resource;
@@ -715,6 +716,14 @@ public abstract class ClassLoader {
         return null;
     }
 
+    // BEGIN Android-added: Non-throwing boot class path lookup for BaseDexClassLoader.
+    // Every ClassLoader subclass initializes this class first, so the access is always set
+    // by the time a class loader in another package asks for it.
+    static {
+        SharedSecrets.setJavaLangAccess(BootClassLoader::findClassOrNull);
+    }
+    // END Android-added: Non-throwing boot class path lookup for BaseDexClassLoader.
+
     /**
      * Returns the class with the given <a href="#name">binary name</a> if this
      * loader has been recorded by the Java virtual machine as an initiating
@@ -1346,7 +1355,16 @@ public abstract class ClassLoader {
 
 class BootClassLoader extends ClassLoader {
 
-    private static BootClassLoader instance;
+    // Volatile so that findClassOrNull can read it without taking the getInstance lock.
+    private static volatile BootClassLoader instance;
+
+    /**
+     * Names of classes recently not found on the boot class path. The boot class path
+     * doesn't change, so a miss stays a miss. Each name has a single slot, chosen by its
+     * hash code; a newer miss simply replaces an older one. Strings are immutable, so the
+     * slots can be read and written without a lock.
+     */
+    private static final String[] missedClasses = new String[64];
 
     @FindBugsSuppressWarnings("DP_CREATE_CLASSLOADER_INSIDE_DO_PRIVILEGED")
     public static synchronized BootClassLoader getInstance() {
@@ -1357,6 +1375,35 @@ class BootClassLoader extends ClassLoader {
         return instance;
     }
 
+    /**
+     * Returns the boot class path's class with the given name, or {@code null} if there is
+     * none, without throwing for a miss.
+     */
+    static Class<?> findClassOrNull(String name) {
+        BootClassLoader loader = instance;
+        if (loader == null) {
+            loader = getInstance();
+        }
+        // Given the boot class loader object rather than null, the runtime also searches the
+        // boot class path for classes that aren't loaded yet, and returns null for a miss.
+        Class<?> c = VMClassLoader.findLoadedClass(loader, name);
+        if (c != null) {
+            return c;
+        }
+
+        // Otherwise pay for the exception once per missed name, not on every probe.
+        int slot = name.hashCode() & (missedClasses.length - 1);
+        if (name.equals(missedClasses[slot])) {
+            return null;
+        }
+        try {
+            return Class.classForName(name, false, null);
+        } catch (ClassNotFoundException e) {
+            missedClasses[slot] = name;
+            return null;
+        }
+    }
+
     public BootClassLoader() {
         super(null);
     }
@@ -769,6 +769,17 @@ public final class String
         // END Android-changed: Get length from count field rather than value array (see above).
     }
 
+    // BEGIN Android-added: Expose the compression flag to AbstractStringBuilder.
+    /**
+     * Returns {@code true} if the runtime stores this string as 8-bit characters,
+     * which implies that every character is in the Latin-1 range.
+     */
+    boolean isCompressed() {
+        // The least significant bit of "count" is clear for compressed strings (see length()).
+        return (count & 1) == 0;
+    }
+    // END Android-added: Expose the compression flag to AbstractStringBuilder.
+
     /**
      * Returns the {@code char} value at the
      * specified index. An index ranges from {@code 0} to
@@ -1280,9 +1291,8 @@ public final class String
             return StringUTF16.contentEquals(v1, v2, len);
         }
          */
-        char[] v2 = sb.getValue();
         for (int i = 0; i < len; i++) {
-            if (charAt(i) != v2[i]) {
+            if (charAt(i) != sb.charAtNoCheck(i)) {
                 return false;
             }
         }
@@ -25,7 +25,6 @@
 
 package java.lang;
 
-import java.util.Arrays;
 
 /**
  * A thread-safe, mutable sequence of characters.
@@ -103,7 +102,8 @@ import java.util.Arrays;
      * A cache of the last value returned by toString. Cleared
      * whenever the StringBuffer is modified.
      */
-    private transient char[] toStringCache;
+    // Android-changed: Cache a String, which may be compressed, rather than a char[].
+    private transient String toStringCache;
 
     /** use serialVersionUID from JDK 1.0.2 for interoperability */
     static final long serialVersionUID = 3388685877147921107L;
@@ -165,7 +165,8 @@ import java.util.Arrays;
 
     @Override
     public synchronized int capacity() {
-        return value.length;
+        // Android-changed: Compact Latin-1 storage.
+        return super.capacity();
     }
 
 
@@ -200,7 +201,8 @@ import java.util.Arrays;
     public synchronized char charAt(int index) {
         if ((index < 0) || (index >= count))
             throw new StringIndexOutOfBoundsException(index);
-        return value[index];
+        // Android-changed: Compact Latin-1 storage.
+        return charAtNoCheck(index);
     }
 
     /**
@@ -254,7 +256,8 @@ import java.util.Arrays;
         if ((index < 0) || (index >= count))
             throw new StringIndexOutOfBoundsException(index);
         toStringCache = null;
-        value[index] = ch;
+        // Android-changed: Compact Latin-1 storage.
+        super.setCharAt(index, ch);
     }
 
     @Override
@@ -665,10 +668,12 @@ import java.util.Arrays;
 
     @Override
     public synchronized String toString() {
+        // BEGIN Android-changed: Compact Latin-1 storage.
         if (toStringCache == null) {
-            toStringCache = Arrays.copyOfRange(value, 0, count);
+            return toStringCache = newString(0, count);
         }
-        return new String(toStringCache, 0, count);
+        return new String(toStringCache);
+        // END Android-changed: Compact Latin-1 storage.
     }
 
     /**
@@ -696,7 +701,8 @@ import java.util.Arrays;
     private synchronized void writeObject(java.io.ObjectOutputStream s)
         throws java.io.IOException {
         java.io.ObjectOutputStream.PutField fields = s.putFields();
-        fields.put("value", value);
+        // Android-changed: Compact Latin-1 storage. Keep the serialized form a char[].
+        fields.put("value", getValue());
         fields.put("count", count);
         fields.put("shared", false);
         s.writeFields();
@@ -410,7 +410,8 @@ public final class StringBuilder
         }
         // END Android-added: Return a constant "" for an empty buffer to keep historic behavior.
         // Create a copy, don't share the array
-        return new String(value, 0, count);
+        // Android-changed: Compact Latin-1 storage.
+        return newString(0, count);
     }
 
     /**
@@ -428,7 +429,8 @@ public final class StringBuilder
         throws java.io.IOException {
         s.defaultWriteObject();
         s.writeInt(count);
-        s.writeObject(value);
+        // Android-changed: Compact Latin-1 storage. Keep the serialized form a char[].
+        s.writeObject(getValue());
     }
 
     /**
@@ -48,6 +48,7 @@ public class ReferenceQueue<T> {
     // the OpenJdk implementation is LIFO (stack-like).
     private Reference<? extends T> head = null;
     private Reference<? extends T> tail = null;
+    private int queuedCount = 0;  // @GuardedBy("lock")
 
     private final Object lock = new Object();
 
@@ -92,6 +93,7 @@ public class ReferenceQueue<T> {
         }
         tail = r;
         tail.queueNext = r;
+        queuedCount++;
         return true;
     }
 
@@ -105,6 +107,15 @@ public class ReferenceQueue<T> {
         return currentQueue;
     }
 
+    /**
+     * Returns the number of references currently waiting in this queue. Read without
+     * synchronization, so may be slightly stale; meant for statistics only.
+     * @hide
+     */
+    public int getQueuedCount() {
+        return queuedCount;
+    }
+
     /**
      * Test if the given reference object has been enqueued but not yet
      * removed from the queue, assuming this is the reference object's queue.
@@ -146,6 +157,7 @@ public class ReferenceQueue<T> {
             // Update queueNext to indicate that the reference has been
             // enqueued, but is now removed from the queue.
             r.queueNext = sQueueNextUnenqueued;
+            queuedCount--;
             return r;
         }
 
@@ -224,49 +236,95 @@ public class ReferenceQueue<T> {
         return remove(0);
     }
 
+    // The most queues enqueuePending groups references for at once.
+    private static final int PENDING_SHARDS = 8;
+    // The most references enqueuePending groups before enqueueing them.
+    private static final int PENDING_BATCH = 128;
+
+    // Per-queue groups (shards) of pending references, each linked through pendingNext from
+    // head to tail. Preallocated, so that enqueuePending never allocates and can't lose
+    // references to an OutOfMemoryError. Guarded by themselves.
+    private static final ReferenceQueue[] shardQueues = new ReferenceQueue[PENDING_SHARDS];
+    private static final Reference[] shardHeads = new Reference[PENDING_SHARDS];
+    private static final Reference[] shardTails = new Reference[PENDING_SHARDS];
+
     /**
      * Enqueue the given list of currently pending (unenqueued) references.
      *
+     * @return the number of references in the list
      * @hide
      */
-    public static void enqueuePending(Reference<?> list, AtomicInteger progressCounter) {
-        Reference<?> start = list;
-        do {
-            ReferenceQueue queue = list.queue;
-            currentQueue = queue;
-            if (queue == null) {
-                Reference<?> next = list.pendingNext;
-
-                // Make pendingNext a self-loop to preserve the invariant that
-                // once enqueued, pendingNext is non-null -- without leaking
-                // the object pendingNext was previously pointing to.
-                list.pendingNext = list;
-                list = next;
-            } else {
-                // To improve performance, we try to avoid repeated
-                // synchronization on the same queue by batching enqueueing of
-                // consecutive references in the list that have the same
-                // queue. We limit this so that progressCounter gets incremented
-                // occasionally,
-                final int MAX_ITERS = 100;
-                int i = 0;
-                synchronized (queue.lock) {
-                    do {
-                        Reference<?> next = list.pendingNext;
-
-                        // Make pendingNext a self-loop to preserve the
-                        // invariant that once enqueued, pendingNext is
-                        // non-null -- without leaking the object pendingNext
-                        // was previously pointing to.
+    public static int enqueuePending(Reference<?> list, AtomicInteger progressCounter) {
+        // The GC produces references for many queues interleaved, so instead of taking the lock
+        // of each queue once per run of consecutive references, group a batch of references by
+        // queue and enqueue each group under a single acquisition of its lock, preserving the
+        // order of the references within each queue. Each group is followed by a
+        // progressCounter increment.
+        synchronized (shardQueues) {
+            Reference<?> start = list;
+            int total = 0;
+            do {
+                int shards = 0;
+                int count = 0;
+                do {
+                    ReferenceQueue queue = list.queue;
+                    Reference<?> next = list.pendingNext;
+                    if (queue == null) {
+                        // Make pendingNext a self-loop to preserve the invariant that
+                        // once enqueued, pendingNext is non-null -- without leaking
+                        // the object pendingNext was previously pointing to.
                         list.pendingNext = list;
-                        queue.enqueueLocked(list);
-                        list = next;
-                    } while (list != start && list.queue == queue && ++i <= MAX_ITERS);
-                    queue.lock.notifyAll();
+                    } else {
+                        int shard = 0;
+                        while (shard < shards && shardQueues[shard] != queue) {
+                            shard++;
+                        }
+                        if (shard == shards) {
+                            if (shards == PENDING_SHARDS) {
+                                // Out of shards; leave this reference for the next batch.
+                                break;
+                            }
+                            shardQueues[shard] = queue;
+                            shardHeads[shard] = list;
+                            shards++;
+                        } else {
+                            shardTails[shard].pendingNext = list;
+                        }
+                        shardTails[shard] = list;
+                    }
+                    list = next;
+                    total++;
+                } while (list != start && ++count < PENDING_BATCH);
+
+                for (int shard = 0; shard < shards; shard++) {
+                    ReferenceQueue queue = shardQueues[shard];
+                    Reference<?> reference = shardHeads[shard];
+                    Reference<?> tail = shardTails[shard];
+                    shardQueues[shard] = null;
+                    shardHeads[shard] = null;
+                    shardTails[shard] = null;
+                    currentQueue = queue;
+                    synchronized (queue.lock) {
+                        while (true) {
+                            Reference<?> next = reference.pendingNext;
+                            // As above, pendingNext becomes a self-loop.
+                            reference.pendingNext = reference;
+                            queue.enqueueLocked(reference);
+                            if (reference == tail) {
+                                break;
+                            }
+                            reference = next;
+                        }
+                        queue.lock.notifyAll();
+                    }
+                    progressCounter.incrementAndGet();
                 }
-            }
-            progressCounter.incrementAndGet();
-        } while (list != start);
+                if (shards == 0) {
+                    progressCounter.incrementAndGet();
+                }
+            } while (list != start);
+            return total;
+        }
     }
 
     /**
@@ -32,8 +32,11 @@ import java.io.IOException;
 import java.nio.channels.FileChannel;
 
 import dalvik.system.BlockGuard;
+import libcore.io.ManagedBlockingExecutor;
 import sun.net.ConnectionResetException;
 
+import static android.system.OsConstants.POLLIN;
+
 /**
  * This stream extends FileInputStream to implement a
  * SocketInputStream. Note that this class should <b>NOT</b> be
@@ -170,6 +173,10 @@ class SocketInputStream extends FileInputStream {
         try {
             // Android-added: Check BlockGuard policy in read().
             BlockGuard.getThreadPolicy().onNetwork();
+            // Android-added: Wait for input without blocking a ManagedBlockingExecutor carrier.
+            if (!ManagedBlockingExecutor.awaitReady(fd, POLLIN, timeout > 0 ? timeout : -1)) {
+                throw new SocketTimeoutException("Read timed out");
+            }
             n = socketRead(fd, b, off, length, timeout);
             if (n > 0) {
                 return n;
@@ -50,6 +50,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
@@ -814,6 +815,9 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
      */
     private transient volatile CounterCell[] counterCells;
 
+    // Android-added: Optional statistics, see setStatisticsEnabled.
+    private transient volatile Statistics statistics;
+
     // views
     private transient KeySetView<K,V> keySet;
     private transient ValuesView<K,V> values;
@@ -1018,6 +1022,8 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
             else if ((f = tabAt(tab, i = (n - 1) & hash)) == null) {
                 if (casTabAt(tab, i, null, new Node<K,V>(hash, key, value)))
                     break;                   // no lock when adding to empty bin
+                // Android-added: Optional statistics.
+                recordBinContention();
             }
             else if ((fh = f.hash) == MOVED)
                 tab = helpTransfer(tab, f);
@@ -1070,6 +1076,8 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
                         return oldVal;
                     break;
                 }
+                // Android-added: Optional statistics.
+                recordBinContention();
             }
         }
         addCount(1L, binCount);
@@ -1089,6 +1097,125 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
             putVal(e.getKey(), e.getValue(), false);
     }
 
+    // BEGIN Android-added: Bulk loading.
+    /**
+     * Copies all of the mappings from the specified map to this one, as
+     * {@link #putAll} does, but sizes the table once for the combined
+     * number of mappings and, given at least {@code parallelismThreshold}
+     * of them, inserts them in parallel. Each parallel task inserts into
+     * its own range of bins, so tasks do not contend for bin locks.
+     *
+     * @param m mappings to be stored in this map
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @throws NullPointerException if the specified map contains a null
+     * key or value; no mappings are copied in that case
+     * @hide
+     */
+    public void bulkLoad(Map<? extends K, ? extends V> m,
+                         long parallelismThreshold) {
+        int n = m.size();
+        Object[] keys = new Object[n];
+        Object[] vals = new Object[n];
+        int i = 0;
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+            if (i == n) { // m grew while being copied
+                keys = Arrays.copyOf(keys, n = n + (n >>> 1) + 1);
+                vals = Arrays.copyOf(vals, n);
+            }
+            keys[i] = e.getKey();
+            vals[i++] = e.getValue();
+        }
+        bulkLoad(keys, vals, i, parallelismThreshold);
+    }
+
+    /**
+     * Maps each of the given keys to the value at the same index, as
+     * {@link #bulkLoad(Map, long)} does.
+     *
+     * @param keys keys to be stored in this map
+     * @param values values to be stored in this map
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @throws IllegalArgumentException if the arrays differ in length
+     * @throws NullPointerException if any key or value is null; no
+     * mappings are stored in that case
+     * @hide
+     */
+    public void bulkLoad(K[] keys, V[] values, long parallelismThreshold) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException("keys.length != values.length");
+        bulkLoad(keys, values, keys.length, parallelismThreshold);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void bulkLoad(Object[] keys, Object[] vals, int n,
+                          long parallelismThreshold) {
+        int[] hashes = new int[n];
+        for (int i = 0; i < n; ++i) {
+            if (keys[i] == null || vals[i] == null)
+                throw new NullPointerException();
+            hashes[i] = spread(keys[i].hashCode());
+        }
+        tryPresize((int)Math.min(sumCount() + n, (long)Integer.MAX_VALUE));
+        Node<K,V>[] tab = table;
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (n == 0 || n < parallelismThreshold || parallelism <= 1 || tab == null) {
+            for (int i = 0; i < n; ++i)
+                putVal((K)keys[i], (V)vals[i], false);
+            return;
+        }
+        // Group the mappings by range of bins, as a counting sort of
+        // indices, so that each stripe of the table has its own task.
+        int stripes = Math.min(Integer.highestOneBit(parallelism << 2), // slack of 4
+                               tab.length);
+        int shift = Integer.numberOfTrailingZeros(tab.length)
+            - Integer.numberOfTrailingZeros(stripes);
+        int mask = tab.length - 1;
+        int[] starts = new int[stripes + 1];
+        for (int i = 0; i < n; ++i)
+            ++starts[((hashes[i] & mask) >>> shift) + 1];
+        for (int s = 0; s < stripes; ++s)
+            starts[s + 1] += starts[s];
+        int[] next = Arrays.copyOf(starts, stripes);
+        int[] order = new int[n];
+        for (int i = 0; i < n; ++i)
+            order[next[(hashes[i] & mask) >>> shift]++] = i;
+        ForkJoinPool.commonPool().invoke(
+            new BulkLoadTask<K,V>(this, keys, vals, order, starts, 0, stripes));
+    }
+
+    /**
+     * Inserts the mappings of a range of stripes for bulkLoad.
+     */
+    @SuppressWarnings("serial")
+    static final class BulkLoadTask<K,V> extends RecursiveAction {
+        final ConcurrentHashMap<K,V> map;
+        final Object[] keys, vals;
+        final int[] order, starts;
+        final int lo, hi;
+        BulkLoadTask(ConcurrentHashMap<K,V> map, Object[] keys, Object[] vals,
+                     int[] order, int[] starts, int lo, int hi) {
+            this.map = map; this.keys = keys; this.vals = vals;
+            this.order = order; this.starts = starts; this.lo = lo; this.hi = hi;
+        }
+        @SuppressWarnings("unchecked")
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new BulkLoadTask<K,V>(map, keys, vals, order, starts, lo, mid),
+                          new BulkLoadTask<K,V>(map, keys, vals, order, starts, mid, hi));
+            }
+            else {
+                for (int j = starts[lo]; j < starts[hi]; ++j) {
+                    int i = order[j];
+                    map.putVal((K)keys[i], (V)vals[i], false);
+                }
+            }
+        }
+    }
+    // END Android-added: Bulk loading.
+
     /**
      * Removes the key (and its corresponding value) from this map.
      * This method does nothing if the key is not in the map.
@@ -1175,6 +1302,8 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
                     }
                     break;
                 }
+                // Android-added: Optional statistics.
+                recordBinContention();
             }
         }
         return null;
@@ -2349,8 +2478,11 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
                         transfer(tab, nt);
                 }
                 else if (U.compareAndSetInt(this, SIZECTL, sc,
-                                             (rs << RESIZE_STAMP_SHIFT) + 2))
+                                             (rs << RESIZE_STAMP_SHIFT) + 2)) {
+                    // Android-added: Optional statistics.
+                    recordResizeStart();
                     transfer(tab, null);
+                }
                 s = sumCount();
             }
         }
@@ -2410,8 +2542,11 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
             else if (tab == table) {
                 int rs = resizeStamp(n);
                 if (U.compareAndSetInt(this, SIZECTL, sc,
-                                        (rs << RESIZE_STAMP_SHIFT) + 2))
+                                        (rs << RESIZE_STAMP_SHIFT) + 2)) {
+                    // Android-added: Optional statistics.
+                    recordResizeStart();
                     transfer(tab, null);
+                }
             }
         }
     }
@@ -2465,6 +2600,8 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
                     nextTable = null;
                     table = nextTab;
                     sizeCtl = (n << 1) - (n >>> 1);
+                    // Android-added: Optional statistics.
+                    recordResizeEnd();
                     return;
                 }
                 if (U.compareAndSetInt(this, SIZECTL, sc = sizeCtl, sc - 1)) {
@@ -3668,6 +3805,127 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
         }
     }
 
+    // BEGIN Android-added: Optional statistics.
+    /**
+     * Starts or stops collecting {@link Statistics} for this map. Starting
+     * discards any statistics collected so far. While stopped, which is the
+     * default, collecting costs one volatile read per update.
+     *
+     * @hide
+     */
+    public void setStatisticsEnabled(boolean enabled) {
+        statistics = enabled ? new Statistics() : null;
+    }
+
+    /**
+     * Returns the statistics collected since they were last enabled, or
+     * null if they are not enabled.
+     *
+     * @hide
+     */
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    private void recordBinContention() {
+        Statistics st = statistics;
+        if (st != null)
+            st.contendedBinUpdates.incrementAndGet();
+    }
+
+    private void recordResizeStart() {
+        Statistics st = statistics;
+        if (st != null) {
+            st.resizes.incrementAndGet();
+            st.resizeStartNanos = System.nanoTime();
+        }
+    }
+
+    private void recordResizeEnd() {
+        Statistics st = statistics;
+        long start;
+        if (st != null && (start = st.resizeStartNanos) != 0L) {
+            st.transferNanos.addAndGet(System.nanoTime() - start);
+            st.resizeStartNanos = 0L;
+        }
+    }
+
+    /**
+     * Counters for tuning a map's initial capacity and the parallelism
+     * thresholds of its bulk operations. The counts are updated as the map
+     * is used, and so are only approximate while it is being updated.
+     *
+     * @hide
+     */
+    public static final class Statistics {
+        final AtomicLong resizes = new AtomicLong();
+        final AtomicLong transferNanos = new AtomicLong();
+        final AtomicLong contendedBinUpdates = new AtomicLong();
+        final AtomicLong bulkOperations = new AtomicLong();
+        final AtomicLong parallelBulkOperations = new AtomicLong();
+        final AtomicLong bulkBatches = new AtomicLong();
+        // Start of the resize in progress, or 0. Resizes do not overlap.
+        volatile long resizeStartNanos;
+
+        Statistics() {
+        }
+
+        void recordBulkOperation(int batch) {
+            bulkOperations.incrementAndGet();
+            if (batch > 0) {
+                parallelBulkOperations.incrementAndGet();
+                bulkBatches.addAndGet(batch);
+            }
+        }
+
+        /** Returns the number of times the table has grown. */
+        public long getResizeCount() {
+            return resizes.get();
+        }
+
+        /**
+         * Returns the total time from the start of each resize to when the
+         * new table was installed, across all of the threads that helped.
+         */
+        public long getTransferNanos() {
+            return transferNanos.get();
+        }
+
+        /**
+         * Returns the number of puts and removes that had to be retried,
+         * because another thread updated or moved their bin first.
+         */
+        public long getContendedBinCount() {
+            return contendedBinUpdates.get();
+        }
+
+        /**
+         * Returns the number of forEach, search and reduce operations.
+         */
+        public long getBulkOperationCount() {
+            return bulkOperations.get();
+        }
+
+        /**
+         * Returns the number of bulk operations that were large enough for
+         * their parallelism threshold to split into parallel tasks.
+         */
+        public long getParallelBulkOperationCount() {
+            return parallelBulkOperations.get();
+        }
+
+        /**
+         * Returns the sum of the batch values that parallel bulk operations
+         * were split by. A batch value is roughly the number of leaf tasks
+         * an operation may fork, so dividing this by the number of parallel
+         * operations gives the average parallelism they asked for.
+         */
+        public long getBulkBatchCount() {
+            return bulkBatches.get();
+        }
+    }
+    // END Android-added: Optional statistics.
+
     // Parallel bulk operations
 
     /**
@@ -3679,11 +3937,26 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
      * two anyway.
      */
     final int batchFor(long b) {
+        // BEGIN Android-changed: Optional statistics.
+        /*
         long n;
         if (b == Long.MAX_VALUE || (n = sumCount()) <= 1L || n < b)
             return 0;
         int sp = ForkJoinPool.getCommonPoolParallelism() << 2; // slack of 4
         return (b <= 0L || (n /= b) >= sp) ? sp : (int)n;
+        */
+        long n; int batch;
+        if (b == Long.MAX_VALUE || (n = sumCount()) <= 1L || n < b)
+            batch = 0;
+        else {
+            int sp = ForkJoinPool.getCommonPoolParallelism() << 2; // slack of 4
+            batch = (b <= 0L || (n /= b) >= sp) ? sp : (int)n;
+        }
+        Statistics st = statistics;
+        if (st != null)
+            st.recordBulkOperation(batch);
+        return batch;
+        // END Android-changed: Optional statistics.
     }
 
     /**
@@ -46,6 +46,7 @@ import java.security.PrivilegedExceptionAction;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import libcore.util.StripedBlockingQueue;
 import sun.security.util.SecurityConstants;
 
 // BEGIN android-note
@@ -163,6 +164,31 @@ public class Executors {
                                       threadFactory);
     }
 
+    // BEGIN Android-added: Fixed thread pool over a striped work queue.
+    /**
+     * Creates a thread pool like {@link #newFixedThreadPool(int,
+     * ThreadFactory)}, except that its queue is a {@link
+     * StripedBlockingQueue}: submitting and taking tasks do not contend
+     * on a shared lock, at the cost of tasks only being started in
+     * submission order per submitting thread. Pool sizing, rejection
+     * and shutdown behave as for any other {@link ThreadPoolExecutor}.
+     *
+     * @param nThreads the number of threads in the pool
+     * @param threadFactory the factory to use when creating new threads
+     * @return the newly created thread pool
+     * @throws NullPointerException if threadFactory is null
+     * @throws IllegalArgumentException if {@code nThreads <= 0}
+     * @hide
+     */
+    public static ExecutorService newStripedThreadPool(int nThreads,
+                                                       ThreadFactory threadFactory) {
+        return new ThreadPoolExecutor(nThreads, nThreads,
+                                      0L, TimeUnit.MILLISECONDS,
+                                      new StripedBlockingQueue<Runnable>(),
+                                      threadFactory);
+    }
+    // END Android-added: Fixed thread pool over a striped work queue.
+
     /**
      * Creates an Executor that uses a single worker thread operating
      * off an unbounded queue. (Note however that if this single
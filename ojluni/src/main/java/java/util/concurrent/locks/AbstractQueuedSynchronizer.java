@@ -37,9 +37,13 @@ package java.util.concurrent.locks;
 
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -579,6 +583,13 @@ public abstract class AbstractQueuedSynchronizer
      */
     private volatile int state;
 
+    // Android-added: Adaptive spinning and contention profiling.
+    /**
+     * Spin and profiling state, created on first contention while
+     * either is enabled.
+     */
+    private transient volatile Contention contention;
+
     /**
      * Returns the current value of synchronization state.
      * This operation has memory semantics of a {@code volatile} read.
@@ -1236,9 +1247,26 @@ public abstract class AbstractQueuedSynchronizer
      *        can represent anything you like.
      */
     public final void acquire(int arg) {
+        // BEGIN Android-changed: Adaptive spinning and contention profiling.
+        /*
         if (!tryAcquire(arg) &&
             acquireQueued(addWaiter(Node.EXCLUSIVE), arg))
             selfInterrupt();
+        */
+        if (!tryAcquire(arg)) {
+            if (contentionMode == 0) {
+                if (acquireQueued(addWaiter(Node.EXCLUSIVE), arg))
+                    selfInterrupt();
+                return;
+            }
+            long start = System.nanoTime();
+            Contention c = contention();
+            boolean spun = spinAcquire(c, arg, false, start);
+            if (!spun && acquireQueued(addWaiter(Node.EXCLUSIVE), arg))
+                selfInterrupt();
+            c.recordWait(this, System.nanoTime() - start, spun);
+        }
+        // END Android-changed: Adaptive spinning and contention profiling.
     }
 
     /**
@@ -1259,8 +1287,24 @@ public abstract class AbstractQueuedSynchronizer
             throws InterruptedException {
         if (Thread.interrupted())
             throw new InterruptedException();
+        // BEGIN Android-changed: Adaptive spinning and contention profiling.
+        /*
         if (!tryAcquire(arg))
             doAcquireInterruptibly(arg);
+        */
+        if (!tryAcquire(arg)) {
+            if (contentionMode == 0) {
+                doAcquireInterruptibly(arg);
+                return;
+            }
+            long start = System.nanoTime();
+            Contention c = contention();
+            boolean spun = spinAcquire(c, arg, false, start);
+            if (!spun)
+                doAcquireInterruptibly(arg);
+            c.recordWait(this, System.nanoTime() - start, spun);
+        }
+        // END Android-changed: Adaptive spinning and contention profiling.
     }
 
     /**
@@ -1320,8 +1364,24 @@ public abstract class AbstractQueuedSynchronizer
      *        and can represent anything you like.
      */
     public final void acquireShared(int arg) {
+        // BEGIN Android-changed: Adaptive spinning and contention profiling.
+        /*
         if (tryAcquireShared(arg) < 0)
             doAcquireShared(arg);
+        */
+        if (tryAcquireShared(arg) < 0) {
+            if (contentionMode == 0) {
+                doAcquireShared(arg);
+                return;
+            }
+            long start = System.nanoTime();
+            Contention c = contention();
+            boolean spun = spinAcquire(c, arg, true, start);
+            if (!spun)
+                doAcquireShared(arg);
+            c.recordWait(this, System.nanoTime() - start, spun);
+        }
+        // END Android-changed: Adaptive spinning and contention profiling.
     }
 
     /**
@@ -1341,8 +1401,24 @@ public abstract class AbstractQueuedSynchronizer
             throws InterruptedException {
         if (Thread.interrupted())
             throw new InterruptedException();
+        // BEGIN Android-changed: Adaptive spinning and contention profiling.
+        /*
         if (tryAcquireShared(arg) < 0)
             doAcquireSharedInterruptibly(arg);
+        */
+        if (tryAcquireShared(arg) < 0) {
+            if (contentionMode == 0) {
+                doAcquireSharedInterruptibly(arg);
+                return;
+            }
+            long start = System.nanoTime();
+            Contention c = contention();
+            boolean spun = spinAcquire(c, arg, true, start);
+            if (!spun)
+                doAcquireSharedInterruptibly(arg);
+            c.recordWait(this, System.nanoTime() - start, spun);
+        }
+        // END Android-changed: Adaptive spinning and contention profiling.
     }
 
     /**
@@ -2296,10 +2372,322 @@ public abstract class AbstractQueuedSynchronizer
         }
     }
 
+    // BEGIN Android-added: Adaptive spinning and contention profiling.
+    /*
+     * Both features only affect acquires that fail their first attempt,
+     * and cost a single volatile read of contentionMode there while
+     * disabled. Their per-synchronizer state is kept in a Contention
+     * object created on first use, so that synchronizers that are never
+     * contended stay small.
+     *
+     * Spinning retries the acquire for up to spinLimitNanos before
+     * queueing, but only while no thread is queued already: queued
+     * threads are woken in order, so a spinner would otherwise either
+     * barge past them or spin in vain. The limit adapts to the time
+     * recent spins took to succeed, which approximates how long the
+     * synchronizer is held: a successful spin raises it to twice the
+     * time taken, and a failed one halves it, down to a floor at which a
+     * failed spin costs little compared with parking.
+     */
+
+    private static final int SPINNING = 1;
+    private static final int PROFILING = 2;
+
+    private static final long MIN_SPIN_NANOS = 1000L;
+    private static final long MAX_SPIN_NANOS = 50000L;
+    private static final boolean MULTIPROCESSOR =
+        Runtime.getRuntime().availableProcessors() > 1;
+
+    /** Histogram buckets of wait times; see ContentionSnapshot. */
+    private static final int HISTOGRAM_BUCKETS = 10;
+
+    /** Bit set of SPINNING and PROFILING. */
+    private static volatile int contentionMode;
+
+    /** Incremented whenever profiling is enabled, to discard old profiles. */
+    private static volatile int profileGeneration;
+
+    /** Synchronizers with profiles. Guarded by itself. */
+    private static final ArrayList<WeakReference<AbstractQueuedSynchronizer>>
+        profiled = new ArrayList<>();
+
+    /**
+     * Enables or disables spinning for a short, adaptive time before a
+     * contended acquire queues and parks. This applies to the untimed
+     * acquire methods of every synchronizer. Spinning is disabled by
+     * default.
+     *
+     * @hide
+     */
+    public static void setAdaptiveSpinningEnabled(boolean enabled) {
+        setContentionMode(SPINNING, enabled);
+    }
+
+    /**
+     * Enables or disables recording, for each synchronizer, how often
+     * and for how long its untimed acquires waited. Enabling discards
+     * any previous profiles. Profiling is disabled by default.
+     *
+     * @hide
+     */
+    public static void setContentionProfilingEnabled(boolean enabled) {
+        if (enabled) {
+            synchronized (profiled) {
+                profileGeneration++;
+                profiled.clear();
+            }
+        }
+        setContentionMode(PROFILING, enabled);
+    }
+
+    private static synchronized void setContentionMode(int bit, boolean enabled) {
+        contentionMode = enabled ? (contentionMode | bit) : (contentionMode & ~bit);
+    }
+
+    /**
+     * Returns a snapshot of the profile of every synchronizer that has
+     * waited since profiling was last enabled, the longest total wait
+     * first.
+     *
+     * @hide
+     */
+    public static List<ContentionSnapshot> getContentionSnapshots() {
+        // Snapshot outside the lock on profiled, which recordWait takes
+        // only after releasing the profile's own lock.
+        ArrayList<AbstractQueuedSynchronizer> syncs = new ArrayList<>();
+        synchronized (profiled) {
+            for (int i = profiled.size() - 1; i >= 0; i--) {
+                AbstractQueuedSynchronizer sync = profiled.get(i).get();
+                if (sync == null)
+                    profiled.remove(i);
+                else
+                    syncs.add(sync);
+            }
+        }
+        ArrayList<ContentionSnapshot> snapshots = new ArrayList<>();
+        for (AbstractQueuedSynchronizer sync : syncs) {
+            Contention c = sync.contention;
+            ContentionSnapshot snapshot;
+            if (c != null && (snapshot = c.snapshot(sync)) != null)
+                snapshots.add(snapshot);
+        }
+        snapshots.sort(new Comparator<ContentionSnapshot>() {
+            public int compare(ContentionSnapshot a, ContentionSnapshot b) {
+                return Long.compare(b.getTotalWaitNanos(), a.getTotalWaitNanos());
+            }
+        });
+        return snapshots;
+    }
+
+    /**
+     * Returns a snapshot of this synchronizer's profile, or null if it
+     * has not waited since profiling was last enabled.
+     *
+     * @hide
+     */
+    public final ContentionSnapshot getContentionSnapshot() {
+        Contention c = contention;
+        return (c == null) ? null : c.snapshot(this);
+    }
+
+    private Contention contention() {
+        Contention c = contention;
+        if (c == null) {
+            c = new Contention();
+            if (!CONTENTION.compareAndSet(this, null, c))
+                c = contention;
+        }
+        return c;
+    }
+
+    /**
+     * Retries the acquire until it succeeds or the spin limit elapses.
+     *
+     * @return {@code true} if acquired
+     */
+    private boolean spinAcquire(Contention c, int arg, boolean shared, long start) {
+        if ((contentionMode & SPINNING) == 0 || !MULTIPROCESSOR || head != tail)
+            return false;
+        long limit = c.spinLimitNanos;
+        long elapsed;
+        do {
+            Thread.onSpinWait();
+            if (shared ? tryAcquireShared(arg) >= 0 : tryAcquire(arg)) {
+                elapsed = System.nanoTime() - start;
+                c.spinLimitNanos = Math.min(Math.max(limit, elapsed << 1), MAX_SPIN_NANOS);
+                return true;
+            }
+        } while ((elapsed = System.nanoTime() - start) < limit);
+        c.spinLimitNanos = Math.max(limit >>> 1, MIN_SPIN_NANOS);
+        return false;
+    }
+
+    /**
+     * Spin and profiling state of one synchronizer.
+     */
+    static final class Contention {
+        volatile long spinLimitNanos = MIN_SPIN_NANOS << 2;
+
+        // The profile. Guarded by this.
+        private int generation = -1;
+        private long waits;
+        private long spinAcquires;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+        private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+        private StackTraceElement firstWaitedAt;
+
+        void recordWait(AbstractQueuedSynchronizer sync, long nanos, boolean spun) {
+            if ((contentionMode & PROFILING) == 0)
+                return;
+            int currentGeneration = profileGeneration;
+            StackTraceElement site = null;
+            if (generation != currentGeneration)
+                site = callerOf(new Throwable().getStackTrace());
+            boolean first = false;
+            synchronized (this) {
+                if (generation != currentGeneration) {
+                    generation = currentGeneration;
+                    waits = spinAcquires = totalWaitNanos = maxWaitNanos = 0L;
+                    Arrays.fill(histogram, 0L);
+                    firstWaitedAt = site;
+                    first = true;
+                }
+                waits++;
+                if (spun)
+                    spinAcquires++;
+                totalWaitNanos += nanos;
+                maxWaitNanos = Math.max(maxWaitNanos, nanos);
+                histogram[ContentionSnapshot.bucketOf(nanos)]++;
+            }
+            // Registered only after releasing this, so that the two locks
+            // are never held together. If profiling was re-enabled
+            // meanwhile, this profile is stale: leave it out, and let the
+            // next wait start and register a current one.
+            if (first) {
+                synchronized (profiled) {
+                    if (profileGeneration == currentGeneration)
+                        profiled.add(new WeakReference<>(sync));
+                }
+            }
+        }
+
+        synchronized ContentionSnapshot snapshot(AbstractQueuedSynchronizer sync) {
+            if (generation != profileGeneration || waits == 0L)
+                return null;
+            return new ContentionSnapshot(sync, firstWaitedAt, waits, spinAcquires,
+                    totalWaitNanos, maxWaitNanos, histogram.clone());
+        }
+
+        /** Returns the first frame outside java.util.concurrent. */
+        private static StackTraceElement callerOf(StackTraceElement[] stack) {
+            for (StackTraceElement frame : stack) {
+                if (!frame.getClassName().startsWith("java.util.concurrent."))
+                    return frame;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * How often, and for how long, the untimed acquires of one
+     * synchronizer waited while contention profiling was enabled. Waits
+     * are measured from the failure of the first attempt to acquire until
+     * the acquire succeeded, whether by spinning or after parking.
+     *
+     * @hide
+     */
+    public static final class ContentionSnapshot {
+        private final AbstractQueuedSynchronizer synchronizer;
+        private final StackTraceElement firstWaitedAt;
+        private final long waitCount;
+        private final long spinAcquireCount;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final long[] histogram;
+
+        ContentionSnapshot(AbstractQueuedSynchronizer synchronizer,
+                StackTraceElement firstWaitedAt, long waitCount, long spinAcquireCount,
+                long totalWaitNanos, long maxWaitNanos, long[] histogram) {
+            this.synchronizer = synchronizer;
+            this.firstWaitedAt = firstWaitedAt;
+            this.waitCount = waitCount;
+            this.spinAcquireCount = spinAcquireCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.histogram = histogram;
+        }
+
+        /** Bucket i holds waits of less than 1 microsecond times 4^i. */
+        static int bucketOf(long nanos) {
+            int bucket = 0;
+            for (long bound = 1000L; nanos >= bound && bucket < HISTOGRAM_BUCKETS - 1;
+                    bound <<= 2) {
+                bucket++;
+            }
+            return bucket;
+        }
+
+        /**
+         * Returns the synchronizer, such as the {@code Sync} of a
+         * {@link ReentrantLock}, that waited.
+         */
+        public AbstractQueuedSynchronizer getSynchronizer() {
+            return synchronizer;
+        }
+
+        /**
+         * Returns the caller of the first acquire that waited, or null if
+         * it was not found.
+         */
+        public StackTraceElement getFirstWaitedAt() {
+            return firstWaitedAt;
+        }
+
+        /** Returns the number of acquires that waited. */
+        public long getWaitCount() {
+            return waitCount;
+        }
+
+        /** Returns the number of waits that ended while spinning. */
+        public long getSpinAcquireCount() {
+            return spinAcquireCount;
+        }
+
+        public long getTotalWaitNanos() {
+            return totalWaitNanos;
+        }
+
+        public long getMaxWaitNanos() {
+            return maxWaitNanos;
+        }
+
+        /**
+         * Returns the number of waits in each bucket of the histogram. Every
+         * bucket but the last holds the waits shorter than
+         * {@link #getBucketLimitNanos} of that bucket and not in a smaller
+         * bucket; the last holds the rest.
+         */
+        public long[] getHistogram() {
+            return histogram.clone();
+        }
+
+        /** Returns the exclusive upper bound of a bucket of the histogram. */
+        public static long getBucketLimitNanos(int bucket) {
+            if (bucket < 0 || bucket >= HISTOGRAM_BUCKETS)
+                throw new IndexOutOfBoundsException("bucket=" + bucket);
+            return (bucket == HISTOGRAM_BUCKETS - 1)
+                ? Long.MAX_VALUE : 1000L << (bucket << 1);
+        }
+    }
+    // END Android-added: Adaptive spinning and contention profiling.
+
     // VarHandle mechanics
     private static final VarHandle STATE;
     private static final VarHandle HEAD;
     private static final VarHandle TAIL;
+    // Android-added: Adaptive spinning and contention profiling.
+    private static final VarHandle CONTENTION;
 
     static {
         try {
@@ -2307,6 +2695,9 @@ public abstract class AbstractQueuedSynchronizer
             STATE = l.findVarHandle(AbstractQueuedSynchronizer.class, "state", int.class);
             HEAD = l.findVarHandle(AbstractQueuedSynchronizer.class, "head", Node.class);
             TAIL = l.findVarHandle(AbstractQueuedSynchronizer.class, "tail", Node.class);
+            // Android-added: Adaptive spinning and contention profiling.
+            CONTENTION = l.findVarHandle(AbstractQueuedSynchronizer.class, "contention",
+                    Contention.class);
         } catch (ReflectiveOperationException e) {
             throw new ExceptionInInitializerError(e);
         }
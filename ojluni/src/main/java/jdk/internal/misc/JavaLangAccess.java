@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jdk.internal.misc;
+
+/**
+ * Interface to specify methods for accessing package-private parts of {@code java.lang}.
+ * Android only has the methods libcore uses, none of which are in the upstream interface.
+ */
+@FunctionalInterface
+public interface JavaLangAccess {
+    /**
+     * Returns the class with the given binary name if the boot class path defines it, or
+     * {@code null} otherwise. Unlike loading through the boot class loader, a miss doesn't
+     * construct a {@code ClassNotFoundException}.
+     */
+    Class<?> findBootClassOrNull(String name);
+}
@@ -41,7 +41,11 @@ public class SharedSecrets {
     // BEGIN Android-removed: Pruned unused access interfaces.
     /*
     private static JavaUtilJarAccess javaUtilJarAccess;
+    */
+    // END Android-removed: Pruned unused access interfaces.
     private static JavaLangAccess javaLangAccess;
+    // BEGIN Android-removed: Pruned unused access interfaces.
+    /*
     private static JavaLangRefAccess javaLangRefAccess;
     private static JavaIOAccess javaIOAccess;
     private static JavaNetAccess javaNetAccess;
@@ -77,6 +81,8 @@ public class SharedSecrets {
     public static void setJavaUtilJarAccess(JavaUtilJarAccess access) {
         javaUtilJarAccess = access;
     }
+    */
+    // END Android-removed: Pruned unused access interfaces.
 
     public static void setJavaLangAccess(JavaLangAccess jla) {
         javaLangAccess = jla;
@@ -86,6 +92,8 @@ public class SharedSecrets {
         return javaLangAccess;
     }
 
+    // BEGIN Android-removed: Pruned unused access interfaces.
+    /*
     public static void setJavaLangRefAccess(JavaLangRefAccess jlra) {
         javaLangRefAccess = jlra;
     }
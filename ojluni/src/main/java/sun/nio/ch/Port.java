@@ -30,10 +30,9 @@ import java.nio.channels.*;
 import java.io.IOException;
 import java.io.Closeable;
 import java.io.FileDescriptor;
-import java.util.Map;
-import java.util.HashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import libcore.util.IntObjectMap;
 
 /**
  * Base implementation of AsynchronousChannelGroupImpl for Unix systems.
@@ -50,8 +49,11 @@ abstract class Port extends AsynchronousChannelGroupImpl {
 
     // maps fd to "pollable" channel
     protected final ReadWriteLock fdToChannelLock = new ReentrantReadWriteLock();
-    protected final Map<Integer,PollableChannel> fdToChannel =
-        new HashMap<Integer,PollableChannel>();
+    // Android-changed: Key by unboxed fd to avoid an Integer and a map node per channel.
+    // protected final Map<Integer,PollableChannel> fdToChannel =
+    //     new HashMap<Integer,PollableChannel>();
+    protected final IntObjectMap<PollableChannel> fdToChannel =
+        new IntObjectMap<PollableChannel>();
 
 
     Port(AsynchronousChannelProvider provider, ThreadPool pool) {
@@ -66,7 +68,7 @@ abstract class Port extends AsynchronousChannelGroupImpl {
         try {
             if (isShutdown())
                 throw new ShutdownChannelGroupException();
-            fdToChannel.put(Integer.valueOf(fd), ch);
+            fdToChannel.put(fd, ch);
         } finally {
             fdToChannelLock.writeLock().unlock();
         }
@@ -90,7 +92,7 @@ abstract class Port extends AsynchronousChannelGroupImpl {
 
         fdToChannelLock.writeLock().lock();
         try {
-            fdToChannel.remove(Integer.valueOf(fd));
+            fdToChannel.remove(fd);
 
             // last key to be removed so check if group is shutdown
             if (fdToChannel.isEmpty())
@@ -154,8 +156,11 @@ abstract class Port extends AsynchronousChannelGroupImpl {
             fdToChannelLock.writeLock().lock();
             count = 0;
             try {
-                for (Integer fd: fdToChannel.keySet()) {
-                    channels[count++] = fdToChannel.get(fd);
+                // Android-changed: Iterate over the values of an IntObjectMap.
+                // for (Integer fd: fdToChannel.keySet()) {
+                //     channels[count++] = fdToChannel.get(fd);
+                for (PollableChannel ch: fdToChannel.values()) {
+                    channels[count++] = ch;
                     if (count >= MAX_BATCH_SIZE)
                         break;
                 }
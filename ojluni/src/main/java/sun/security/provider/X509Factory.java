@@ -60,10 +60,18 @@ public class X509Factory {
 
     private static final int ENC_MAX_LENGTH = 4096 * 1024; // 4 MB MAX
 
+    // BEGIN Android-changed: Use caches whose gets take no lock.
+    // Every TLS handshake interns its peer's certificates, so lookups on a
+    // synchronized cache serialized handshakes on different threads.
+    // private static final Cache<Object, X509CertImpl> certCache
+    //     = Cache.newSoftMemoryCache(750);
+    // private static final Cache<Object, X509CRLImpl> crlCache
+    //     = Cache.newSoftMemoryCache(750);
     private static final Cache<Object, X509CertImpl> certCache
-        = Cache.newSoftMemoryCache(750);
+        = Cache.newConcurrentSoftMemoryCache(750);
     private static final Cache<Object, X509CRLImpl> crlCache
-        = Cache.newSoftMemoryCache(750);
+        = Cache.newConcurrentSoftMemoryCache(750);
+    // END Android-changed: Use caches whose gets take no lock.
 
     // BEGIN Android-removed
     /*
@@ -148,7 +156,10 @@ public class X509Factory {
      * @throws CertificateException if failures occur while obtaining the DER
      *      encoding for certificate data.
      */
-    public static synchronized X509CertImpl intern(X509Certificate c)
+    // Android-changed: Not synchronized, as the cache is safe for concurrent use.
+    // Threads interning the same new certificate at once may each get their own.
+    // public static synchronized X509CertImpl intern(X509Certificate c)
+    public static X509CertImpl intern(X509Certificate c)
             throws CertificateException {
         if (c == null) {
             return null;
@@ -184,7 +195,9 @@ public class X509Factory {
      * @throws CRLException if failures occur while obtaining the DER
      *      encoding for CRL data.
      */
-    public static synchronized X509CRLImpl intern(X509CRL c)
+    // Android-changed: Not synchronized, as the cache is safe for concurrent use.
+    // public static synchronized X509CRLImpl intern(X509CRL c)
+    public static X509CRLImpl intern(X509CRL c)
             throws CRLException {
         if (c == null) {
             return null;
@@ -213,7 +226,9 @@ public class X509Factory {
     /**
      * Get the X509CertImpl or X509CRLImpl from the cache.
      */
-    private static synchronized <K,V> V getFromCache(Cache<K,V> cache,
+    // Android-changed: Not synchronized, as the cache is safe for concurrent use.
+    // private static synchronized <K,V> V getFromCache(Cache<K,V> cache,
+    private static <K,V> V getFromCache(Cache<K,V> cache,
             byte[] encoding) {
         Object key = new Cache.EqualByteArray(encoding);
         return cache.get(key);
@@ -222,7 +237,9 @@ public class X509Factory {
     /**
      * Add the X509CertImpl or X509CRLImpl to the cache.
      */
-    private static synchronized <V> void addToCache(Cache<Object, V> cache,
+    // Android-changed: Not synchronized, as the cache is safe for concurrent use.
+    // private static synchronized <V> void addToCache(Cache<Object, V> cache,
+    private static <V> void addToCache(Cache<Object, V> cache,
             byte[] encoding, V value) {
         if (encoding.length > ENC_MAX_LENGTH) {
             return;
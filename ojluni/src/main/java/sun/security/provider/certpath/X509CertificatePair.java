@@ -79,8 +79,11 @@ public class X509CertificatePair {
     private X509Certificate reverse;
     private byte[] encoded;
 
+    // Android-changed: Use a cache whose gets take no lock.
+    // private static final Cache<Object, X509CertificatePair> cache
+    //     = Cache.newSoftMemoryCache(750);
     private static final Cache<Object, X509CertificatePair> cache
-        = Cache.newSoftMemoryCache(750);
+        = Cache.newConcurrentSoftMemoryCache(750);
 
     /**
      * Creates an empty instance of X509CertificatePair.
@@ -128,7 +131,9 @@ public class X509CertificatePair {
     /**
      * Clear the cache for debugging.
      */
-    public static synchronized void clearCache() {
+    // Android-changed: Not synchronized, as the cache is safe for concurrent use.
+    // public static synchronized void clearCache() {
+    public static void clearCache() {
         cache.clear();
     }
 
@@ -136,7 +141,9 @@ public class X509CertificatePair {
      * Create a X509CertificatePair from its encoding. Uses cache lookup
      * if possible.
      */
-    public static synchronized X509CertificatePair generateCertificatePair
+    // Android-changed: Not synchronized, as the cache is safe for concurrent use.
+    // public static synchronized X509CertificatePair generateCertificatePair
+    public static X509CertificatePair generateCertificatePair
             (byte[] encoded) throws CertificateException {
         Object key = new Cache.EqualByteArray(encoded);
         X509CertificatePair pair = cache.get(key);
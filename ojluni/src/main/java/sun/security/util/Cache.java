@@ -27,6 +27,12 @@ package sun.security.util;
 
 import java.util.*;
 import java.lang.ref.*;
+// BEGIN Android-added: Imports for ConcurrentMemoryCache.
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+// END Android-added: Imports for ConcurrentMemoryCache.
 
 /**
  * Abstract base class and factory for caches. A cache is a key-value mapping.
@@ -115,6 +121,24 @@ public abstract class Cache<K,V> {
      */
     public abstract void accept(CacheVisitor<K,V> visitor);
 
+    // BEGIN Android-added: Hit and miss counts, for caches that keep them.
+    /**
+     * Return the number of gets that found a valid entry, or -1 if this
+     * cache does not count them.
+     */
+    public long getHitCount() {
+        return -1;
+    }
+
+    /**
+     * Return the number of gets that found no valid entry, or -1 if this
+     * cache does not count them.
+     */
+    public long getMissCount() {
+        return -1;
+    }
+    // END Android-added: Hit and miss counts, for caches that keep them.
+
     /**
      * Return a new memory cache with the specified maximum size, unlimited
      * lifetime for entries, with the values held by SoftReferences.
@@ -140,6 +164,29 @@ public abstract class Cache<K,V> {
         return new MemoryCache<>(false, size);
     }
 
+    // BEGIN Android-added: A memory cache whose gets take no lock.
+    /**
+     * Return a new memory cache with the specified maximum size, unlimited
+     * lifetime for entries, with the values held by SoftReferences. Unlike
+     * the cache returned by newSoftMemoryCache(), gets on it take no lock,
+     * replacements are made in approximately LRU order, and it counts hits
+     * and misses.
+     */
+    public static <K,V> Cache<K,V> newConcurrentSoftMemoryCache(int size) {
+        return new ConcurrentMemoryCache<>(size, 0);
+    }
+
+    /**
+     * Return a new concurrent memory cache with the specified maximum size,
+     * the specified maximum lifetime (in seconds), with the values held by
+     * SoftReferences.
+     */
+    public static <K,V> Cache<K,V> newConcurrentSoftMemoryCache(int size,
+            int timeout) {
+        return new ConcurrentMemoryCache<>(size, timeout);
+    }
+    // END Android-added: A memory cache whose gets take no lock.
+
     /**
      * Return a dummy cache that does nothing.
      */
@@ -173,10 +220,19 @@ public abstract class Cache<K,V> {
         public int hashCode() {
             int h = hash;
             if (h == 0) {
-                h = b.length + 1;
-                for (int i = 0; i < b.length; i++) {
-                    h += (b[i] & 0xff) * 37;
+                // BEGIN Android-changed: Hash the bytes in order.
+                // The sum of the bytes was the same for many encodings that
+                // differ only in where their bytes are, such as certificates
+                // from one issuer, which then collided in the cache's map.
+                // h = b.length + 1;
+                // for (int i = 0; i < b.length; i++) {
+                //     h += (b[i] & 0xff) * 37;
+                // }
+                h = Arrays.hashCode(b);
+                if (h == 0) {
+                    h = 1;
                 }
+                // END Android-changed: Hash the bytes in order.
                 hash = h;
             }
             return h;
@@ -190,6 +246,10 @@ public abstract class Cache<K,V> {
                 return false;
             }
             EqualByteArray other = (EqualByteArray)obj;
+            // Android-added: Compare the hashes before the bytes.
+            if (hashCode() != other.hashCode()) {
+                return false;
+            }
             return Arrays.equals(this.b, other.b);
         }
     }
@@ -550,3 +610,248 @@ class MemoryCache<K,V> extends Cache<K,V> {
     }
 
 }
+
+// BEGIN Android-added: A memory cache whose gets take no lock.
+/**
+ * A memory cache for caches read from many threads at once, such as the
+ * certificate caches of X509Factory. Entries live in a ConcurrentHashMap
+ * with their values held by SoftReferences, so a get takes no lock.
+ *
+ * Keeping exact LRU order would make every get a write to shared state, so
+ * replacements are made by the CLOCK algorithm instead: entries are queued
+ * in insertion order, a get marks its entry as referenced, and an entry that
+ * reaches the head of the queue while referenced is unmarked and requeued
+ * rather than removed. Only puts that must evict take a lock.
+ */
+class ConcurrentMemoryCache<K,V> extends Cache<K,V> {
+
+    private final static float LOAD_FACTOR = 0.75f;
+
+    private final ConcurrentHashMap<K, Entry<K,V>> cacheMap;
+    // The entries in insertion order, including some no longer in cacheMap,
+    // which are dropped as they reach the head.
+    private final ConcurrentLinkedQueue<Entry<K,V>> clock =
+            new ConcurrentLinkedQueue<>();
+    private final AtomicInteger clockSize = new AtomicInteger();
+    private final ReferenceQueue<V> queue = new ReferenceQueue<>();
+    private final Object evictionLock = new Object();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile int maxSize;
+    private volatile long lifetime;
+
+    ConcurrentMemoryCache(int maxSize, int lifetime) {
+        this.maxSize = maxSize > 0 ? maxSize : 0;
+        this.lifetime = lifetime > 0 ? lifetime * 1000L : 0L;
+        int buckets = (int)(this.maxSize / LOAD_FACTOR) + 1;
+        cacheMap = new ConcurrentHashMap<>(Math.max(buckets, 16));
+    }
+
+    /**
+     * Empty the reference queue and remove all corresponding entries
+     * from the cache. ReferenceQueue.poll() locks, so gets do not call this.
+     */
+    private void emptyQueue() {
+        while (true) {
+            @SuppressWarnings("unchecked")
+            Entry<K,V> entry = (Entry<K,V>)queue.poll();
+            if (entry == null) {
+                break;
+            }
+            cacheMap.remove(entry.key, entry);
+        }
+    }
+
+    /**
+     * Scan all entries and remove all expired ones.
+     */
+    private void expungeExpiredEntries() {
+        emptyQueue();
+        if (lifetime == 0) {
+            return;
+        }
+        long time = System.currentTimeMillis();
+        for (Entry<K,V> entry : cacheMap.values()) {
+            if (entry.isValid(time, lifetime) == false) {
+                invalidate(entry);
+            }
+        }
+    }
+
+    private void invalidate(Entry<K,V> entry) {
+        cacheMap.remove(entry.key, entry);
+        entry.clear();
+    }
+
+    public int size() {
+        expungeExpiredEntries();
+        return cacheMap.size();
+    }
+
+    public void clear() {
+        synchronized (evictionLock) {
+            for (Entry<K,V> entry : cacheMap.values()) {
+                entry.clear();
+            }
+            cacheMap.clear();
+            clock.clear();
+            clockSize.set(0);
+            while (queue.poll() != null) {
+                // empty
+            }
+        }
+    }
+
+    public void put(K key, V value) {
+        emptyQueue();
+        long expirationTime = (lifetime == 0) ? 0 :
+                                        System.currentTimeMillis() + lifetime;
+        Entry<K,V> newEntry = new Entry<>(key, value, expirationTime, queue);
+        Entry<K,V> oldEntry = cacheMap.put(key, newEntry);
+        if (oldEntry != null) {
+            oldEntry.clear();
+        }
+        clock.offer(newEntry);
+        int queued = clockSize.incrementAndGet();
+        int size = cacheMap.size();
+        if ((maxSize > 0 && size > maxSize) || queued > 2 * size + 16) {
+            synchronized (evictionLock) {
+                evict();
+            }
+        }
+    }
+
+    public V get(Object key) {
+        Entry<K,V> entry = cacheMap.get(key);
+        if (entry != null) {
+            V value = entry.get();
+            long time = (lifetime == 0) ? 0 : System.currentTimeMillis();
+            if (value != null && entry.isValid(time, lifetime)) {
+                if (entry.referenced == false) {
+                    entry.referenced = true;
+                }
+                hits.increment();
+                return value;
+            }
+            invalidate(entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void remove(Object key) {
+        emptyQueue();
+        Entry<K,V> entry = cacheMap.remove(key);
+        if (entry != null) {
+            entry.clear();
+        }
+    }
+
+    public void setCapacity(int size) {
+        maxSize = size > 0 ? size : 0;
+        synchronized (evictionLock) {
+            evict();
+        }
+    }
+
+    public void setTimeout(int timeout) {
+        emptyQueue();
+        lifetime = timeout > 0 ? timeout * 1000L : 0L;
+    }
+
+    // it is a heavyweight method.
+    public void accept(CacheVisitor<K,V> visitor) {
+        expungeExpiredEntries();
+        Map<K,V> kvmap = new HashMap<>(cacheMap.size());
+        for (Entry<K,V> entry : cacheMap.values()) {
+            V value = entry.get();
+            if (value != null) {
+                kvmap.put(entry.key, value);
+            }
+        }
+        visitor.visit(kvmap);
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Drop queued entries that are no longer cached, then remove entries
+     * until the cache is within its maximum size. Must hold evictionLock.
+     */
+    private void evict() {
+        long time = (lifetime == 0) ? 0 : System.currentTimeMillis();
+        if (clockSize.get() > 2 * cacheMap.size() + 16) {
+            for (int i = clockSize.get(); i > 0; i--) {
+                Entry<K,V> entry = pollClock();
+                if (entry == null) {
+                    break;
+                }
+                if (isLive(entry, time)) {
+                    offerClock(entry);
+                } else {
+                    invalidate(entry);
+                }
+            }
+        }
+        // Gets may keep marking entries, so after every queued entry has had
+        // a second chance, remove entries regardless.
+        int chances = clockSize.get();
+        while (maxSize > 0 && cacheMap.size() > maxSize) {
+            Entry<K,V> entry = pollClock();
+            if (entry == null) {
+                break;
+            }
+            if (isLive(entry, time) && entry.referenced && chances-- > 0) {
+                entry.referenced = false;
+                offerClock(entry);
+            } else {
+                invalidate(entry);
+            }
+        }
+    }
+
+    private boolean isLive(Entry<K,V> entry, long time) {
+        return cacheMap.get(entry.key) == entry
+                && entry.isValid(time, lifetime);
+    }
+
+    private Entry<K,V> pollClock() {
+        Entry<K,V> entry = clock.poll();
+        if (entry != null) {
+            clockSize.decrementAndGet();
+        }
+        return entry;
+    }
+
+    private void offerClock(Entry<K,V> entry) {
+        clock.offer(entry);
+        clockSize.incrementAndGet();
+    }
+
+    private static class Entry<K,V> extends SoftReference<V> {
+
+        final K key;
+        final long expirationTime;
+        volatile boolean referenced;
+
+        Entry(K key, V value, long expirationTime, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+            this.expirationTime = expirationTime;
+        }
+
+        boolean isValid(long currentTime, long lifetime) {
+            return (lifetime == 0 || currentTime <= expirationTime)
+                    && (get() != null);
+        }
+    }
+}
+// END Android-added: A memory cache whose gets take no lock.
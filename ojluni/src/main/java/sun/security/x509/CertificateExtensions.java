@@ -32,6 +32,8 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.security.cert.CertificateException;
 import java.util.*;
+// Android-added: Cache of extension names, for decoding extensions lazily.
+import java.util.concurrent.ConcurrentHashMap;
 
 import sun.misc.HexDumpEncoder;
 
@@ -63,6 +65,19 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
 
     private Map<String,Extension> unparseableExtensions;
 
+    // BEGIN Android-added: Decode non-critical extensions on first access.
+    // The non-critical extensions not decoded yet, by the name they will have
+    // in map. Errors decoding a non-critical extension are recorded in
+    // unparseableExtensions rather than thrown, so leaving them until first
+    // access does not change which encodings the constructor accepts. Guarded
+    // by map, and set to null once empty.
+    private volatile Map<String,Extension> undecoded;
+
+    // The NAME of each extension class, which its getName() returns.
+    private static final Map<Class<?>,String> extensionNames =
+            new ConcurrentHashMap<>();
+    // END Android-added: Decode non-critical extensions on first access.
+
     /**
      * Default constructor.
      */
@@ -83,16 +98,143 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
 
         DerValue[] exts = in.getSequence(5);
 
+        // BEGIN Android-changed: Decode non-critical extensions on first access.
+        Map<String,Extension> pending = new HashMap<>();
         for (int i = 0; i < exts.length; i++) {
             Extension ext = new Extension(exts[i]);
-            parseExtension(ext);
+            // parseExtension(ext);
+            parseExtension(ext, pending);
+        }
+        if (!pending.isEmpty()) {
+            undecoded = pending;
         }
+        // END Android-changed: Decode non-critical extensions on first access.
     }
 
     private static Class[] PARAMS = {Boolean.class, Object.class};
 
+    // BEGIN Android-added: Decode non-critical extensions on first access.
+    // Parse the encoded extension, or add it to pending if it is non-critical.
+    private void parseExtension(Extension ext, Map<String,Extension> pending)
+            throws IOException {
+        Class<?> extClass;
+        try {
+            extClass = OIDMap.getClass(ext.getExtensionId());
+        } catch (CertificateException e) {
+            throw new IOException(e);
+        }
+        String name = (extClass != null) ? extensionName(extClass) : null;
+        if (name != null && pending.containsKey(name)) {
+            throw new IOException("Duplicate extensions not allowed");
+        }
+        if (name == null || ext.isCritical()) {
+            decodeExtension(ext);
+            return;
+        }
+        if (map.containsKey(name)) {
+            throw new IOException("Duplicate extensions not allowed");
+        }
+        pending.put(name, ext);
+    }
+
+    private static String extensionName(Class<?> extClass) {
+        String name = extensionNames.get(extClass);
+        if (name == null) {
+            try {
+                Field field = extClass.getDeclaredField("NAME");
+                name = (String)field.get(null);
+            } catch (Exception e) {
+                // Decode extensions of this class eagerly.
+                return null;
+            }
+            if (name != null) {
+                extensionNames.put(extClass, name);
+            }
+        }
+        return name;
+    }
+
+    // Decode all the extensions left for first access.
+    private void decodeAll() {
+        if (undecoded == null) {
+            return;
+        }
+        synchronized (map) {
+            Map<String,Extension> pending = undecoded;
+            if (pending != null) {
+                for (Extension ext : pending.values()) {
+                    decodeDeferredExtension(ext);
+                }
+                undecoded = null;
+            }
+        }
+    }
+
+    // Decode the named extension, if it was left for first access.
+    private void decode(String name) {
+        if (undecoded == null) {
+            return;
+        }
+        synchronized (map) {
+            Map<String,Extension> pending = undecoded;
+            if (pending != null) {
+                Extension ext = pending.remove(name);
+                if (ext != null) {
+                    decodeDeferredExtension(ext);
+                }
+                if (pending.isEmpty()) {
+                    undecoded = null;
+                }
+            }
+        }
+    }
+
+    private void decodeDeferredExtension(Extension ext) {
+        try {
+            decodeExtension(ext);
+        } catch (IOException e) {
+            // As for any error decoding a non-critical extension.
+            if (unparseableExtensions == null) {
+                unparseableExtensions = new TreeMap<String,Extension>();
+            }
+            unparseableExtensions.put(ext.getExtensionId().toString(),
+                    new UnparseableExtension(ext, e));
+        }
+    }
+
+    /**
+     * Returns the extension with the given OID, or null if there is none,
+     * decoding no other extension.
+     */
+    Extension getExtension(ObjectIdentifier oid) {
+        synchronized (map) {
+            Map<String,Extension> pending = undecoded;
+            if (pending != null) {
+                String name = null;
+                for (Map.Entry<String,Extension> entry : pending.entrySet()) {
+                    if (entry.getValue().getExtensionId().equals((Object)oid)) {
+                        name = entry.getKey();
+                        break;
+                    }
+                }
+                if (name != null) {
+                    decode(name);
+                }
+            }
+            for (Extension ext : map.values()) {
+                if (ext.getExtensionId().equals((Object)oid)) {
+                    return ext;
+                }
+            }
+        }
+        return null;
+    }
+    // END Android-added: Decode non-critical extensions on first access.
+
     // Parse the encoded extension
-    private void parseExtension(Extension ext) throws IOException {
+    // Android-changed: Renamed from parseExtension, which may now defer this.
+    // private void parseExtension(Extension ext) throws IOException {
+    private void decodeExtension(Extension ext) throws IOException {
         try {
             Class<?> extClass = OIDMap.getClass(ext.getExtensionId());
             if (extClass == null) {   // Unsupported extension
@@ -166,6 +308,7 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      */
     public void encode(OutputStream out, boolean isCertReq)
     throws CertificateException, IOException {
+        decodeAll();  // Android-added: Decode non-critical extensions on first access.
         DerOutputStream extOut = new DerOutputStream();
         Collection<Extension> allExts = map.values();
         Object[] objs = allExts.toArray();
@@ -200,6 +343,7 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      * @exception IOException if the object could not be cached.
      */
     public void set(String name, Object obj) throws IOException {
+        decode(name);  // Android-added: Decode non-critical extensions on first access.
         if (obj instanceof Extension) {
             map.put(name, (Extension)obj);
         } else {
@@ -213,6 +357,7 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      * @exception IOException if named extension is not found.
      */
     public Extension get(String name) throws IOException {
+        decode(name);  // Android-added: Decode non-critical extensions on first access.
         Extension obj = map.get(name);
         if (obj == null) {
             throw new IOException("No extension found with name " + name);
@@ -223,6 +368,7 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
     // Similar to get(String), but throw no exception, might return null.
     // Used in X509CertImpl::getExtension(OID).
     Extension getExtension(String name) {
+        decode(name);  // Android-added: Decode non-critical extensions on first access.
         return map.get(name);
     }
 
@@ -232,6 +378,7 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      * @exception IOException if named extension is not found.
      */
     public void delete(String name) throws IOException {
+        decode(name);  // Android-added: Decode non-critical extensions on first access.
         Object obj = map.get(name);
         if (obj == null) {
             throw new IOException("No extension found with name " + name);
@@ -240,6 +387,7 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
     }
 
     public String getNameByOid(ObjectIdentifier oid) throws IOException {
+        decodeAll();  // Android-added: Decode non-critical extensions on first access.
         for (String name: map.keySet()) {
             if (map.get(name).getExtensionId().equals((Object)oid)) {
                 return name;
@@ -253,6 +401,7 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      * attribute.
      */
     public Enumeration<Extension> getElements() {
+        decodeAll();  // Android-added: Decode non-critical extensions on first access.
         return Collections.enumeration(map.values());
     }
 
@@ -261,10 +410,12 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      * @return a collection view of the extensions in this Certificate.
      */
     public Collection<Extension> getAllExtensions() {
+        decodeAll();  // Android-added: Decode non-critical extensions on first access.
         return map.values();
     }
 
     public Map<String,Extension> getUnparseableExtensions() {
+        decodeAll();  // Android-added: Decode non-critical extensions on first access.
         if (unparseableExtensions == null) {
             return Collections.emptyMap();
         } else {
@@ -303,6 +454,7 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
             return true;
         if (!(other instanceof CertificateExtensions))
             return false;
+        decodeAll();  // Android-added: Decode non-critical extensions on first access.
         Collection<Extension> otherC =
                 ((CertificateExtensions)other).getAllExtensions();
         Object[] objs = otherC.toArray();
@@ -335,6 +487,7 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      * @return the hashcode value.
      */
     public int hashCode() {
+        decodeAll();  // Android-added: Decode non-critical extensions on first access.
         return map.hashCode() + getUnparseableExtensions().hashCode();
     }
 
@@ -347,6 +500,7 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      * @return  a string representation of this CertificateExtensions.
      */
     public String toString() {
+        decodeAll();  // Android-added: Decode non-critical extensions on first access.
         return map.toString();
     }
 
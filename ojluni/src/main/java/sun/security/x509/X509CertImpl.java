@@ -185,7 +185,19 @@ public class X509CertImpl extends X509Certificate implements DerEncoder {
      */
     public X509CertImpl(byte[] certData) throws CertificateException {
         try {
-            parse(new DerValue(certData));
+            // BEGIN Android-changed: Parse one private copy of certData in place.
+            // new DerValue(byte[]) copied certData, and parse() then re-encoded
+            // the whole certificate for its encoded form. The DerValues read
+            // from a DerInputStream share its buffer, so one copy is enough.
+            // parse(new DerValue(certData));
+            byte[] encoded = certData.clone();
+            DerInputStream in = new DerInputStream(encoded);
+            DerValue val = in.getDerValue();
+            if (in.available() != 0) {
+                throw new IOException("extra data given to DerValue constructor");
+            }
+            parse(val, isDerEncoding(val, encoded) ? encoded : null);
+            // END Android-changed: Parse one private copy of certData in place.
         } catch (IOException e) {
             signedCert = null;
             throw new CertificateException("Unable to initialize, " + e, e);
@@ -1357,18 +1369,21 @@ public class X509CertImpl extends X509Certificate implements DerEncoder {
             if (extensions == null) {
                 return null;
             } else {
-                Extension ex = extensions.getExtension(oid.toString());
-                if (ex != null) {
-                    return ex;
-                }
-                for (Extension ex2: extensions.getAllExtensions()) {
-                    if (ex2.getExtensionId().equals((Object)oid)) {
-                        //XXXX May want to consider cloning this
-                        return ex2;
-                    }
-                }
-                /* no such extension in this certificate */
-                return null;
+                // BEGIN Android-changed: Decode no other extension than the one found.
+                // Extension ex = extensions.getExtension(oid.toString());
+                // if (ex != null) {
+                //     return ex;
+                // }
+                // for (Extension ex2: extensions.getAllExtensions()) {
+                //     if (ex2.getExtensionId().equals((Object)oid)) {
+                //         //XXXX May want to consider cloning this
+                //         return ex2;
+                //     }
+                // }
+                // /* no such extension in this certificate */
+                // return null;
+                return extensions.getExtension(oid);
+                // END Android-changed: Decode no other extension than the one found.
             }
         } catch (IOException ioe) {
             return null;
@@ -1855,6 +1870,21 @@ public class X509CertImpl extends X509Certificate implements DerEncoder {
         readOnly = true;
     }
 
+    // BEGIN Android-added: Check whether an encoding is what parse() would re-encode.
+    /**
+     * Returns whether {@code encoded} is exactly what {@code val.toByteArray()}
+     * would return: whether its outer length has the minimal, definite form.
+     */
+    private static boolean isDerEncoding(DerValue val, byte[] encoded) {
+        int length = val.length();
+        int header = 2;
+        if (length > 0x7f) {
+            header += (32 - Integer.numberOfLeadingZeros(length) + 7) / 8;
+        }
+        return encoded.length == header + length;
+    }
+    // END Android-added: Check whether an encoding is what parse() would re-encode.
+
     /**
      * Extract the subject or issuer X500Principal from an X509Certificate.
      * Parses the encoded form of the cert to preserve the principal's
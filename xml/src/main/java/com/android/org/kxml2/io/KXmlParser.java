@@ -45,6 +45,18 @@ public class KXmlParser implements XmlPullParser, Closeable {
     private static final String PROPERTY_LOCATION = "http://xmlpull.org/v1/doc/properties.html#location";
     private static final String FEATURE_RELAXED = "http://xmlpull.org/v1/doc/features.html#relaxed";
 
+    /**
+     * When enabled, attribute values that need no entity resolution or
+     * whitespace normalization are kept as raw characters and only converted
+     * to strings by {@link #getAttributeValue(int)} and friends. Documents
+     * with many attributes that callers mostly ignore then produce far less
+     * garbage. Use {@link #getAttributeIndex} and
+     * {@link #attributeValueEquals} to inspect attributes without creating
+     * strings at all.
+     */
+    public static final String FEATURE_LAZY_ATTRIBUTE_VALUES
+            = "http://xmlpull.org/v1/doc/features.html#lazy-attribute-values";
+
     private static final Map<String, String> DEFAULT_ENTITIES = new HashMap<String, String>();
     static {
         DEFAULT_ENTITIES.put("lt", "<");
@@ -108,6 +120,7 @@ public class KXmlParser implements XmlPullParser, Closeable {
     private boolean processNsp;
     private boolean relaxed;
     private boolean keepNamespaceAttributes;
+    private boolean lazyAttributeValues;
 
     /**
      * If non-null, the contents of the read buffer must be copied into this
@@ -171,10 +184,20 @@ public class KXmlParser implements XmlPullParser, Closeable {
      * i + 0 = attribute namespace URI
      * i + 1 = attribute namespace prefix
      * i + 2 = attribute qualified name (may contain ":", as in "html:h1")
-     * i + 3 = attribute value
+     * i + 3 = attribute value, or null if it hasn't been materialized from
+     *         attributeChars yet
      */
     private String[] attributes = new String[16];
 
+    /*
+     * In lazy attribute value mode, the raw characters of the current
+     * element's unmaterialized attribute values, and for each attribute an
+     * (offset, length) pair into attributeChars.
+     */
+    private char[] attributeChars = new char[256];
+    private int attributeCharsLength;
+    private int[] attributeValueRanges = new int[8];
+
     private String error;
 
     private boolean unresolved;
@@ -216,7 +239,7 @@ public class KXmlParser implements XmlPullParser, Closeable {
 
                 nspStack = ensureCapacity(nspStack, j + 2);
                 nspStack[j] = attrName;
-                nspStack[j + 1] = attributes[i + 3];
+                nspStack[j + 1] = attributeValue(i);
 
                 if (attrName != null && attributes[i + 3].isEmpty()) {
                     checkRelaxed("illegal empty namespace");
@@ -234,6 +257,14 @@ public class KXmlParser implements XmlPullParser, Closeable {
                             attributes,
                             i,
                             ((--attributeCount) << 2) - i);
+                    if (lazyAttributeValues) {
+                        System.arraycopy(
+                                attributeValueRanges,
+                                (i >> 1) + 2,
+                                attributeValueRanges,
+                                i >> 1,
+                                (attributeCount << 1) - (i >> 1));
+                    }
 
                     i -= 4;
                 }
@@ -300,6 +331,21 @@ public class KXmlParser implements XmlPullParser, Closeable {
         return bigger;
     }
 
+    /**
+     * Grows {@code attributes} to hold at least {@code required} entries, and
+     * {@code attributeValueRanges} along with it so that removing an attribute
+     * can always shift the ranges of those after it.
+     */
+    private void ensureAttributeCapacity(int required) {
+        attributes = ensureCapacity(attributes, required);
+        int ranges = attributes.length >> 1;
+        if (attributeValueRanges.length < ranges) {
+            int[] bigger = new int[ranges];
+            System.arraycopy(attributeValueRanges, 0, bigger, 0, attributeValueRanges.length);
+            attributeValueRanges = bigger;
+        }
+    }
+
     private void checkRelaxed(String errorMessage) throws XmlPullParserException {
         if (!relaxed) {
             throw new XmlPullParserException(errorMessage, this, null);
@@ -1058,6 +1104,7 @@ public class KXmlParser implements XmlPullParser, Closeable {
         }
         name = readName();
         attributeCount = 0;
+        attributeCharsLength = 0;
 
         while (true) {
             skip();
@@ -1091,7 +1138,7 @@ public class KXmlParser implements XmlPullParser, Closeable {
             String attrName = readName();
 
             int i = (attributeCount++) * 4;
-            attributes = ensureCapacity(attributes, i + 4);
+            ensureAttributeCapacity(i + 4);
             attributes[i] = "";
             attributes[i + 1] = null;
             attributes[i + 2] = attrName;
@@ -1120,8 +1167,12 @@ public class KXmlParser implements XmlPullParser, Closeable {
                     throw new XmlPullParserException("attr value delimiter missing!", this, null);
                 }
 
-                attributes[i + 3] = readValue(delimiter, true, throwOnResolveFailure,
-                        ValueContext.ATTRIBUTE);
+                if (lazyAttributeValues && !xmldecl && readLazyAttributeValue(delimiter, i)) {
+                    attributes[i + 3] = null;
+                } else {
+                    attributes[i + 3] = readValue(delimiter, true, throwOnResolveFailure,
+                            ValueContext.ATTRIBUTE);
+                }
 
                 if (delimiter != ' ' && peekCharacter() == delimiter) {
                     position++; // end quote
@@ -1160,12 +1211,12 @@ public class KXmlParser implements XmlPullParser, Closeable {
             Map<String, String> elementDefaultAttributes = defaultAttributes.get(name);
             if (elementDefaultAttributes != null) {
                 for (Map.Entry<String, String> entry : elementDefaultAttributes.entrySet()) {
-                    if (getAttributeValue(null, entry.getKey()) != null) {
+                    if (getAttributeIndex(null, entry.getKey()) != -1) {
                         continue; // an explicit value overrides the default
                     }
 
                     int i = (attributeCount++) * 4;
-                    attributes = ensureCapacity(attributes, i + 4);
+                    ensureAttributeCapacity(i + 4);
                     attributes[i] = "";
                     attributes[i + 1] = null;
                     attributes[i + 2] = entry.getKey();
@@ -1179,6 +1230,55 @@ public class KXmlParser implements XmlPullParser, Closeable {
         elementStack[sp + 2] = name;
     }
 
+    /**
+     * Copies the attribute value at the current position into attributeChars
+     * and records its range for the attribute at {@code i}, without creating
+     * a string. This only handles values that lie entirely within the buffer
+     * and need neither entity resolution nor normalization; otherwise it
+     * returns false without consuming anything and the caller should use
+     * {@link #readValue}.
+     */
+    private boolean readLazyAttributeValue(char delimiter, int i) {
+        for (int end = position; end < limit; end++) {
+            char c = buffer[end];
+            if (c == delimiter || (delimiter == ' ' && (c <= ' ' || c == '>'))) {
+                int length = end - position;
+                if (attributeCharsLength + length > attributeChars.length) {
+                    char[] bigger = new char[(attributeCharsLength + length) * 2];
+                    System.arraycopy(attributeChars, 0, bigger, 0, attributeCharsLength);
+                    attributeChars = bigger;
+                }
+                System.arraycopy(buffer, position, attributeChars, attributeCharsLength, length);
+
+                int r = i >> 1;
+                attributeValueRanges[r] = attributeCharsLength;
+                attributeValueRanges[r + 1] = length;
+                attributeCharsLength += length;
+                position = end;
+                return true;
+            }
+            if (c == '&' || c == '<' || c == '\r' || c == '\n') {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value of the attribute at {@code i}, creating its string
+     * first if it was read lazily.
+     */
+    private String attributeValue(int i) {
+        String value = attributes[i + 3];
+        if (value == null) {
+            int r = i >> 1;
+            value = stringPool.get(attributeChars, attributeValueRanges[r],
+                    attributeValueRanges[r + 1]);
+            attributes[i + 3] = value;
+        }
+        return value;
+    }
+
     /**
      * Reads an entity reference from the buffer, resolves it, and writes the
      * resolved entity to {@code out}. If the entity cannot be read or resolved,
@@ -1765,6 +1865,8 @@ public class KXmlParser implements XmlPullParser, Closeable {
             return relaxed;
         } else if (FEATURE_PROCESS_DOCDECL.equals(feature)) {
             return processDocDecl;
+        } else if (FEATURE_LAZY_ATTRIBUTE_VALUES.equals(feature)) {
+            return lazyAttributeValues;
         } else {
             return false;
         }
@@ -1889,7 +1991,7 @@ public class KXmlParser implements XmlPullParser, Closeable {
                 if (attributes[i + 1] != null) {
                     buf.append("{" + attributes[i] + "}" + attributes[i + 1] + ":");
                 }
-                buf.append(attributes[i + 2] + "='" + attributes[i + 3] + "'");
+                buf.append(attributes[i + 2] + "='" + attributeValue(i) + "'");
             }
 
             buf.append('>');
@@ -2026,18 +2128,62 @@ public class KXmlParser implements XmlPullParser, Closeable {
         if (index >= attributeCount) {
             throw new IndexOutOfBoundsException();
         }
-        return attributes[(index * 4) + 3];
+        return attributeValue(index * 4);
     }
 
     public String getAttributeValue(String namespace, String name) {
+        int index = getAttributeIndex(namespace, name);
+        return index != -1 ? attributeValue(index * 4) : null;
+    }
+
+    /**
+     * Returns the index of the attribute with the given name, or -1 if the
+     * current element has no such attribute. This doesn't create strings for
+     * any attribute values.
+     *
+     * @param namespace the attribute's namespace, or null to match any
+     */
+    public int getAttributeIndex(String namespace, String name) {
         for (int i = (attributeCount * 4) - 4; i >= 0; i -= 4) {
             if (attributes[i + 2].equals(name)
                     && (namespace == null || attributes[i].equals(namespace))) {
-                return attributes[i + 3];
+                return i / 4;
             }
         }
 
-        return null;
+        return -1;
+    }
+
+    /**
+     * Returns true if the value of the attribute at {@code index} is equal to
+     * {@code value}. For values read lazily this compares the raw characters
+     * rather than creating a string.
+     */
+    public boolean attributeValueEquals(int index, String value) {
+        if (index >= attributeCount) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (value == null) {
+            return false;
+        }
+        int i = index * 4;
+        String materialized = attributes[i + 3];
+        if (materialized != null) {
+            return materialized.equals(value);
+        }
+
+        int r = i >> 1;
+        int offset = attributeValueRanges[r];
+        int length = attributeValueRanges[r + 1];
+        if (value.length() != length) {
+            return false;
+        }
+        for (int j = 0; j < length; j++) {
+            if (attributeChars[offset + j] != value.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public int getEventType() throws XmlPullParserException {
@@ -2098,6 +2244,8 @@ public class KXmlParser implements XmlPullParser, Closeable {
             processDocDecl = value;
         } else if (FEATURE_RELAXED.equals(feature)) {
             relaxed = value;
+        } else if (FEATURE_LAZY_ATTRIBUTE_VALUES.equals(feature)) {
+            lazyAttributeValues = value;
         } else {
             throw new XmlPullParserException("unsupported feature: " + feature, this, null);
         }